@@ -0,0 +1,172 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * @author Fabian
+ * CategorySetParserBenchmark class measures the parse hot path on synthetic input files.
+ * The input varies in size, duplicate ratio, illegal category ratio and number of legal categories.
+ *
+ * Besides the operations per second of JMH, every parse benchmark reports "bytes" and "lines" per second through the
+ * Throughput counters. Run with "-prof gc" (the default of "ant bench") for the allocation rate.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CategorySetParserBenchmark {
+
+	private static final int SAMPLE_LINES = 4096;
+	private static final int TOP_K = 10;
+	private static final int HEAVY_HITTER_CAPACITY = 1000;
+
+	@Param({"100000", "1000000"})
+	public long lines;
+
+	@Param({"0.0", "0.5", "0.9"})
+	public double duplicateRatio;
+
+	@Param({"0.0", "0.2"})
+	public double illegalRatio;
+
+	@Param({"5", "1000"})
+	public int categories;
+
+	private File inputFile;
+	private SyntheticInput input;
+	private CategorySetParser parser;
+	private CategorySetParser heavyHitterParser;
+	private String[] sampleLines;
+	private LinkedHashMap<String, Integer> unsortedCounts;
+
+	@Setup(Level.Trial)
+	public void createInput() throws IOException{
+		inputFile = File.createTempFile("category-bench", ".txt");
+		input = SyntheticInput.write(inputFile, lines, duplicateRatio, illegalRatio, categories, 42);
+		parser = new CategorySetParser(input.getLegalCategories(), inputFile);
+		heavyHitterParser = new CategorySetParser(input.getLegalCategories(), inputFile);
+		heavyHitterParser.setHeavyHitterCapacity(HEAVY_HITTER_CAPACITY);
+		sampleLines = readSample(inputFile, SAMPLE_LINES);
+		unsortedCounts = new LinkedHashMap<>();
+		Random random = new Random(42);
+		for (String category : input.getLegalCategories()) {
+			unsortedCounts.put(category, random.nextInt(100000));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteInput(){
+		inputFile.delete();
+	}
+
+	/**
+	 * Per second counters of the parse benchmarks.
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Throughput {
+		public long bytes;
+		public long lines;
+
+		@Setup(Level.Iteration)
+		public void clear(){
+			bytes = 0;
+			lines = 0;
+		}
+
+		void add(SyntheticInput input){
+			bytes += input.getBytes();
+			lines += input.getLines();
+		}
+	}
+
+	@Benchmark
+	public ParserValues parse(Throughput throughput) throws IOException{
+		ParserValues values = parser.parse();
+		throughput.add(input);
+		return values;
+	}
+
+	@Benchmark
+	public ParserValues parseMapped(Throughput throughput) throws IOException{
+		ParserValues values = parser.parseMapped();
+		throughput.add(input);
+		return values;
+	}
+
+	/**
+	 * parseMapped with the most repeated lines counted, the difference to parseMapped is the cost of the heavy hitter sketch.
+	 */
+	@Benchmark
+	public ParserValues parseMappedHeavyHitters(Throughput throughput) throws IOException{
+		ParserValues values = heavyHitterParser.parseMapped();
+		throughput.add(input);
+		return values;
+	}
+
+	@Benchmark
+	public ParserValues parseParallel(Throughput throughput) throws IOException{
+		ParserValues values = parser.parseParallel();
+		throughput.add(input);
+		return values;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLE_LINES)
+	public void readCategory(Blackhole blackhole){
+		for (String line : sampleLines) {
+			blackhole.consume(parser.readCategory(line));
+		}
+	}
+
+	@Benchmark
+	public LinkedHashMap<String, Integer> sortByValues(){
+		return CategorySetParser.sortByValues(new LinkedHashMap<>(unsortedCounts));
+	}
+
+	@Benchmark
+	public LinkedHashMap<String, Integer> topCategories(){
+		return new ParserValues(unsortedCounts, Collections.<String>emptySet()).getTopCategories(TOP_K);
+	}
+
+	private static String[] readSample(File file, int count) throws IOException{
+		List<String> sample = new ArrayList<>(count);
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while (sample.size() < count && (line = reader.readLine()) != null) {
+				sample.add(line);
+			}
+		}
+		return sample.toArray(new String[sample.size()]);
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Fabian
+ * IngestLoadDriver class puts load on a CategoryIngestServer: several producer connections ingest synthetic lines at the same time
+ * while a reader asks for the counts in a loop. It prints the ingest rate and the latency of the count queries.
+ *
+ * Options:
+ * 	--port=P			ingest into a running server (java com.project.CategoryCountApplication --serve=P), else one is started
+ * 						in this process with the legal categories CATEGORY0..n
+ * 	--producers=N		number of producer connections, 8 by default
+ * 	--lines=N			lines sent per producer, 1000000 by default
+ * 	--distinct=N		number of distinct lines the producers pick from, 100000 by default
+ * 	--categories=N		number of legal categories, 5 by default
+ *
+ */
+public final class IngestLoadDriver {
+
+	private IngestLoadDriver() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int port = -1;
+		int producers = 8;
+		long lines = 1000000;
+		int distinct = 100000;
+		int categories = 5;
+		for (String arg : args) {
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(value);
+			} else if (arg.startsWith("--producers=")) {
+				producers = Integer.parseInt(value);
+			} else if (arg.startsWith("--lines=")) {
+				lines = Long.parseLong(value);
+			} else if (arg.startsWith("--distinct=")) {
+				distinct = Integer.parseInt(value);
+			} else if (arg.startsWith("--categories=")) {
+				categories = Integer.parseInt(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+
+		CategoryIngestServer server = null;
+		if (port < 0) {
+			String[] legalCategories = new String[categories];
+			for (int i = 0; i < categories; i++) {
+				legalCategories[i] = "CATEGORY" + i;
+			}
+			server = new CategoryIngestServer(new ConcurrentCategoryCounter(legalCategories), 0);
+			port = server.getPort();
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(producers + 1);
+		final AtomicBoolean ingesting = new AtomicBoolean(true);
+		Future<long[]> reader = pool.submit(queryLoop(port, ingesting));
+		List<Future<Long>> results = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < producers; i++) {
+			results.add(pool.submit(producer(port, lines, distinct, categories, i)));
+		}
+		long counted = 0;
+		for (Future<Long> result : results) {
+			counted += result.get();
+		}
+		long elapsed = System.nanoTime() - start;
+		ingesting.set(false);
+		long[] queryNanos = reader.get();
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+		if (server != null) {
+			server.close();
+		}
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("producers        %d%n", producers);
+		System.out.printf("lines sent       %d%n", producers * lines);
+		System.out.printf("lines counted    %d%n", counted);
+		System.out.printf("ingest rate      %.0f lines/s%n", producers * lines / seconds);
+		Arrays.sort(queryNanos);
+		if (queryNanos.length > 0) {
+			System.out.printf("count queries    %d%n", queryNanos.length);
+			System.out.printf("query p50        %.3f ms%n", queryNanos[queryNanos.length / 2] / 1e6);
+			System.out.printf("query p99        %.3f ms%n", queryNanos[(int) (queryNanos.length * 0.99)] / 1e6);
+		}
+	}
+
+	private static Callable<Long> producer(final int port, final long lines, final int distinct, final int categories, final int seed){
+		return new Callable<Long>() {
+			@Override
+			public Long call() throws IOException {
+				Random random = new Random(seed);
+				try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+					BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+					writer.write("INGEST\n");
+					for (long i = 0; i < lines; i++) {
+						int line = random.nextInt(distinct);
+						writer.write("CATEGORY" + (line % categories) + " sub-category " + line + "\n");
+					}
+					writer.flush();
+					socket.shutdownOutput();
+					String reply = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+					return Long.parseLong(reply.substring(reply.lastIndexOf(' ') + 1));
+				}
+			}
+		};
+	}
+
+	/**
+	 * Reader that asks for the counts while the producers run.
+	 * @return				Latency of every query in nanoseconds
+	 */
+	private static Callable<long[]> queryLoop(final int port, final AtomicBoolean ingesting){
+		return new Callable<long[]>() {
+			@Override
+			public long[] call() throws IOException, InterruptedException {
+				long[] latencies = new long[1024];
+				int queries = 0;
+				while (ingesting.get()) {
+					long start = System.nanoTime();
+					try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+						socket.getOutputStream().write("COUNTS\n".getBytes(StandardCharsets.UTF_8));
+						BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+						String line;
+						while ((line = reader.readLine()) != null && !line.isEmpty()) {
+						}
+					}
+					if (queries == latencies.length) {
+						latencies = Arrays.copyOf(latencies, queries * 2);
+					}
+					latencies[queries++] = System.nanoTime() - start;
+					Thread.sleep(10);
+				}
+				return Arrays.copyOf(latencies, queries);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Fabian
+ * MetricsOverheadBenchmark class measures what ParserMetrics costs. ParserMetrics.ENABLED is fixed when the JVM starts, so every
+ * parse path is run in a fork without metrics and in a fork with -Dcom.project.metrics=true. The "disabled" scores should match
+ * CategorySetParserBenchmark within the noise, e.g. ant bench -Dbench.args="MetricsOverheadBenchmark".
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+	private static final String ENABLE_METRICS = "-Dcom.project.metrics=true";
+
+	@Param({"1000000"})
+	public long lines;
+
+	@Param({"0.5"})
+	public double duplicateRatio;
+
+	private File inputFile;
+	private CategorySetParser parser;
+
+	@Setup(Level.Trial)
+	public void createInput() throws IOException{
+		inputFile = File.createTempFile("metrics-bench", ".txt");
+		SyntheticInput input = SyntheticInput.write(inputFile, lines, duplicateRatio, 0.1, 5, 42);
+		parser = new CategorySetParser(input.getLegalCategories(), inputFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteInput(){
+		inputFile.delete();
+	}
+
+	@Benchmark
+	@Fork(1)
+	public ParserValues parseDisabled() throws IOException{
+		return parser.parse();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = ENABLE_METRICS)
+	public ParserValues parseEnabled() throws IOException{
+		return parser.parse();
+	}
+
+	@Benchmark
+	@Fork(1)
+	public ParserValues parseMappedDisabled() throws IOException{
+		return parser.parseMapped();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = ENABLE_METRICS)
+	public ParserValues parseMappedEnabled() throws IOException{
+		return parser.parseMapped();
+	}
+
+}
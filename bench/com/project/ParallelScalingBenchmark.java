@@ -0,0 +1,85 @@
+package com.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Fabian
+ * ParallelScalingBenchmark class measures how parseParallel scales with the number of worker threads, against parseMapped on one
+ * thread, e.g. ant bench -Dbench.args="ParallelScalingBenchmark -p duplicateRatio=0.0".
+ *
+ * With mostly distinct lines every range hands almost all of its lines to the merge, so the input shows whether the merge keeps
+ * up with the workers: parseParallel with parallelism 1 pays the merge on top of parseMapped, and should overtake it from 2 threads.
+ * The chunk size is small enough that every thread gets several ranges of the input.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelScalingBenchmark {
+
+	@Param({"1", "2", "4", "8"})
+	public int parallelism;
+
+	@Param({"2000000"})
+	public long lines;
+
+	@Param({"0.0", "0.5"})
+	public double duplicateRatio;
+
+	@Param({"4194304"})
+	public long chunkSize;
+
+	private File inputFile;
+	private SyntheticInput input;
+	private CategorySetParser parser;
+
+	@Setup(Level.Trial)
+	public void createInput() throws IOException{
+		inputFile = File.createTempFile("scaling-bench", ".txt");
+		input = SyntheticInput.write(inputFile, lines, duplicateRatio, 0.05, 5, 42);
+		parser = new CategorySetParser(input.getLegalCategories(), inputFile);
+		parser.setDedupIndexType(DedupIndexType.ARENA);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteInput(){
+		inputFile.delete();
+	}
+
+	@Benchmark
+	public ParserValues parseParallel(CategorySetParserBenchmark.Throughput throughput) throws IOException{
+		ParserValues values = parser.parseParallel(parallelism, chunkSize);
+		throughput.add(input);
+		return values;
+	}
+
+	/**
+	 * The sequential reference, the same for every parallelism.
+	 */
+	@Benchmark
+	public ParserValues parseMapped(CategorySetParserBenchmark.Throughput throughput) throws IOException{
+		ParserValues values = parser.parseMapped();
+		throughput.add(input);
+		return values;
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Fabian
+ * ParseServerLoadDriver class compares the thread models of CategoryParseServer. For every mode a server is started in this process
+ * and the same number of small upload requests is sent with a fixed client concurrency. The driver prints the throughput, the p50
+ * and p99 latency and the number of requests rejected by the backpressure limit.
+ *
+ * Options:
+ * 	--requests=N		requests per mode, 20000 by default
+ * 	--concurrency=N		requests in flight on the client side, 1000 by default
+ * 	--lines=N			lines per uploaded body, 50 by default
+ * 	--threads=N			platform pool size of the PLATFORM mode, twice the number of processors by default
+ * 	--max-in-flight=N	backpressure limit of the server, half the client concurrency by default so that it is reached
+ *
+ * On JVMs without virtual threads the VIRTUAL mode falls back to platform threads, the driver reports it.
+ *
+ */
+public final class ParseServerLoadDriver {
+
+	private static final String[] LEGAL_VALUES = new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"};
+
+	private ParseServerLoadDriver() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int requests = 20000;
+		int concurrency = 1000;
+		int lines = 50;
+		int threads = Runtime.getRuntime().availableProcessors() * 2;
+		int maxInFlight = -1;
+		for (String arg : args) {
+			int value = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+			if (arg.startsWith("--requests=")) {
+				requests = value;
+			} else if (arg.startsWith("--concurrency=")) {
+				concurrency = value;
+			} else if (arg.startsWith("--lines=")) {
+				lines = value;
+			} else if (arg.startsWith("--threads=")) {
+				threads = value;
+			} else if (arg.startsWith("--max-in-flight=")) {
+				maxInFlight = value;
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		if (maxInFlight < 0) {
+			maxInFlight = Math.max(1, concurrency / 2);
+		}
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			body.append(LEGAL_VALUES[i % LEGAL_VALUES.length]).append(" sub-category ").append(i % (lines / 2 + 1)).append('\n');
+		}
+		byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+		System.out.printf("%-10s %-8s %12s %10s %10s %10s%n", "mode", "virtual", "requests/s", "p50 ms", "p99 ms", "rejected");
+		for (CategoryParseServer.ThreadMode mode : CategoryParseServer.ThreadMode.values()) {
+			CategoryParseServer server = new CategoryParseServer(LEGAL_VALUES);
+			server.setThreadMode(mode);
+			server.setPlatformThreads(threads);
+			server.setMaxInFlight(maxInFlight);
+			server.start(0);
+			try {
+				//Warm up, then measure.
+				run(server.getPort(), bodyBytes, Math.min(requests, 2000), concurrency);
+				Result result = run(server.getPort(), bodyBytes, requests, concurrency);
+				System.out.printf("%-10s %-8s %12.0f %10.3f %10.3f %10d%n", mode, server.isVirtualThreads(), result.throughput,
+						result.percentile(0.5) / 1e6, result.percentile(0.99) / 1e6, result.rejected);
+			} finally {
+				server.close();
+			}
+		}
+	}
+
+	private static Result run(final int port, final byte[] body, int requests, int concurrency) throws Exception {
+		ExecutorService clients = CategoryParseServer.newVirtualThreadExecutor();
+		if (clients == null) {
+			clients = Executors.newFixedThreadPool(concurrency);
+		}
+		final Semaphore window = new Semaphore(concurrency);
+		final AtomicInteger rejected = new AtomicInteger();
+		List<Future<Long>> latencies = new ArrayList<>(requests);
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			window.acquire();
+			latencies.add(clients.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws IOException {
+					try {
+						long begin = System.nanoTime();
+						if (post(port, body) == 503) {
+							rejected.incrementAndGet();
+						}
+						return System.nanoTime() - begin;
+					} finally {
+						window.release();
+					}
+				}
+			}));
+		}
+		long[] nanos = new long[requests];
+		for (int i = 0; i < requests; i++) {
+			nanos[i] = latencies.get(i).get();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		clients.shutdown();
+		clients.awaitTermination(10, TimeUnit.SECONDS);
+		Arrays.sort(nanos);
+		return new Result(nanos, requests / seconds, rejected.get());
+	}
+
+	private static int post(int port, byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/parse").openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(body.length);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+		int status = connection.getResponseCode();
+		InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		if (in != null) {
+			ByteArrayOutputStream drain = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				drain.write(buffer, 0, read);
+			}
+			in.close();
+		}
+		return status;
+	}
+
+	private static final class Result {
+		final long[] sortedNanos;
+		final double throughput;
+		final int rejected;
+
+		Result(long[] sortedNanos, double throughput, int rejected) {
+			this.sortedNanos = sortedNanos;
+			this.throughput = throughput;
+			this.rejected = rejected;
+		}
+
+		long percentile(double quantile) {
+			return sortedNanos[Math.min(sortedNanos.length - 1, (int) (sortedNanos.length * quantile))];
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Fabian
+ * ReadBlockSizeBenchmark class sweeps the block size of CategorySetParser.setBlockSize() to pick one per storage tier. The input
+ * file is written to "directory", the temporary directory by default, so every tier is measured with the same benchmark, e.g.
+ * ant bench -Dbench.args="ReadBlockSizeBenchmark -p directory=/mnt/disk".
+ *
+ * parseChannel reads through the direct buffers and read-ahead thread of PipelinedBlockReader, parseDecoded reads the same
+ * file through a Reader with an explicit charset, parseMapped is the reference that does not depend on the block size.
+ * The file is in the page cache after the first iteration; drop the cache between runs to measure the device itself.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadBlockSizeBenchmark {
+
+	@Param({"4096", "16384", "65536", "262144", "1048576"})
+	public int blockSize;
+
+	@Param({"1000000"})
+	public long lines;
+
+	@Param({""})
+	public String directory;
+
+	private File inputFile;
+	private SyntheticInput input;
+	private CategorySetParser parser;
+	private CategorySetParser decodingParser;
+
+	@Setup(Level.Trial)
+	public void createInput() throws IOException{
+		inputFile = File.createTempFile("block-bench", ".txt", directory.isEmpty() ? null : new File(directory));
+		input = SyntheticInput.write(inputFile, lines, 0.5, 0.1, 5, 42);
+		parser = new CategorySetParser(input.getLegalCategories(), inputFile);
+		parser.setBlockSize(blockSize);
+		decodingParser = new CategorySetParser(input.getLegalCategories(), inputFile);
+		decodingParser.setBlockSize(blockSize);
+		decodingParser.setCharset(StandardCharsets.ISO_8859_1);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteInput(){
+		inputFile.delete();
+	}
+
+	@Benchmark
+	public ParserValues parseChannel(CategorySetParserBenchmark.Throughput throughput) throws IOException{
+		ParserValues values = parser.parseChannel();
+		throughput.add(input);
+		return values;
+	}
+
+	@Benchmark
+	public ParserValues parseDecoded(CategorySetParserBenchmark.Throughput throughput) throws IOException{
+		ParserValues values = decodingParser.parse();
+		throughput.add(input);
+		return values;
+	}
+
+	@Benchmark
+	public ParserValues parseMapped(CategorySetParserBenchmark.Throughput throughput) throws IOException{
+		ParserValues values = parser.parseMapped();
+		throughput.add(input);
+		return values;
+	}
+
+}
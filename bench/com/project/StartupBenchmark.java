@@ -0,0 +1,111 @@
+package com.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Fabian
+ * StartupBenchmark class measures the start of CategoryCountApplication for a small input, the case that runs thousands of times a
+ * day. Every configuration is started as a new process several times, the driver prints the median time until the first byte of
+ * output and until the process exits:
+ *
+ * 	classes			java -cp build/classes, the way the application was started before
+ * 	jar				java -jar with the startup flags of category-count.sh (C1 only, serial GC, headless)
+ * 	jar+appcds		as jar, with the AppCDS archive written by "ant cds"
+ * 	native			the native image written by "ant native", if it exists
+ *
+ * Options:
+ * 	--runs=N			starts per configuration after one warm-up start, 20 by default
+ * 	--input=FILE		input file, File.txt by default
+ *
+ */
+public final class StartupBenchmark {
+
+	private static final String MAIN_CLASS = "com.project.CategoryCountApplication";
+	private static final String[] STARTUP_FLAGS = new String[] { "-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-Xshare:auto",
+			"-Djava.awt.headless=true"};
+
+	private StartupBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int runs = 20;
+		String input = "File.txt";
+		for (String arg : args) {
+			if (arg.startsWith("--runs=")) {
+				runs = Integer.parseInt(arg.substring("--runs=".length()));
+			} else if (arg.startsWith("--input=")) {
+				input = arg.substring("--input=".length());
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+		System.out.printf("%-12s %14s %14s%n", "CONFIG", "FIRST OUTPUT", "EXIT");
+		run("classes", runs, java, "-cp", "build/classes", MAIN_CLASS, input);
+
+		List<String> jar = new ArrayList<>();
+		jar.add(java);
+		jar.addAll(Arrays.asList(STARTUP_FLAGS));
+		jar.addAll(Arrays.asList("-jar", "build/category-count.jar", input));
+		run("jar", runs, jar.toArray(new String[jar.size()]));
+
+		if (new File("build/category-count.jsa").isFile()) {
+			jar.add(1, "-XX:SharedArchiveFile=build/category-count.jsa");
+			run("jar+appcds", runs, jar.toArray(new String[jar.size()]));
+		} else {
+			System.out.println("jar+appcds   skipped, run \"ant cds\" first");
+		}
+
+		if (new File("build/category-count").isFile()) {
+			run("native", runs, "build/category-count", input);
+		} else {
+			System.out.println("native       skipped, run \"ant native\" with GraalVM first");
+		}
+	}
+
+	private static void run(String name, int runs, String... command) throws IOException, InterruptedException {
+		long[] firstOutput = new long[runs];
+		long[] exit = new long[runs];
+		start(command, new long[2]);
+		for (int i = 0; i < runs; i++) {
+			long[] times = new long[2];
+			start(command, times);
+			firstOutput[i] = times[0];
+			exit[i] = times[1];
+		}
+		Arrays.sort(firstOutput);
+		Arrays.sort(exit);
+		System.out.printf("%-12s %11.1f ms %11.1f ms%n", name, firstOutput[runs / 2] / 1e6, exit[runs / 2] / 1e6);
+	}
+
+	/**
+	 * Class method to start the command once.
+	 * @param times				Receives the nanoseconds until the first output byte and until the exit
+	 */
+	private static void start(String[] command, long[] times) throws IOException, InterruptedException {
+		long started = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		try (InputStream out = process.getInputStream()) {
+			if (out.read() < 0) {
+				throw new IllegalStateException(command[0] + " wrote no output");
+			}
+			times[0] = System.nanoTime() - started;
+			byte[] rest = new byte[8192];
+			while (out.read(rest) >= 0) {
+				//Drain the output so the process can exit.
+			}
+		}
+		int status = process.waitFor();
+		times[1] = System.nanoTime() - started;
+		if (status != 0) {
+			throw new IllegalStateException(command[0] + " exited with " + status);
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.project;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * @author Fabian
+ * SyntheticInput class writes reproducible category files for the benchmarks.
+ *
+ * 1. categories legal categories named CATEGORY0..CATEGORYn are used.
+ * 2. duplicateRatio of the lines repeat an earlier line.
+ * 3. illegalRatio of the lines use a category that is not in the legal list.
+ *
+ */
+public final class SyntheticInput {
+
+	private final String[] legalCategories;
+	private final long lines;
+	private final long bytes;
+
+	private SyntheticInput(String[] legalCategories, long lines, long bytes) {
+		this.legalCategories = legalCategories;
+		this.lines = lines;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Class method to write a synthetic input file.
+	 * PRECONDITION/REQUIRED:
+	 * 	Ratios should be between 0 and 1, categories should be positive.
+	 *
+	 * @param file						File to (over)write
+	 * @param lines						Number of lines to write
+	 * @param duplicateRatio			Share of lines repeating an earlier line
+	 * @param illegalRatio				Share of lines with an illegal category
+	 * @param categories				Number of legal categories
+	 * @param seed						Seed of the random generator, the same seed gives the same file
+	 * @return							Description of the written file
+	 * @throws IOException
+	 */
+	public static SyntheticInput write(File file, long lines, double duplicateRatio, double illegalRatio, int categories, long seed) throws IOException{
+		String[] legalCategories = new String[categories];
+		for (int i = 0; i < categories; i++) {
+			legalCategories[i] = "CATEGORY" + i;
+		}
+		Random random = new Random(seed);
+		long distinct = 0;
+		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			for (long i = 0; i < lines; i++) {
+				double pick = random.nextDouble();
+				if (pick < illegalRatio) {
+					writer.write("ILLEGAL" + random.nextInt(categories) + " sub" + i);
+				} else if (distinct > 0 && pick < illegalRatio + duplicateRatio) {
+					long earlier = (long) (random.nextDouble() * distinct);
+					writer.write(legalCategories[(int) (earlier % categories)] + " sub-category " + earlier);
+				} else {
+					writer.write(legalCategories[(int) (distinct % categories)] + " sub-category " + distinct);
+					distinct++;
+				}
+				writer.newLine();
+			}
+		}
+		return new SyntheticInput(legalCategories, lines, file.length());
+	}
+
+	/**
+	 * Getter method to retrieve the legal categories used in the file
+	 * @return			Legal category list to pass to CategorySetParser
+	 */
+	public String[] getLegalCategories() {
+		return legalCategories;
+	}
+
+	/**
+	 * Getter method to retrieve the number of lines
+	 * @return			Number of lines in the file
+	 */
+	public long getLines() {
+		return lines;
+	}
+
+	/**
+	 * Getter method to retrieve the file size
+	 * @return			Size of the file in bytes
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+}
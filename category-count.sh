@@ -0,0 +1,18 @@
+#!/bin/sh
+# Starts CategoryCountApplication for many short runs on headless hosts, arguments are passed on (see --help).
+# Uses the native image if "ant native" built one, else the jar with the AppCDS archive of "ant cds" when it exists.
+# Exit codes: 0, 64 wrong arguments, 66 missing input, 74 I/O error.
+
+HOME_DIR=$(dirname "$0")
+BUILD_DIR="$HOME_DIR/build"
+
+if [ -x "$BUILD_DIR/category-count" ]; then
+	exec "$BUILD_DIR/category-count" "$@"
+fi
+
+# C1 only and the serial GC start fastest for inputs parsed in well under a second.
+JAVA_OPTS="-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto -Djava.awt.headless=true $JAVA_OPTS"
+if [ -f "$BUILD_DIR/category-count.jsa" ]; then
+	JAVA_OPTS="-XX:SharedArchiveFile=$BUILD_DIR/category-count.jsa $JAVA_OPTS"
+fi
+exec "${JAVA_HOME:+$JAVA_HOME/bin/}java" $JAVA_OPTS -jar "$BUILD_DIR/category-count.jar" "$@"
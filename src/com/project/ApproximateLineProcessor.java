@@ -0,0 +1,67 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+
+/**
+ * @author Fabian
+ * ApproximateLineProcessor class applies the parse rules of CategorySetParser to raw line bytes, but instead of keeping the distinct
+ * lines it offers the hash of every legal line to one HyperLogLog sketch per category. The state stays the same size however many
+ * distinct sub-categories the input has.
+ *
+ */
+final class ApproximateLineProcessor implements LineVisitor {
+
+	private final CategoryMatcher matcher;
+	private final HyperLogLog[] sketches;
+	private final int precision;
+	//Category ids in order of first occurrence, needed for the same count order as the exact parse.
+	private final int[] firstOccurrence;
+	private int occurred;
+
+	/**
+	 * Constructor to create ApproximateLineProcessor object
+	 * PRECONDITION/REQUIRED:
+	 *  @param matcher 					Matcher of the legal categories
+	 *  @param precision 				HyperLogLog precision of every sketch
+	 */
+	ApproximateLineProcessor(CategoryMatcher matcher, int precision) {
+		this.matcher = matcher;
+		this.sketches = new HyperLogLog[matcher.size()];
+		this.firstOccurrence = new int[matcher.size()];
+		this.precision = precision;
+	}
+
+	@Override
+	public void visitLine(ByteBuffer buffer, int start, int end) {
+		int separator = CategoryLineProcessor.findSeparator(buffer, start, end);
+		if (separator < 0) {
+			return;
+		}
+		int category = matcher.match(buffer, start, separator);
+		if (category < 0) {
+			return;
+		}
+		HyperLogLog sketch = sketches[category];
+		if (sketch == null) {
+			sketch = new HyperLogLog(precision);
+			sketches[category] = sketch;
+			firstOccurrence[occurred++] = category;
+		}
+		sketch.offer(ByteHash.hash64(buffer, start, end));
+	}
+
+	/**
+	 * Instance method to return the estimated distinct line count per category.
+	 * @return			LinkedHashMap of estimates, in order of first occurrence and without categories that did not occur
+	 */
+	LinkedHashMap<String, Integer> getCategoryCount() {
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		for (int i = 0; i < occurred; i++) {
+			int id = firstOccurrence[i];
+			categoryCount.put(matcher.category(id), (int) Math.min(Integer.MAX_VALUE, sketches[id].estimate()));
+		}
+		return categoryCount;
+	}
+
+}
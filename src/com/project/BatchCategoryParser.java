@@ -0,0 +1,260 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Fabian
+ * BatchCategoryParser class parses many shard files in one run on a bounded pool of worker threads.
+ * Every shard is parsed on its own through a memory mapping, then the shard results are merged in the order of the file list by a
+ * PartitionedLineMerger, which finds the duplicates between shards in parallel per hash partition on the same pool. The global
+ * ParserValues is the same as for one file holding all shards one after the other (every shard ends with a line terminator).
+ *
+ * Only a few shards ahead of the merge are parsed at any time, and the result of a single shard is handed to the FileResultListener
+ * when the shard is merged, so the number of shard results held in memory stays bounded by the pool size and not by the number of
+ * files.
+ *
+ */
+public class BatchCategoryParser {
+
+	/**
+	 * Receives the result of every single shard.
+	 */
+	public interface FileResultListener {
+
+		/**
+		 * Instance method called for every shard in file list order, from the thread that called parse(), when the shard is merged.
+		 * Memory only stays bounded if the listener does not keep the values.
+		 * @param shard					Shard file
+		 * @param values				Counts and distinct lines of the shard alone
+		 */
+		void fileParsed(File shard, ParserValues values);
+	}
+
+	private final List<File> inputFiles;
+	private final CategorySetParser parser;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private FileResultListener fileResultListener;
+
+	/**
+	 * Constructor to create BatchCategoryParser object
+	 * PRECONDITION/REQUIRED:
+	 *  @param legalCategoryList 			String Array of Legal Category List, Example: {"PERSON", "PLACE", "OTHER"}
+	 *  @param inputFiles 					Shard files in the order they should be merged
+	 */
+	public BatchCategoryParser(String[] legalCategoryList, List<File> inputFiles) {
+		this(new CategoryDictionary(legalCategoryList, 0), inputFiles);
+	}
+
+	/**
+	 * Constructor to create BatchCategoryParser object for one version of a dictionary, see CategorySetParser(CategoryDictionary, File)
+	 * PRECONDITION/REQUIRED:
+	 *  @param dictionary 					Legal categories
+	 *  @param inputFiles 					Shard files in the order they should be merged
+	 */
+	public BatchCategoryParser(CategoryDictionary dictionary, List<File> inputFiles) {
+		this.inputFiles = new ArrayList<>(inputFiles);
+		this.parser = new CategorySetParser(dictionary, null);
+	}
+
+	/**
+	 * Setter method to choose the number of worker threads
+	 * @param threads					Size of the worker pool, the number of processors by default
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Setter method to receive the result of every single shard next to the global result
+	 * @param fileResultListener		Listener called during parse(), null to not build the shard results (default)
+	 */
+	public void setFileResultListener(FileResultListener fileResultListener) {
+		this.fileResultListener = fileResultListener;
+	}
+
+	/**
+	 * Setter method to choose the duplicate detection
+	 * @param dedupIndexType			DedupIndexType.STRINGS (default), ARENA or OFF_HEAP_ARENA
+	 */
+	public void setDedupIndexType(DedupIndexType dedupIndexType) {
+		parser.setDedupIndexType(dedupIndexType);
+	}
+
+	/**
+	 * Instance method to parse all shards and merge them into one result.
+	 * PRECONDITION/REQUIRED:
+	 * 	All shard files should exist else will throw FileNotFoundException.
+	 * 	Shards should be UTF-8 (or plain ASCII) encoded.
+	 *
+	 * @return		object values for ParserValues class over all shards
+	 *
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *
+	 */
+	public ParserValues parse() throws FileNotFoundException, IOException{
+
+		long started = ParserMetrics.startTimer();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		PartitionedLineMerger merger = parser.newMerger(pool, threads);
+		try {
+			Deque<Future<Shard>> pending = new ArrayDeque<>();
+			int next = 0;
+			for (int merged = 0; merged < inputFiles.size(); merged++) {
+				//Keep at most two shards per worker ahead of the merge.
+				while (next < inputFiles.size() && pending.size() < threads * 2) {
+					pending.add(pool.submit(shardTask(inputFiles.get(next++), merger.getPartitionBits())));
+				}
+				Shard shard = PartitionedLineMerger.await(pending.poll());
+				merger.append(shard.segment);
+				if (fileResultListener != null) {
+					fileResultListener.fileParsed(inputFiles.get(merged), shard.values);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		} finally {
+			pool.shutdownNow();
+		}
+		ParserMetrics.recordParse(started);
+		return parser.buildResult(merger);
+	}
+
+	private Callable<Shard> shardTask(final File shard, final int partitionBits){
+		return new Callable<Shard>() {
+			@Override
+			public Shard call() throws IOException {
+				CategoryLineProcessor processor = parser.newProcessor();
+				try (RandomAccessFile file = new RandomAccessFile(shard, "r"); FileChannel channel = file.getChannel()) {
+					MappedLineScanner.scan(channel, 0, channel.size(), processor);
+				}
+				processor.publishMetrics();
+				ParserValues values = fileResultListener == null ? null : parser.buildResult(processor);
+				return new Shard(processor.toSegment(partitionBits), values);
+			}
+		};
+	}
+
+	/**
+	 * Result of one shard on its way from the worker to the merge.
+	 */
+	private static final class Shard {
+		final LineSegment segment;
+		final ParserValues values;
+
+		Shard(LineSegment segment, ParserValues values) {
+			this.segment = segment;
+			this.values = values;
+		}
+	}
+
+	/**
+	 * Class method to turn command line arguments into a list of shard files. Every argument can be
+	 * 1. a file,
+	 * 2. a directory, all regular files below it are used in path order,
+	 * 3. a glob pattern like "logs/2015-*.txt" or "logs/**.txt", matched below the part of the pattern without wildcards,
+	 * 4. "@list.txt", a file list with one path (or pattern) per line.
+	 * PRECONDITION/REQUIRED:
+	 *
+	 * @param specs						Arguments to expand
+	 * @return							Shard files, in argument order
+	 * @throws IOException				If an argument does not name an existing file or matches nothing
+	 */
+	public static List<File> resolveInputs(String... specs) throws IOException{
+		List<File> files = new ArrayList<>();
+		for (String spec : specs) {
+			if (spec.startsWith("@")) {
+				List<String> listed = new ArrayList<>();
+				try (BufferedReader reader = new BufferedReader(new FileReader(spec.substring(1)))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						if (!line.trim().isEmpty()) {
+							listed.add(line.trim());
+						}
+					}
+				}
+				files.addAll(resolveInputs(listed.toArray(new String[listed.size()])));
+			} else if (isPattern(spec)) {
+				files.addAll(matchPattern(spec));
+			} else if (new File(spec).isDirectory()) {
+				files.addAll(walk(Paths.get(spec), null));
+			} else if (new File(spec).isFile()) {
+				files.add(new File(spec));
+			} else {
+				throw new FileNotFoundException(spec);
+			}
+		}
+		return files;
+	}
+
+	private static boolean isPattern(String spec){
+		return spec.indexOf('*') >= 0 || spec.indexOf('?') >= 0 || spec.indexOf('[') >= 0 || spec.indexOf('{') >= 0;
+	}
+
+	private static List<File> matchPattern(String pattern) throws IOException{
+		Path base = Paths.get(".");
+		String glob = pattern;
+		int wildcard = pattern.length();
+		for (char special : new char[] {'*', '?', '[', '{'}) {
+			int index = pattern.indexOf(special);
+			if (index >= 0) {
+				wildcard = Math.min(wildcard, index);
+			}
+		}
+		int slash = pattern.lastIndexOf('/', wildcard);
+		if (slash >= 0) {
+			base = Paths.get(slash == 0 ? "/" : pattern.substring(0, slash));
+			glob = pattern.substring(slash + 1);
+		}
+		List<File> matched = walk(base, FileSystems.getDefault().getPathMatcher("glob:" + glob));
+		if (matched.isEmpty()) {
+			throw new FileNotFoundException("No files match " + pattern);
+		}
+		return matched;
+	}
+
+	/**
+	 * Class method to list the regular files below a directory.
+	 * @param matcher				Filter on the path relative to the directory, null for all files
+	 * @return						Files sorted by path
+	 */
+	private static List<File> walk(final Path directory, final PathMatcher matcher) throws IOException{
+		final List<File> files = new ArrayList<>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (attrs.isRegularFile() && (matcher == null || matcher.matches(directory.relativize(file)))) {
+					files.add(file.toFile());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Collections.sort(files);
+		return files;
+	}
+
+}
@@ -0,0 +1,375 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * ByteArenaDedupIndex class keeps the distinct lines as raw bytes in an append-only arena instead of one String and one linked hash
+ * entry per line.
+ *
+ * 1. The arena is a list of pages (heap or direct ByteBuffers) that double in size up to 1 MB. Every line is stored once as a varint
+ *    length followed by its bytes.
+ * 2. entryAddress holds the arena address of every line in order of first occurrence, entryHash its hash.
+ * 3. table is an open addressing hash set with linear probing, each slot holds an entry number plus one, 0 marks a free slot.
+ *
+ * A line costs its bytes plus about 20 bytes of primitive arrays, and there are no per line objects for the garbage collector.
+ *
+ */
+final class ByteArenaDedupIndex implements DedupIndex {
+
+	private static final Charset CHARSET = StandardCharsets.UTF_8;
+	private static final int FIRST_PAGE_SIZE = 1 << 12;
+	private static final int MAX_PAGE_SIZE = 1 << 20;
+	private static final int INITIAL_ENTRIES = 1024;
+
+	private final boolean offHeap;
+	private ByteBuffer[] pages = new ByteBuffer[16];
+	private int pageCount;
+	private ByteBuffer currentPage;
+	private long[] entryAddress = new long[INITIAL_ENTRIES];
+	private int[] entryHash = new int[INITIAL_ENTRIES];
+	private int[] table = new int[INITIAL_ENTRIES * 2];
+	private int size;
+	private long arenaBytes;
+
+	/**
+	 * Constructor to create ByteArenaDedupIndex object
+	 * PRECONDITION/REQUIRED:
+	 *  @param offHeap 				true to allocate the arena pages as direct buffers outside of the Java heap
+	 */
+	ByteArenaDedupIndex(boolean offHeap) {
+		this.offHeap = offHeap;
+	}
+
+	@Override
+	public boolean add(ByteBuffer buffer, int start, int end) {
+		return add(buffer, start, end, hash(buffer, start, end));
+	}
+
+	/**
+	 * Instance method to add a line whose hash is already known, see add(ByteBuffer, int, int).
+	 * @param hash					hash() of the line
+	 * @return						true if the line was not in the index before, it is then the entry size() - 1
+	 */
+	boolean add(ByteBuffer buffer, int start, int end, int hash){
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			if (entryHash[entry - 1] == hash && equalsEntry(entry - 1, buffer, start, end)) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (size == entryAddress.length) {
+			entryAddress = Arrays.copyOf(entryAddress, size * 2);
+			entryHash = Arrays.copyOf(entryHash, size * 2);
+		}
+		entryAddress[size] = append(buffer, start, end);
+		entryHash[size] = hash;
+		table[slot] = ++size;
+		if (size * 2 > table.length) {
+			rehash(table.length * 2);
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void forEach(LineVisitor visitor) {
+		for (int i = 0; i < size; i++) {
+			visitEntry(i, visitor);
+		}
+	}
+
+	/**
+	 * Instance method to hand one stored line to the visitor.
+	 * @param entry					Number of the line, in order of first occurrence from 0
+	 */
+	void visitEntry(int entry, LineVisitor visitor){
+		ByteBuffer page = pages[pageOf(entryAddress[entry])];
+		int offset = offsetOf(entryAddress[entry]);
+		int length = readLength(page, offset);
+		int start = offset + lengthSize(length);
+		visitor.visitLine(page, start, start + length);
+	}
+
+	/**
+	 * Instance method to check if a line whose hash is already known is in the index.
+	 * @param hash					hash() of the line
+	 */
+	boolean contains(ByteBuffer buffer, int start, int end, int hash){
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			if (entryHash[entry - 1] == hash && equalsEntry(entry - 1, buffer, start, end)) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	@Override
+	public Set<String> orderedView() {
+		return new ArenaView();
+	}
+
+	/**
+	 * Instance method to add lines that are already stored in arena format, as written by ParserSnapshot, without copying them.
+	 * The page becomes part of the arena and is never written to, new lines go to a new page.
+	 * PRECONDITION/REQUIRED:
+	 * 	The lines have to be distinct and not in the index yet, hashes[i] has to be hash() of the i-th line.
+	 *
+	 * @param page					Entries back to back from index 0, a last incomplete entry is ignored
+	 * @param hashes				Hashes of the lines, starting at the first line of the page
+	 * @param from					Index in hashes of the first line of the page
+	 * @param count					Maximum number of lines to add
+	 * @return						Number of lines added, the page limit is set to the end of the last one
+	 */
+	int adoptPage(ByteBuffer page, int[] hashes, int from, int count){
+		int offset = 0;
+		int adopted = 0;
+		while (adopted < count) {
+			int length = 0;
+			int shift = 0;
+			int next = offset;
+			byte current;
+			do {
+				if (next == page.limit() || shift > 28) {
+					current = 0;
+					next = -1;
+					break;
+				}
+				current = page.get(next++);
+				length |= (current & 0x7f) << shift;
+				shift += 7;
+			} while ((current & 0x80) != 0);
+			if (next < 0 || length < 0 || length > page.limit() - next) {
+				break;
+			}
+			if (size == entryAddress.length) {
+				entryAddress = Arrays.copyOf(entryAddress, size * 2);
+				entryHash = Arrays.copyOf(entryHash, size * 2);
+			}
+			entryAddress[size] = ((long) pageCount << 32) | offset;
+			entryHash[size] = hashes[from + adopted];
+			size++;
+			offset = next + length;
+			adopted++;
+		}
+		page.limit(offset);
+		addPage(page);
+		//The adopted page may be read only, the next line starts a new page.
+		currentPage = null;
+		arenaBytes += offset;
+		int capacity = table.length;
+		while (size * 2 > capacity) {
+			capacity *= 2;
+		}
+		rehash(capacity);
+		return adopted;
+	}
+
+	/**
+	 * Class method to return the hash of a line used by the table, and stored by ParserSnapshot.
+	 */
+	static int hash(ByteBuffer buffer, int start, int end){
+		return (int) ByteHash.hash64(buffer, start, end);
+	}
+
+	/**
+	 * Getter method to retrieve the number of line bytes held by the arena, length prefixes included.
+	 * @return			Used arena bytes
+	 */
+	long getArenaBytes() {
+		return arenaBytes;
+	}
+
+	/**
+	 * Instance method to copy a line into the arena.
+	 * @return						Address of the stored line, page number in the upper and offset in the lower 32 bits
+	 */
+	private long append(ByteBuffer buffer, int start, int end){
+		int length = end - start;
+		int needed = lengthSize(length) + length;
+		if (currentPage == null || currentPage.remaining() < needed) {
+			int pageSize = pageCount < 8 ? FIRST_PAGE_SIZE << pageCount : MAX_PAGE_SIZE;
+			currentPage = allocatePage(Math.max(pageSize, needed));
+		}
+		int offset = currentPage.position();
+		writeLength(currentPage, length);
+		for (int i = start; i < end; i++) {
+			currentPage.put(buffer.get(i));
+		}
+		arenaBytes += needed;
+		return ((long) (pageCount - 1) << 32) | offset;
+	}
+
+	private ByteBuffer allocatePage(int capacity){
+		ByteBuffer page = offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+		addPage(page);
+		return page;
+	}
+
+	private void addPage(ByteBuffer page){
+		if (pageCount == pages.length) {
+			pages = Arrays.copyOf(pages, pageCount * 2);
+		}
+		pages[pageCount++] = page;
+	}
+
+	/**
+	 * Instance method to compare a stored line with the given bytes.
+	 */
+	private boolean equalsEntry(int entry, ByteBuffer buffer, int start, int end){
+		ByteBuffer page = pages[pageOf(entryAddress[entry])];
+		int offset = offsetOf(entryAddress[entry]);
+		int length = readLength(page, offset);
+		if (length != end - start) {
+			return false;
+		}
+		offset += lengthSize(length);
+		for (int i = 0; i < length; i++) {
+			if (page.get(offset + i) != buffer.get(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Instance method to grow the hash table. The stored hashes are reused, no line bytes are read.
+	 */
+	private void rehash(int capacity){
+		int[] grown = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < size; i++) {
+			int slot = entryHash[i] & mask;
+			while (grown[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			grown[slot] = i + 1;
+		}
+		table = grown;
+	}
+
+	/**
+	 * Instance method to decode one stored line.
+	 * @param entry					Number of the line, in order of first occurrence from 0
+	 */
+	String decodeEntry(int entry){
+		ByteBuffer page = pages[pageOf(entryAddress[entry])];
+		int offset = offsetOf(entryAddress[entry]);
+		int length = readLength(page, offset);
+		offset += lengthSize(length);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = page.get(offset + i);
+		}
+		return new String(bytes, CHARSET);
+	}
+
+	private static int pageOf(long address){
+		return (int) (address >>> 32);
+	}
+
+	private static int offsetOf(long address){
+		return (int) address;
+	}
+
+	/**
+	 * Class method to return the number of bytes of the varint length prefix.
+	 */
+	private static int lengthSize(int length){
+		int bytes = 1;
+		while ((length >>>= 7) != 0) {
+			bytes++;
+		}
+		return bytes;
+	}
+
+	private static void writeLength(ByteBuffer page, int length){
+		while ((length & ~0x7f) != 0) {
+			page.put((byte) ((length & 0x7f) | 0x80));
+			length >>>= 7;
+		}
+		page.put((byte) length);
+	}
+
+	private static int readLength(ByteBuffer page, int offset){
+		int length = 0;
+		int shift = 0;
+		byte current;
+		do {
+			current = page.get(offset++);
+			length |= (current & 0x7f) << shift;
+			shift += 7;
+		} while ((current & 0x80) != 0);
+		return length;
+	}
+
+	/**
+	 * Read only set over the arena. Strings are only created while iterating, contains() uses the hash table.
+	 */
+	private final class ArenaView extends AbstractSet<String> implements ByteLineSource {
+
+		@Override
+		public void forEachLine(LineVisitor visitor) {
+			ByteArenaDedupIndex.this.forEach(visitor);
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				@Override
+				public String next() {
+					if (next >= size) {
+						throw new NoSuchElementException();
+					}
+					return decodeEntry(next++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof String)) {
+				return false;
+			}
+			byte[] bytes = ((String) o).getBytes(CHARSET);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			return ByteArenaDedupIndex.this.contains(buffer, 0, bytes.length, hash(buffer, 0, bytes.length));
+		}
+	}
+
+}
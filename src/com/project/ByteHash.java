@@ -0,0 +1,71 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Fabian
+ * ByteHash class computes a 64 bit hash directly over a byte span, so lines can be hashed without creating a String.
+ * The mixing steps follow MurmurHash3, eight bytes are consumed per step.
+ *
+ */
+public final class ByteHash {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private ByteHash() {
+	}
+
+	/**
+	 * Class method to hash the bytes in [start, end) of the buffer.
+	 * PRECONDITION/REQUIRED:
+	 * 	The buffer should use the default big endian byte order, otherwise the same bytes give a different hash.
+	 *
+	 * @param buffer				Buffer holding the bytes, positions are absolute indexes
+	 * @param start					Index of the first byte
+	 * @param end					Index one past the last byte
+	 * @return						64 bit hash of the span
+	 */
+	public static long hash64(ByteBuffer buffer, int start, int end){
+		long hash = (end - start) * C2;
+		int i = start;
+		for (; i + 8 <= end; i += 8) {
+			hash ^= mixKey(buffer.getLong(i));
+			hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+		}
+		if (i < end) {
+			long tail = 0;
+			for (int shift = 0; i < end; i++, shift += 8) {
+				tail |= (buffer.get(i) & 0xffL) << shift;
+			}
+			hash ^= mixKey(tail);
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Class method to hash a whole byte array, equal to hash64 over a buffer wrapping the array.
+	 */
+	public static long hash64(byte[] bytes){
+		return hash64(ByteBuffer.wrap(bytes), 0, bytes.length);
+	}
+
+	/**
+	 * Class method to spread the bits of a value over the whole long (MurmurHash3 finalizer).
+	 */
+	public static long mix(long value){
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	private static long mixKey(long key){
+		key *= C1;
+		key = Long.rotateLeft(key, 31);
+		return key * C2;
+	}
+
+}
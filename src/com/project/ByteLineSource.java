@@ -0,0 +1,17 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * ByteLineSource interface for the category pair sets that keep their lines as bytes. A ResultWriter hands such a set's bytes to
+ * its output directly instead of decoding every line to a String and encoding it again.
+ *
+ */
+interface ByteLineSource {
+
+	/**
+	 * Instance method to hand every line of the set to the visitor, in the iteration order of the set.
+	 * @param visitor				Consumer of the lines
+	 */
+	void forEachLine(LineVisitor visitor);
+
+}
@@ -1,12 +1,34 @@
 package com.project;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map.Entry;
-import javax.swing.JOptionPane;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -14,36 +36,160 @@ import javax.swing.JOptionPane;
  * CategoryCountApplication class to call the main method and parse the input file. As per the requirements these are the steps followed by this
  * class.
  * 
- * 1. Inside the main method first a check is done to validate the argument.
+ * 1. Inside the main method first a check is done to validate the argument. Errors are reported on standard error with an exit code,
+ * 	    see fail
  * 2. If the argument is valid the input file is accepted
  * 3. Categories are parsed in the parseCategories method. Method parseCategories returns an object of ParserValues. Detailed explanation give 
  * 	    in method description
  * 4. The result id displayed in the displayResults method
+ * 5. With "--batch" as first argument many shard files are parsed and merged in one run, see runBatch
+ * 6. With "--snapshot=FILE" as first argument the result is kept in a snapshot file and the next run only parses the appended lines,
+ * 	    see runSnapshot
+ * 7. With "--serve=PORT" the application runs as a counting service that ingests lines over a loopback socket, see runService
+ * 8. With "--http=PORT" the application answers parse requests over loopback HTTP, see CategoryParseServer
+ * 9. With "--format=text|ndjson|csv" and "--output=FILE" before the input file the result is written in that format to that file,
+ * 	    see writeResults
+ * 10. With "--cache=DIR" before the input file an unchanged input is answered from a result cache in DIR, see ParseResultCache
+ * 11. With "--categories=FILE" the legal categories are loaded from a dictionary file, reloaded on change in --http mode,
+ * 	    see loadCategories
+ * 12. With "--window=SECONDS[,SLIDE]" options a continuous feed is counted over sliding or tumbling time windows, see runWindows
+ * 13. With "--partial=OUT FILE" the result of one part of a corpus is written as a PartialResult, and "--merge" combines the
+ * 	    partial results of all parts, see writePartial and mergePartials
+ * 14. With -Dcom.project.metrics=true parse metrics are kept, exposed through JMX and written as JSON on exit, see ParserMetrics
  * 
  */
 
 public class CategoryCountApplication {
 	
+	/** Legal categories used by main */
+	static final String[] DEFAULT_LEGAL_VALUES = new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"};
+	
+	/** Exit code for wrong arguments */
+	static final int EXIT_USAGE = 64;
+	/** Exit code for a missing input file */
+	static final int EXIT_NO_INPUT = 66;
+	/** Exit code for an input that cannot be read, an output that cannot be written or a port that cannot be opened */
+	static final int EXIT_IO_ERROR = 74;
+	
+	/** Printed by --help and after an argument error */
+	static final String USAGE = "Usage: CategoryCountApplication [--gui] [--categories=FILE] [--format=text|ndjson|csv] [--output=FILE]"
+			+ " [--cache=DIR] FILE\n"
+			+ "       CategoryCountApplication [--gui] [--categories=FILE] --batch [--per-file] [--threads=N] INPUT...\n"
+			+ "       CategoryCountApplication [--gui] [--categories=FILE] --snapshot=FILE FILE\n"
+			+ "       CategoryCountApplication [--gui] [--categories=FILE] --serve=PORT | --http=PORT\n"
+			+ "       CategoryCountApplication [--gui] [--categories=FILE] --window=SECONDS[,SLIDE]... [FILE]\n"
+			+ "       CategoryCountApplication [--gui] [--categories=FILE] --partial=OUT[,PRECISION] FILE\n"
+			+ "       CategoryCountApplication [--gui] --merge PARTIAL...\n";
+	
+	/** true if errors are also shown in a dialog, see --gui */
+	private static boolean gui;
+	
+	/** Time between two checks of a dictionary file for changes, in --http mode */
+	static final long DICTIONARY_CHECK_MILLIS = 1000;
+	
+	/** Legal categories of all modes, DEFAULT_LEGAL_VALUES unless --categories=FILE is given */
+	private static CategoryDictionarySource legalCategories = new CategoryDictionary(DEFAULT_LEGAL_VALUES, 0);
+	
+	/** Writers of the standard output per format, reused by every displayResults, and the System.out they write to */
+	private static final EnumMap<ResultFormat, ResultWriter> STANDARD_OUTPUT_WRITERS = new EnumMap<>(ResultFormat.class);
+	private static PrintStream standardOutput;
+	
+	/** Time between two checks whether a window of a quiet feed ended, in --window mode */
+	static final long WINDOW_TICK_MILLIS = 1000;
+	
+	/** Cache used by parseCategories, null to parse every time */
+	private static volatile ParseResultCache resultCache;
+	
 	/**
 	 * Main method.
-	 * @param args				Accept single argument which is input file to be parsed.
+	 * @param args				Accept single argument which is input file to be parsed, or "--batch" followed by batch options and
+	 * 							shard files, directories, glob patterns or @file-lists (see runBatch), or "--snapshot=FILE" followed
+	 * 							by the input file (see runSnapshot), or "--serve=PORT" (see runService), or "--http=PORT"
+	 * 							(see runHttpServer), or "--window=" options (see runWindows), or "--partial=OUT" followed by the
+	 * 							input file (see writePartial), or "--merge" followed by partial results (see mergePartials).
+	 * 							The input file can follow "--format=" and "--output=" options (see writeResults) and a "--cache=DIR"
+	 * 							option that keeps the result in DIR for the next run (see setResultCache).
+	 * 							"--gui" before all other arguments also shows errors in a dialog, then "--categories=FILE" replaces
+	 * 							the legal categories with a dictionary file (see loadCategories), "--help" prints the usage.
+	 * 							Exits with 0, or EXIT_USAGE, EXIT_NO_INPUT or EXIT_IO_ERROR after an error message on standard error.
 	 */
 	public static void main(String[] args) {
 		 
+		//With -Dcom.project.metrics=true the parse metrics are written as JSON when the application exits.
+		ParserMetrics.dumpOnExit();
+		if(args.length > 0 && args[0].equals("--gui")){
+			gui = true;
+			args = Arrays.copyOfRange(args, 1, args.length);
+		}
+		if(args.length > 0 && args[0].startsWith("--categories=")){
+			loadCategories(new File(args[0].substring("--categories=".length())), args.length == 2 && args[1].startsWith("--http="));
+			args = Arrays.copyOfRange(args, 1, args.length);
+		}
+		if(args.length == 1 && (args[0].equals("--help") || args[0].equals("-h"))){
+			System.out.print(USAGE);
+			return;
+		}
+		if(args.length > 0 && args[0].equals("--batch")){
+			runBatch(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args.length == 2 && args[0].startsWith("--snapshot=")){
+			runSnapshot(new File(args[0].substring("--snapshot=".length())), new File(args[1]));
+			return;
+		}
+		if(args.length == 1 && args[0].startsWith("--serve=")){
+			runService(parsePort(args[0].substring("--serve=".length())));
+			return;
+		}
+		if(args.length == 1 && args[0].startsWith("--http=")){
+			runHttpServer(parsePort(args[0].substring("--http=".length())));
+			return;
+		}
+		if(args.length > 0 && args[0].startsWith("--window=")){
+			runWindows(args);
+			return;
+		}
+		if(args.length == 2 && args[0].startsWith("--partial=")){
+			writePartial(args[0].substring("--partial=".length()), new File(args[1]));
+			return;
+		}
+		if(args.length > 0 && args[0].equals("--merge")){
+			mergePartials(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		//Output options come before the input file.
+		ResultFormat format = ResultFormat.TEXT;
+		File outputFile = null;
+		int first = 0;
+		while(first < args.length && (args[first].startsWith("--format=") || args[first].startsWith("--output=")
+				|| args[first].startsWith("--cache="))){
+			if(args[first].startsWith("--output=")){
+				outputFile = new File(args[first].substring("--output=".length()));
+			}else if(args[first].startsWith("--cache=")){
+				setResultCache(new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES, new File(args[first].substring("--cache=".length()))));
+			}else{
+				try {
+					format = ResultFormat.valueOf(args[first].substring("--format=".length()).toUpperCase(Locale.ROOT));
+				} catch (IllegalArgumentException e) {
+					fail("Unknown format, Please enter text, ndjson or csv", EXIT_USAGE);
+				}
+			}
+			first++;
+		}
+		args = Arrays.copyOfRange(args, first, args.length);
+		
 		// Program is terminated and an error message is shown if there exist no argument and if there are more than one arguments entered.
 		if(args.length == 0){
-			JOptionPane.showMessageDialog(null, "No arguments entered, Please enter file path", "Error", JOptionPane.ERROR_MESSAGE);
-			System.exit(-1);
+			fail("No arguments entered, Please enter file path", EXIT_USAGE);
 		}else if(args.length > 1){
-			JOptionPane.showMessageDialog(null, "Too many arguments please provide only the file path with no space", "Error", JOptionPane.ERROR_MESSAGE);
-			System.exit(-1);
+			fail("Too many arguments please provide only the file path with no space", EXIT_USAGE);
 		}else if(!new File(args[0]).exists()){
-			JOptionPane.showMessageDialog(null, "File doesn't exist.", "Error", JOptionPane.ERROR_MESSAGE);
-			System.exit(-1);
+			fail("File doesn't exist.", EXIT_NO_INPUT);
 		}
 		
 		//Define legal category to parse
-		final String[] LEGAL_VALUES = new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"};
+		final CategoryDictionary LEGAL_VALUES = legalCategories.current();
 		//Get input file from arguments
 		File inputFile = new File(args[0]);
 		
@@ -52,17 +198,314 @@ public class CategoryCountApplication {
 			//Parse the file
 			result = parseCategories(LEGAL_VALUES, inputFile);
 		}catch (FileNotFoundException e) {
-			e.printStackTrace();
-			System.exit(-1);
+			fail("File not found, " + e.getMessage(), EXIT_NO_INPUT);
 		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(-1);
+			fail("Input cannot be read, " + e.getMessage(), EXIT_IO_ERROR);
 		}
 		
 		//Print the result
-		displayResults(result);
+		try {
+			writeResults(result, format, outputFile);
+		} catch (IOException e) {
+			fail("Output cannot be written, " + e.getMessage(), EXIT_IO_ERROR);
+		}
 	}// end of main
 	
+	/**
+	 *  Method to parse many shard files in one run and print the merged result. Options come before the inputs:
+	 *  	--per-file			also print the result of every shard when it is merged, headed by "== path =="
+	 *  	--threads=N			number of worker threads, the number of processors by default
+	 *  Inputs can be files, directories, glob patterns (quote them for the shell) or @file-lists with one input per line.
+	 *  
+	 * @param args				Batch options and inputs.
+	 */
+	static void runBatch(String[] args){
+		
+		boolean perFile = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int first = 0;
+		while(first < args.length && args[first].startsWith("--")){
+			if(args[first].equals("--per-file")){
+				perFile = true;
+			}else if(args[first].startsWith("--threads=")){
+				threads = parsePositive(args[first].substring("--threads=".length()), "threads");
+			}else{
+				fail("Unknown batch option " + args[first], EXIT_USAGE);
+			}
+			first++;
+		}
+		if(first == args.length){
+			fail("No inputs entered, Please enter files, directories or patterns", EXIT_USAGE);
+		}
+		
+		ParserValues result = null;
+		try {
+			List<File> inputFiles = BatchCategoryParser.resolveInputs(Arrays.copyOfRange(args, first, args.length));
+			BatchCategoryParser batch = new BatchCategoryParser(legalCategories.current(), inputFiles);
+			batch.setThreads(threads);
+			if(perFile){
+				//Every shard is printed when it is merged, so no shard result is kept until the end of the run.
+				batch.setFileResultListener(new BatchCategoryParser.FileResultListener() {
+					@Override
+					public void fileParsed(File shard, ParserValues values) {
+						System.out.println("== " + shard.getPath() + " ==");
+						displayResults(values);
+						System.out.println();
+					}
+				});
+			}
+			result = batch.parse();
+		} catch (IOException e) {
+			fail("Input cannot be read, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+		
+		displayResults(result);
+	}// end of runBatch
+	
+	/**
+	 *  Method to parse an append-only input file and keep the result in a snapshot file between runs. If the snapshot exists the run
+	 *  continues from it and only parses the lines appended since, then the snapshot is replaced with the new result. A snapshot
+	 *  that cannot be used (other version, corrupt, other input file) is ignored and the input is parsed from the start.
+	 *  Like IncrementalCategorySetParser, a last line without line terminator is left for the next run.
+	 *  
+	 * @param snapshotFile			Snapshot file, created by the first run
+	 * @param inputFile				The input file containing user defined categories and sub categories.
+	 */
+	static void runSnapshot(File snapshotFile, File inputFile){
+		
+		if(!inputFile.exists()){
+			fail("File doesn't exist.", EXIT_NO_INPUT);
+		}
+		
+		ParserValues result = null;
+		IncrementalCategorySetParser parser = new IncrementalCategorySetParser(legalCategories.current(), inputFile);
+		try {
+			if(snapshotFile.exists()){
+				try {
+					parser.loadSnapshot(snapshotFile);
+				} catch (ParserSnapshot.InvalidSnapshotException e) {
+					System.err.println("WARNING: " + e.getMessage() + ", parsing from the start.");
+				}
+			}
+			result = parser.parse();
+			parser.saveSnapshot(snapshotFile);
+		} catch (IOException e) {
+			fail("Input cannot be read, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+		displayResults(result);
+	}// end of runSnapshot
+	
+	/**
+	 *  Method to run as a resident counting service. Producers send lines to a CategoryIngestServer on the loopback port, see
+	 *  CategoryIngestServer for the protocol. The service runs until the process is stopped and then prints the final result.
+	 *  
+	 * @param port					Loopback port, 0 for any free port
+	 */
+	static void runService(int port){
+		
+		final ConcurrentCategoryCounter counter = new ConcurrentCategoryCounter(legalCategories.current());
+		CategoryIngestServer server = null;
+		try {
+			server = new CategoryIngestServer(counter, port);
+		} catch (IOException e) {
+			fail("Cannot listen, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+		System.err.println("Listening on 127.0.0.1:" + server.getPort());
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				displayResults(counter.snapshot());
+			}
+		});
+		try {
+			new CountDownLatch(1).await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}// end of runService
+	
+	/**
+	 *  Method to answer parse requests over loopback HTTP until the process is stopped, see CategoryParseServer. Files can be
+	 *  parsed from the working directory and below.
+	 *  
+	 * @param port					Loopback port, 0 for any free port
+	 */
+	static void runHttpServer(int port){
+		
+		CategoryParseServer server = new CategoryParseServer(legalCategories);
+		try {
+			server.start(port);
+		} catch (IOException e) {
+			fail("Cannot listen, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+		System.err.println("Listening on http://127.0.0.1:" + server.getPort() + "/parse"
+				+ (server.isVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+		try {
+			new CountDownLatch(1).await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}// end of runHttpServer
+	
+	/**
+	 *  Method to count a continuous feed over time windows, for example the last 5 minutes and the last hour, see
+	 *  WindowedCategoryCounter. Every "--window=SECONDS[,SLIDE]" option adds a window of that length that moves forward every SLIDE
+	 *  seconds, a tumbling window without SLIDE. Lines are read from the input file, or from the standard input without one, and
+	 *  are timed when they arrive. Every window is printed when it ends, headed by "== last SECONDS s until TIME ==", and the open
+	 *  windows are printed when the input ends.
+	 *  
+	 * @param args				Window options and an optional input file.
+	 */
+	static void runWindows(String[] args){
+		
+		final List<WindowedCategoryCounter> counters = new ArrayList<>();
+		WindowedCategoryCounter.Listener listener = new WindowedCategoryCounter.Listener() {
+			@Override
+			public void windowClosed(long windowStart, long windowEnd, ParserValues values) {
+				displayWindow(windowStart, windowEnd, values);
+			}
+		};
+		int first = 0;
+		while(first < args.length && args[first].startsWith("--window=")){
+			String[] window = args[first].substring("--window=".length()).split(",", 2);
+			long windowMillis = parsePositive(window[0], "window seconds") * 1000L;
+			long slideMillis = window.length == 2 ? parsePositive(window[1], "slide seconds") * 1000L : windowMillis;
+			if(windowMillis % slideMillis != 0){
+				fail("Window " + window[0] + " is not a multiple of the slide " + window[1], EXIT_USAGE);
+			}
+			counters.add(new WindowedCategoryCounter(legalCategories.current(), windowMillis, slideMillis, listener));
+			first++;
+		}
+		if(args.length - first > 1){
+			fail("Too many arguments please provide only the file path with no space", EXIT_USAGE);
+		}
+		
+		//A quiet feed still ends its windows.
+		ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "category-window-ticker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		ticker.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				long now = System.currentTimeMillis();
+				for (WindowedCategoryCounter counter : counters) {
+					counter.advanceTo(now);
+				}
+			}
+		}, WINDOW_TICK_MILLIS, WINDOW_TICK_MILLIS, TimeUnit.MILLISECONDS);
+		
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(first < args.length
+				? new FileInputStream(args[first]) : System.in, StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null){
+				long now = System.currentTimeMillis();
+				for (WindowedCategoryCounter counter : counters) {
+					counter.add(line, now);
+				}
+			}
+		} catch (FileNotFoundException e) {
+			fail("File not found, " + e.getMessage(), EXIT_NO_INPUT);
+		} catch (IOException e) {
+			fail("Input cannot be read, " + e.getMessage(), EXIT_IO_ERROR);
+		} finally {
+			ticker.shutdownNow();
+		}
+		long now = System.currentTimeMillis();
+		for (WindowedCategoryCounter counter : counters) {
+			counter.advanceTo(now);
+			long windowEnd = (now / counter.getSlideMillis() + 1) * counter.getSlideMillis();
+			displayWindow(windowEnd - counter.getWindowMillis(), windowEnd, counter.snapshot());
+		}
+	}// end of runWindows
+	
+	/**
+	 *  Method to parse one part of a corpus and write its PartialResult, so the parts parsed on several machines can be merged with
+	 *  "--merge" without counting a line twice. "--partial=OUT" keeps the hash of every distinct line and merges exactly,
+	 *  "--partial=OUT,PRECISION" keeps one HyperLogLog sketch of that precision per category and merges to estimates.
+	 *  
+	 * @param option				Output file and optional precision
+	 * @param inputFile				The input file containing user defined categories and sub categories.
+	 */
+	static void writePartial(String option, File inputFile){
+		
+		String[] output = option.split(",", 2);
+		int precision = output.length == 2 ? parsePositive(output[1], "precision bits") : 0;
+		if(precision != 0 && (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION)){
+			fail("Precision " + precision + " is not between " + HyperLogLog.MIN_PRECISION + " and " + HyperLogLog.MAX_PRECISION, EXIT_USAGE);
+		}
+		if(!inputFile.exists()){
+			fail("File doesn't exist.", EXIT_NO_INPUT);
+		}
+		
+		PartialResult partial = null;
+		try {
+			ParserValues result = parseCategories(legalCategories.current(), inputFile);
+			partial = precision == 0 ? PartialResult.exact(result) : PartialResult.sketch(result, precision);
+		} catch (FileNotFoundException e) {
+			fail("File not found, " + e.getMessage(), EXIT_NO_INPUT);
+		} catch (IOException e) {
+			fail("Input cannot be read, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output[0]))) {
+			partial.writeTo(out);
+		} catch (IOException e) {
+			fail("Output cannot be written, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+	}// end of writePartial
+	
+	/**
+	 *  Method to merge the partial results written by "--partial=" and print the counts of the whole corpus. Only the partial
+	 *  results are read, not the inputs they were parsed from, so the output has the counts but no category pairs.
+	 *  
+	 * @param partialFiles			Partial result files, all exact or all sketches of the same precision
+	 */
+	static void mergePartials(String[] partialFiles){
+		
+		if(partialFiles.length == 0){
+			fail("No partial results entered, Please enter the files written by --partial=", EXIT_USAGE);
+		}
+		List<PartialResult> partials = new ArrayList<>();
+		for (String partialFile : partialFiles) {
+			try (InputStream in = new BufferedInputStream(new FileInputStream(partialFile))) {
+				partials.add(PartialResult.readFrom(in));
+			} catch (FileNotFoundException e) {
+				fail("File not found, " + e.getMessage(), EXIT_NO_INPUT);
+			} catch (IOException e) {
+				fail("Partial result " + partialFile + " cannot be read, " + e.getMessage(), EXIT_IO_ERROR);
+			}
+		}
+		try {
+			displayResults(PartialResult.mergeAll(partials).toParserValues());
+		} catch (IllegalArgumentException e) {
+			fail(e.getMessage(), EXIT_USAGE);
+		}
+	}// end of mergePartials
+	
+	/**
+	 *  Method to print the result of a window, the windows of all counters are printed one after the other.
+	 */
+	private static synchronized void displayWindow(long windowStart, long windowEnd, ParserValues values){
+		
+		SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ROOT);
+		time.setTimeZone(TimeZone.getTimeZone("UTC"));
+		System.out.println("== last " + (windowEnd - windowStart) / 1000 + " s until " + time.format(new Date(windowEnd)) + " ==");
+		displayResults(values);
+		System.out.println();
+	}// end of displayWindow
+	
+	/**
+	 *  Method to put a result cache in front of parseCategories, so repeated parses of an unchanged file are answered from the cache.
+	 * @param cache					The cache, null to parse every time (default)
+	 */
+	public static void setResultCache(ParseResultCache cache){
+		resultCache = cache;
+	}// end of setResultCache
+	
 	/**
 	 *  Method to parse categories with respect to the valid content inside the input text file. If any exception is faced during the program 
 	 *  execution, it will be thrown to its calling method(main method). 
@@ -75,11 +518,30 @@ public class CategoryCountApplication {
 	 * 									2. a LinkedHashSet containing the all the valid categories and sub-categories with duplicates removed.
 	 */
 	public static ParserValues parseCategories(String[] LEGAL_VALUES, File inputFile)throws FileNotFoundException, IOException{
+		return parseCategories(new CategoryDictionary(LEGAL_VALUES, 0), inputFile);
+	}// end of parseCategories
+	
+	/**
+	 *  Method to parse categories of one version of a dictionary, see parseCategories(String[], File). The matcher of the
+	 *  dictionary is used as it is and the result records the version of the dictionary.
+	 *   
+	 * @param dictionary				Legal categories, for example loaded with --categories=FILE
+	 * @param inputFile					The input file containing user defined categories and sub categories.
+	 * 
+	 * @return parseResult				Returns an object of type ParserValues containing the values for final result.
+	 */
+	public static ParserValues parseCategories(CategoryDictionary dictionary, File inputFile)throws FileNotFoundException, IOException{
 		
 		ParserValues parseResult = null;
-		CategorySetParser cp = new CategorySetParser(LEGAL_VALUES, inputFile);
+		//An unchanged file is answered by the cache, see setResultCache.
+		ParseResultCache cache = resultCache;
 		try {
-			parseResult = cp.parse();
+			if(cache != null){
+				parseResult = cache.parse(dictionary, inputFile);
+			}else{
+				CategorySetParser cp = new CategorySetParser(dictionary, inputFile);
+				parseResult = cp.parse();
+			}
 		} catch (FileNotFoundException e) {
 			throw e;
 		} catch (IOException e) {
@@ -89,24 +551,126 @@ public class CategoryCountApplication {
 	}// end of parseCategories
 	
 	/**
-	 *  Method to parse categories with respect to the valid content inside the input text file.
-	 * @param result		Accept single argument of type ParserValues to display the result.
+	 *  Method to load the legal categories from a dictionary file with one category per line, see CategoryDictionary. A server
+	 *  checks the file for changes and parses new requests with the new categories, other modes load it once.
+	 *  
+	 * @param dictionaryFile		Dictionary file
+	 * @param reload				true to keep checking the file for changes
 	 */
-	public static void displayResults(ParserValues result){
+	static void loadCategories(File dictionaryFile, boolean reload){
 		
-		LinkedHashMap<String, Integer> count = result.getCategoryCount();
-		LinkedHashSet<String> list = result.getCategoryOrderedList();
+		try {
+			if(reload){
+				CategoryDictionaryReloader reloader = new CategoryDictionaryReloader(dictionaryFile);
+				reloader.start(DICTIONARY_CHECK_MILLIS);
+				legalCategories = reloader;
+			}else{
+				legalCategories = CategoryDictionary.load(dictionaryFile, 1);
+			}
+		} catch (FileNotFoundException e) {
+			fail("Dictionary not found, " + e.getMessage(), EXIT_NO_INPUT);
+		} catch (IOException e) {
+			fail("Dictionary cannot be loaded, " + e.getMessage(), EXIT_IO_ERROR);
+		}
+	}// end of loadCategories
+	
+	/**
+	 *  Method to end the application after an error. The message goes to standard error, and with --gui also to a dialog. Without
+	 *  --gui no AWT or Swing class is loaded, so the application starts fast and runs on hosts without a display.
+	 *  
+	 * @param message				Error message
+	 * @param exitCode				EXIT_USAGE, EXIT_NO_INPUT or EXIT_IO_ERROR
+	 */
+	static void fail(String message, int exitCode){
 		
-		System.out.printf("%-10s %s\n","CATEGORY","COUNT");
+		System.err.println("ERROR: " + message);
+		if(exitCode == EXIT_USAGE){
+			System.err.print(USAGE);
+		}
+		if(gui){
+			ErrorDialog.show(message);
+		}
+		System.exit(exitCode);
+	}// end of fail
+	
+	/**
+	 *  Method to read a port argument, fails with EXIT_USAGE if it is not a port number.
+	 */
+	private static int parsePort(String value){
 		
-		for (Entry<String, Integer> entry : count.entrySet()) {
-			System.out.printf("%-10s %d\n",entry.getKey(), entry.getValue());
+		try {
+			int port = Integer.parseInt(value);
+			if(port >= 0 && port <= 65535){
+				return port;
+			}
+		} catch (NumberFormatException e) {
+			//Reported below.
 		}
+		fail("Port " + value + " is not a number between 0 and 65535", EXIT_USAGE);
+		return -1;
+	}// end of parsePort
+	
+	/**
+	 *  Method to read a positive number argument, fails with EXIT_USAGE if it is not one.
+	 */
+	private static int parsePositive(String value, String name){
 		
-		System.out.println();
-		for(String st: list){
-			System.out.println(st);
+		try {
+			int number = Integer.parseInt(value);
+			if(number > 0){
+				return number;
+			}
+		} catch (NumberFormatException e) {
+			//Reported below.
 		}
+		fail("Number of " + name + " " + value + " is not a positive number", EXIT_USAGE);
+		return -1;
+	}// end of parsePositive
+	
+	/**
+	 *  Method to print the result in the text format on the standard output.
+	 * @param result		Accept single argument of type ParserValues to display the result.
+	 */
+	public static void displayResults(ParserValues result){
 		
+		try {
+			writeResults(result, ResultFormat.TEXT, null);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}// end of displayResults
+	
+	/**
+	 *  Method to write the result through a ResultWriter, which encodes the output into one buffer instead of formatting every
+	 *  entry with a PrintStream call.
+	 * @param result		The result to write.
+	 * @param format		Output format.
+	 * @param outputFile	File to write, replaced if it exists, or null for the standard output.
+	 */
+	static void writeResults(ParserValues result, ResultFormat format, File outputFile) throws IOException{
+		
+		if(outputFile != null){
+			try (ResultWriter writer = format.create(FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+				writer.write(result);
+			}
+			return;
+		}
+		//The output goes through System.out, so it follows the lines already printed and a System.setOut() is respected.
+		synchronized (STANDARD_OUTPUT_WRITERS) {
+			if(standardOutput != System.out){
+				STANDARD_OUTPUT_WRITERS.clear();
+				standardOutput = System.out;
+			}
+			ResultWriter writer = STANDARD_OUTPUT_WRITERS.get(format);
+			if(writer == null){
+				writer = format.create(Channels.newChannel(standardOutput));
+				STANDARD_OUTPUT_WRITERS.put(format, writer);
+			}
+			writer.write(result);
+			//The writer and the standard output are left open.
+			writer.flush();
+			standardOutput.flush();
+		}
+	}// end of writeResults
 }// end of CategoryCountApplication class
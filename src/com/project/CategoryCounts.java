@@ -0,0 +1,74 @@
+package com.project;
+
+import java.util.LinkedHashMap;
+
+/**
+ * @author Fabian
+ * CategoryCounts class counts per category id in a plain int array and remembers the order in which categories first occurred.
+ * Counting does not allocate, the LinkedHashMap used by ParserValues is only built once at the end of a parse.
+ *
+ */
+final class CategoryCounts {
+
+	private final CategoryMatcher matcher;
+	private final int[] counts;
+	private final int[] firstOccurrence;
+	private int occurred;
+
+	/**
+	 * Constructor to create CategoryCounts object
+	 * PRECONDITION/REQUIRED:
+	 *  @param matcher 				Matcher that assigns the category ids
+	 */
+	CategoryCounts(CategoryMatcher matcher) {
+		this.matcher = matcher;
+		this.counts = new int[matcher.size()];
+		this.firstOccurrence = new int[matcher.size()];
+	}
+
+	/**
+	 * Instance method to count one more distinct line for a category.
+	 * @param id					Category id returned by the matcher
+	 */
+	void increment(int id){
+		if (counts[id]++ == 0) {
+			firstOccurrence[occurred++] = id;
+		}
+	}
+
+	/**
+	 * Instance method to set the count of a category id that did not occur yet, used to restore a snapshot.
+	 * PRECONDITION/REQUIRED:
+	 * 	Categories have to be restored in their order of first occurrence.
+	 *
+	 * @param id					Category id returned by the matcher
+	 * @param count					Count of the category, nothing is restored for 0
+	 */
+	void restore(int id, int count){
+		if (count > 0 && counts[id] == 0) {
+			firstOccurrence[occurred++] = id;
+		}
+		counts[id] += count;
+	}
+
+	/**
+	 * Instance method to return the count of a category id.
+	 */
+	int get(int id){
+		return counts[id];
+	}
+
+	/**
+	 * Instance method to build the count map of the categories that occurred.
+	 * @return			LinkedHashMap of category and count, in order of first occurrence
+	 */
+	LinkedHashMap<String, Integer> toMap(){
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		for (int i = 0; i < occurred; i++) {
+			int id = firstOccurrence[i];
+			categoryCount.put(matcher.category(id), counts[id]);
+		}
+		return categoryCount;
+	}
+
+}
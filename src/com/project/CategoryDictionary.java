@@ -0,0 +1,130 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * CategoryDictionary class is one immutable version of the legal categories. The CategoryMatcher of a version is built once, when the
+ * version is created, and shared by every parser that uses it, so a parser over tens of thousands of categories starts without
+ * building a lookup table.
+ *
+ * A dictionary file holds one category per line in UTF-8. Leading and trailing whitespace is ignored, as are empty lines and lines
+ * starting with '#'. A category with a space inside can never match, since the category of a line ends at its first space, so such a
+ * file is rejected.
+ *
+ * A dictionary is its own CategoryDictionarySource. CategoryDictionaryReloader is the source that swaps in a new version when the
+ * file changes.
+ *
+ */
+public final class CategoryDictionary implements CategoryDictionarySource {
+
+	private final long version;
+	private final Set<String> categories;
+	private final CategoryMatcher matcher;
+
+	/**
+	 * Constructor to create CategoryDictionary object
+	 * PRECONDITION/REQUIRED:
+	 *  @param legalCategoryList 			String Array of Legal Category List, duplicates are ignored
+	 *  @param version 					Version of the dictionary, 0 for a list that is not loaded from a file
+	 */
+	public CategoryDictionary(String[] legalCategoryList, long version) {
+		HashSet<String> legal = new HashSet<String>(Arrays.asList(legalCategoryList));
+		this.version = version;
+		this.categories = Collections.unmodifiableSet(legal);
+		//Category ids follow the iteration order of the set, the order in which missing categories are added with zero.
+		this.matcher = new CategoryMatcher(legal.toArray(new String[legal.size()]));
+	}
+
+	/**
+	 * Class method to load a dictionary file.
+	 * PRECONDITION/REQUIRED:
+	 * 	Provided dictionary file should exist else will throw FileNotFoundException.
+	 *
+	 * @param dictionaryFile				File with one category per line
+	 * @param version						Version given to the loaded dictionary
+	 * @return								The dictionary
+	 * @throws FileNotFoundException
+	 * @throws IOException					Also if a category contains a space or two categories cannot be told apart
+	 */
+	public static CategoryDictionary load(File dictionaryFile, long version) throws FileNotFoundException, IOException{
+		List<String> categories = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(dictionaryFile), StandardCharsets.UTF_8))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				String category = line.trim();
+				if (category.isEmpty() || category.startsWith("#")) {
+					continue;
+				}
+				for (int i = 0; i < category.length(); i++) {
+					if (Character.isWhitespace(category.charAt(i))) {
+						throw new IOException(dictionaryFile + " line " + lineNumber + ": category \"" + category + "\" contains whitespace");
+					}
+				}
+				categories.add(category);
+			}
+		}
+		try {
+			return new CategoryDictionary(categories.toArray(new String[categories.size()]), version);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(dictionaryFile + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * A dictionary does not change, it is always its own current version.
+	 */
+	@Override
+	public CategoryDictionary current() {
+		return this;
+	}
+
+	/**
+	 * Getter method to retrieve the version, recorded in the ParserValues of every parse that used this dictionary.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Getter method to retrieve the legal categories
+	 * @return			Read only set, iterates in category id order
+	 */
+	public Set<String> getCategories() {
+		return categories;
+	}
+
+	/**
+	 * Getter method to retrieve the categories as an array, for the classes that take a legal category list.
+	 */
+	public String[] toArray() {
+		return categories.toArray(new String[categories.size()]);
+	}
+
+	/**
+	 * Getter method to retrieve the matcher built for this version.
+	 */
+	CategoryMatcher getMatcher() {
+		return matcher;
+	}
+
+	@Override
+	public String toString() {
+		return "CategoryDictionary[version=" + version + ", categories=" + categories.size() + "]";
+	}
+
+}
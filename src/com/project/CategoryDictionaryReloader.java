@@ -0,0 +1,118 @@
+package com.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Fabian
+ * CategoryDictionaryReloader class keeps the current version of a dictionary file and swaps in a new version when the file changes.
+ *
+ * 1. The new version, with its CategoryMatcher, is built completely before it is published, then one AtomicReference.set() makes it
+ *    current. Readers only pay a volatile read per unit of work and never wait for a reload.
+ * 2. Work that started on the old version keeps it until it is done, see CategoryDictionarySource.
+ * 3. The file is checked for a new size or modification time by checkForChanges(), or every interval on a daemon thread after
+ *    start(). A file that cannot be loaded (half written, a category with a space, ...) is reported on standard error and the
+ *    current version is kept; the next change is tried again.
+ *
+ * Versions count up from 1 for the first load.
+ *
+ */
+public final class CategoryDictionaryReloader implements CategoryDictionarySource, Closeable {
+
+	private final File dictionaryFile;
+	private final AtomicReference<CategoryDictionary> current = new AtomicReference<>();
+	private long loadedSize;
+	private long loadedModified;
+	private long failedSize = -1;
+	private long failedModified = -1;
+	private ScheduledExecutorService watcher;
+
+	/**
+	 * Constructor to create CategoryDictionaryReloader object, loads the first version.
+	 * PRECONDITION/REQUIRED:
+	 *  @param dictionaryFile 				File with one category per line, see CategoryDictionary
+	 *  @throws FileNotFoundException
+	 *  @throws IOException				If the first version cannot be loaded
+	 */
+	public CategoryDictionaryReloader(File dictionaryFile) throws FileNotFoundException, IOException {
+		this.dictionaryFile = dictionaryFile;
+		long size = dictionaryFile.length();
+		long modified = dictionaryFile.lastModified();
+		current.set(CategoryDictionary.load(dictionaryFile, 1));
+		loadedSize = size;
+		loadedModified = modified;
+	}
+
+	@Override
+	public CategoryDictionary current() {
+		return current.get();
+	}
+
+	/**
+	 * Instance method to load the file again if its size or modification time changed since the current version was loaded.
+	 * @return							true if a new version was published
+	 */
+	public synchronized boolean checkForChanges(){
+		long size = dictionaryFile.length();
+		long modified = dictionaryFile.lastModified();
+		if ((size == loadedSize && modified == loadedModified) || (size == failedSize && modified == failedModified)) {
+			return false;
+		}
+		try {
+			CategoryDictionary next = CategoryDictionary.load(dictionaryFile, current.get().getVersion() + 1);
+			//The file may have changed again while it was read, then the next check loads it once more.
+			loadedSize = size;
+			loadedModified = modified;
+			current.set(next);
+			return true;
+		} catch (IOException e) {
+			failedSize = size;
+			failedModified = modified;
+			System.err.println("WARNING: " + e.getMessage() + ", keeping dictionary version " + current.get().getVersion() + ".");
+			return false;
+		}
+	}
+
+	/**
+	 * Instance method to check the file for changes on a daemon thread.
+	 * @param intervalMillis			Time between two checks
+	 */
+	public synchronized void start(long intervalMillis){
+		if (watcher != null) {
+			return;
+		}
+		watcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "category-dictionary-reloader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		watcher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				checkForChanges();
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Instance method to stop the checks of start(), the current version stays usable.
+	 */
+	@Override
+	public synchronized void close(){
+		if (watcher != null) {
+			watcher.shutdownNow();
+			watcher = null;
+		}
+	}
+
+}
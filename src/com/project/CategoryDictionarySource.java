@@ -0,0 +1,18 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * CategoryDictionarySource interface for the providers of the legal categories of long running components. A component asks for the
+ * current dictionary once per unit of work (a parse, a request) and keeps using that version until the work is done, so a new version
+ * never changes a parse halfway and the lines are matched without any locking.
+ *
+ */
+public interface CategoryDictionarySource {
+
+	/**
+	 * Instance method to return the dictionary new work should use.
+	 * @return						Current dictionary, never null
+	 */
+	CategoryDictionary current();
+
+}
@@ -0,0 +1,159 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Fabian
+ * CategoryIngestServer class is a loopback socket endpoint in front of a ConcurrentCategoryCounter.
+ *
+ * Line protocol, UTF-8:
+ * 1. A connection whose first line is "INGEST" sends one input line per line. When the client shuts down its output the server
+ *    answers "OK <lines received> <lines counted>" and closes the connection.
+ *    When the counter is full the server stops reading and answers "ERROR Too many distinct lines" instead, the lines counted
+ *    before are kept.
+ * 2. A connection whose first line is "COUNTS" gets the sorted counts of a snapshot, one "CATEGORY COUNT" line per category,
+ *    followed by an empty line.
+ *
+ * Every connection is served by its own thread, so many producers can ingest at the same time.
+ *
+ */
+public class CategoryIngestServer implements Closeable {
+
+	private final ConcurrentCategoryCounter counter;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connections;
+	private final Thread acceptor;
+	private volatile boolean closed;
+
+	/**
+	 * Constructor to create CategoryIngestServer object, the server accepts connections right away.
+	 * PRECONDITION/REQUIRED:
+	 *  @param counter 					Counter the ingested lines are added to
+	 *  @param port 					Loopback port to listen on, 0 for any free port
+	 *  @throws IOException				If the port cannot be bound
+	 */
+	public CategoryIngestServer(ConcurrentCategoryCounter counter, int port) throws IOException {
+		this.counter = counter;
+		this.serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		this.connections = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger next = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "category-ingest-" + next.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptLoop();
+			}
+		}, "category-ingest-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Getter method to retrieve the port the server listens on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Instance method to stop accepting connections and wait up to a second for open connections to finish.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		serverSocket.close();
+		connections.shutdown();
+		try {
+			connections.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void acceptLoop(){
+		while (!closed) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (!closed) {
+					System.err.println("ERROR: I/O Exception.");
+				}
+				return;
+			}
+			connections.execute(new Runnable() {
+				@Override
+				public void run() {
+					serve(socket);
+				}
+			});
+		}
+	}
+
+	private void serve(Socket socket){
+		try (Socket connection = socket;
+				BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+				Writer writer = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)) {
+			String command = reader.readLine();
+			if ("INGEST".equals(command)) {
+				long received = 0;
+				long counted = 0;
+				String line;
+				String error = null;
+				while (error == null && (line = reader.readLine()) != null) {
+					received++;
+					try {
+						if (counter.add(line)) {
+							counted++;
+						}
+					} catch (IllegalStateException e) {
+						//The counter is full, the lines counted so far are kept.
+						error = e.getMessage();
+					}
+				}
+				if (error == null) {
+					writer.write("OK " + received + " " + counted + "\n");
+				} else {
+					writer.write("ERROR " + error + "\n");
+				}
+			} else if ("COUNTS".equals(command)) {
+				for (Map.Entry<String, Integer> entry : counter.snapshot().getCategoryCount().entrySet()) {
+					writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+				}
+				writer.write("\n");
+			} else {
+				writer.write("ERROR unknown command\n");
+			}
+		} catch (SocketException e) {
+			//The client went away, its lines so far are counted.
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * CategoryLineProcessor class applies the parse rules of CategorySetParser to lines handed over as raw bytes.
+ * The category and the separator are found directly in the bytes, duplicate detection is left to a DedupIndex.
+ *
+ * The rules are the same as the String based parse:
+ * 1. The category is everything before the first single space separator.
+ * 2. A line without a separator, or with nothing but spaces after it, is skipped.
+ * 3. Lines with an illegal category are skipped.
+ * 4. Each distinct line is kept once, in order of its first occurrence, and counted for its category.
+ *
+ * Skipped lines and lines with extra spaces after the category are handed to a LineValidator, see getValidationReport().
+ *
+ */
+final class CategoryLineProcessor implements OffsetAwareLineVisitor {
+
+	private static final byte SEPARATOR = ' ';
+
+	private final CategoryMatcher matcher;
+	private final CategoryCounts categoryCounts;
+	private final DedupIndex dedupIndex;
+	private final HeavyHitterSketch heavyHitters;
+	private final LineValidator validator = new LineValidator(ValidationReport.SAMPLE_SIZE);
+	private long baseOffset = -1;
+
+	//Line counts not yet added to ParserMetrics, only kept when metrics are enabled.
+	private long linesRead;
+	private long malformedLines;
+	private long illegalCategoryLines;
+	private long duplicateLines;
+
+	/**
+	 * Constructor to create CategoryLineProcessor object
+	 * PRECONDITION/REQUIRED:
+	 *  @param matcher 					Matcher of the legal categories
+	 *  @param dedupIndex 				Empty index to collect the distinct lines in
+	 */
+	CategoryLineProcessor(CategoryMatcher matcher, DedupIndex dedupIndex) {
+		this(matcher, dedupIndex, null);
+	}
+
+	/**
+	 * Constructor to create CategoryLineProcessor object that also counts the most repeated lines
+	 * PRECONDITION/REQUIRED:
+	 *  @param matcher 					Matcher of the legal categories
+	 *  @param dedupIndex 				Empty index to collect the distinct lines in
+	 *  @param heavyHitters 			Empty sketch every legal line is added to, duplicates included, null to not count them
+	 */
+	CategoryLineProcessor(CategoryMatcher matcher, DedupIndex dedupIndex, HeavyHitterSketch heavyHitters) {
+		this.matcher = matcher;
+		this.categoryCounts = new CategoryCounts(matcher);
+		this.dedupIndex = dedupIndex;
+		this.heavyHitters = heavyHitters;
+	}
+
+	@Override
+	public void visitLine(ByteBuffer buffer, int start, int end) {
+		if (ParserMetrics.ENABLED) {
+			visitLineMeasured(buffer, start, end);
+			return;
+		}
+		validator.countLine();
+		int separator = findSeparator(buffer, start, end);
+		int category = separator < 0 ? -1 : matcher.match(buffer, start, separator);
+		if (category < 0) {
+			validator.reject(buffer, start, end, separator, offset(start));
+			return;
+		}
+		if (buffer.get(separator + 1) == SEPARATOR) {
+			validator.flagMultipleSeparators(buffer, start, end, offset(start));
+		}
+		if (heavyHitters != null) {
+			heavyHitters.add(buffer, start, end);
+		}
+		if (dedupIndex.add(buffer, start, end)) {
+			categoryCounts.increment(category);
+		}
+	}
+
+	@Override
+	public void setBaseOffset(long base) {
+		baseOffset = base;
+	}
+
+	private long offset(int start){
+		return baseOffset < 0 ? -1 : baseOffset + start;
+	}
+
+	/**
+	 * Instance method with the same rules as visitLine() that also counts the lines for ParserMetrics and times one line in
+	 * ParserMetrics.SAMPLE_INTERVAL.
+	 */
+	private void visitLineMeasured(ByteBuffer buffer, int start, int end) {
+		boolean sampled = ParserMetrics.isSampled(++linesRead);
+		long started = sampled ? ParserMetrics.startTimer() : 0;
+		validator.countLine();
+		int separator = findSeparator(buffer, start, end);
+		int category = separator < 0 ? -1 : matcher.match(buffer, start, separator);
+		if (sampled) {
+			started = ParserMetrics.recordPhase(ParserMetrics.Phase.TOKENIZE, started);
+		}
+		if (category < 0) {
+			validator.reject(buffer, start, end, separator, offset(start));
+			if (separator < 0) {
+				malformedLines++;
+			} else {
+				illegalCategoryLines++;
+			}
+			return;
+		}
+		if (buffer.get(separator + 1) == SEPARATOR) {
+			validator.flagMultipleSeparators(buffer, start, end, offset(start));
+		}
+		if (heavyHitters != null) {
+			heavyHitters.add(buffer, start, end);
+		}
+		boolean added = dedupIndex.add(buffer, start, end);
+		if (sampled) {
+			ParserMetrics.recordPhase(ParserMetrics.Phase.DEDUP, started);
+		}
+		if (added) {
+			categoryCounts.increment(category);
+		} else {
+			duplicateLines++;
+		}
+	}
+
+	/**
+	 * Instance method to add the line counts collected so far to the ParserMetrics of the calling thread. Called when a scan is
+	 * done, does nothing when metrics are disabled.
+	 */
+	void publishMetrics(){
+		if (ParserMetrics.ENABLED) {
+			ParserMetrics.addLineCounts(linesRead, malformedLines, illegalCategoryLines, duplicateLines);
+			linesRead = 0;
+			malformedLines = 0;
+			illegalCategoryLines = 0;
+			duplicateLines = 0;
+		}
+	}
+
+	/**
+	 * Instance method to hand the distinct lines, the validator and the heavy hitter sketch of this processor to a
+	 * PartitionedLineMerger. Called by the worker that parsed the part, the processor is not used afterwards.
+	 * @param partitionBits			PartitionedLineMerger.getPartitionBits() of the merger
+	 * @return						New segment holding a copy of the distinct lines
+	 */
+	LineSegment toSegment(int partitionBits){
+		return new LineSegment(matcher, dedupIndex, validator, heavyHitters, partitionBits);
+	}
+
+	/**
+	 * Instance method to restore the count of a category from a snapshot, see CategoryCounts.restore().
+	 */
+	void restoreCount(int id, int count){
+		categoryCounts.restore(id, count);
+	}
+
+	/**
+	 * Getter method to retrieve the counts collected so far, keyed by category in order of first occurrence.
+	 * @return			New LinkedHashMap, not sorted and without categories that did not occur
+	 */
+	LinkedHashMap<String, Integer> getCategoryCount() {
+		return categoryCounts.toMap();
+	}
+
+	/**
+	 * Getter method to retrieve the line classes and the sampled offending lines seen so far.
+	 * @return			New ValidationReport, byte offsets are offsets in the scanned input
+	 */
+	ValidationReport getValidationReport() {
+		return validator.toReport();
+	}
+
+	/**
+	 * Getter method to retrieve the most repeated lines counted so far.
+	 * @return			The sketch given to the constructor, null if the lines are not counted
+	 */
+	HeavyHitterSketch getHeavyHitters() {
+		return heavyHitters;
+	}
+
+	/**
+	 * Getter method to retrieve the distinct lines collected so far.
+	 * @return			Read only view of the distinct lines in order of first occurrence
+	 */
+	Set<String> getCategoryOrderedList() {
+		return dedupIndex.orderedView();
+	}
+
+	/**
+	 * Class method to find the separator between category and sub-category.
+	 *
+	 * @param buffer				Buffer holding the line
+	 * @param start					Index of the first byte of the line
+	 * @param end					Index one past the last byte of the line
+	 * @return						Index of the first space, -1 if there is none or if only spaces follow it
+	 */
+	static int findSeparator(ByteBuffer buffer, int start, int end){
+		int separator = -1;
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == SEPARATOR) {
+				separator = i;
+				break;
+			}
+		}
+		if (separator < 0) {
+			return -1;
+		}
+		for (int i = separator + 1; i < end; i++) {
+			if (buffer.get(i) != SEPARATOR) {
+				return separator;
+			}
+		}
+		return -1;
+	}
+
+}
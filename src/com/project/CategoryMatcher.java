@@ -0,0 +1,270 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author Fabian
+ * CategoryMatcher class maps a category, given as a byte or char span of a line, to a small int id without creating a substring.
+ * The id of a category is its index in the array passed to the constructor.
+ *
+ * The lookup table is a minimal-probe perfect hash built once per legal category list (hash and displace):
+ * 1. Every category gets a 64 bit hash of its UTF-8 bytes. The upper half of the hash chooses a bucket.
+ * 2. Buckets are placed largest first. For every bucket a displacement seed is searched that sends all its categories to free slots.
+ * 3. A lookup hashes the span once, mixes the hash with the seed of its bucket and compares the span with the one category in that
+ *    slot. No probing, no boxing and no allocation.
+ *
+ * Char spans are hashed over their UTF-8 encoding, so both kinds of span use the same table.
+ *
+ */
+public final class CategoryMatcher {
+
+	private static final Charset CHARSET = StandardCharsets.UTF_8;
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+	private static final int MAX_SEED = 1 << 16;
+
+	private final String[] categories;
+	private final byte[][] categoryBytes;
+	private final int bucketMask;
+	private int[] seeds;
+	private int[] slotIds;
+	private int slotMask;
+
+	/**
+	 * Constructor to create CategoryMatcher object
+	 * PRECONDITION/REQUIRED:
+	 *  @param categories 			Legal categories without duplicates, the index of a category is its id
+	 */
+	public CategoryMatcher(String[] categories) {
+		this.categories = categories.clone();
+		this.categoryBytes = new byte[categories.length][];
+		long[] hashes = new long[categories.length];
+		for (int i = 0; i < categories.length; i++) {
+			categoryBytes[i] = categories[i].getBytes(CHARSET);
+			hashes[i] = hash(categoryBytes[i]);
+		}
+		checkDistinct(hashes);
+		int bucketCount = Integer.highestOneBit(Math.max(1, categories.length / 2) * 2 - 1);
+		this.bucketMask = bucketCount - 1;
+		int slots = Integer.highestOneBit(Math.max(2, categories.length + categories.length / 4) * 2 - 1);
+		while (!build(hashes, bucketCount, slots)) {
+			slots *= 2;
+		}
+	}
+
+	/**
+	 * Instance method to look up a category given as bytes.
+	 *
+	 * @param buffer				Buffer holding the category, positions are absolute indexes
+	 * @param start					Index of the first byte of the category
+	 * @param end					Index one past the last byte of the category
+	 * @return						Id of the category, -1 if it is not legal
+	 */
+	public int match(ByteBuffer buffer, int start, int end){
+		long hash = FNV_OFFSET;
+		for (int i = start; i < end; i++) {
+			hash = (hash ^ (buffer.get(i) & 0xff)) * FNV_PRIME;
+		}
+		int id = slotIds[slot(ByteHash.mix(hash))];
+		if (id < 0) {
+			return -1;
+		}
+		byte[] candidate = categoryBytes[id];
+		if (candidate.length != end - start) {
+			return -1;
+		}
+		for (int i = 0; i < candidate.length; i++) {
+			if (candidate[i] != buffer.get(start + i)) {
+				return -1;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Instance method to look up a category given as chars, for example the start of a line read by a Reader.
+	 *
+	 * @param line					Text holding the category
+	 * @param start					Index of the first char of the category
+	 * @param end					Index one past the last char of the category
+	 * @return						Id of the category, -1 if it is not legal
+	 */
+	public int match(CharSequence line, int start, int end){
+		long hash = FNV_OFFSET;
+		for (int i = start; i < end; i++) {
+			char current = line.charAt(i);
+			if (current < 0x80) {
+				hash = (hash ^ current) * FNV_PRIME;
+			} else {
+				int codePoint = Character.codePointAt(line, i);
+				if (Character.isSupplementaryCodePoint(codePoint)) {
+					i++;
+				}
+				hash = hashNonAscii(hash, codePoint);
+			}
+		}
+		int id = slotIds[slot(ByteHash.mix(hash))];
+		if (id < 0) {
+			return -1;
+		}
+		String candidate = categories[id];
+		if (candidate.length() != end - start) {
+			return -1;
+		}
+		for (int i = 0; i < candidate.length(); i++) {
+			if (candidate.charAt(i) != line.charAt(start + i)) {
+				return -1;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * @return						Number of categories
+	 */
+	public int size(){
+		return categories.length;
+	}
+
+	/**
+	 * Instance method to return the category with the given id.
+	 * @param id					Id returned by match()
+	 * @return						Category String
+	 */
+	public String category(int id){
+		return categories[id];
+	}
+
+	/**
+	 * Instance method to return the UTF-8 bytes of the category with the given id.
+	 * @param id					Id returned by match()
+	 * @return						Shared array, should not be changed
+	 */
+	byte[] categoryBytes(int id){
+		return categoryBytes[id];
+	}
+
+	private int bucket(long hash){
+		return (int) (hash >>> 32) & bucketMask;
+	}
+
+	private int slot(long hash){
+		int seed = seeds[bucket(hash)];
+		return (int) ByteHash.mix(hash + seed * GOLDEN) & slotMask;
+	}
+
+	/**
+	 * Instance method to search a displacement seed for every bucket.
+	 * @return						false if some bucket could not be placed with this many slots
+	 */
+	private boolean build(long[] hashes, int bucketCount, int slots){
+		final List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+		for (int i = 0; i < bucketCount; i++) {
+			buckets.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < hashes.length; i++) {
+			buckets.get(bucket(hashes[i])).add(i);
+		}
+		Integer[] order = new Integer[bucketCount];
+		for (int i = 0; i < bucketCount; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Integer.compare(buckets.get(o2).size(), buckets.get(o1).size());
+			}
+		});
+		seeds = new int[bucketCount];
+		slotIds = new int[slots];
+		slotMask = slots - 1;
+		Arrays.fill(slotIds, -1);
+		int[] placed = new int[hashes.length];
+		for (int bucket : order) {
+			List<Integer> members = buckets.get(bucket);
+			if (members.isEmpty()) {
+				break;
+			}
+			boolean found = false;
+			for (int seed = 0; seed < MAX_SEED && !found; seed++) {
+				seeds[bucket] = seed;
+				int count = 0;
+				for (int member : members) {
+					int slot = slot(hashes[member]);
+					if (slotIds[slot] >= 0) {
+						break;
+					}
+					slotIds[slot] = member;
+					placed[count++] = slot;
+				}
+				found = count == members.size();
+				if (!found) {
+					for (int i = 0; i < count; i++) {
+						slotIds[placed[i]] = -1;
+					}
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Instance method to reject duplicate categories. Two different categories with the same 64 bit hash are rejected as well,
+	 * they could never be told apart by the table.
+	 */
+	private void checkDistinct(long[] hashes){
+		Integer[] byHash = new Integer[hashes.length];
+		for (int i = 0; i < byHash.length; i++) {
+			byHash[i] = i;
+		}
+		final long[] keys = hashes;
+		Arrays.sort(byHash, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(keys[o1], keys[o2]);
+			}
+		});
+		for (int i = 1; i < byHash.length; i++) {
+			if (hashes[byHash[i]] == hashes[byHash[i - 1]]) {
+				throw new IllegalArgumentException("Legal categories \"" + categories[byHash[i - 1]] + "\" and \""
+						+ categories[byHash[i]] + "\" cannot be told apart");
+			}
+		}
+	}
+
+	private static long hash(byte[] bytes){
+		long hash = FNV_OFFSET;
+		for (byte current : bytes) {
+			hash = (hash ^ (current & 0xff)) * FNV_PRIME;
+		}
+		return ByteHash.mix(hash);
+	}
+
+	/**
+	 * Class method to continue a hash with the UTF-8 bytes of a code point above 0x7f.
+	 */
+	private static long hashNonAscii(long hash, int codePoint){
+		if (codePoint < 0x800) {
+			hash = (hash ^ (0xc0 | (codePoint >>> 6))) * FNV_PRIME;
+		} else if (codePoint < 0x10000) {
+			hash = (hash ^ (0xe0 | (codePoint >>> 12))) * FNV_PRIME;
+			hash = (hash ^ (0x80 | ((codePoint >>> 6) & 0x3f))) * FNV_PRIME;
+		} else {
+			hash = (hash ^ (0xf0 | (codePoint >>> 18))) * FNV_PRIME;
+			hash = (hash ^ (0x80 | ((codePoint >>> 12) & 0x3f))) * FNV_PRIME;
+			hash = (hash ^ (0x80 | ((codePoint >>> 6) & 0x3f))) * FNV_PRIME;
+		}
+		return (hash ^ (0x80 | (codePoint & 0x3f))) * FNV_PRIME;
+	}
+
+}
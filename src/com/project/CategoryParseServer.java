@@ -0,0 +1,398 @@
+package com.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Fabian
+ * CategoryParseServer class exposes CategorySetParser as a loopback HTTP request/response service.
+ *
+ * 1. "POST /parse?path=FILE" parses a file below the root directory of the server.
+ * 2. "POST /parse" with the input lines as request body parses the body.
+ * The response is text/plain in the format of CategoryCountApplication.displayResults: the sorted counts, an empty line and the
+ * category pairs.
+ *
+ * Every request runs on its own virtual thread when the JVM has them (Java 21 and later, found by reflection because the project
+ * targets Java 7), else on a fixed pool of platform threads. A request takes one of maxInFlight permits when it arrives, before it
+ * is queued for a handler thread, and gives it back when its parse has really finished, so queued, waiting and running requests
+ * together never exceed maxInFlight; further requests are answered with 503 right away. A request that takes longer than the
+ * timeout is answered with 504 and its parse is cancelled, the parse keeps its permit until it stopped.
+ *
+ */
+public class CategoryParseServer implements Closeable {
+
+	/** Thread model of the request handlers. */
+	public enum ThreadMode {
+		/** One virtual thread per request, falls back to PLATFORM on JVMs without virtual threads. */
+		VIRTUAL,
+		/** A fixed pool of platform threads. */
+		PLATFORM
+	}
+
+	private static final int STATUS_OK = 200;
+	private static final int STATUS_FORBIDDEN = 403;
+	private static final int STATUS_NOT_FOUND = 404;
+	private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+	private static final int STATUS_INTERNAL_ERROR = 500;
+	private static final int STATUS_UNAVAILABLE = 503;
+	private static final int STATUS_TIMEOUT = 504;
+
+	private final CategoryDictionarySource dictionaries;
+	private ThreadMode threadMode = ThreadMode.VIRTUAL;
+	private int platformThreads = Runtime.getRuntime().availableProcessors() * 2;
+	private int maxInFlight = 10000;
+	private long timeoutMillis = 10000;
+	private File rootDirectory = new File(".");
+
+	private HttpServer server;
+	private ExecutorService admission;
+	private ExecutorService handlers;
+	private ExecutorService workers;
+	private Semaphore inFlight;
+	private boolean virtualThreads;
+
+	/**
+	 * Constructor to create CategoryParseServer object, start() opens the port.
+	 * PRECONDITION/REQUIRED:
+	 *  @param legalCategoryList 			String Array of Legal Category List, Example: {"PERSON", "PLACE", "OTHER"}
+	 */
+	public CategoryParseServer(String[] legalCategoryList) {
+		this(new CategoryDictionary(legalCategoryList, 0));
+	}
+
+	/**
+	 * Constructor to create CategoryParseServer object whose legal categories can change while it runs, start() opens the port.
+	 * Every request is parsed with the dictionary that is current when it arrives, its version is sent in the X-Dictionary-Version
+	 * response header.
+	 * PRECONDITION/REQUIRED:
+	 *  @param dictionaries 				Source of the legal categories, a CategoryDictionary or a CategoryDictionaryReloader
+	 */
+	public CategoryParseServer(CategoryDictionarySource dictionaries) {
+		this.dictionaries = dictionaries;
+	}
+
+	/**
+	 * Setter method to choose the thread model
+	 * @param threadMode				VIRTUAL (default) or PLATFORM
+	 */
+	public void setThreadMode(ThreadMode threadMode) {
+		this.threadMode = threadMode;
+	}
+
+	/**
+	 * Setter method to choose the size of the platform thread pool
+	 * @param platformThreads			Pool size for PLATFORM, twice the number of processors by default
+	 */
+	public void setPlatformThreads(int platformThreads) {
+		this.platformThreads = platformThreads;
+	}
+
+	/**
+	 * Setter method to choose the backpressure limit
+	 * @param maxInFlight				Requests queued, waiting or parsed at the same time before 503 is returned, 10000 by default
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Setter method to choose the request timeout
+	 * @param timeoutMillis				Time a parse may take before 504 is returned, 10 seconds by default
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Setter method to choose the directory files may be parsed from
+	 * @param rootDirectory				Only files below this directory are parsed, the working directory by default
+	 */
+	public void setRootDirectory(File rootDirectory) {
+		this.rootDirectory = rootDirectory;
+	}
+
+	/**
+	 * Instance method to open the loopback port and start serving.
+	 * @param port						Port to listen on, 0 for any free port
+	 * @throws IOException				If the port cannot be bound
+	 */
+	public void start(int port) throws IOException{
+		handlers = threadMode == ThreadMode.VIRTUAL ? newVirtualThreadExecutor() : null;
+		virtualThreads = handlers != null;
+		if (virtualThreads) {
+			admission = handlers;
+			workers = handlers;
+		} else {
+			//The admission threads only read the request head and take a permit, so their queue stays short. A handler waits for
+			//its parse task, so the tasks need their own pool or a full handler pool would wait forever.
+			admission = Executors.newFixedThreadPool(platformThreads);
+			handlers = Executors.newFixedThreadPool(platformThreads);
+			workers = Executors.newFixedThreadPool(platformThreads);
+		}
+		inFlight = new Semaphore(maxInFlight);
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxInFlight);
+		server.createContext("/parse", new ParseHandler());
+		server.setExecutor(admission);
+		server.start();
+	}
+
+	/**
+	 * Getter method to retrieve the port the server listens on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Getter method to check if requests run on virtual threads
+	 * @return			false if PLATFORM was chosen or the JVM has no virtual threads
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Instance method to stop the server, open requests get up to a second to finish.
+	 */
+	@Override
+	public void close() {
+		if (server != null) {
+			server.stop(1);
+			admission.shutdownNow();
+			handlers.shutdownNow();
+			workers.shutdownNow();
+			server = null;
+		}
+	}
+
+	/**
+	 * Class method to create an executor that starts a virtual thread per task.
+	 * @return			The executor, null if the JVM has no virtual threads
+	 */
+	static ExecutorService newVirtualThreadExecutor(){
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Handler of /parse, runs on an admission thread. A request that gets a permit is handed to a handler thread.
+	 */
+	private final class ParseHandler implements HttpHandler {
+
+		@Override
+		public void handle(final HttpExchange exchange) throws IOException {
+			boolean handedOver = false;
+			try {
+				if (!"POST".equals(exchange.getRequestMethod())) {
+					respond(exchange, STATUS_METHOD_NOT_ALLOWED, "Use POST\n");
+					return;
+				}
+				//The permit is taken before the request is queued for a handler, so the handler queue is bounded as well.
+				if (!inFlight.tryAcquire()) {
+					exchange.getResponseHeaders().add("Retry-After", "1");
+					respond(exchange, STATUS_UNAVAILABLE, "Too many requests in flight\n");
+					return;
+				}
+				final InFlightPermit permit = new InFlightPermit();
+				try {
+					handlers.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								handleParse(exchange, permit);
+							} catch (IOException e) {
+								//The client went away, there is nobody to answer.
+							} finally {
+								permit.abandon();
+								exchange.close();
+							}
+						}
+					});
+					handedOver = true;
+				} catch (RejectedExecutionException e) {
+					permit.abandon();
+					respond(exchange, STATUS_UNAVAILABLE, "Server is stopping\n");
+				}
+			} finally {
+				if (!handedOver) {
+					exchange.close();
+				}
+			}
+		}
+
+		private void handleParse(HttpExchange exchange, final InFlightPermit permit) throws IOException {
+			final String path = queryParameter(exchange.getRequestURI().getRawQuery(), "path");
+			final InputStream body = exchange.getRequestBody();
+			final File file;
+			if (path != null) {
+				file = resolve(path);
+				if (file == null) {
+					respond(exchange, STATUS_FORBIDDEN, "Path is outside of the root directory\n");
+					return;
+				}
+			} else {
+				file = null;
+			}
+			//The request keeps the dictionary version it arrived with, a reload only affects later requests.
+			final CategorySetParser parser = new CategorySetParser(dictionaries.current(), file);
+			//The parse runs as its own task so that it can be abandoned after the timeout, it gives the permit back when it ends.
+			Future<ParserValues> parse;
+			try {
+				parse = workers.submit(new Callable<ParserValues>() {
+					@Override
+					public ParserValues call() throws IOException {
+						if (!permit.start()) {
+							return null;
+						}
+						try {
+							if (file != null) {
+								return parser.parse();
+							}
+							return parser.parseStream(body, false);
+						} finally {
+							permit.finish();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				respond(exchange, STATUS_UNAVAILABLE, "Server is stopping\n");
+				return;
+			}
+			ParserValues values;
+			try {
+				values = parse.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				//Interrupting a parse that reads the request body closes the connection, so the answer goes out first.
+				try {
+					respond(exchange, STATUS_TIMEOUT, "Parse timed out\n");
+				} finally {
+					parse.cancel(true);
+				}
+				return;
+			} catch (InterruptedException e) {
+				parse.cancel(true);
+				Thread.currentThread().interrupt();
+				respond(exchange, STATUS_UNAVAILABLE, "Server is stopping\n");
+				return;
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof FileNotFoundException) {
+					respond(exchange, STATUS_NOT_FOUND, "File not found\n");
+				} else {
+					respond(exchange, STATUS_INTERNAL_ERROR, "Parse failed\n");
+				}
+				return;
+			}
+			exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+			exchange.getResponseHeaders().add("X-Dictionary-Version", Long.toString(values.getDictionaryVersion()));
+			exchange.sendResponseHeaders(STATUS_OK, 0);
+			try (ResultWriter writer = ResultFormat.TEXT.create(Channels.newChannel(exchange.getResponseBody()))) {
+				writer.setHeader(false);
+				writer.write(values);
+			}
+		}
+
+		/**
+		 * Instance method to find a requested file below the root directory.
+		 * @return				The file, null if the path leaves the root directory
+		 */
+		private File resolve(String path) throws IOException {
+			File root = rootDirectory.getCanonicalFile();
+			File file = new File(path).isAbsolute() ? new File(path).getCanonicalFile() : new File(root, path).getCanonicalFile();
+			for (File parent = file.getParentFile(); parent != null; parent = parent.getParentFile()) {
+				if (parent.equals(root)) {
+					return file;
+				}
+			}
+			return null;
+		}
+
+		private void respond(HttpExchange exchange, int status, String message) throws IOException {
+			byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+
+	/**
+	 * Permit of one request. The parse task takes it over when it starts and releases it when it ends; a request whose parse never
+	 * started, because it was refused, failed before or was cancelled while queued, releases it when the handler is done.
+	 */
+	private final class InFlightPermit {
+
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		/**
+		 * Instance method called by the parse task before it parses.
+		 * @return				false if the request was abandoned, the task must not parse then
+		 */
+		boolean start(){
+			return started.compareAndSet(false, true);
+		}
+
+		/**
+		 * Instance method called by the parse task when the parse ended, whether it succeeded, failed or was interrupted.
+		 */
+		void finish(){
+			inFlight.release();
+		}
+
+		/**
+		 * Instance method called when the handler is done, releases the permit unless the parse task took it over.
+		 */
+		void abandon(){
+			if (started.compareAndSet(false, true)) {
+				inFlight.release();
+			}
+		}
+	}
+
+	/**
+	 * Class method to read one parameter of a URL query.
+	 * @return				The decoded value, null if the parameter is missing
+	 */
+	static String queryParameter(String rawQuery, String name) throws UnsupportedEncodingException{
+		if (rawQuery == null) {
+			return null;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0 && pair.substring(0, equals).equals(name)) {
+				return URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+			}
+		}
+		return null;
+	}
+
+}
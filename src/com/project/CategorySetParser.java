@@ -3,18 +3,28 @@ package com.project;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Fabian
@@ -24,8 +34,30 @@ import java.util.Map.Entry;
  */
 public class CategorySetParser {
 	
-	private final HashSet<String> LEGAL_CATEGORY_LIST;
+	/** HyperLogLog precision of parseApproximate(), 4 KB per category and a relative standard error of about 1.6%. */
+	public static final int DEFAULT_APPROXIMATE_PRECISION = 12;
+	
+	/** Preferred size of one range for parseParallel(). */
+	public static final long DEFAULT_CHUNK_SIZE = 16L * 1024 * 1024;
+	
+	/** Heap bytes the distinct lines of parseExternal() may take before they are spilled to disk. */
+	public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+	/** Read buffer size of parseStream() on the calling thread. */
+	private static final int STREAM_BLOCK_SIZE = 8192;
+	
+	/** Blocks of parseChannel(): one is read while the other is parsed. */
+	private static final int READ_AHEAD_BLOCKS = 2;
+	
+	private final CategoryDictionary dictionary;
+	private final Set<String> LEGAL_CATEGORY_LIST;
+	private final CategoryMatcher matcher;
 	private final File inputFile;
+	private DedupIndexType dedupIndexType = DedupIndexType.STRINGS;
+	private File spillDirectory;
+	private Charset charset;
+	private int blockSize = PipelinedBlockReader.DEFAULT_BLOCK_SIZE;
+	private int heavyHitterCapacity;
 	
 		
 	/**
@@ -35,18 +67,91 @@ public class CategorySetParser {
 	 *  @param inputFile 					Input file to parse with single space separated category and sub-category
 	 */
 	public CategorySetParser(String[] legalCategoryList, File inputFile) {
-		LEGAL_CATEGORY_LIST= new HashSet<String>(Arrays.asList(legalCategoryList));
+		this(new CategoryDictionary(legalCategoryList, 0), inputFile);
+	}
+	
+	/**
+	 * Constructor to create CategorySetParser object for one version of a dictionary. The parser keeps this version, its results
+	 * record it in ParserValues.getDictionaryVersion(). The matcher of the dictionary is shared, not built again.
+	 * PRECONDITION/REQUIRED: 
+	 *  @param dictionary 					Legal categories, for example CategoryDictionaryReloader.current()
+	 *  @param inputFile 					Input file to parse with single space separated category and sub-category
+	 */
+	public CategorySetParser(CategoryDictionary dictionary, File inputFile) {
+		this.dictionary = dictionary;
+		LEGAL_CATEGORY_LIST = dictionary.getCategories();
+		//Category ids follow the iteration order of LEGAL_CATEGORY_LIST, the order in which missing categories are added with zero.
+		matcher = dictionary.getMatcher();
 		this.inputFile = inputFile;
 	}
 	
+	/**
+	 * Setter method to choose the duplicate detection of parseChannel(), parseMapped(), parseParallel() and parseCompressed(), and of
+	 * parse() for UTF-8 and ASCII input. parse() of other charsets always uses a LinkedHashSet, parseParallel() uses the type inside
+	 * every range and merges the ranges into byte arenas.
+	 * @param dedupIndexType			DedupIndexType.STRINGS (default), ARENA or OFF_HEAP_ARENA
+	 */
+	public void setDedupIndexType(DedupIndexType dedupIndexType) {
+		this.dedupIndexType = dedupIndexType;
+	}
+
+	/**
+	 * Setter method to choose the directory of the run files of parseExternal().
+	 * @param spillDirectory			Existing writable directory, null for the default temporary directory (default)
+	 */
+	public void setSpillDirectory(File spillDirectory) {
+		this.spillDirectory = spillDirectory;
+	}
+	
+	/**
+	 * Setter method to choose the charset of the input file for parse() and parseCompressed(). UTF-8 and US-ASCII input is parsed
+	 * from the bytes by parseChannel() or parseStream(), any other charset is decoded through a Reader.
+	 * @param charset					Charset of the input file, null for the platform default charset (default)
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+	
+	/**
+	 * Setter method to choose the size of one read of parse(), parseChannel() and parseCompressed(). Larger blocks suit volumes with a
+	 * high latency per request (network attached storage), see ReadBlockSizeBenchmark for a sweep.
+	 * @param blockSize					Bytes per read, PipelinedBlockReader.DEFAULT_BLOCK_SIZE by default
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Block size should be positive");
+		}
+		this.blockSize = blockSize;
+	}
+	
+	/**
+	 * Setter method to count the most repeated category and sub-category lines, duplicates included, next to the distinct counts.
+	 * The lines are counted in a Space-Saving sketch of a fixed number of counters, see ParserValues.getHeavyHitters(). Every parse
+	 * path but parseApproximate() counts them; IncrementalCategorySetParser starts over after it was restored from a snapshot.
+	 * @param capacity					Number of counters, a few times the number of lines to be listed, 0 to not count the lines
+	 * 									(default)
+	 */
+	public void setHeavyHitterCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Heavy hitter capacity should not be negative");
+		}
+		this.heavyHitterCapacity = capacity;
+	}
+	
 	/**
 	 * Instance method to parse the file with provided input file and Legal category list.
+	 * A gzip or zip compressed input file is recognized by its first bytes and parsed with parseCompressed().
+	 * UTF-8 and US-ASCII input, which includes the default charset of a platform that defaults to ASCII (bytes above 0x7F are then
+	 * read as UTF-8), is parsed from the bytes by parseChannel(); input of any other charset, see setCharset(), is decoded through
+	 * a Reader.
 	 * PRECONDITION/REQUIRED: 	
 	 * 	Provided input file should exist else will throw FileNotFoundException.
 	 * 
 	 * @return		object values for ParserValues class consisting.
 	 * 				1. a LinkedHashMap containing categories as keys and the count as values
-	 * 				2. a LinkedHashSet containing the all the valid categories and sub-categories with duplicates removed.
+	 * 				2. a Set containing the all the valid categories and sub-categories with duplicates removed, in order of first
+	 * 				occurrence. For UTF-8 and ASCII input it is a read only view over the DedupIndex that throws
+	 * 				UnsupportedOperationException when changed, for other charsets a LinkedHashSet.
 	 * 
 	 * @throws FileNotFoundException
 	 * @throws IOException
@@ -54,36 +159,239 @@ public class CategorySetParser {
 	 */
 	public ParserValues parse() throws FileNotFoundException, IOException{
 	
+		if(InputCompression.detect(inputFile) != InputCompression.NONE){
+			return parseCompressed();
+		}
+		Charset inputCharset = inputCharset();
+		if(isByteCharset(inputCharset)){
+			return parseChannel();
+		}
+		try (InputStream input = new FileInputStream(inputFile)) {
+			return parseDecoded(input, inputCharset);
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		}
+	}
+	
+	/**
+	 * Instance method to return the charset of the input, see setCharset().
+	 */
+	private Charset inputCharset(){
+		return charset != null ? charset : Charset.defaultCharset();
+	}
+	
+	/**
+	 * Class method to check if the lines of a charset can be found in the bytes without decoding.
+	 * ASCII is a subset of UTF-8, the lines of both are parsed from the bytes.
+	 */
+	private static boolean isByteCharset(Charset charset){
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+	}
+	
+	/**
+	 * Instance method to parse the lines of a stream decoded through a Reader, for charsets other than UTF-8 and ASCII.
+	 * 
+	 * @param input							Stream of the input bytes, read to its end and closed
+	 * @param inputCharset					Charset of the input bytes
+	 * @return		object values for ParserValues class with a LinkedHashSet of the category pairs
+	 * @throws IOException
+	 */
+	private ParserValues parseDecoded(InputStream input, Charset inputCharset) throws IOException{
 		String currentLine;
-		String currentCategory;
-		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		int separator;
+		int category;
+		CategoryCounts categoryCounts = new CategoryCounts(matcher);
 		LinkedHashSet<String> categoryOrderedList = new LinkedHashSet<>();
+		LineValidator validator = new LineValidator(ValidationReport.SAMPLE_SIZE);
+		HeavyHitterSketch heavyHitters = newHeavyHitterSketch();
+		//Line counts for ParserMetrics, only kept when metrics are enabled.
+		long started = ParserMetrics.startTimer();
+		long lines = 0;
+		long malformed = 0;
+		long illegalCategory = 0;
+		long duplicates = 0;
 		
 		//Reading each line of the input file till the last line is reached
-		try (BufferedReader br = new BufferedReader(new FileReader(inputFile))) {
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(input, inputCharset), blockSize)) {
 			while ((currentLine = br.readLine()) != null ) {
-				try {
-					currentCategory = readCategory(currentLine);
-				} catch (IllegalArgumentException e) {
-					continue;
+				boolean sampled = ParserMetrics.ENABLED && ParserMetrics.isSampled(++lines);
+				long timer = sampled ? ParserMetrics.startTimer() : 0;
+				validator.countLine();
+				separator = readCategory(currentLine);
+				//To check if there are no illegal category values, the category is matched in place without a substring.
+				category = separator < 0 ? -1 : matcher.match(currentLine, 0, separator);
+				if (sampled) {
+					timer = ParserMetrics.recordPhase(ParserMetrics.Phase.TOKENIZE, timer);
 				}
-				//To check if there are no illegal category values
-				if(isLegalCategory(currentCategory)){
-					//To check if the key(category) already exists in the LinkedHashMap.
-					if(categoryCount.containsKey(currentCategory)){
-						//To check if the current line category and sub-category is not equal to any of the values in the categoryOrderedList.
-						if(!categoryOrderedList.contains(currentLine)){			
-							categoryCount.put(currentCategory, categoryCount.get(currentCategory)+1);
-						}
+				if(category >= 0){
+					if(currentLine.charAt(separator + 1) == ' '){
+						validator.flagMultipleSeparators(currentLine);
+					}
+					if(heavyHitters != null){
+						heavyHitters.add(currentLine);
 					}
-					else{
-						//If key(category) does not exist in categoryOrderedList then insert the new value in the LinkedHashMap.
-						categoryCount.put(currentCategory,1);
+					//Only a category and sub-category pair that is not in the categoryOrderedList yet is counted.
+					boolean added = categoryOrderedList.add(currentLine);
+					if (sampled) {
+						ParserMetrics.recordPhase(ParserMetrics.Phase.DEDUP, timer);
+					}
+					if(added){
+						categoryCounts.increment(category);
+					} else if (ParserMetrics.ENABLED) {
+						duplicates++;
+					}
+				} else {
+					//Malformed lines and illegal categories are classified by the validator, no exception is thrown for them.
+					validator.reject(currentLine, separator);
+					if (ParserMetrics.ENABLED) {
+						if (separator < 0) {
+							malformed++;
+						} else {
+							illegalCategory++;
+						}
 					}
-					categoryOrderedList.add(currentLine);
 				}
 			}// end of While loop
-			
+		}
+		ParserMetrics.addLineCounts(lines, malformed, illegalCategory, duplicates);
+		ParserMetrics.add(ParserMetrics.Counter.BYTES_READ, inputFile.length());
+		ParserMetrics.recordParse(started);
+		
+		return attachHeavyHitters(buildResult(categoryCounts.toMap(), categoryOrderedList, validator.toReport()), heavyHitters);
+	}
+	
+	/**
+	 * Instance method to parse a gzip or zip compressed input file without decompressing it to disk. Decompression runs on a
+	 * reader thread that fills a few blocks ahead, so it overlaps with the category counting on the calling thread.
+	 * The decompressed bytes are read in the charset of setCharset() like parse() reads an uncompressed file: UTF-8 and ASCII input
+	 * is parsed from the bytes, any other charset is decoded through a Reader on the calling thread.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 
+	 * @return		object values for ParserValues class, equal to the values returned by parse() for the decompressed file.
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws IOException					Also for a corrupt or truncated compressed file
+	 *  
+	 */
+	public ParserValues parseCompressed() throws FileNotFoundException, IOException{
+		
+		Charset inputCharset = inputCharset();
+		try (InputStream input = InputCompression.detect(inputFile).open(inputFile)) {
+			if (isByteCharset(inputCharset)) {
+				return parseStream(input);
+			}
+			return parseDecoded(input, inputCharset);
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		}
+	}
+	
+	/**
+	 * Instance method to parse lines from a stream instead of the input file. The stream is read on a reader thread pipelined
+	 * with the parse, see PipelinedBlockReader and parseStream(InputStream, boolean).
+	 * PRECONDITION/REQUIRED: 	
+	 * 	The stream should be UTF-8 (or plain ASCII) encoded. It is read to its end but not closed.
+	 * 
+	 * @param input							Stream of lines
+	 * @return		object values for ParserValues class, equal to the values returned by parse() for a file with the same bytes.
+	 * 
+	 * @throws IOException
+	 *  
+	 */
+	public ParserValues parseStream(InputStream input) throws IOException{
+		return parseStream(input, true);
+	}
+	
+	/**
+	 * Instance method to parse lines from a stream instead of the input file.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	The stream should be UTF-8 (or plain ASCII) encoded. It is read to its end but not closed.
+	 * 
+	 * @param input							Stream of lines
+	 * @param readAhead						true to read the stream on a reader thread pipelined with the parse (large or slow streams),
+	 * 										false to read it on the calling thread (small streams, many parses at the same time)
+	 * @return		object values for ParserValues class, equal to the values returned by parse() for a file with the same bytes.
+	 * 
+	 * @throws IOException
+	 *  
+	 */
+	public ParserValues parseStream(InputStream input, boolean readAhead) throws IOException{
+		
+		long started = ParserMetrics.startTimer();
+		CategoryLineProcessor processor = newProcessor();
+		if (readAhead) {
+			PipelinedBlockReader.scan(input, processor, blockSize, PipelinedBlockReader.DEFAULT_BLOCKS);
+		} else {
+			LineAssembler.scan(input, processor, STREAM_BLOCK_SIZE);
+		}
+		processor.publishMetrics();
+		ParserMetrics.recordParse(started);
+		return buildResult(processor);
+	}
+	
+	/**
+	 * Instance method to parse the file through a FileChannel instead of a Reader. The file is read in blocks of setBlockSize() bytes
+	 * into two direct buffers: a reader thread fills one while the calling thread finds the lines in the other, so the reads of a slow
+	 * volume overlap with the counting. A file that fits into one block is read on the calling thread. Like parseMapped() no characters
+	 * are decoded and a String is only created for lines with a legal category, but the file is not mapped, which suits volumes where
+	 * page faults on a mapping are expensive.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 	Input file should be UTF-8 (or plain ASCII) encoded.
+	 * 
+	 * @return		object values for ParserValues class, equal to the values returned by parse().
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *  
+	 */
+	public ParserValues parseChannel() throws FileNotFoundException, IOException{
+		
+		long started = ParserMetrics.startTimer();
+		CategoryLineProcessor processor = newProcessor();
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			PipelinedBlockReader.scan(channel, processor, blockSize, READ_AHEAD_BLOCKS);
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		}
+		processor.publishMetrics();
+		ParserMetrics.recordParse(started);
+		return buildResult(processor);
+	}
+	
+	/**
+	 * Instance method to parse the file through a memory mapping instead of a Reader. Line and separator boundaries are found
+	 * directly in the mapped bytes and a String is only created for lines with a legal category, so no characters are decoded
+	 * and no split arrays are built for the rest of the file.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 	Input file should be UTF-8 (or plain ASCII) encoded.
+	 * 
+	 * @return		object values for ParserValues class, equal to the values returned by parse().
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *  
+	 */
+	public ParserValues parseMapped() throws FileNotFoundException, IOException{
+		
+		long started = ParserMetrics.startTimer();
+		CategoryLineProcessor processor = newProcessor();
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			MappedLineScanner.scan(channel, 0, channel.size(), processor);
 		} catch (FileNotFoundException e) {
 			System.err.println("ERROR: File Not Found.");
 			throw e;
@@ -91,7 +399,276 @@ public class CategorySetParser {
 			System.err.println("ERROR: I/O Exception.");
 			throw e;
 		}
+		processor.publishMetrics();
+		ParserMetrics.recordParse(started);
+		return buildResult(processor);
+	}
+	
+	/**
+	 * Instance method to parse the file on all available processors, see parseParallel(int, long).
+	 * 
+	 * @return		object values for ParserValues class, equal to the values returned by parse().
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public ParserValues parseParallel() throws FileNotFoundException, IOException{
+		return parseParallel(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Instance method to parse the file on a pool of worker threads. The file is cut into line aligned byte ranges, every range is
+	 * parsed through a memory mapping with its own counts and distinct lines, and the partial results are merged in file order by a
+	 * PartitionedLineMerger, which finds the duplicates between ranges in parallel per hash partition. The calling thread merges
+	 * while the workers parse the next ranges, at most two ranges per worker are parsed ahead of the merge.
+	 * Because the merge keeps the first occurrence of every line and category, the result is identical to a sequential parse.
+	 * The selected DedupIndexType finds the duplicates inside a range; the merged distinct lines are kept in byte arenas, off heap
+	 * for DedupIndexType.OFF_HEAP_ARENA.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 	Input file should be UTF-8 (or plain ASCII) encoded.
+	 * 
+	 * @param parallelism					Number of worker threads
+	 * @param chunkSize						Preferred size in bytes of the range parsed by one task
+	 * @return		object values for ParserValues class, equal to the values returned by parse().
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *  
+	 */
+	public ParserValues parseParallel(int parallelism, long chunkSize) throws FileNotFoundException, IOException{
+		
+		long started = ParserMetrics.startTimer();
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		PartitionedLineMerger merger = newMerger(pool, parallelism);
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			long[] boundaries = MappedLineScanner.lineAlignedBoundaries(channel, chunkSize);
+			Deque<Future<LineSegment>> pending = new ArrayDeque<>();
+			int next = 0;
+			for (int merged = 0; merged < boundaries.length - 1; merged++) {
+				//Keep at most two ranges per worker ahead of the merge.
+				while (next < boundaries.length - 1 && pending.size() < parallelism * 2) {
+					pending.add(pool.submit(new ChunkParseTask(channel, boundaries[next], boundaries[next + 1], this,
+							merger.getPartitionBits())));
+					next++;
+				}
+				merger.append(PartitionedLineMerger.await(pending.poll()));
+			}
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		} finally {
+			pool.shutdownNow();
+		}
+		ParserMetrics.recordParse(started);
+		return buildResult(merger);
+	}
+	
+	/**
+	 * Instance method to estimate the counts with the default precision, see parseApproximate(int).
+	 * 
+	 * @return		object values for ParserValues class with estimated counts and no category pairs.
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public ParserValues parseApproximate() throws FileNotFoundException, IOException{
+		return parseApproximate(DEFAULT_APPROXIMATE_PRECISION);
+	}
+	
+	/**
+	 * Instance method to estimate the distinct line count of every category in bounded memory. Instead of keeping the distinct lines,
+	 * the hash of every legal line is offered to one HyperLogLog sketch per category, so the state is 2^precision bytes per
+	 * category however large the input is.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 	Input file should be UTF-8 (or plain ASCII) encoded.
+	 * 
+	 * @param precision						HyperLogLog precision, between HyperLogLog.MIN_PRECISION and MAX_PRECISION
+	 * @return		object values for ParserValues class with estimated counts in the same order rules as parse(), an empty
+	 * 				category pair list and the relative standard error of the estimates.
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *  
+	 */
+	public ParserValues parseApproximate(int precision) throws FileNotFoundException, IOException{
 		
+		long started = ParserMetrics.startTimer();
+		ApproximateLineProcessor processor = new ApproximateLineProcessor(matcher, precision);
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			MappedLineScanner.scan(channel, 0, channel.size(), processor);
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		}
+		ParserMetrics.recordParse(started);
+		LinkedHashMap<String, Integer> categoryCount = fillMissingCategories(processor.getCategoryCount());
+		ParserValues values = new ParserValues(categoryCount, Collections.<String>emptySet(), HyperLogLog.relativeStandardError(precision));
+		values.setDictionaryVersion(dictionary.getVersion());
+		return values;
+	}
+
+	/**
+	 * Instance method to parse the file with the default memory budget, see parseExternal(long).
+	 *
+	 * @return		object values for ParserValues class, equal to the values returned by parse().
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public ParserValues parseExternal() throws FileNotFoundException, IOException{
+		return parseExternal(DEFAULT_MEMORY_BUDGET);
+	}
+
+	/**
+	 * Instance method to parse a file with more distinct lines than fit in the heap. The distinct lines are collected up to the
+	 * memory budget, then sorted and spilled to run files in the spill directory, and the runs are merged to count every distinct
+	 * line once (see SpillingLineProcessor). A gzip or zip compressed input file is decompressed on a reader thread as in
+	 * parseCompressed().
+	 * PRECONDITION/REQUIRED:
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 	Input file should be UTF-8 (or plain ASCII) encoded.
+	 * 	The spill directory should have room for about twice the size of the distinct lines.
+	 *
+	 * @param memoryBudget					Estimated heap bytes the distinct lines may take before they are spilled
+	 * @return		object values for ParserValues class, equal to the values returned by parse(). If the input did not fit in the
+	 * 				budget the category pair list is read from a spill file each time it is iterated, the file is deleted by
+	 * 				ParserValues.close() or else when the JVM exits.
+	 *
+	 * @throws FileNotFoundException
+	 * @throws IOException					Also if the spill directory is full or cannot be written
+	 *
+	 */
+	public ParserValues parseExternal(long memoryBudget) throws FileNotFoundException, IOException{
+
+		long started = ParserMetrics.startTimer();
+		SpillingLineProcessor processor = new SpillingLineProcessor(matcher, memoryBudget, spillDirectory, newHeavyHitterSketch());
+		try {
+			InputCompression compression = InputCompression.detect(inputFile);
+			if (compression != InputCompression.NONE) {
+				try (InputStream input = compression.open(inputFile)) {
+					PipelinedBlockReader.scan(input, processor, blockSize, PipelinedBlockReader.DEFAULT_BLOCKS);
+				}
+			} else {
+				try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+					MappedLineScanner.scan(channel, 0, channel.size(), processor);
+				}
+			}
+			processor.complete();
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			processor.deleteSpillFiles();
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			processor.deleteSpillFiles();
+			throw e;
+		} catch (SpillingLineProcessor.SpillIOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			processor.deleteSpillFiles();
+			throw e.getCause();
+		}
+		ParserMetrics.recordParse(started);
+		return attachHeavyHitters(buildResult(processor.getCategoryCount(), processor.getCategoryOrderedList(),
+				processor.getValidationReport()), processor.getHeavyHitters());
+	}
+
+	/**
+	 * Getter method to retrieve the dictionary of the legal categories.
+	 */
+	CategoryDictionary getDictionary(){
+		return dictionary;
+	}
+	
+	/**
+	 * Getter method to retrieve the matcher of the legal categories, category ids follow its order.
+	 */
+	CategoryMatcher getMatcher(){
+		return matcher;
+	}
+	
+	/**
+	 * Instance method to create an empty processor for the byte level parse paths, with the selected DedupIndexType.
+	 */
+	CategoryLineProcessor newProcessor(){
+		return new CategoryLineProcessor(matcher, dedupIndexType.create(), newHeavyHitterSketch());
+	}
+	
+	/**
+	 * Instance method to create an empty merger of the segments of parseParallel() and BatchCategoryParser.
+	 * @param pool							Pool that runs the tasks of the merge
+	 * @param parallelism					Number of threads of the pool
+	 */
+	PartitionedLineMerger newMerger(ExecutorService pool, int parallelism){
+		return new PartitionedLineMerger(matcher, pool, parallelism, dedupIndexType == DedupIndexType.OFF_HEAP_ARENA);
+	}
+	
+	/**
+	 * Instance method to create an empty heavy hitter sketch with the selected capacity.
+	 * @return								New sketch, null if the most repeated lines are not counted
+	 */
+	private HeavyHitterSketch newHeavyHitterSketch(){
+		return heavyHitterCapacity > 0 ? new HeavyHitterSketch(heavyHitterCapacity) : null;
+	}
+	
+	/**
+	 * Instance method to create the final result from the counts, distinct lines, validation report and heavy hitters of a
+	 * processor.
+	 */
+	ParserValues buildResult(CategoryLineProcessor processor){
+		return attachHeavyHitters(buildResult(processor.getCategoryCount(), processor.getCategoryOrderedList(),
+				processor.getValidationReport()), processor.getHeavyHitters());
+	}
+	
+	/**
+	 * Instance method to create the final result from the segments merged by a merger.
+	 */
+	ParserValues buildResult(PartitionedLineMerger merger){
+		return attachHeavyHitters(buildResult(merger.getCategoryCount(), merger.getCategoryOrderedList(),
+				merger.getValidationReport()), merger.getHeavyHitters());
+	}
+	
+	/**
+	 * Class method to copy the most repeated lines counted so far into the result, the sketch may go on counting afterwards.
+	 * @param  values						Result of the parse
+	 * @param  heavyHitters					Sketch of the parse, null if the lines were not counted
+	 * @return 								values
+	 */
+	private static ParserValues attachHeavyHitters(ParserValues values, HeavyHitterSketch heavyHitters){
+		if (heavyHitters != null) {
+			values.setHeavyHitters(heavyHitters.toList(), heavyHitters.getTotal());
+		}
+		return values;
+	}
+	
+	/**
+	 * Instance method to create the final result from the counts and distinct lines collected by any parse path.
+	 * PRECONDITION/REQUIRED: 	
+	 * 	categoryCount should only contain categories that occurred, in order of their first occurrence.
+	 * 
+	 * @param  categoryCount				Unsorted count per category
+	 * @param  categoryOrderedList			Distinct category and sub-category lines
+	 * @param  validationReport				Line classes of the parse, ValidationReport.NONE if the lines were not validated
+	 * @return 								ParserValues with every legal category present, the counts are sorted when first asked for
+	 */
+	ParserValues buildResult(LinkedHashMap<String, Integer> categoryCount, Set<String> categoryOrderedList, ValidationReport validationReport){
+		ParserValues values = new ParserValues(fillMissingCategories(categoryCount), categoryOrderedList);
+		values.setValidationReport(validationReport);
+		values.setDictionaryVersion(dictionary.getVersion());
+		return values;
+	}
+	
+	/**
+	 * Instance method to add every legal category that did not occur with a count of zero.
+	 * 
+	 * @param  categoryCount				Unsorted count per category, changed in place
+	 * @return 								categoryCount
+	 */
+	private LinkedHashMap<String, Integer> fillMissingCategories(LinkedHashMap<String, Integer> categoryCount){
 		//If a category value is not given in the file then insert the category with a count of zero. 
 		if(categoryCount.size() != LEGAL_CATEGORY_LIST.size()){
 			for(String category: LEGAL_CATEGORY_LIST){
@@ -100,42 +677,33 @@ public class CategorySetParser {
 				}
 			}
 		}
-		return new ParserValues(sortByValues(categoryCount), categoryOrderedList);
+		return categoryCount;
 	}
 
 	
 	/**
 	 * Instance method to parse a input line to find the Category in the input line
 	 * PRECONDITION/REQUIRED: 	
-	 * 	Provided input line should be valid, Category and  sub-Category should be separated with single space 
+	 * 	Category and  sub-Category should be separated with single space 
 	 *  
 	 * @param  line						Single input line from input file.
-	 * @return 							Returns a Category String parsed from the file.
-	 * @throws IllegalArgumentException
+	 * @return 							Returns the index of the separator, the Category is the part of the line before it.
+	 * 									-1 if the line has no separator or only spaces after it, see LineValidator for the reason.
 	 *  
 	 */
-	private String readCategory(String line) throws IllegalArgumentException{
-		final String SEPARATOR = " ";
-		final int CATEGORY_INDEX = 0;
-		String[] temp = line.split(SEPARATOR);
-		if(temp.length < 2){
-			throw new IllegalArgumentException();
+	int readCategory(String line){
+		final char SEPARATOR = ' ';
+		int separator = line.indexOf(SEPARATOR);
+		if(separator < 0){
+			return -1;
 		}
-		return line.split(SEPARATOR)[CATEGORY_INDEX];
-	}
-	
-	
-	/**
-	 * Instance method to check if provide category is legal or not
-	 * PRECONDITION/REQUIRED: 	
-	 * 	All legal categories should be defined 
-	 *  
-	 * @param  category						Parsed category from the input line.
-	 * @return 								Returns boolean value if the category is legal
-	 *  
-	 */
-	private boolean isLegalCategory(String category){
-		return LEGAL_CATEGORY_LIST.contains(category);
+		//A sub-Category needs at least one character that is not a separator.
+		for(int i = separator + 1; i < line.length(); i++){
+			if(line.charAt(i) != SEPARATOR){
+				return separator;
+			}
+		}
+		return -1;
 	}
 	
 	
@@ -147,9 +715,10 @@ public class CategorySetParser {
 	 * @return 								Returns LinkedHashMap, will keep the keys in the order they are inserted and sort according to values or count
 	 *  
 	 */
-	private static LinkedHashMap<String,Integer> sortByValues(LinkedHashMap<String,Integer> categoryCount){
+	static LinkedHashMap<String,Integer> sortByValues(LinkedHashMap<String,Integer> categoryCount){
 		
-        List<Map.Entry<String,Integer>> entries = new LinkedList<Map.Entry<String,Integer>>(categoryCount.entrySet());
+		long started = ParserMetrics.startTimer();
+        List<Map.Entry<String,Integer>> entries = new ArrayList<Map.Entry<String,Integer>>(categoryCount.entrySet());
         Collections.sort(entries, new Comparator<Map.Entry<String,Integer>>() {
 
             @Override
@@ -162,6 +731,7 @@ public class CategorySetParser {
         for(Map.Entry<String,Integer> entry: entries){
             sortedMap.put(entry.getKey(), entry.getValue());
         }
+        ParserMetrics.recordPhase(ParserMetrics.Phase.SORT, started);
         return sortedMap;
     }
 	
@@ -0,0 +1,47 @@
+package com.project;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+/**
+ * @author Fabian
+ * ChunkParseTask class parses one line aligned byte range of the input file on a worker of parseParallel().
+ * The range is parsed through a memory mapping with its own counts and distinct lines, and handed over as a LineSegment, so the
+ * lines are hashed and sorted into partitions on the worker and not by the PartitionedLineMerger.
+ *
+ */
+final class ChunkParseTask implements Callable<LineSegment> {
+
+	private final FileChannel channel;
+	private final long start;
+	private final long end;
+	private final CategorySetParser parser;
+	private final int partitionBits;
+
+	/**
+	 * Constructor to create ChunkParseTask object
+	 * PRECONDITION/REQUIRED:
+	 *  @param channel 				Open channel of the input file, shared by all tasks
+	 *  @param start 				Offset of the range, the start of a line
+	 *  @param end 					Offset one past the range, the start of a line or the file size
+	 *  @param parser 				Parser that creates the processor of the range
+	 *  @param partitionBits 		PartitionedLineMerger.getPartitionBits() of the merger
+	 */
+	ChunkParseTask(FileChannel channel, long start, long end, CategorySetParser parser, int partitionBits) {
+		this.channel = channel;
+		this.start = start;
+		this.end = end;
+		this.parser = parser;
+		this.partitionBits = partitionBits;
+	}
+
+	@Override
+	public LineSegment call() throws IOException {
+		CategoryLineProcessor processor = parser.newProcessor();
+		MappedLineScanner.scan(channel, start, end, processor);
+		processor.publishMetrics();
+		return processor.toSegment(partitionBits);
+	}
+
+}
@@ -0,0 +1,243 @@
+package com.project;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author Fabian
+ * ConcurrentCategoryCounter class is the resident counterpart of CategorySetParser: many threads add lines at the same time while
+ * other threads read the counts. The parse rules are the same as for parse().
+ *
+ * 1. Duplicates are detected with a ConcurrentHashMap, the thread whose putIfAbsent wins counts the line.
+ * 2. Live counts are kept in striped counters, every thread increments the stripe of its own, and a read sums the stripes.
+ * 3. Every counted line is appended to a log with a sequence number. snapshot() returns ParserValues for the longest complete prefix
+ *    of the log, so the counts and the category pairs of a snapshot always agree. Writers never wait for readers, snapshots only
+ *    wait for each other and extend the previous snapshot by the lines added since.
+ *
+ * The order of the category pairs is the order in which their lines were first counted.
+ *
+ */
+public class ConcurrentCategoryCounter {
+
+	private static final int CHUNK_SHIFT = 14;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+	/** Sequence numbers and snapshot lengths are int positions of the log, the last chunk keeps one slot free. */
+	private static final long MAX_LINES = Integer.MAX_VALUE;
+	/** Counters of one stripe start on a new 64 byte cache line. */
+	private static final int LONGS_PER_CACHE_LINE = 8;
+
+	private final CategorySetParser parser;
+	private final CategoryMatcher matcher;
+	private final ConcurrentHashMap<String, LogEntry> lines = new ConcurrentHashMap<>();
+	private final AtomicLong nextSequence = new AtomicLong();
+	private final AtomicReferenceArray<AtomicReferenceArray<LogEntry>> log = new AtomicReferenceArray<>(MAX_CHUNKS);
+	private final AtomicLongArray stripedCounts;
+	private final int stripeMask;
+	private final int stripeStride;
+
+	//Guarded by this: state of the last snapshot.
+	private CategoryCounts snapshotCounts;
+	private int snapshotLength;
+
+	/**
+	 * Constructor to create ConcurrentCategoryCounter object
+	 * PRECONDITION/REQUIRED:
+	 *  @param legalCategoryList 			String Array of Legal Category List, Example: {"PERSON", "PLACE", "OTHER"}
+	 */
+	public ConcurrentCategoryCounter(String[] legalCategoryList) {
+		this(new CategoryDictionary(legalCategoryList, 0));
+	}
+
+	/**
+	 * Constructor to create ConcurrentCategoryCounter object for one version of a dictionary, see
+	 * CategorySetParser(CategoryDictionary, File)
+	 * PRECONDITION/REQUIRED:
+	 *  @param dictionary 					Legal categories
+	 */
+	public ConcurrentCategoryCounter(CategoryDictionary dictionary) {
+		this.parser = new CategorySetParser(dictionary, null);
+		this.matcher = parser.getMatcher();
+		int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+		this.stripeMask = stripes - 1;
+		this.stripeStride = (matcher.size() + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE * LONGS_PER_CACHE_LINE
+				+ LONGS_PER_CACHE_LINE;
+		this.stripedCounts = new AtomicLongArray(stripes * stripeStride);
+		this.snapshotCounts = new CategoryCounts(matcher);
+	}
+
+	/**
+	 * Instance method to add one line. Can be called by any number of threads at the same time.
+	 * PRECONDITION/REQUIRED:
+	 *
+	 * @param line						Single input line, category and sub-category separated with a single space
+	 * @return							true if the line was legal and not added before
+	 * @throws IllegalStateException	If Integer.MAX_VALUE distinct lines were counted already, the line is not kept
+	 */
+	public boolean add(String line){
+		int separator = parser.readCategory(line);
+		if (separator < 0) {
+			return false;
+		}
+		int category = matcher.match(line, 0, separator);
+		if (category < 0) {
+			return false;
+		}
+		if (nextSequence.get() >= MAX_LINES) {
+			throw new IllegalStateException("Too many distinct lines");
+		}
+		LogEntry entry = new LogEntry(line, category);
+		if (lines.putIfAbsent(line, entry) != null) {
+			return false;
+		}
+		long sequence = nextSequence.getAndIncrement();
+		if (sequence >= MAX_LINES) {
+			//Another thread took the last sequence number since the check above. The line is not kept, so it is not reported as a
+			//duplicate of a line that was never counted.
+			lines.remove(line, entry);
+			throw new IllegalStateException("Too many distinct lines");
+		}
+		entry.sequence = sequence;
+		chunk((int) sequence).set((int) sequence & (CHUNK_SIZE - 1), entry);
+		int stripe = (int) ByteHash.mix(Thread.currentThread().getId()) & stripeMask;
+		stripedCounts.incrementAndGet(stripe * stripeStride + category);
+		return true;
+	}
+
+	/**
+	 * Instance method to return the live count of a category. The count is read without locking and may already include lines
+	 * that are not in the latest snapshot yet.
+	 * @param category					Legal category
+	 * @return							Number of distinct lines counted for the category, 0 for an illegal category
+	 */
+	public long getCount(String category){
+		int id = matcher.match(category, 0, category.length());
+		if (id < 0) {
+			return 0;
+		}
+		long count = 0;
+		for (int offset = id; offset < stripedCounts.length(); offset += stripeStride) {
+			count += stripedCounts.get(offset);
+		}
+		return count;
+	}
+
+	/**
+	 * Getter method to retrieve the number of distinct lines counted so far
+	 */
+	public long size(){
+		return Math.min(nextSequence.get(), MAX_LINES);
+	}
+
+	/**
+	 * Instance method to return consistent values for all lines whose add() has completed, without blocking the writers.
+	 * PRECONDITION/REQUIRED:
+	 *
+	 * @return		object values for ParserValues class. The counts and the category pairs describe the same lines. The category pair
+	 * 				list is a fixed view, it does not grow with later adds.
+	 */
+	public synchronized ParserValues snapshot(){
+		int length = snapshotLength;
+		LogEntry entry;
+		while ((entry = entryAt(length)) != null) {
+			snapshotCounts.increment(entry.category);
+			length++;
+		}
+		snapshotLength = length;
+		return parser.buildResult(snapshotCounts.toMap(), new LogView(length), ValidationReport.NONE);
+	}
+
+	private AtomicReferenceArray<LogEntry> chunk(int sequence){
+		int index = sequence >>> CHUNK_SHIFT;
+		AtomicReferenceArray<LogEntry> chunk = log.get(index);
+		if (chunk == null) {
+			log.compareAndSet(index, null, new AtomicReferenceArray<LogEntry>(CHUNK_SIZE));
+			chunk = log.get(index);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Instance method to read the log.
+	 * @return						Entry with the sequence number, null if it is not written yet
+	 */
+	private LogEntry entryAt(int sequence){
+		AtomicReferenceArray<LogEntry> chunk = log.get(sequence >>> CHUNK_SHIFT);
+		return chunk == null ? null : chunk.get(sequence & (CHUNK_SIZE - 1));
+	}
+
+	/**
+	 * A counted line with its category id and its position in the log.
+	 */
+	private static final class LogEntry {
+		final String line;
+		final int category;
+		//-1 until the sequence number is assigned.
+		volatile long sequence = -1;
+
+		LogEntry(String line, int category) {
+			this.line = line;
+			this.category = category;
+		}
+	}
+
+	/**
+	 * Read only set over the first entries of the log.
+	 */
+	private final class LogView extends AbstractSet<String> {
+		private final int length;
+
+		LogView(int length) {
+			this.length = length;
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < length;
+				}
+
+				@Override
+				public String next() {
+					if (next >= length) {
+						throw new NoSuchElementException();
+					}
+					return entryAt(next++).line;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return length;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof String)) {
+				return false;
+			}
+			LogEntry entry = lines.get(o);
+			if (entry == null) {
+				return false;
+			}
+			long sequence = entry.sequence;
+			return sequence >= 0 && sequence < length;
+		}
+	}
+
+}
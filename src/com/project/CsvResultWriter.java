@@ -0,0 +1,107 @@
+package com.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author Fabian
+ * CsvResultWriter class writes comma separated values (RFC 4180) with the heading "type,category,value":
+ * 	count,PERSON,2					for every count, in the sorted order
+ * 	pair,PERSON,Bob Jones			for every category pair, in order of first occurrence
+ * A field with a comma, a quote or a line break is quoted, quotes inside it are doubled. Records end with CRLF.
+ *
+ */
+final class CsvResultWriter extends ResultWriter {
+
+	CsvResultWriter(WritableByteChannel channel, int bufferSize) {
+		super(channel, bufferSize);
+	}
+
+	@Override
+	void writeHeader() throws IOException {
+		writeAscii("type,category,value\r\n");
+	}
+
+	@Override
+	void writeCount(String category, int count) throws IOException {
+		writeAscii("count,");
+		writeField(category, 0, category.length());
+		writeByte(',');
+		writeInt(count);
+		writeAscii("\r\n");
+	}
+
+	@Override
+	void writePairsHeader() {
+		//The pairs follow the counts directly, they are told apart by their type.
+	}
+
+	@Override
+	void writePair(String line) throws IOException {
+		int separator = separatorIndex(line);
+		writeAscii("pair,");
+		writeField(line, 0, separator);
+		writeByte(',');
+		writeField(line, Math.min(separator + 1, line.length()), line.length());
+		writeAscii("\r\n");
+	}
+
+	@Override
+	void writePair(ByteBuffer line, int start, int end) throws IOException {
+		int separator = separatorIndex(line, start, end);
+		writeAscii("pair,");
+		writeField(line, start, separator);
+		writeByte(',');
+		writeField(line, Math.min(separator + 1, end), end);
+		writeAscii("\r\n");
+	}
+
+	private static boolean isSpecial(int c){
+		return c == ',' || c == '"' || c == '\r' || c == '\n';
+	}
+
+	private void writeField(String s, int from, int to) throws IOException{
+		boolean quoted = false;
+		for (int i = from; i < to && !quoted; i++) {
+			quoted = isSpecial(s.charAt(i));
+		}
+		if (!quoted) {
+			writeUtf8(s, from, to);
+			return;
+		}
+		writeByte('"');
+		int run = from;
+		for (int i = from; i < to; i++) {
+			if (s.charAt(i) == '"') {
+				writeUtf8(s, run, i + 1);
+				run = i;
+			}
+		}
+		writeUtf8(s, run, to);
+		writeByte('"');
+	}
+
+	private void writeField(ByteBuffer line, int start, int end) throws IOException{
+		boolean quoted = false;
+		for (int i = start; i < end && !quoted; i++) {
+			quoted = isSpecial(line.get(i));
+		}
+		if (!quoted) {
+			writeBytes(line, start, end);
+			return;
+		}
+		writeByte('"');
+		int run = start;
+		for (int i = start; i < end; i++) {
+			//The quote is written twice: once at the end of this run and once at the start of the next.
+			if (line.get(i) == '"') {
+				writeBytes(line, run, i + 1);
+				run = i;
+			}
+		}
+		writeBytes(line, run, end);
+		writeByte('"');
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * DedupIndex interface for the duplicate detection of the byte level parse paths. An index remembers every distinct line it was given,
+ * in order of first occurrence, and reports whether a line was seen before.
+ *
+ */
+public interface DedupIndex {
+
+	/**
+	 * Instance method to add a line to the index.
+	 * PRECONDITION/REQUIRED:
+	 * 	The bytes are copied, the buffer may be reused after the call.
+	 *
+	 * @param buffer				Buffer holding the line, positions are absolute indexes
+	 * @param start					Index of the first byte of the line
+	 * @param end					Index one past the last byte of the line
+	 * @return						true if the line was not in the index before
+	 */
+	boolean add(ByteBuffer buffer, int start, int end);
+
+	/**
+	 * @return						Number of distinct lines in the index
+	 */
+	int size();
+
+	/**
+	 * Instance method to hand every distinct line to the visitor, in order of first occurrence.
+	 * @param visitor				Consumer of the lines
+	 */
+	void forEach(LineVisitor visitor);
+
+	/**
+	 * Instance method to view the distinct lines as Strings, in order of first occurrence.
+	 * @return						Read only set backed by the index
+	 */
+	Set<String> orderedView();
+
+}
@@ -0,0 +1,40 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * DedupIndexType enum lists the DedupIndex implementations that can be selected for the byte level parse paths.
+ *
+ */
+public enum DedupIndexType {
+
+	/** A LinkedHashSet of Strings, the same structure used by parse(). */
+	STRINGS {
+		@Override
+		public DedupIndex create() {
+			return new StringDedupIndex();
+		}
+	},
+
+	/** Open addressing hash table over an arena of line bytes held in heap pages. */
+	ARENA {
+		@Override
+		public DedupIndex create() {
+			return new ByteArenaDedupIndex(false);
+		}
+	},
+
+	/** Open addressing hash table over an arena of line bytes held in direct (off-heap) pages. */
+	OFF_HEAP_ARENA {
+		@Override
+		public DedupIndex create() {
+			return new ByteArenaDedupIndex(true);
+		}
+	};
+
+	/**
+	 * Instance method to create a new empty index of this type.
+	 * @return						New DedupIndex
+	 */
+	public abstract DedupIndex create();
+
+}
@@ -0,0 +1,27 @@
+package com.project;
+
+import java.awt.GraphicsEnvironment;
+import javax.swing.JOptionPane;
+
+/**
+ * @author Fabian
+ * ErrorDialog class shows the error messages of CategoryCountApplication in a dialog when it runs with --gui. It is the only class
+ * that uses AWT or Swing, so they are only loaded when a dialog is shown.
+ *
+ */
+final class ErrorDialog {
+
+	private ErrorDialog() {
+	}
+
+	/**
+	 * Class method to show an error message and wait until the dialog is closed. Does nothing on a host without a display.
+	 * @param message				Error message
+	 */
+	static void show(String message){
+		if (!GraphicsEnvironment.isHeadless()) {
+			JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+}
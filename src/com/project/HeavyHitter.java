@@ -0,0 +1,92 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * HeavyHitter class is one of the most repeated category and sub-category lines of a parse, see ParserValues.getHeavyHitters().
+ * The count is an estimate that is never too low: the line occurred between getMinimumCount() and getCount() times, duplicates
+ * included. getError() is 0 when the line was tracked since its first occurrence.
+ *
+ */
+public final class HeavyHitter {
+
+	private final String line;
+	private final long count;
+	private final long error;
+
+	/**
+	 * Constructor to create HeavyHitter object
+	 * PRECONDITION/REQUIRED:
+	 *  @param line 					Category and sub-category line
+	 *  @param count 					Estimated number of occurrences, at least the true number
+	 *  @param error 					Largest overestimate of count
+	 */
+	HeavyHitter(String line, long count, long error) {
+		this.line = line;
+		this.count = count;
+		this.error = error;
+	}
+
+	/**
+	 * Getter method to retrieve the category and sub-category line
+	 */
+	public String getLine() {
+		return line;
+	}
+
+	/**
+	 * Getter method to retrieve the category, the text before the first space of the line
+	 */
+	public String getCategory() {
+		return line.substring(0, line.indexOf(' '));
+	}
+
+	/**
+	 * Getter method to retrieve the sub-category, the text after the first space of the line
+	 */
+	public String getSubCategory() {
+		return line.substring(line.indexOf(' ') + 1);
+	}
+
+	/**
+	 * Getter method to retrieve the estimated number of occurrences
+	 * @return			Upper bound of the number of occurrences
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter method to retrieve the error bound of the count
+	 * @return			Largest overestimate of getCount(), 0 for an exact count
+	 */
+	public long getError() {
+		return error;
+	}
+
+	/**
+	 * Instance method to return the number of occurrences the line had at least
+	 */
+	public long getMinimumCount() {
+		return count - error;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof HeavyHitter)) {
+			return false;
+		}
+		HeavyHitter hitter = (HeavyHitter) other;
+		return line.equals(hitter.line) && count == hitter.count && error == hitter.error;
+	}
+
+	@Override
+	public int hashCode() {
+		return (line.hashCode() * 31 + (int) (count ^ (count >>> 32))) * 31 + (int) (error ^ (error >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return line + "=" + count + (error == 0 ? "" : " (at least " + getMinimumCount() + ")");
+	}
+
+}
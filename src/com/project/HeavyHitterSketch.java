@@ -0,0 +1,318 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author Fabian
+ * HeavyHitterSketch class finds the most repeated lines of a parse in a fixed amount of memory with the Space-Saving algorithm
+ * (Metwally, Agrawal, El Abbadi 2005).
+ *
+ * 1. The sketch has a fixed number of counters. A line that has a counter increments it, a new line takes a free counter or
+ *    else the counter with the lowest count, which it continues from; that count is the error of the new line.
+ * 2. The count of a line is never too low and at most its error too high. A line without a counter occurred at most as often as
+ *    the lowest count, which is at most total / capacity for a sketch that was not merged.
+ * 3. Lines are told apart by their 64 bit ByteHash, so no String is created per line; the bytes of a line are copied into the
+ *    reused buffer of its counter and only decoded by toList().
+ *
+ * A line costs one hash, one probe of an open addressing table and, when its count passes another, a sift in a min-heap of the
+ * counters: O(log capacity) at worst, O(1) for most lines.
+ *
+ */
+final class HeavyHitterSketch {
+
+	private static final Comparator<HeavyHitter> MOST_FREQUENT_FIRST = new Comparator<HeavyHitter>() {
+		@Override
+		public int compare(HeavyHitter o1, HeavyHitter o2) {
+			if (o1.getCount() != o2.getCount()) {
+				return o1.getCount() > o2.getCount() ? -1 : 1;
+			}
+			if (o1.getError() != o2.getError()) {
+				return o1.getError() < o2.getError() ? -1 : 1;
+			}
+			return o1.getLine().compareTo(o2.getLine());
+		}
+	};
+
+	private final int capacity;
+	private final long[] hashes;
+	private final long[] counts;
+	private final long[] errors;
+	private final byte[][] lines;
+	private final int[] lengths;
+	//Min-heap of the counters by count, and the heap position of every counter.
+	private final int[] heap;
+	private final int[] heapPositions;
+	//Open addressing table of counter + 1, 0 for a free slot, at most half full.
+	private final int[] table;
+	private final int mask;
+	private int size;
+	private long total;
+
+	/**
+	 * Constructor to create HeavyHitterSketch object
+	 * PRECONDITION/REQUIRED:
+	 *  @param capacity 				Number of counters, positive
+	 */
+	HeavyHitterSketch(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity should be positive");
+		}
+		this.capacity = capacity;
+		hashes = new long[capacity];
+		counts = new long[capacity];
+		errors = new long[capacity];
+		lines = new byte[capacity][];
+		lengths = new int[capacity];
+		heap = new int[capacity];
+		heapPositions = new int[capacity];
+		table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+		mask = table.length - 1;
+	}
+
+	/**
+	 * Instance method to count one occurrence of a line.
+	 * @param buffer				Buffer holding the line, positions are absolute indexes
+	 * @param start					Index of the first byte of the line
+	 * @param end					Index one past the last byte of the line
+	 */
+	void add(ByteBuffer buffer, int start, int end){
+		total++;
+		long hash = ByteHash.hash64(buffer, start, end);
+		int counter = find(hash);
+		if (counter >= 0) {
+			counts[counter]++;
+			siftDown(heapPositions[counter]);
+			return;
+		}
+		long error = 0;
+		if (size < capacity) {
+			counter = size++;
+			heap[counter] = counter;
+			heapPositions[counter] = counter;
+		} else {
+			counter = heap[0];
+			remove(hashes[counter]);
+			error = counts[counter];
+		}
+		hashes[counter] = hash;
+		counts[counter] = error + 1;
+		errors[counter] = error;
+		copyLine(counter, buffer, start, end);
+		insert(hash, counter);
+		if (error == 0) {
+			siftUp(heapPositions[counter]);
+		} else {
+			siftDown(heapPositions[counter]);
+		}
+	}
+
+	/**
+	 * Instance method to count one occurrence of a line of the String based parse, hashed as its UTF-8 bytes.
+	 */
+	void add(String line){
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		add(ByteBuffer.wrap(bytes), 0, bytes.length);
+	}
+
+	/**
+	 * Instance method to add the counts of a sketch of another part of the input. A line that is missing from one of the sketches
+	 * may have occurred there as often as its lowest count, which is added to its count and error (as in the merge of Agarwal
+	 * et al. 2012), then the capacity highest counts are kept. The count of every line stays an upper bound and count - error a
+	 * lower bound of its occurrences in both parts of the input.
+	 * PRECONDITION/REQUIRED:
+	 * 	other should have the same capacity.
+	 *
+	 * @param other					Sketch of another part of the input, not changed
+	 */
+	void merge(HeavyHitterSketch other){
+		long ownMinimum = size < capacity ? 0 : counts[heap[0]];
+		long otherMinimum = other.size < other.capacity ? 0 : other.counts[other.heap[0]];
+		List<Merged> merged = new ArrayList<>(size + other.size);
+		for (int counter = 0; counter < size; counter++) {
+			int match = other.find(hashes[counter]);
+			long count = counts[counter] + (match < 0 ? otherMinimum : other.counts[match]);
+			long error = errors[counter] + (match < 0 ? otherMinimum : other.errors[match]);
+			merged.add(new Merged(hashes[counter], Arrays.copyOf(lines[counter], lengths[counter]), count, error));
+		}
+		for (int counter = 0; counter < other.size; counter++) {
+			if (find(other.hashes[counter]) < 0) {
+				merged.add(new Merged(other.hashes[counter], Arrays.copyOf(other.lines[counter], other.lengths[counter]),
+						other.counts[counter] + ownMinimum, other.errors[counter] + ownMinimum));
+			}
+		}
+		Collections.sort(merged);
+		long mergedTotal = total + other.total;
+		clear();
+		total = mergedTotal;
+		for (int i = 0; i < Math.min(capacity, merged.size()); i++) {
+			Merged entry = merged.get(i);
+			int counter = size++;
+			hashes[counter] = entry.hash;
+			counts[counter] = entry.count;
+			errors[counter] = entry.error;
+			lines[counter] = entry.line;
+			lengths[counter] = entry.line.length;
+			insert(entry.hash, counter);
+			//Counters are added from the highest count down, every new counter has the lowest count so far.
+			heap[counter] = counter;
+			heapPositions[counter] = counter;
+			siftUp(counter);
+		}
+	}
+
+	/**
+	 * Instance method to list the tracked lines.
+	 * @return						New list of at most capacity lines, highest count first
+	 */
+	List<HeavyHitter> toList(){
+		List<HeavyHitter> hitters = new ArrayList<>(size);
+		for (int counter = 0; counter < size; counter++) {
+			hitters.add(new HeavyHitter(new String(lines[counter], 0, lengths[counter], StandardCharsets.UTF_8), counts[counter],
+					errors[counter]));
+		}
+		Collections.sort(hitters, MOST_FREQUENT_FIRST);
+		return hitters;
+	}
+
+	/**
+	 * Getter method to retrieve the number of lines added, duplicates included
+	 */
+	long getTotal(){
+		return total;
+	}
+
+	/**
+	 * Getter method to retrieve the number of counters
+	 */
+	int getCapacity(){
+		return capacity;
+	}
+
+	private void clear(){
+		Arrays.fill(table, 0);
+		size = 0;
+		total = 0;
+	}
+
+	private void copyLine(int counter, ByteBuffer buffer, int start, int end){
+		int length = end - start;
+		byte[] line = lines[counter];
+		if (line == null || line.length < length) {
+			line = lines[counter] = new byte[Math.max(length, 32)];
+		}
+		for (int i = 0; i < length; i++) {
+			line[i] = buffer.get(start + i);
+		}
+		lengths[counter] = length;
+	}
+
+	/**
+	 * Instance method to find the counter of a hash.
+	 * @return						Counter, -1 if the hash has none
+	 */
+	private int find(long hash){
+		for (int slot = (int) hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			if (hashes[table[slot] - 1] == hash) {
+				return table[slot] - 1;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(long hash, int counter){
+		int slot = (int) hash & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = counter + 1;
+	}
+
+	/**
+	 * Instance method to free the table slot of a hash. The entries that follow it in the probe sequence are shifted back, so no
+	 * lookup stops at the freed slot too early.
+	 */
+	private void remove(long hash){
+		int slot = (int) hash & mask;
+		while (hashes[table[slot] - 1] != hash) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = 0;
+		for (int next = (slot + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+			int home = (int) hashes[table[next] - 1] & mask;
+			//The entry stays if its home slot lies cyclically in (slot, next].
+			boolean stays = slot <= next ? (slot < home && home <= next) : (slot < home || home <= next);
+			if (!stays) {
+				table[slot] = table[next];
+				table[next] = 0;
+				slot = next;
+			}
+		}
+	}
+
+	private void siftUp(int position){
+		int counter = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (counts[heap[parent]] <= counts[counter]) {
+				break;
+			}
+			place(heap[parent], position);
+			position = parent;
+		}
+		place(counter, position);
+	}
+
+	private void siftDown(int position){
+		int counter = heap[position];
+		int half = size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			if (counts[counter] <= counts[heap[child]]) {
+				break;
+			}
+			place(heap[child], position);
+			position = child;
+		}
+		place(counter, position);
+	}
+
+	private void place(int counter, int position){
+		heap[position] = counter;
+		heapPositions[counter] = position;
+	}
+
+	/**
+	 * Counter of a merge, ordered by the highest count first.
+	 */
+	private static final class Merged implements Comparable<Merged> {
+		final long hash;
+		final byte[] line;
+		final long count;
+		final long error;
+
+		Merged(long hash, byte[] line, long count, long error) {
+			this.hash = hash;
+			this.line = line;
+			this.count = count;
+			this.error = error;
+		}
+
+		@Override
+		public int compareTo(Merged other) {
+			if (count != other.count) {
+				return count > other.count ? -1 : 1;
+			}
+			return error < other.error ? -1 : (error == other.error ? 0 : 1);
+		}
+	}
+
+}
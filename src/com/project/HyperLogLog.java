@@ -0,0 +1,145 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * HyperLogLog class estimates the number of distinct values offered to it in a fixed amount of memory.
+ * The sketch keeps 2^precision registers of one byte, every register remembers the longest run of leading zeros seen for the hashes
+ * that fall into it. Small counts are corrected with linear counting, so they come out close to exact.
+ *
+ */
+public class HyperLogLog {
+
+	/** Smallest supported precision, 16 registers. */
+	public static final int MIN_PRECISION = 4;
+	/** Largest supported precision, 262144 registers. */
+	public static final int MAX_PRECISION = 18;
+
+	private final int precision;
+	private final byte[] registers;
+
+	/**
+	 * Constructor to create HyperLogLog object
+	 * PRECONDITION/REQUIRED:
+	 *  @param precision 			Number of index bits, between MIN_PRECISION and MAX_PRECISION. The sketch uses 2^precision bytes
+	 *  							and has a relative standard error of 1.04 / sqrt(2^precision).
+	 */
+	public HyperLogLog(int precision) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("Precision should be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	/**
+	 * Constructor to restore a sketch from its registers, see getRegisters().
+	 * PRECONDITION/REQUIRED:
+	 *  @param precision 			Number of index bits, between MIN_PRECISION and MAX_PRECISION
+	 *  @param registers 			2^precision registers, they are copied
+	 */
+	HyperLogLog(int precision, byte[] registers) {
+		this(precision);
+		if (registers.length != this.registers.length) {
+			throw new IllegalArgumentException("Precision " + precision + " needs " + this.registers.length + " registers");
+		}
+		System.arraycopy(registers, 0, this.registers, 0, registers.length);
+	}
+
+	/**
+	 * Instance method to add a value to the sketch.
+	 * PRECONDITION/REQUIRED:
+	 * 	The hash should be well mixed over all 64 bits, like the hashes of ByteHash.
+	 *
+	 * @param hash					64 bit hash of the value
+	 */
+	public void offer(long hash){
+		int index = (int) (hash >>> (64 - precision));
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	/**
+	 * Instance method to estimate the number of distinct values offered so far.
+	 * @return						Estimated distinct count
+	 */
+	public long estimate(){
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Instance method to add all values of another sketch, the result is the sketch of the union of both inputs.
+	 * PRECONDITION/REQUIRED:
+	 * 	other should have the same precision.
+	 *
+	 * @param other					Sketch to merge into this one
+	 */
+	public void merge(HyperLogLog other){
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot merge sketches with precision " + precision + " and " + other.precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+
+	/**
+	 * Getter method to retrieve the registers, the array is not copied and should not be changed.
+	 */
+	byte[] getRegisters() {
+		return registers;
+	}
+
+	/**
+	 * Getter method to retrieve the precision
+	 * @return			Number of index bits
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Instance method to return the relative standard error of the estimate.
+	 * @return						1.04 / sqrt(number of registers)
+	 */
+	public double relativeStandardError(){
+		return relativeStandardError(precision);
+	}
+
+	/**
+	 * Class method to return the relative standard error of a sketch with the given precision.
+	 */
+	public static double relativeStandardError(int precision){
+		return 1.04 / Math.sqrt(1 << precision);
+	}
+
+	private static double alpha(int m){
+		switch (m) {
+		case 16:
+			return 0.673;
+		case 32:
+			return 0.697;
+		case 64:
+			return 0.709;
+		default:
+			return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+
+}
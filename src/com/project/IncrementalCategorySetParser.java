@@ -0,0 +1,222 @@
+package com.project;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * @author Fabian
+ * IncrementalCategorySetParser class parses an append-only input file in several steps. Counts and distinct lines are kept between
+ * calls to parse(), together with the byte offset that was reached, so every call only reads the lines appended since the last one.
+ *
+ * Only complete lines are consumed. A last line without line terminator is left in the file until it is terminated, because the
+ * writer may still be appending to it. A '\r' as the last byte is held back as well, it may be the first half of a "\r\n".
+ *
+ * If the file was truncated or replaced (different file key, or different first bytes) the state is dropped and the file is read
+ * again from byte 0.
+ *
+ * The state can be saved to a ParserSnapshot and loaded again by a restarted process, which then only parses the lines appended
+ * since the snapshot.
+ *
+ */
+public class IncrementalCategorySetParser {
+
+	/** Number of leading bytes remembered to recognise a replaced file. */
+	private static final int HEAD_LENGTH = 64;
+
+	private final CategorySetParser parser;
+	private final File inputFile;
+	private CategoryLineProcessor processor;
+	private long offset;
+	private Object fileKey;
+	private byte[] head = new byte[0];
+
+	/**
+	 * Constructor to create IncrementalCategorySetParser object
+	 * PRECONDITION/REQUIRED:
+	 *  @param legalCategoryList 			String Array of Legal Category List, Example: {"PERSON", "PLACE", "OTHER"}
+	 *  @param inputFile 					Append-only input file with single space separated category and sub-category
+	 */
+	public IncrementalCategorySetParser(String[] legalCategoryList, File inputFile) {
+		this(new CategoryDictionary(legalCategoryList, 0), inputFile);
+	}
+
+	/**
+	 * Constructor to create IncrementalCategorySetParser object for one version of a dictionary, see
+	 * CategorySetParser(CategoryDictionary, File)
+	 * PRECONDITION/REQUIRED:
+	 *  @param dictionary 					Legal categories
+	 *  @param inputFile 					Append-only input file with single space separated category and sub-category
+	 */
+	public IncrementalCategorySetParser(CategoryDictionary dictionary, File inputFile) {
+		this.parser = new CategorySetParser(dictionary, inputFile);
+		this.inputFile = inputFile;
+		reset();
+	}
+
+	/**
+	 * Instance method to read the lines appended since the last call and return the updated values for the whole file.
+	 * PRECONDITION/REQUIRED:
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 * 	Input file should be UTF-8 (or plain ASCII) encoded.
+	 *
+	 * @return		object values for ParserValues class for all complete lines read so far. The category count map is a new
+	 * 				object for every call, the ordered list is shared with the parser and grows on the next calls.
+	 *
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 *
+	 */
+	public ParserValues parse() throws FileNotFoundException, IOException{
+
+		long started = ParserMetrics.startTimer();
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			long size = channel.size();
+			if (isReplaced(channel, size)) {
+				reset();
+			}
+			rememberIdentity(channel, size);
+			long end = lastLineEnd(channel, offset, size);
+			if (end > offset) {
+				MappedLineScanner.scan(channel, offset, end, processor);
+				processor.publishMetrics();
+				offset = end;
+			}
+		} catch (FileNotFoundException e) {
+			System.err.println("ERROR: File Not Found.");
+			throw e;
+		} catch (IOException e) {
+			System.err.println("ERROR: I/O Exception.");
+			throw e;
+		}
+		ParserMetrics.recordParse(started);
+		return parser.buildResult(processor);
+	}
+
+	/**
+	 * Setter method to choose the duplicate detection, drops the values collected so far.
+	 * @param dedupIndexType			DedupIndexType.STRINGS (default), ARENA or OFF_HEAP_ARENA
+	 */
+	public void setDedupIndexType(DedupIndexType dedupIndexType) {
+		parser.setDedupIndexType(dedupIndexType);
+		reset();
+	}
+
+	/**
+	 * Instance method to save the values and the offset reached so far, see ParserSnapshot.
+	 * PRECONDITION/REQUIRED:
+	 *
+	 * @param snapshotFile				Target file, replaced as a whole
+	 * @throws IOException
+	 */
+	public void saveSnapshot(File snapshotFile) throws IOException{
+		ParserValues values = parser.buildResult(processor);
+		ParserSnapshot.write(values, offset, head, snapshotFile);
+	}
+
+	/**
+	 * Instance method to continue from a saved snapshot instead of the values collected so far. The next parse() only reads the
+	 * lines after the offset of the snapshot, unless the input file was replaced since. The distinct lines of the snapshot stay in
+	 * the mapped snapshot file, new lines are kept in an arena whatever DedupIndexType was set.
+	 * PRECONDITION/REQUIRED:
+	 * 	The snapshot should have been saved by an IncrementalCategorySetParser with the same legal categories.
+	 *
+	 * @param snapshotFile				Snapshot written by saveSnapshot()
+	 * @throws FileNotFoundException
+	 * @throws ParserSnapshot.InvalidSnapshotException	If the snapshot cannot be used, the values collected so far are kept
+	 * @throws IOException
+	 */
+	public void loadSnapshot(File snapshotFile) throws FileNotFoundException, IOException{
+		ParserSnapshot snapshot = ParserSnapshot.load(snapshotFile);
+		processor = snapshot.restoreProcessor(parser.getMatcher());
+		offset = snapshot.getInputOffset();
+		fileKey = null;
+		head = snapshot.getInputHead();
+	}
+
+	/**
+	 * Instance method to drop all collected values, the next parse() reads the file from byte 0.
+	 */
+	public void reset(){
+		processor = parser.newProcessor();
+		offset = 0;
+		fileKey = null;
+		head = new byte[0];
+	}
+
+	/**
+	 * Getter method to retrieve the offset reached so far
+	 * @return			Offset of the first byte that was not parsed yet
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Instance method to check if the file is no longer the file parsed by the previous calls.
+	 * @return						true if the file shrank, has a different file key or starts with different bytes
+	 */
+	private boolean isReplaced(FileChannel channel, long size) throws IOException{
+		if (size < offset) {
+			return true;
+		}
+		Object currentKey = Files.readAttributes(inputFile.toPath(), BasicFileAttributes.class).fileKey();
+		if (fileKey != null && !fileKey.equals(currentKey)) {
+			return true;
+		}
+		return !Arrays.equals(head, readHead(channel, head.length));
+	}
+
+	/**
+	 * Instance method to store the file key and the first bytes of the file for the next call.
+	 */
+	private void rememberIdentity(FileChannel channel, long size) throws IOException{
+		fileKey = Files.readAttributes(inputFile.toPath(), BasicFileAttributes.class).fileKey();
+		if (head.length < HEAD_LENGTH && size > head.length) {
+			head = readHead(channel, (int) Math.min(HEAD_LENGTH, size));
+		}
+	}
+
+	/**
+	 * Class method to read the first bytes of the channel.
+	 * @return						Up to length bytes, fewer if the file is shorter
+	 */
+	private static byte[] readHead(FileChannel channel, int length) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+		}
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * Class method to find the end of the last complete line in [from, size). A '\r' at size - 1 does not count as a terminator
+	 * yet, a '\n' of the next call would otherwise be read as an empty line of its own.
+	 * @return						Offset right after the last line terminator, from if there is none
+	 */
+	private static long lastLineEnd(FileChannel channel, long from, long size) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long blockEnd = size;
+		while (blockEnd > from) {
+			long blockStart = Math.max(from, blockEnd - buffer.capacity());
+			buffer.clear();
+			buffer.limit((int) (blockEnd - blockStart));
+			while (buffer.hasRemaining() && channel.read(buffer, blockStart + buffer.position()) > 0) {
+			}
+			for (int i = buffer.position() - 1; i >= 0; i--) {
+				byte current = buffer.get(i);
+				if (current == '\n' || (current == '\r' && blockStart + i < size - 1)) {
+					return blockStart + i + 1;
+				}
+			}
+			blockEnd = blockStart;
+		}
+		return from;
+	}
+
+}
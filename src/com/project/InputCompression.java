@@ -0,0 +1,153 @@
+package com.project;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * @author Fabian
+ * InputCompression enum lists the compressed input formats that CategorySetParser reads without decompressing to disk first.
+ * The format is found from the first bytes of the file, not from the file name.
+ *
+ */
+public enum InputCompression {
+
+	/** Plain text. */
+	NONE {
+		@Override
+		InputStream wrap(InputStream input) {
+			return input;
+		}
+	},
+	/** gzip (RFC 1952), several concatenated members are read as one stream. */
+	GZIP {
+		@Override
+		InputStream wrap(InputStream input) throws IOException {
+			return new GZIPInputStream(input, IO_BUFFER_SIZE);
+		}
+	},
+	/** zip archive, the entries are read one after the other, every entry ends a line. */
+	ZIP {
+		@Override
+		InputStream wrap(InputStream input) {
+			return new ZipEntriesInputStream(new ZipInputStream(input));
+		}
+	};
+
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+
+	abstract InputStream wrap(InputStream input) throws IOException;
+
+	/**
+	 * Class method to find the format of a file from its magic bytes.
+	 * @param file						File to check
+	 * @return							The format, NONE for plain text and for files that cannot be read
+	 */
+	public static InputCompression detect(File file){
+		byte[] magic = new byte[4];
+		int length = 0;
+		try (InputStream input = new FileInputStream(file)) {
+			int read;
+			while (length < magic.length && (read = input.read(magic, length, magic.length - length)) > 0) {
+				length += read;
+			}
+		} catch (IOException e) {
+			//The parse itself reports a missing or unreadable file.
+			return NONE;
+		}
+		if (length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+			return GZIP;
+		}
+		if (length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+			return ZIP;
+		}
+		return NONE;
+	}
+
+	/**
+	 * Instance method to open a file as a stream of its decompressed bytes.
+	 * @param file						File in this format
+	 * @return							Decompressed stream, the caller has to close it
+	 * @throws IOException
+	 */
+	public InputStream open(File file) throws IOException{
+		InputStream input = new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE);
+		try {
+			return wrap(input);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Stream over all entries of a zip archive, with a line feed after every entry so that lines never run across entries.
+	 * ZipInputStream throws IllegalArgumentException for an entry name that is not UTF-8, it is reported as a ZipException like
+	 * any other damaged archive.
+	 */
+	private static final class ZipEntriesInputStream extends InputStream {
+		private final ZipInputStream zip;
+		private boolean inEntry;
+		private boolean lineFeedPending;
+		private boolean finished;
+
+		ZipEntriesInputStream(ZipInputStream zip) {
+			this.zip = zip;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			try {
+				return readEntries(bytes, offset, length);
+			} catch (IllegalArgumentException e) {
+				ZipException malformed = new ZipException("Malformed zip entry: " + e.getMessage());
+				malformed.initCause(e);
+				throw malformed;
+			}
+		}
+
+		private int readEntries(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			while (!finished) {
+				if (lineFeedPending) {
+					lineFeedPending = false;
+					bytes[offset] = '\n';
+					return 1;
+				}
+				if (!inEntry) {
+					if (zip.getNextEntry() == null) {
+						finished = true;
+						break;
+					}
+					inEntry = true;
+				}
+				int read = zip.read(bytes, offset, length);
+				if (read > 0) {
+					return read;
+				}
+				inEntry = false;
+				lineFeedPending = true;
+			}
+			return -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			zip.close();
+		}
+	}
+
+}
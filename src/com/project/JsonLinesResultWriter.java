@@ -0,0 +1,118 @@
+package com.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author Fabian
+ * JsonLinesResultWriter class writes newline delimited JSON, one object per line:
+ * 	{"category":"PERSON","count":2}					for every count, in the sorted order
+ * 	{"category":"PERSON","subCategory":"Bob Jones"}	for every category pair, in order of first occurrence
+ *
+ */
+final class JsonLinesResultWriter extends ResultWriter {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	JsonLinesResultWriter(WritableByteChannel channel, int bufferSize) {
+		super(channel, bufferSize);
+	}
+
+	@Override
+	void writeHeader() {
+		//No heading, every line is a complete object.
+	}
+
+	@Override
+	void writeCount(String category, int count) throws IOException {
+		writeAscii("{\"category\":\"");
+		writeEscaped(category, 0, category.length());
+		writeAscii("\",\"count\":");
+		writeInt(count);
+		writeAscii("}\n");
+	}
+
+	@Override
+	void writePairsHeader() {
+		//The pairs follow the counts directly, they are told apart by their fields.
+	}
+
+	@Override
+	void writePair(String line) throws IOException {
+		int separator = separatorIndex(line);
+		writeAscii("{\"category\":\"");
+		writeEscaped(line, 0, separator);
+		writeAscii("\",\"subCategory\":\"");
+		writeEscaped(line, Math.min(separator + 1, line.length()), line.length());
+		writeAscii("\"}\n");
+	}
+
+	@Override
+	void writePair(ByteBuffer line, int start, int end) throws IOException {
+		int separator = separatorIndex(line, start, end);
+		writeAscii("{\"category\":\"");
+		writeEscaped(line, start, separator);
+		writeAscii("\",\"subCategory\":\"");
+		writeEscaped(line, Math.min(separator + 1, end), end);
+		writeAscii("\"}\n");
+	}
+
+	/**
+	 * Instance method to write characters as the content of a JSON string. Runs without special characters are written in one call.
+	 */
+	private void writeEscaped(String s, int from, int to) throws IOException{
+		int run = from;
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			if (c < 0x20 || c == '"' || c == '\\') {
+				writeUtf8(s, run, i);
+				writeEscape(c);
+				run = i + 1;
+			}
+		}
+		writeUtf8(s, run, to);
+	}
+
+	/**
+	 * Instance method to write UTF-8 bytes as the content of a JSON string. Bytes of multi-byte characters are all above 0x7f, so
+	 * they never need an escape.
+	 */
+	private void writeEscaped(ByteBuffer line, int start, int end) throws IOException{
+		int run = start;
+		for (int i = start; i < end; i++) {
+			byte b = line.get(i);
+			if ((b >= 0 && b < 0x20) || b == '"' || b == '\\') {
+				writeBytes(line, run, i);
+				writeEscape((char) b);
+				run = i + 1;
+			}
+		}
+		writeBytes(line, run, end);
+	}
+
+	private void writeEscape(char c) throws IOException{
+		switch (c) {
+		case '"':
+			writeAscii("\\\"");
+			break;
+		case '\\':
+			writeAscii("\\\\");
+			break;
+		case '\t':
+			writeAscii("\\t");
+			break;
+		case '\n':
+			writeAscii("\\n");
+			break;
+		case '\r':
+			writeAscii("\\r");
+			break;
+		default:
+			writeAscii("\\u00");
+			writeByte(HEX[c >> 4]);
+			writeByte(HEX[c & 0xf]);
+		}
+	}
+
+}
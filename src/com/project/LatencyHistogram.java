@@ -0,0 +1,107 @@
+package com.project;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Fabian
+ * LatencyHistogram class records durations in nanoseconds into log-linear buckets, in the style of an HDR histogram.
+ * Values below 32 have a bucket each, above that every power of two is split into 16 buckets, so a reported percentile is at most
+ * 1/16 above the recorded value. Values above MAX_VALUE (about 18 minutes) are recorded as MAX_VALUE.
+ *
+ * A histogram has a single writer, the thread that owns it. The buckets are published with lazySet, so other threads can read
+ * them at any time without a lock and without slowing down the writer.
+ *
+ */
+final class LatencyHistogram {
+
+	/** Largest value that keeps its own bucket. */
+	static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Number of buckets, every value up to MAX_VALUE has one. */
+	static final int BUCKETS = bucket(MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Instance method to record one duration, only called by the owning thread.
+	 * @param nanos						Duration in nanoseconds, negative values are recorded as 0
+	 */
+	void record(long nanos){
+		int bucket = bucket(Math.min(Math.max(nanos, 0), MAX_VALUE));
+		counts.lazySet(bucket, counts.get(bucket) + 1);
+	}
+
+	/**
+	 * Instance method to add the bucket counts of this histogram to totals.
+	 * @param totals					Array of BUCKETS counts
+	 */
+	void addTo(long[] totals){
+		for (int i = 0; i < BUCKETS; i++) {
+			totals[i] += counts.get(i);
+		}
+	}
+
+	/**
+	 * Class method to find the bucket of a value.
+	 * PRECONDITION/REQUIRED:
+	 * 	value should be between 0 and MAX_VALUE.
+	 */
+	static int bucket(long value){
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		if (magnitude <= SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		//The top SUB_BUCKET_BITS + 1 bits of the value select the bucket, the lower bits are dropped.
+		int shift = magnitude - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Class method to find the largest value that falls into a bucket.
+	 */
+	static long highestValue(int bucket){
+		if (bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Class method to count the values recorded in summed bucket counts.
+	 */
+	static long count(long[] totals){
+		long count = 0;
+		for (long bucketCount : totals) {
+			count += bucketCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Class method to find a percentile of summed bucket counts.
+	 * @param totals					Array of BUCKETS counts, see addTo()
+	 * @param quantile					Quantile between 0 and 1, e.g. 0.99
+	 * @return							Highest value of the bucket holding the quantile, 0 if nothing was recorded
+	 */
+	static long percentile(long[] totals, double quantile){
+		long count = count(totals);
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = 0;
+		for (int i = 0; i < totals.length; i++) {
+			seen += totals[i];
+			if (seen >= rank) {
+				return highestValue(i);
+			}
+		}
+		return highestValue(totals.length - 1);
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.project;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author Fabian
+ * LineAssembler class finds lines in a stream of byte blocks, for input that is not available as one mapped range (decompressed data,
+ * sockets, request bodies). Lines inside a block are handed to the visitor straight from the block, only a line that crosses a block
+ * boundary is copied into a carry buffer. Line terminators follow BufferedReader.readLine() like MappedLineScanner.
+ * An OffsetAwareLineVisitor is told the stream offsets, counted from the first byte given to this assembler.
+ *
+ */
+public final class LineAssembler {
+
+	private static final byte LINE_FEED = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+
+	private final LineVisitor visitor;
+	private final OffsetAwareLineVisitor offsets;
+	private byte[] carry = new byte[256];
+	private int carryLength;
+	private boolean afterCarriageReturn;
+	//Stream offset of the next block, of index 0 of the current block and of the first carried byte.
+	private long streamOffset;
+	private long blockBase;
+	private long carryOffset;
+
+	/**
+	 * Constructor to create LineAssembler object
+	 * PRECONDITION/REQUIRED:
+	 *  @param visitor 				Consumer of the assembled lines
+	 */
+	public LineAssembler(LineVisitor visitor) {
+		this.visitor = visitor;
+		this.offsets = visitor instanceof OffsetAwareLineVisitor ? (OffsetAwareLineVisitor) visitor : null;
+	}
+
+	/**
+	 * Instance method to process the next block of the stream.
+	 * PRECONDITION/REQUIRED:
+	 * 	Blocks have to be given in stream order. The block can be reused after the call.
+	 *
+	 * @param block					Buffer holding the block bytes, positions are absolute indexes
+	 * @param start					Index of the first byte of the block
+	 * @param end					Index one past the last byte of the block
+	 */
+	public void accept(ByteBuffer block, int start, int end){
+		blockBase = streamOffset - start;
+		streamOffset += end - start;
+		if (offsets != null) {
+			offsets.setBaseOffset(blockBase);
+		}
+		int lineStart = start;
+		if (afterCarriageReturn && start < end && block.get(start) == LINE_FEED) {
+			lineStart++;
+		}
+		afterCarriageReturn = false;
+		for (int i = lineStart; i < end; i++) {
+			byte current = block.get(i);
+			if (current == LINE_FEED || current == CARRIAGE_RETURN) {
+				if (carryLength > 0) {
+					append(block, lineStart, i);
+					visitCarry();
+					if (offsets != null) {
+						offsets.setBaseOffset(blockBase);
+					}
+				} else {
+					visitor.visitLine(block, lineStart, i);
+				}
+				if (current == CARRIAGE_RETURN) {
+					if (i + 1 == end) {
+						afterCarriageReturn = true;
+					} else if (block.get(i + 1) == LINE_FEED) {
+						i++;
+					}
+				}
+				lineStart = i + 1;
+			}
+		}
+		append(block, lineStart, end);
+	}
+
+	/**
+	 * Instance method to end the stream, a last line without terminator is handed to the visitor.
+	 */
+	public void finish(){
+		if (carryLength > 0) {
+			visitCarry();
+		}
+		afterCarriageReturn = false;
+	}
+
+	/**
+	 * Class method to read the whole stream on the calling thread and hand its lines to the visitor. For small streams, where a
+	 * reader thread (see PipelinedBlockReader) costs more than it saves.
+	 * PRECONDITION/REQUIRED:
+	 * 	The stream is read to its end but not closed.
+	 *
+	 * @param input						Stream to read
+	 * @param visitor					Consumer of the lines
+	 * @param blockSize					Size of the read buffer in bytes
+	 * @throws IOException				If reading the stream fails
+	 */
+	public static void scan(InputStream input, LineVisitor visitor, int blockSize) throws IOException{
+		byte[] block = new byte[blockSize];
+		ByteBuffer buffer = ByteBuffer.wrap(block);
+		LineAssembler assembler = new LineAssembler(visitor);
+		long bytes = 0;
+		long started = ParserMetrics.startTimer();
+		int read;
+		while ((read = input.read(block, 0, block.length)) >= 0) {
+			started = ParserMetrics.recordPhase(ParserMetrics.Phase.READ, started);
+			assembler.accept(buffer, 0, read);
+			bytes += read;
+			started = ParserMetrics.startTimer();
+		}
+		assembler.finish();
+		ParserMetrics.add(ParserMetrics.Counter.BYTES_READ, bytes);
+	}
+
+	private void visitCarry(){
+		if (offsets != null) {
+			offsets.setBaseOffset(carryOffset);
+		}
+		visitor.visitLine(ByteBuffer.wrap(carry), 0, carryLength);
+		carryLength = 0;
+	}
+
+	private void append(ByteBuffer block, int start, int end){
+		int length = end - start;
+		if (length == 0) {
+			return;
+		}
+		if (carryLength == 0) {
+			carryOffset = blockBase + start;
+		}
+		if (carryLength + length > carry.length) {
+			carry = Arrays.copyOf(carry, Math.max(carryLength + length, carry.length * 2));
+		}
+		for (int i = 0; i < length; i++) {
+			carry[carryLength + i] = block.get(start + i);
+		}
+		carryLength += length;
+	}
+
+}
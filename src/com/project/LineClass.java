@@ -0,0 +1,40 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * LineClass enum names the outcome of validating one input line against the parse rules of CategorySetParser.
+ * Only VALID and MULTIPLE_SEPARATORS lines are counted, the other classes are skipped by every parse path.
+ *
+ */
+public enum LineClass {
+
+	/** A legal category, a single space and a sub-category. */
+	VALID(true),
+	/** Nothing between two line terminators. */
+	EMPTY(false),
+	/** The line starts with a space or a tab, so its category is empty or not legal. */
+	LEADING_WHITESPACE(false),
+	/** The line has no space, so it has no sub-category. */
+	NO_SEPARATOR(false),
+	/** Only spaces follow the separator. */
+	BLANK_SUB_CATEGORY(false),
+	/** The category before the separator is not one of the legal categories. */
+	ILLEGAL_CATEGORY(false),
+	/** More than one space follows the category. The line is counted, the sub-category starts with the extra spaces. */
+	MULTIPLE_SEPARATORS(true);
+
+	private final boolean counted;
+
+	LineClass(boolean counted) {
+		this.counted = counted;
+	}
+
+	/**
+	 * Instance method to check if lines of this class are counted.
+	 * @return			true for VALID and MULTIPLE_SEPARATORS
+	 */
+	public boolean isCounted() {
+		return counted;
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author Fabian
+ * LineSegment class holds the result of one part of the input on its way to a PartitionedLineMerger: the distinct lines of the part
+ * in order of first occurrence as raw bytes, with their 64 bit ByteHash and category id, and the lines of every hash partition.
+ *
+ * A segment is built by the worker that parsed the part, see CategoryLineProcessor.toSegment(), so hashing the lines and sorting
+ * them into partitions is not left to the merge.
+ *
+ */
+final class LineSegment implements LineVisitor {
+
+	private static final int PAGE_SIZE = 1 << 20;
+
+	private final CategoryMatcher matcher;
+	private final LineValidator validator;
+	private final HeavyHitterSketch heavyHitters;
+	private final int partitionShift;
+	private ByteBuffer[] pages = new ByteBuffer[4];
+	private int pageCount;
+	private ByteBuffer currentPage;
+	private final long[] addresses;
+	private final int[] lengths;
+	private final long[] hashes;
+	private final int[] categories;
+	private final int[][] partitionLines;
+	private int size;
+
+	/**
+	 * Constructor to create LineSegment object, the lines are copied out of the index.
+	 * PRECONDITION/REQUIRED:
+	 * 	Every line of the index has a legal category of the matcher.
+	 *
+	 *  @param matcher 					Matcher that assigns the category ids
+	 *  @param lines 					Distinct lines of the part
+	 *  @param validator 				Validator that saw the part
+	 *  @param heavyHitters 			Sketch of the part, null if the lines are not counted
+	 *  @param partitionBits 			Number of upper hash bits that select the partition, between 1 and 31
+	 */
+	LineSegment(CategoryMatcher matcher, DedupIndex lines, LineValidator validator, HeavyHitterSketch heavyHitters,
+			int partitionBits) {
+		this.matcher = matcher;
+		this.validator = validator;
+		this.heavyHitters = heavyHitters;
+		this.partitionShift = 64 - partitionBits;
+		int count = lines.size();
+		addresses = new long[count];
+		lengths = new int[count];
+		hashes = new long[count];
+		categories = new int[count];
+		lines.forEach(this);
+		int[] partitionSizes = new int[1 << partitionBits];
+		for (int line = 0; line < size; line++) {
+			partitionSizes[partition(hashes[line])]++;
+		}
+		partitionLines = new int[partitionSizes.length][];
+		for (int partition = 0; partition < partitionLines.length; partition++) {
+			partitionLines[partition] = new int[partitionSizes[partition]];
+		}
+		Arrays.fill(partitionSizes, 0);
+		for (int line = 0; line < size; line++) {
+			int partition = partition(hashes[line]);
+			partitionLines[partition][partitionSizes[partition]++] = line;
+		}
+	}
+
+	@Override
+	public void visitLine(ByteBuffer buffer, int start, int end) {
+		int length = end - start;
+		if (currentPage == null || currentPage.remaining() < length) {
+			if (pageCount == pages.length) {
+				pages = Arrays.copyOf(pages, pageCount * 2);
+			}
+			currentPage = pages[pageCount++] = ByteBuffer.allocate(Math.max(PAGE_SIZE, length));
+		}
+		int offset = currentPage.position();
+		for (int i = start; i < end; i++) {
+			currentPage.put(buffer.get(i));
+		}
+		addresses[size] = ((long) (pageCount - 1) << 32) | offset;
+		lengths[size] = length;
+		hashes[size] = ByteHash.hash64(buffer, start, end);
+		categories[size] = matcher.match(buffer, start, CategoryLineProcessor.findSeparator(buffer, start, end));
+		size++;
+	}
+
+	/**
+	 * Instance method to add a line to the index of its partition.
+	 * @param line					Number of the line, in order of first occurrence from 0
+	 * @return						true if the line was not in the index before
+	 */
+	boolean addTo(ByteArenaDedupIndex index, int line){
+		int offset = (int) addresses[line];
+		return index.add(pages[(int) (addresses[line] >>> 32)], offset, offset + lengths[line], (int) hashes[line]);
+	}
+
+	/**
+	 * Instance method to return the lines of a partition.
+	 * @return						Line numbers in ascending order, not to be changed
+	 */
+	int[] linesOf(int partition){
+		return partitionLines[partition];
+	}
+
+	/**
+	 * Instance method to return the partition of a line hash, selected by its upper bits. DedupIndex tables use the lower bits.
+	 */
+	int partition(long hash){
+		return (int) (hash >>> partitionShift);
+	}
+
+	/**
+	 * Instance method to return the category id of a line.
+	 */
+	int category(int line){
+		return categories[line];
+	}
+
+	/**
+	 * @return						Number of distinct lines of the part
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Getter method to retrieve the validator that saw the part
+	 */
+	LineValidator getValidator(){
+		return validator;
+	}
+
+	/**
+	 * Getter method to retrieve the sketch of the part, null if the lines are not counted
+	 */
+	HeavyHitterSketch getHeavyHitters(){
+		return heavyHitters;
+	}
+
+}
@@ -0,0 +1,212 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Fabian
+ * LineValidator class is the validation stage of the parse paths. The parse finds the separator and matches the category as before,
+ * only a line it skips (or a counted line with extra spaces) is handed to the validator, which finds its LineClass, counts it and
+ * offers it to a reservoir sample. Lines are classified without exceptions, and valid lines cost one counter increment.
+ *
+ * A validator is used by one thread at a time, like the processor that owns it.
+ *
+ */
+final class LineValidator {
+
+	private static final byte SEPARATOR = ' ';
+	private static final byte TAB = '\t';
+
+	private final long[] counts = new long[LineClass.values().length];
+	private final int sampleSize;
+	private final List<ValidationReport.Sample> samples = new ArrayList<>();
+	private long lines;
+	private long offered;
+	private Random random;
+
+	/**
+	 * Constructor to create LineValidator object
+	 * PRECONDITION/REQUIRED:
+	 *  @param sampleSize 				Largest number of sampled lines, 0 to count only
+	 */
+	LineValidator(int sampleSize) {
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * Instance method to count a line, called for every line before it is checked.
+	 */
+	void countLine(){
+		lines++;
+	}
+
+	/**
+	 * Instance method to classify a line the parse skips.
+	 *
+	 * @param buffer				Buffer holding the line
+	 * @param start					Index of the first byte of the line
+	 * @param end					Index one past the last byte of the line
+	 * @param separator				Result of CategoryLineProcessor.findSeparator(), -1 for none
+	 * @param offset				Input offset of the line, -1 if not known
+	 * @return						Class of the line, never VALID or MULTIPLE_SEPARATORS
+	 */
+	LineClass reject(ByteBuffer buffer, int start, int end, int separator, long offset){
+		LineClass lineClass;
+		if (start == end) {
+			lineClass = LineClass.EMPTY;
+		} else if (buffer.get(start) == SEPARATOR || buffer.get(start) == TAB) {
+			lineClass = LineClass.LEADING_WHITESPACE;
+		} else if (separator >= 0) {
+			lineClass = LineClass.ILLEGAL_CATEGORY;
+		} else {
+			lineClass = LineClass.NO_SEPARATOR;
+			for (int i = start; i < end; i++) {
+				if (buffer.get(i) == SEPARATOR) {
+					lineClass = LineClass.BLANK_SUB_CATEGORY;
+					break;
+				}
+			}
+		}
+		record(lineClass, buffer, start, end, offset);
+		return lineClass;
+	}
+
+	/**
+	 * Instance method to classify a line the parse skips, for the String based parse().
+	 *
+	 * @param line					The line
+	 * @param separator				Result of CategorySetParser.readCategory(), -1 for none
+	 * @return						Class of the line, never VALID or MULTIPLE_SEPARATORS
+	 */
+	LineClass reject(String line, int separator){
+		LineClass lineClass;
+		if (line.isEmpty()) {
+			lineClass = LineClass.EMPTY;
+		} else if (line.charAt(0) == SEPARATOR || line.charAt(0) == TAB) {
+			lineClass = LineClass.LEADING_WHITESPACE;
+		} else if (separator >= 0) {
+			lineClass = LineClass.ILLEGAL_CATEGORY;
+		} else {
+			lineClass = line.indexOf(SEPARATOR) >= 0 ? LineClass.BLANK_SUB_CATEGORY : LineClass.NO_SEPARATOR;
+		}
+		record(lineClass, line);
+		return lineClass;
+	}
+
+	/**
+	 * Instance method to record a counted line that has more than one space after its category.
+	 */
+	void flagMultipleSeparators(ByteBuffer buffer, int start, int end, long offset){
+		record(LineClass.MULTIPLE_SEPARATORS, buffer, start, end, offset);
+	}
+
+	/**
+	 * Instance method to record a counted line that has more than one space after its category, for the String based parse().
+	 */
+	void flagMultipleSeparators(String line){
+		record(LineClass.MULTIPLE_SEPARATORS, line);
+	}
+
+	/**
+	 * Instance method to add the counts and samples of a validator that saw a different part of the input. The merged sample
+	 * takes lines from both samples in proportion to the number of offending lines each of them was drawn from.
+	 */
+	void absorb(LineValidator other){
+		lines += other.lines;
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		if (other.offered == 0) {
+			return;
+		}
+		List<ValidationReport.Sample> own = new ArrayList<>(samples);
+		List<ValidationReport.Sample> theirs = new ArrayList<>(other.samples);
+		Random generator = random();
+		Collections.shuffle(own, generator);
+		Collections.shuffle(theirs, generator);
+		//Every sampled line stands for offered / samples offending lines of its validator.
+		double ownWeight = offered;
+		double theirWeight = other.offered;
+		double ownShare = own.isEmpty() ? 0 : ownWeight / own.size();
+		double theirShare = theirs.isEmpty() ? 0 : theirWeight / theirs.size();
+		samples.clear();
+		while (samples.size() < sampleSize && (!own.isEmpty() || !theirs.isEmpty())) {
+			boolean takeOwn = theirs.isEmpty() || (!own.isEmpty() && generator.nextDouble() * (ownWeight + theirWeight) < ownWeight);
+			if (takeOwn) {
+				samples.add(own.remove(own.size() - 1));
+				ownWeight -= ownShare;
+			} else {
+				samples.add(theirs.remove(theirs.size() - 1));
+				theirWeight -= theirShare;
+			}
+		}
+		offered += other.offered;
+	}
+
+	/**
+	 * Instance method to create the report of the lines seen so far.
+	 */
+	ValidationReport toReport(){
+		long[] reported = counts.clone();
+		long offending = 0;
+		for (LineClass lineClass : LineClass.values()) {
+			offending += counts[lineClass.ordinal()];
+		}
+		reported[LineClass.VALID.ordinal()] = lines - offending;
+		return new ValidationReport(reported, new ArrayList<>(samples));
+	}
+
+	private void record(LineClass lineClass, ByteBuffer buffer, int start, int end, long offset){
+		counts[lineClass.ordinal()]++;
+		int slot = sampleSlot();
+		if (slot >= 0) {
+			byte[] bytes = new byte[Math.min(end - start, ValidationReport.MAX_SAMPLE_LINE_LENGTH)];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(start + i);
+			}
+			keep(slot, new ValidationReport.Sample(lineClass, offset, new String(bytes, StandardCharsets.UTF_8)));
+		}
+	}
+
+	private void record(LineClass lineClass, String line){
+		counts[lineClass.ordinal()]++;
+		int slot = sampleSlot();
+		if (slot >= 0) {
+			String kept = line.length() > ValidationReport.MAX_SAMPLE_LINE_LENGTH ? line.substring(0, ValidationReport.MAX_SAMPLE_LINE_LENGTH) : line;
+			keep(slot, new ValidationReport.Sample(lineClass, -1, kept));
+		}
+	}
+
+	/**
+	 * Instance method to decide if the next offending line goes into the reservoir (algorithm R).
+	 * @return						Index of the sample to keep the line at, -1 to drop the line
+	 */
+	private int sampleSlot(){
+		offered++;
+		if (samples.size() < sampleSize) {
+			return samples.size();
+		}
+		long slot = (long) (random().nextDouble() * offered);
+		return slot < sampleSize ? (int) slot : -1;
+	}
+
+	private void keep(int slot, ValidationReport.Sample sample){
+		if (slot == samples.size()) {
+			samples.add(sample);
+		} else {
+			samples.set(slot, sample);
+		}
+	}
+
+	private Random random(){
+		if (random == null) {
+			random = new Random();
+		}
+		return random;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Fabian
+ * Callback used by the byte level readers to hand every line of the input to its consumer without creating a String for it.
+ *
+ */
+public interface LineVisitor {
+
+	/**
+	 * Called once for each line of the input, in file order. Line terminators are not part of the span.
+	 * PRECONDITION/REQUIRED:
+	 * 	The buffer is only valid for the duration of the call, implementations have to copy any bytes they want to keep.
+	 *
+	 * @param buffer				Buffer holding the line bytes, positions are absolute indexes into this buffer
+	 * @param start					Index of the first byte of the line
+	 * @param end					Index one past the last byte of the line, equal to start for an empty line
+	 */
+	void visitLine(ByteBuffer buffer, int start, int end);
+
+}
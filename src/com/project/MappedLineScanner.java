@@ -0,0 +1,150 @@
+package com.project;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Fabian
+ * MappedLineScanner class maps a byte range of a file into memory and finds the line boundaries directly in the mapped bytes.
+ * Line terminators follow BufferedReader.readLine(): "\n", "\r" and "\r\n" all end a line, a last line without terminator is still
+ * reported.
+ *
+ * Files larger than a single mapping are walked window by window, a line crossing the end of a window is scanned again from its
+ * first byte in the next window.
+ *
+ * A scan checks for an interrupt of its thread every INTERRUPT_CHECK_LINES lines, so a cancelled parse stops soon.
+ *
+ */
+public final class MappedLineScanner {
+
+	/** Largest range mapped at once. A single line has to fit in one window. */
+	static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+	/** Lines between two checks for an interrupt, a power of two. */
+	static final int INTERRUPT_CHECK_LINES = 1 << 16;
+
+	private static final byte LINE_FEED = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+
+	private MappedLineScanner() {
+	}
+
+	/**
+	 * Class method to visit every line in the byte range [from, to) of the channel.
+	 * PRECONDITION/REQUIRED:
+	 * 	from has to be the first byte of a line. to has to be the end of the channel or the byte right after a line terminator.
+	 *
+	 * @param channel					Open channel of the input file
+	 * @param from						Offset of the first byte to scan
+	 * @param to						Offset one past the last byte to scan
+	 * @param visitor					Consumer of the lines
+	 * @throws IOException				If mapping fails or a single line is longer than MAP_WINDOW
+	 * @throws InterruptedIOException	If the thread was interrupted, the interrupt status is kept
+	 */
+	public static void scan(FileChannel channel, long from, long to, LineVisitor visitor) throws IOException{
+		OffsetAwareLineVisitor offsets = visitor instanceof OffsetAwareLineVisitor ? (OffsetAwareLineVisitor) visitor : null;
+		long position = from;
+		int lines = 0;
+		while (position < to) {
+			long length = Math.min(MAP_WINDOW, to - position);
+			boolean lastWindow = position + length >= to;
+			long started = ParserMetrics.startTimer();
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, length);
+			ParserMetrics.recordPhase(ParserMetrics.Phase.READ, started);
+			if (offsets != null) {
+				offsets.setBaseOffset(position);
+			}
+			int limit = (int) length;
+			//The last byte of an inner window is left for the next window so a "\r\n" pair is never split.
+			int scanLimit = lastWindow ? limit : limit - 1;
+			int lineStart = 0;
+			for (int i = 0; i < scanLimit; i++) {
+				byte current = buffer.get(i);
+				if (current == LINE_FEED || current == CARRIAGE_RETURN) {
+					if ((++lines & (INTERRUPT_CHECK_LINES - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+						throw new InterruptedIOException("Interrupted while scanning");
+					}
+					visitor.visitLine(buffer, lineStart, i);
+					if (current == CARRIAGE_RETURN && i + 1 < limit && buffer.get(i + 1) == LINE_FEED) {
+						i++;
+					}
+					lineStart = i + 1;
+				}
+			}
+			if (lastWindow) {
+				if (lineStart < limit) {
+					visitor.visitLine(buffer, lineStart, limit);
+				}
+				position = to;
+			} else {
+				if (lineStart == 0) {
+					throw new IOException("Line starting at offset " + position + " is longer than " + MAP_WINDOW + " bytes");
+				}
+				position += lineStart;
+			}
+		}
+		ParserMetrics.add(ParserMetrics.Counter.BYTES_READ, to - from);
+	}
+
+	/**
+	 * Class method to cut the channel into ranges of roughly chunkSize bytes that each start at the beginning of a line.
+	 * Ranges are extended to the next "\n", so each of them can be handed to scan() on its own.
+	 * PRECONDITION/REQUIRED:
+	 * 	chunkSize should be positive.
+	 *
+	 * @param channel					Open channel of the input file
+	 * @param chunkSize					Preferred size of a range in bytes
+	 * @return							Offsets of the range boundaries, starting with 0 and ending with the channel size
+	 * @throws IOException
+	 */
+	public static long[] lineAlignedBoundaries(FileChannel channel, long chunkSize) throws IOException{
+		long size = channel.size();
+		List<Long> boundaries = new ArrayList<>();
+		boundaries.add(0L);
+		ByteBuffer probe = ByteBuffer.allocate(4096);
+		long boundary = chunkSize;
+		while (boundary < size) {
+			long aligned = nextLineStart(channel, boundary, size, probe);
+			if (aligned >= size) {
+				break;
+			}
+			boundaries.add(aligned);
+			boundary = aligned + chunkSize;
+		}
+		boundaries.add(size);
+		long[] result = new long[boundaries.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = boundaries.get(i);
+		}
+		return result;
+	}
+	
+	/**
+	 * Class method to find the first offset at or after position that follows a "\n".
+	 * @return							Offset of the next line start, size if there is none
+	 */
+	private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException{
+		long offset = position - 1;
+		while (offset < size) {
+			probe.clear();
+			int read = channel.read(probe, offset);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (probe.get(i) == LINE_FEED) {
+					return offset + i + 1;
+				}
+			}
+			offset += read;
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.project;
+
+/**
+ * @author Fabian
+ * Optional interface of a LineVisitor that wants to know where its lines are in the input. MappedLineScanner and LineAssembler
+ * call setBaseOffset() whenever the buffer they hand out changes, a line starting at buffer index i starts at input byte
+ * offset base + i until the next call.
+ *
+ */
+public interface OffsetAwareLineVisitor extends LineVisitor {
+
+	/**
+	 * Called before the lines of a new buffer are visited.
+	 * @param base					Input offset of buffer index 0, -1 if the offset is not known
+	 */
+	void setBaseOffset(long base);
+
+}
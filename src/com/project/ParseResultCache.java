@@ -0,0 +1,339 @@
+package com.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Fabian
+ * ParseResultCache class keeps the results of parse() for input files that are parsed again and again, so an unchanged file is
+ * answered with a stat of the file instead of a parse.
+ *
+ * 1. Results are kept per canonical path and set of legal categories, together with the size, the modification time and a content
+ *    fingerprint (hash of the first and last FINGERPRINT_BLOCK bytes) of the input they were parsed from.
+ * 2. The memory tier is an LRU list bounded by the estimated heap size of the results. A lookup whose size and modification time
+ *    still match the file is a hit, no byte of the input is read.
+ * 3. The optional disk tier keeps every result as a ParserSnapshot in a directory. It is asked on a memory miss, and its entry is
+ *    only used if the size, modification time and fingerprint of the file still match, so a file replaced with the same size and
+ *    time by a copy tool is recognised. A disk entry keeps the counts and lines, not the ValidationReport.
+ *
+ * Results are shared between callers and should not be changed. Concurrent misses for the same file may parse it more than once,
+ * the last result is kept.
+ *
+ */
+public final class ParseResultCache {
+
+	/** Default bound of the memory tier. */
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+	/** Bytes read from the start and from the end of the input for its fingerprint. */
+	static final int FINGERPRINT_BLOCK = 64 * 1024;
+
+	/** Estimated heap bytes of a distinct line besides its characters: String, array and linked hash set entry. */
+	private static final int LINE_OVERHEAD = 96;
+	/** Estimated heap bytes of a category count and of the result itself. */
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final long maxBytes;
+	private final File diskDirectory;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long estimatedBytes;
+	private long hits;
+	private long diskHits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructor to create ParseResultCache object without a disk tier
+	 * PRECONDITION/REQUIRED:
+	 *  @param maxBytes 				Largest estimated heap size of the results kept in memory
+	 */
+	public ParseResultCache(long maxBytes) {
+		this(maxBytes, null);
+	}
+
+	/**
+	 * Constructor to create ParseResultCache object
+	 * PRECONDITION/REQUIRED:
+	 *  @param maxBytes 				Largest estimated heap size of the results kept in memory
+	 *  @param diskDirectory 			Existing writable directory of the disk tier, null for none
+	 */
+	public ParseResultCache(long maxBytes, File diskDirectory) {
+		this.maxBytes = maxBytes;
+		this.diskDirectory = diskDirectory;
+	}
+
+	/**
+	 * Instance method to return the result of CategorySetParser.parse() for the file, from the cache if the file did not change.
+	 * PRECONDITION/REQUIRED:
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 *
+	 * @param legalCategoryList			String Array of Legal Category List, the order does not matter
+	 * @param inputFile					Input file to parse
+	 * @return							The cached or new result
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public ParserValues parse(String[] legalCategoryList, File inputFile) throws FileNotFoundException, IOException{
+		return parse(new CategoryDictionary(legalCategoryList, 0), inputFile);
+	}
+
+	/**
+	 * Instance method to return the result of CategorySetParser.parse() for the file and one version of a dictionary, from the cache
+	 * if the file did not change. Results of different dictionary versions are cached apart.
+	 * PRECONDITION/REQUIRED:
+	 * 	Provided input file should exist else will throw FileNotFoundException.
+	 *
+	 * @param dictionary				Legal categories, the order does not matter
+	 * @param inputFile					Input file to parse
+	 * @return							The cached or new result
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public ParserValues parse(CategoryDictionary dictionary, File inputFile) throws FileNotFoundException, IOException{
+
+		if (!inputFile.isFile()) {
+			System.err.println("ERROR: File Not Found.");
+			throw new FileNotFoundException(inputFile.getPath());
+		}
+		String key = key(dictionary, inputFile);
+		long size = inputFile.length();
+		long modified = inputFile.lastModified();
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.size == size && entry.modified == modified) {
+				hits++;
+				return entry.values;
+			}
+		}
+
+		long fingerprint = fingerprint(inputFile, size);
+		File diskFile = diskFile(key);
+		byte[] identity = identity(key, size, modified, fingerprint);
+		ParserValues values = diskFile == null ? null : loadFromDisk(diskFile, identity);
+		if (values != null) {
+			//Snapshots do not keep the dictionary version, the key does.
+			values.setDictionaryVersion(dictionary.getVersion());
+			synchronized (this) {
+				diskHits++;
+			}
+		} else {
+			values = new CategorySetParser(dictionary, inputFile).parse();
+			synchronized (this) {
+				misses++;
+			}
+			//A file that changed while it was parsed is not cached, the result matches neither the old nor the new state.
+			if (inputFile.length() != size || inputFile.lastModified() != modified) {
+				return values;
+			}
+			if (diskFile != null) {
+				saveToDisk(values, identity, diskFile);
+			}
+		}
+		put(key, new Entry(size, modified, values));
+		return values;
+	}
+
+	/**
+	 * Instance method to drop all results of the memory tier, the disk tier is kept.
+	 */
+	public synchronized void clear(){
+		entries.clear();
+		estimatedBytes = 0;
+	}
+
+	/**
+	 * Getter method to retrieve the number of lookups answered from the memory tier.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Getter method to retrieve the number of lookups answered from the disk tier.
+	 */
+	public synchronized long getDiskHits() {
+		return diskHits;
+	}
+
+	/**
+	 * Getter method to retrieve the number of lookups that parsed the file.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Getter method to retrieve the number of results dropped from the memory tier to stay within the bound.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Getter method to retrieve the estimated heap size of the results in the memory tier.
+	 */
+	public synchronized long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	/**
+	 * Getter method to retrieve the number of results in the memory tier.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ParseResultCache[entries=" + entries.size() + ", bytes=" + estimatedBytes + ", hits=" + hits + ", diskHits=" + diskHits
+				+ ", misses=" + misses + ", evictions=" + evictions + "]";
+	}
+
+	/**
+	 * Class method to estimate the heap size of a result.
+	 */
+	static long estimateBytes(ParserValues values){
+		long bytes = ENTRY_OVERHEAD * (1L + values.getUnsortedCategoryCount().size());
+		for (String line : values.getCategoryOrderedList()) {
+			bytes += LINE_OVERHEAD + 2L * line.length();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Class method to find the fingerprint of the input: a hash of its first and last FINGERPRINT_BLOCK bytes and its size.
+	 */
+	static long fingerprint(File inputFile, long size) throws IOException{
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			long head = hashRange(channel, 0, Math.min(size, FINGERPRINT_BLOCK));
+			long tailStart = Math.max(0, size - FINGERPRINT_BLOCK);
+			long tail = hashRange(channel, tailStart, size - tailStart);
+			return ByteHash.mix(head ^ Long.rotateLeft(tail, 31) ^ size);
+		}
+	}
+
+	private static long hashRange(FileChannel channel, long position, long length) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+		return ByteHash.hash64(buffer, 0, buffer.position());
+	}
+
+	private synchronized void put(String key, Entry entry){
+		Entry replaced = entries.remove(key);
+		if (replaced != null) {
+			estimatedBytes -= replaced.bytes;
+		}
+		//A result larger than the whole bound is not kept in memory, it would only push out every other result.
+		if (entry.bytes > maxBytes) {
+			return;
+		}
+		entries.put(key, entry);
+		estimatedBytes += entry.bytes;
+		Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+		while (estimatedBytes > maxBytes && eldest.hasNext()) {
+			estimatedBytes -= eldest.next().getValue().bytes;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	private static String key(CategoryDictionary dictionary, File inputFile) throws IOException{
+		String[] categories = dictionary.toArray();
+		Arrays.sort(categories);
+		StringBuilder key = new StringBuilder(inputFile.getCanonicalPath());
+		String previous = null;
+		for (String category : categories) {
+			if (!category.equals(previous)) {
+				key.append('\u0000').append(category);
+			}
+			previous = category;
+		}
+		//Lists that were not loaded from a file keep the key they had before dictionaries had versions.
+		if (dictionary.getVersion() != 0) {
+			key.append('\u0000').append(dictionary.getVersion());
+		}
+		return key.toString();
+	}
+
+	private File diskFile(String key){
+		if (diskDirectory == null) {
+			return null;
+		}
+		long hash = ByteHash.hash64(key.getBytes(StandardCharsets.UTF_8));
+		return new File(diskDirectory, String.format("%016x.snapshot", hash));
+	}
+
+	/**
+	 * Class method to encode the key and the state of the input, stored as the input head of a disk tier snapshot.
+	 */
+	private static byte[] identity(String key, long size, long modified, long fingerprint) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(keyBytes.length);
+			out.write(keyBytes);
+			out.writeLong(size);
+			out.writeLong(modified);
+			out.writeLong(fingerprint);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Instance method to load a disk tier entry.
+	 * @return							The values, null if there is no entry for this state of the input
+	 */
+	private ParserValues loadFromDisk(File diskFile, byte[] identity){
+		if (!diskFile.isFile()) {
+			return null;
+		}
+		try {
+			ParserSnapshot snapshot = ParserSnapshot.load(diskFile);
+			return Arrays.equals(identity, snapshot.getInputHead()) ? snapshot.getValues() : null;
+		} catch (IOException e) {
+			System.err.println("WARNING: " + e.getMessage() + ", cache entry " + diskFile + " is ignored.");
+			return null;
+		}
+	}
+
+	private void saveToDisk(ParserValues values, byte[] identity, File diskFile){
+		try {
+			ParserSnapshot.write(values, 0, identity, diskFile);
+		} catch (IOException e) {
+			System.err.println("WARNING: " + e.getMessage() + ", result is not written to cache entry " + diskFile + ".");
+		}
+	}
+
+	/**
+	 * A cached result with the state of the input it was parsed from.
+	 */
+	private static final class Entry {
+		final long size;
+		final long modified;
+		final ParserValues values;
+		final long bytes;
+
+		Entry(long size, long modified, ParserValues values) {
+			this.size = size;
+			this.modified = modified;
+			this.values = values;
+			this.bytes = estimateBytes(values);
+		}
+	}
+
+}
@@ -0,0 +1,403 @@
+package com.project;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * @author Fabian
+ * ParserMetrics class counts what the parse paths of CategorySetParser do and how long their phases take.
+ *
+ * Metrics are off unless the JVM is started with -Dcom.project.metrics=true. ENABLED is a static final field, so the JIT treats it
+ * as a constant and removes every "if (ParserMetrics.ENABLED)" block and every call to the recording methods below when metrics
+ * are off; the disabled parse runs the same machine code as without this class. MetricsOverheadBenchmark in bench/ measures both.
+ *
+ * When enabled:
+ * 1. Every thread records into its own counters and histograms, so parse threads never contend. Readers sum all threads.
+ * 2. Counters: lines read, bytes read, malformed lines, lines with an illegal category, duplicate lines dropped, parses and parse time.
+ *    Line counters are kept by the exact parse paths, parseApproximate() only adds bytes and parse time.
+ * 3. Phase histograms (see LatencyHistogram): READ per block read or window mapped, TOKENIZE and DEDUP for one line in
+ *    SAMPLE_INTERVAL, SORT per sort of the counts.
+ * 4. The totals are registered in JMX as OBJECT_NAME, and dumpOnExit() writes them as JSON when the JVM exits, to the file named by
+ *    -Dcom.project.metrics.file or else to standard error.
+ *
+ */
+public final class ParserMetrics {
+
+	/** true if the JVM was started with -Dcom.project.metrics=true. */
+	public static final boolean ENABLED = Boolean.getBoolean("com.project.metrics");
+
+	/** Name of the JMX bean, see ParserMetricsMXBean. */
+	public static final String OBJECT_NAME = "com.project:type=ParserMetrics";
+
+	/** One line in SAMPLE_INTERVAL is timed for the TOKENIZE and DEDUP phases. */
+	public static final int SAMPLE_INTERVAL = 64;
+
+	/** Counted events. */
+	public enum Counter {
+		LINES_READ("linesRead"),
+		BYTES_READ("bytesRead"),
+		MALFORMED_LINES("malformedLines"),
+		ILLEGAL_CATEGORY_LINES("illegalCategoryLines"),
+		DUPLICATE_LINES("duplicateLines"),
+		PARSES("parses"),
+		PARSE_NANOS("parseNanos");
+
+		private final String jsonName;
+
+		Counter(String jsonName) {
+			this.jsonName = jsonName;
+		}
+	}
+
+	/** Timed phases of a parse. */
+	public enum Phase {
+		/** Reading a block of a stream or mapping a window of a file. Not timed by parse(), whose Reader reads ahead on its own. */
+		READ,
+		/** Finding the separator and matching the category of a line. */
+		TOKENIZE,
+		/** Looking up and adding a line to the distinct lines. */
+		DEDUP,
+		/** Sorting the counts. */
+		SORT
+	}
+
+	private static final int SAMPLE_MASK = SAMPLE_INTERVAL - 1;
+	private static final int COUNTERS = Counter.values().length;
+	private static final int PHASES = Phase.values().length;
+
+	private static final ThreadLocal<Recorder> LOCAL = new ThreadLocal<Recorder>() {
+		@Override
+		protected Recorder initialValue() {
+			return register();
+		}
+	};
+
+	//Recorders of running threads, and the sums of the recorders of finished threads. Guarded by RECORDERS.
+	private static final List<Recorder> RECORDERS = new ArrayList<>();
+	private static final long[] RETIRED_COUNTERS = new long[COUNTERS];
+	private static final long[][] RETIRED_PHASES = new long[PHASES][LatencyHistogram.BUCKETS];
+	private static int sweepAt = 64;
+
+	private static final AtomicBoolean DUMP_REGISTERED = new AtomicBoolean();
+
+	static {
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+			} catch (JMException e) {
+				System.err.println("ERROR: Metrics are not registered in JMX.");
+			}
+		}
+	}
+
+	private ParserMetrics() {
+	}
+
+	/**
+	 * Class method to write the totals as JSON when the JVM exits, see toJson(). Does nothing when metrics are disabled or the
+	 * dump is registered already.
+	 */
+	public static void dumpOnExit(){
+		if (!ENABLED || !DUMP_REGISTERED.compareAndSet(false, true)) {
+			return;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				String json = toJson();
+				String file = System.getProperty("com.project.metrics.file");
+				if (file == null) {
+					System.err.println(json);
+					return;
+				}
+				try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+					writer.write(json);
+					writer.write("\n");
+				} catch (IOException e) {
+					System.err.println("ERROR: I/O Exception.");
+				}
+			}
+		}, "parser-metrics-dump"));
+	}
+
+	/**
+	 * Class method to read the total of a counter over all threads.
+	 */
+	public static long getCount(Counter counter){
+		return totals().counters[counter.ordinal()];
+	}
+
+	/**
+	 * Class method to read the number of timed samples of a phase over all threads.
+	 */
+	public static long getSamples(Phase phase){
+		return LatencyHistogram.count(totals().phases[phase.ordinal()]);
+	}
+
+	/**
+	 * Class method to read a latency percentile of a phase over all threads.
+	 * @param phase						Phase to read
+	 * @param quantile					Quantile between 0 and 1, e.g. 0.99
+	 * @return							Duration in nanoseconds, at most 1/16 above the exact percentile, 0 without samples
+	 */
+	public static long getLatencyPercentile(Phase phase, double quantile){
+		return LatencyHistogram.percentile(totals().phases[phase.ordinal()], quantile);
+	}
+
+	/**
+	 * Class method to write all totals as one JSON object:
+	 * {"counters":{"linesRead":N,...},"bytesPerSecond":N,"phases":{"read":{"samples":N,"p50Nanos":N,"p90Nanos":N,"p99Nanos":N,
+	 * "maxNanos":N},...}}
+	 */
+	public static String toJson(){
+		Totals totals = totals();
+		StringBuilder json = new StringBuilder("{\"counters\":{");
+		for (Counter counter : Counter.values()) {
+			json.append(counter.ordinal() == 0 ? "" : ",").append('"').append(counter.jsonName).append("\":")
+					.append(totals.counters[counter.ordinal()]);
+		}
+		json.append("},\"bytesPerSecond\":").append(String.format(Locale.ROOT, "%.1f", totals.bytesPerSecond()));
+		json.append(",\"phases\":{");
+		for (Phase phase : Phase.values()) {
+			long[] histogram = totals.phases[phase.ordinal()];
+			json.append(phase.ordinal() == 0 ? "" : ",").append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\":{")
+					.append("\"samples\":").append(LatencyHistogram.count(histogram))
+					.append(",\"p50Nanos\":").append(LatencyHistogram.percentile(histogram, 0.5))
+					.append(",\"p90Nanos\":").append(LatencyHistogram.percentile(histogram, 0.9))
+					.append(",\"p99Nanos\":").append(LatencyHistogram.percentile(histogram, 0.99))
+					.append(",\"maxNanos\":").append(LatencyHistogram.percentile(histogram, 1)).append('}');
+		}
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * Class method to start timing a phase or a parse.
+	 * @return							The current System.nanoTime(), 0 when metrics are disabled
+	 */
+	static long startTimer(){
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Class method to record the duration of a phase on the calling thread.
+	 * @param phase						Phase that was timed
+	 * @param started					Value of startTimer() or of the previous recordPhase() when the phase began
+	 * @return							The current System.nanoTime(), to start timing the next phase
+	 */
+	static long recordPhase(Phase phase, long started){
+		if (!ENABLED) {
+			return 0;
+		}
+		long now = System.nanoTime();
+		LOCAL.get().phases[phase.ordinal()].record(now - started);
+		return now;
+	}
+
+	/**
+	 * Class method to record a completed parse on the calling thread.
+	 * @param started					Value of startTimer() when the parse began
+	 */
+	static void recordParse(long started){
+		if (ENABLED) {
+			Recorder recorder = LOCAL.get();
+			recorder.add(Counter.PARSES, 1);
+			recorder.add(Counter.PARSE_NANOS, System.nanoTime() - started);
+		}
+	}
+
+	/**
+	 * Class method to add to a counter of the calling thread.
+	 */
+	static void add(Counter counter, long amount){
+		if (ENABLED) {
+			LOCAL.get().add(counter, amount);
+		}
+	}
+
+	/**
+	 * Class method to add the line counts a parse collected locally to the counters of the calling thread.
+	 */
+	static void addLineCounts(long lines, long malformed, long illegalCategory, long duplicates){
+		if (ENABLED) {
+			Recorder recorder = LOCAL.get();
+			recorder.add(Counter.LINES_READ, lines);
+			recorder.add(Counter.MALFORMED_LINES, malformed);
+			recorder.add(Counter.ILLEGAL_CATEGORY_LINES, illegalCategory);
+			recorder.add(Counter.DUPLICATE_LINES, duplicates);
+		}
+	}
+
+	/**
+	 * Class method to check if a line is timed.
+	 * @param line						Number of the line, counted from 1
+	 */
+	static boolean isSampled(long line){
+		return (line & SAMPLE_MASK) == 0;
+	}
+
+	private static Recorder register(){
+		Recorder recorder = new Recorder(Thread.currentThread());
+		synchronized (RECORDERS) {
+			//Threads that come and go (a virtual thread per request) would keep their recorders forever without the sweep.
+			if (RECORDERS.size() >= sweepAt) {
+				retireFinished();
+				sweepAt = Math.max(64, RECORDERS.size() * 2);
+			}
+			RECORDERS.add(recorder);
+		}
+		return recorder;
+	}
+
+	/**
+	 * Class method to fold the recorders of finished threads into the retired sums.
+	 * PRECONDITION/REQUIRED:
+	 * 	The caller holds the lock of RECORDERS.
+	 */
+	private static void retireFinished(){
+		for (Iterator<Recorder> iterator = RECORDERS.iterator(); iterator.hasNext();) {
+			Recorder recorder = iterator.next();
+			Thread owner = recorder.owner.get();
+			if (owner == null || !owner.isAlive()) {
+				recorder.addTo(RETIRED_COUNTERS, RETIRED_PHASES);
+				iterator.remove();
+			}
+		}
+	}
+
+	private static Totals totals(){
+		Totals totals = new Totals();
+		synchronized (RECORDERS) {
+			retireFinished();
+			System.arraycopy(RETIRED_COUNTERS, 0, totals.counters, 0, COUNTERS);
+			for (int i = 0; i < PHASES; i++) {
+				System.arraycopy(RETIRED_PHASES[i], 0, totals.phases[i], 0, LatencyHistogram.BUCKETS);
+			}
+			for (Recorder recorder : RECORDERS) {
+				recorder.addTo(totals.counters, totals.phases);
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Counters and histograms of one thread. Only the owning thread writes, with lazySet, any thread may read.
+	 */
+	private static final class Recorder {
+		final WeakReference<Thread> owner;
+		final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+		final LatencyHistogram[] phases = new LatencyHistogram[PHASES];
+
+		Recorder(Thread owner) {
+			this.owner = new WeakReference<>(owner);
+			for (int i = 0; i < PHASES; i++) {
+				phases[i] = new LatencyHistogram();
+			}
+		}
+
+		void add(Counter counter, long amount){
+			int index = counter.ordinal();
+			counters.lazySet(index, counters.get(index) + amount);
+		}
+
+		void addTo(long[] counterTotals, long[][] phaseTotals){
+			for (int i = 0; i < COUNTERS; i++) {
+				counterTotals[i] += counters.get(i);
+			}
+			for (int i = 0; i < PHASES; i++) {
+				phases[i].addTo(phaseTotals[i]);
+			}
+		}
+	}
+
+	/**
+	 * Sums over all threads at one point in time.
+	 */
+	private static final class Totals {
+		final long[] counters = new long[COUNTERS];
+		final long[][] phases = new long[PHASES][LatencyHistogram.BUCKETS];
+
+		double bytesPerSecond(){
+			long nanos = counters[Counter.PARSE_NANOS.ordinal()];
+			return nanos == 0 ? 0 : counters[Counter.BYTES_READ.ordinal()] * 1e9 / nanos;
+		}
+	}
+
+	/**
+	 * JMX view of the totals.
+	 */
+	private static final class MXBean implements ParserMetricsMXBean {
+
+		@Override
+		public long getLinesRead() {
+			return getCount(Counter.LINES_READ);
+		}
+
+		@Override
+		public long getBytesRead() {
+			return getCount(Counter.BYTES_READ);
+		}
+
+		@Override
+		public long getMalformedLines() {
+			return getCount(Counter.MALFORMED_LINES);
+		}
+
+		@Override
+		public long getIllegalCategoryLines() {
+			return getCount(Counter.ILLEGAL_CATEGORY_LINES);
+		}
+
+		@Override
+		public long getDuplicateLines() {
+			return getCount(Counter.DUPLICATE_LINES);
+		}
+
+		@Override
+		public long getParses() {
+			return getCount(Counter.PARSES);
+		}
+
+		@Override
+		public double getBytesPerSecond() {
+			return totals().bytesPerSecond();
+		}
+
+		@Override
+		public Map<String, Long> getPhaseLatencies() {
+			Totals totals = totals();
+			Map<String, Long> latencies = new LinkedHashMap<>();
+			for (Phase phase : Phase.values()) {
+				long[] histogram = totals.phases[phase.ordinal()];
+				String name = phase.name().toLowerCase(Locale.ROOT);
+				latencies.put(name + ".samples", LatencyHistogram.count(histogram));
+				latencies.put(name + ".p50", LatencyHistogram.percentile(histogram, 0.5));
+				latencies.put(name + ".p90", LatencyHistogram.percentile(histogram, 0.9));
+				latencies.put(name + ".p99", LatencyHistogram.percentile(histogram, 0.99));
+				latencies.put(name + ".max", LatencyHistogram.percentile(histogram, 1));
+			}
+			return latencies;
+		}
+
+		@Override
+		public String getSummaryJson() {
+			return toJson();
+		}
+	}
+
+}
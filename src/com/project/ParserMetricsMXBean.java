@@ -0,0 +1,40 @@
+package com.project;
+
+import java.util.Map;
+
+/**
+ * @author Fabian
+ * ParserMetricsMXBean interface is the JMX view of ParserMetrics, registered as "com.project:type=ParserMetrics" when metrics are
+ * enabled. All values are totals since the start of the JVM.
+ *
+ */
+public interface ParserMetricsMXBean {
+
+	/** Lines handed to the exact parse paths. */
+	long getLinesRead();
+
+	/** Bytes read from input files and streams. */
+	long getBytesRead();
+
+	/** Lines without a separator or without a sub-category. */
+	long getMalformedLines();
+
+	/** Lines whose category is not legal. */
+	long getIllegalCategoryLines();
+
+	/** Lines dropped because the same line was counted before. */
+	long getDuplicateLines();
+
+	/** Completed parses. */
+	long getParses();
+
+	/** Bytes read per second of parse time. */
+	double getBytesPerSecond();
+
+	/** Sample count and p50, p90, p99 and max in nanoseconds per phase, keyed like "read.p99". */
+	Map<String, Long> getPhaseLatencies();
+
+	/** The summary written at exit, see ParserMetrics.toJson(). */
+	String getSummaryJson();
+
+}
@@ -0,0 +1,460 @@
+package com.project;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * @author Fabian
+ * ParserSnapshot class stores ParserValues in a compact binary file, so a restarted process or a downstream job can continue from the
+ * last result instead of parsing the whole input again.
+ *
+ * The file is written with a FileChannel and loaded through memory mappings. The distinct lines are stored in the arena format of
+ * ByteArenaDedupIndex (varint length and line bytes) together with their hashes, so loading maps the lines as arena pages and
+ * rebuilds the hash table from the stored hashes, no line is decoded or hashed again.
+ *
+ * Layout, all numbers big endian:
+ * 1. int magic "CSPS", int version
+ * 2. long input offset, double relative standard error, int input head length and the input head bytes
+ * 3. int category count, then per category: int length, UTF-8 name, int count, in the order of first occurrence
+ * 4. the distinct lines, then one int hash per line
+ * 5. int line count, long size of the lines in bytes, int CRC32 of all bytes before it
+ *
+ * A snapshot with a different magic or version, a wrong checksum or an inconsistent layout is rejected with an
+ * InvalidSnapshotException.
+ *
+ */
+public final class ParserSnapshot {
+
+	/** "CSPS" */
+	private static final int MAGIC = 0x43535053;
+	/** Version of the layout, has to change with the layout and with the line hash of ByteArenaDedupIndex. */
+	private static final int VERSION = 1;
+	private static final int TRAILER_LENGTH = 4 + 8 + 4;
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+	private static final long MAP_WINDOW = 1L << 30;
+
+	private final ParserValues values;
+	private final LinkedHashMap<String, Integer> categoryCount;
+	private final ByteArenaDedupIndex dedupIndex;
+	private final long inputOffset;
+	private final byte[] inputHead;
+
+	private ParserSnapshot(LinkedHashMap<String, Integer> categoryCount, ByteArenaDedupIndex dedupIndex, double relativeStandardError,
+			long inputOffset, byte[] inputHead) {
+		this.categoryCount = categoryCount;
+		this.dedupIndex = dedupIndex;
+		this.inputOffset = inputOffset;
+		this.inputHead = inputHead;
+		this.values = new ParserValues(new LinkedHashMap<>(categoryCount), dedupIndex.orderedView(), relativeStandardError);
+	}
+
+	/**
+	 * Getter method to retrieve the values stored in the snapshot
+	 * @return			ParserValues equal to the values that were written, the ordered list is a view over the mapped lines
+	 */
+	public ParserValues getValues() {
+		return values;
+	}
+
+	/**
+	 * Getter method to retrieve the input offset stored in the snapshot
+	 * @return			Offset of the first input byte that was not parsed, 0 if the snapshot was not written by an incremental parse
+	 */
+	public long getInputOffset() {
+		return inputOffset;
+	}
+
+	/**
+	 * Getter method to retrieve the first bytes of the input stored to recognise a replaced input file
+	 */
+	byte[] getInputHead() {
+		return inputHead;
+	}
+
+	/**
+	 * Instance method to create a processor that continues counting from the snapshot. The processor adds to the mapped lines, so
+	 * the ordered list of getValues() grows with it.
+	 * PRECONDITION/REQUIRED:
+	 * 	The snapshot should be loaded once per processor.
+	 *
+	 * @param matcher					Matcher of the legal categories of the parser that continues
+	 * @return							Processor with the counts and distinct lines of the snapshot
+	 * @throws InvalidSnapshotException	If the snapshot holds approximate counts or was written for other legal categories
+	 */
+	CategoryLineProcessor restoreProcessor(CategoryMatcher matcher) throws InvalidSnapshotException{
+		if (values.isApproximate()) {
+			throw new InvalidSnapshotException("Snapshot holds approximate counts without the distinct lines");
+		}
+		if (categoryCount.size() != matcher.size()) {
+			throw new InvalidSnapshotException("Snapshot was written for other legal categories");
+		}
+		int[] ids = new int[categoryCount.size()];
+		int i = 0;
+		for (String category : categoryCount.keySet()) {
+			ids[i] = matcher.match(category, 0, category.length());
+			if (ids[i++] < 0) {
+				throw new InvalidSnapshotException("Snapshot was written for other legal categories");
+			}
+		}
+		CategoryLineProcessor processor = new CategoryLineProcessor(matcher, dedupIndex);
+		i = 0;
+		for (Integer count : categoryCount.values()) {
+			processor.restoreCount(ids[i++], count);
+		}
+		return processor;
+	}
+
+	/**
+	 * Class method to write the values of a complete parse to a snapshot file.
+	 * PRECONDITION/REQUIRED:
+	 *
+	 * @param values					Values to store
+	 * @param snapshotFile				Target file, replaced as a whole once the new snapshot is complete
+	 * @throws IOException
+	 */
+	public static void write(ParserValues values, File snapshotFile) throws IOException{
+		write(values, 0, new byte[0], snapshotFile);
+	}
+
+	/**
+	 * Class method to write values together with the position reached in the input file.
+	 * The snapshot is written to a new temporary file next to the target and moved over it, so a crash never leaves a partly written
+	 * snapshot, a mapped older snapshot stays valid, and writers of the same target at the same time do not share a temporary file;
+	 * the last move wins. The temporary file is deleted if the snapshot cannot be completed.
+	 *
+	 * @param values					Values to store
+	 * @param inputOffset				Offset of the first input byte that was not parsed
+	 * @param inputHead					First bytes of the input file
+	 * @param snapshotFile				Target file
+	 * @throws IOException
+	 */
+	static void write(ParserValues values, long inputOffset, byte[] inputHead, File snapshotFile) throws IOException{
+		Path temporary = Files.createTempFile(snapshotFile.getAbsoluteFile().getParentFile().toPath(), snapshotFile.getName() + ".",
+				".tmp");
+		boolean moved = false;
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				SnapshotWriter writer = new SnapshotWriter(channel);
+				writer.putInt(MAGIC);
+				writer.putInt(VERSION);
+				writer.putLong(inputOffset);
+				writer.putDouble(values.getRelativeStandardError());
+				writer.putInt(inputHead.length);
+				writer.put(inputHead);
+
+				LinkedHashMap<String, Integer> categoryCount = values.getUnsortedCategoryCount();
+				writer.putInt(categoryCount.size());
+				for (Map.Entry<String, Integer> entry : categoryCount.entrySet()) {
+					byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+					writer.putInt(name.length);
+					writer.put(name);
+					writer.putInt(entry.getValue());
+				}
+
+				LineWriter lines = new LineWriter(writer);
+				if (values.getCategoryOrderedList() instanceof ByteLineSource) {
+					//Lines kept as bytes are copied as they are, without decoding and encoding them again.
+					try {
+						((ByteLineSource) values.getCategoryOrderedList()).forEachLine(lines);
+					} catch (LineWriter.WriteIOException e) {
+						throw e.getCause();
+					}
+				} else {
+					for (String line : values.getCategoryOrderedList()) {
+						byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+						lines.write(ByteBuffer.wrap(bytes), 0, bytes.length);
+					}
+				}
+				for (int i = 0; i < lines.lineCount; i++) {
+					writer.putInt(lines.hashes[i]);
+				}
+				writer.putInt(lines.lineCount);
+				writer.putLong(lines.linesBytes);
+				writer.finish();
+				channel.force(true);
+			}
+			Files.move(temporary, snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temporary);
+			}
+		}
+	}
+
+	/**
+	 * Visitor that writes the distinct lines in arena format and collects their hashes.
+	 */
+	private static final class LineWriter implements LineVisitor {
+		private final SnapshotWriter writer;
+		private int[] hashes = new int[1024];
+		private int lineCount;
+		private long linesBytes;
+
+		LineWriter(SnapshotWriter writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void visitLine(ByteBuffer buffer, int start, int end) {
+			try {
+				write(buffer, start, end);
+			} catch (IOException e) {
+				throw new WriteIOException(e);
+			}
+		}
+
+		void write(ByteBuffer buffer, int start, int end) throws IOException {
+			if (lineCount == hashes.length) {
+				hashes = Arrays.copyOf(hashes, lineCount * 2);
+			}
+			hashes[lineCount++] = ByteArenaDedupIndex.hash(buffer, start, end);
+			linesBytes += writer.putVarint(end - start) + end - start;
+			writer.put(buffer, start, end);
+		}
+
+		/**
+		 * Unchecked wrapper to carry an IOException out of visitLine().
+		 */
+		private static final class WriteIOException extends RuntimeException {
+
+			private static final long serialVersionUID = 1L;
+
+			WriteIOException(IOException cause) {
+				super(cause);
+			}
+
+			@Override
+			public synchronized IOException getCause() {
+				return (IOException) super.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Class method to load a snapshot file.
+	 * PRECONDITION/REQUIRED:
+	 * 	The snapshot file should not be changed in place while the values are used, write() always replaces the file.
+	 *
+	 * @param snapshotFile				Snapshot written by write()
+	 * @return							The loaded snapshot
+	 * @throws FileNotFoundException
+	 * @throws InvalidSnapshotException	If the file is not a snapshot of this version, is corrupt or truncated
+	 * @throws IOException
+	 */
+	public static ParserSnapshot load(File snapshotFile) throws FileNotFoundException, IOException{
+		try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "r"); FileChannel channel = file.getChannel()) {
+			long size = channel.size();
+			if (size < 8 + TRAILER_LENGTH) {
+				throw new InvalidSnapshotException("Snapshot is truncated");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAP_WINDOW));
+			if (header.getInt() != MAGIC) {
+				throw new InvalidSnapshotException("Not a snapshot file");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new InvalidSnapshotException("Snapshot version " + version + " is not supported, expected " + VERSION);
+			}
+			verifyChecksum(channel, size);
+			try {
+				return read(channel, size, header);
+			} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+				throw new InvalidSnapshotException("Snapshot layout is inconsistent");
+			}
+		}
+	}
+
+	private static ParserSnapshot read(FileChannel channel, long size, ByteBuffer header) throws IOException{
+		long inputOffset = header.getLong();
+		double relativeStandardError = header.getDouble();
+		byte[] inputHead = new byte[header.getInt()];
+		header.get(inputHead);
+		int categories = header.getInt();
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		for (int i = 0; i < categories; i++) {
+			byte[] name = new byte[header.getInt()];
+			header.get(name);
+			categoryCount.put(new String(name, StandardCharsets.UTF_8), header.getInt());
+		}
+
+		ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_LENGTH, TRAILER_LENGTH);
+		int lineCount = trailer.getInt();
+		long linesBytes = trailer.getLong();
+		long linesStart = header.position();
+		long hashesStart = linesStart + linesBytes;
+		if (lineCount < 0 || linesBytes < 0 || hashesStart + 4L * lineCount + TRAILER_LENGTH != size) {
+			throw new InvalidSnapshotException("Snapshot layout is inconsistent");
+		}
+		int[] hashes = new int[lineCount];
+		if (lineCount > 0) {
+			channel.map(FileChannel.MapMode.READ_ONLY, hashesStart, 4L * lineCount).asIntBuffer().get(hashes);
+		}
+
+		//Lines are adopted as arena pages of up to MAP_WINDOW bytes, every page ends after a complete line.
+		ByteArenaDedupIndex dedupIndex = new ByteArenaDedupIndex(false);
+		long position = linesStart;
+		int loaded = 0;
+		while (loaded < lineCount) {
+			MappedByteBuffer page = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, hashesStart - position));
+			int adopted = dedupIndex.adoptPage(page, hashes, loaded, lineCount - loaded);
+			if (adopted == 0) {
+				throw new InvalidSnapshotException("Snapshot layout is inconsistent");
+			}
+			loaded += adopted;
+			position += page.limit();
+		}
+		if (position != hashesStart) {
+			throw new InvalidSnapshotException("Snapshot layout is inconsistent");
+		}
+		return new ParserSnapshot(categoryCount, dedupIndex, relativeStandardError, inputOffset, inputHead);
+	}
+
+	/**
+	 * Class method to compare the CRC32 of all bytes before the checksum with the stored checksum.
+	 */
+	private static void verifyChecksum(FileChannel channel, long size) throws IOException{
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[IO_BUFFER_SIZE];
+		long end = size - 4;
+		for (long position = 0; position < end; position += MAP_WINDOW) {
+			ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, end - position));
+			while (window.hasRemaining()) {
+				int length = Math.min(chunk.length, window.remaining());
+				window.get(chunk, 0, length);
+				crc.update(chunk, 0, length);
+			}
+		}
+		int stored = channel.map(FileChannel.MapMode.READ_ONLY, end, 4).getInt();
+		if (stored != (int) crc.getValue()) {
+			throw new InvalidSnapshotException("Snapshot checksum does not match");
+		}
+	}
+
+	/**
+	 * Buffered writer to a channel that keeps the CRC32 of everything written.
+	 */
+	private static final class SnapshotWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+		private final CRC32 crc = new CRC32();
+
+		SnapshotWriter(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		void putInt(int value) throws IOException {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			ensure(8);
+			buffer.putLong(value);
+		}
+
+		void putDouble(double value) throws IOException {
+			ensure(8);
+			buffer.putDouble(value);
+		}
+
+		/**
+		 * @return				Number of bytes written
+		 */
+		int putVarint(int value) throws IOException {
+			ensure(5);
+			int start = buffer.position();
+			while ((value & ~0x7f) != 0) {
+				buffer.put((byte) ((value & 0x7f) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+			return buffer.position() - start;
+		}
+
+		void put(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (!buffer.hasRemaining()) {
+					flush();
+				}
+				int length = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		/**
+		 * Instance method to write the bytes [start, end) of a buffer, its position and limit are not changed.
+		 */
+		void put(ByteBuffer bytes, int start, int end) throws IOException {
+			int offset = start;
+			while (offset < end) {
+				if (!buffer.hasRemaining()) {
+					flush();
+				}
+				int length = Math.min(buffer.remaining(), end - offset);
+				ByteBuffer slice = bytes.duplicate();
+				slice.limit(offset + length).position(offset);
+				buffer.put(slice);
+				offset += length;
+			}
+		}
+
+		/**
+		 * Instance method to write the checksum and the remaining buffered bytes.
+		 */
+		void finish() throws IOException {
+			flush();
+			buffer.putInt((int) crc.getValue());
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+
+		private void ensure(int length) throws IOException {
+			if (buffer.remaining() < length) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			crc.update(buffer.array(), 0, buffer.position());
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Thrown for a snapshot file that cannot be used: unknown format or version, wrong checksum, inconsistent layout, or other legal
+	 * categories than the parser that restores it.
+	 */
+	public static class InvalidSnapshotException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public InvalidSnapshotException(String message) {
+			super(message);
+		}
+	}
+
+}
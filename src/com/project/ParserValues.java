@@ -1,46 +1,198 @@
 package com.project;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 /**
  * @author Fabian
  * The result of the parsed values will be saved in the objects of ParserValues class.
- * 
+ * The counts are kept in the order they were given and only sorted by getCategoryCount() when that is first called, so a top-K
+ * or threshold query over thousands of categories does not pay for a full sort.
  * 
  */
-public class ParserValues {
+public class ParserValues implements Closeable {
 	
 	private LinkedHashMap<String, Integer> categoryCount;
-	private LinkedHashSet<String> categoryOrderedList;
+	private LinkedHashMap<String, Integer> sortedCategoryCount;
+	private Set<String> categoryOrderedList;
+	private SubCategoryIndex subCategoryIndex;
+	private double relativeStandardError;
+	private ValidationReport validationReport = ValidationReport.NONE;
+	private long dictionaryVersion;
+	private List<HeavyHitter> heavyHitters = Collections.emptyList();
+	private long heavyHitterLines;
 	
 	/**
 	 * Constructor to to create ParserResult object
 	 * PRECONDITION/REQUIRED: 
-	 *  @param categoryCount 			LinkedHashMap of Category(Key) and Count(value)
-	 *  @param categoryOrderedList 		LinkedHashSet of Category and sub-Category 
+	 *  @param categoryCount 			LinkedHashMap of Category(Key) and Count(value), ties of the count keep this order
+	 *  @param categoryOrderedList 		Set of Category and sub-Category in order of first occurrence, a LinkedHashSet or a view
+	 *  								over a DedupIndex
+	 */
+	public ParserValues(LinkedHashMap<String, Integer> categoryCount, Set<String> categoryOrderedList) {
+		this(categoryCount, categoryOrderedList, 0);
+	}
+	
+	/**
+	 * Constructor to create ParserValues object for approximate counts
+	 * PRECONDITION/REQUIRED: 
+	 *  @param categoryCount 			LinkedHashMap of Category(Key) and estimated Count(value)
+	 *  @param categoryOrderedList 		Set of Category and sub-Category, empty if the pairs were not kept
+	 *  @param relativeStandardError 	Relative standard error of every count, 0 for exact counts
 	 */
-	public ParserValues(LinkedHashMap<String, Integer> categoryCount, LinkedHashSet<String> categoryOrderedList) {
+	public ParserValues(LinkedHashMap<String, Integer> categoryCount, Set<String> categoryOrderedList, double relativeStandardError) {
 		this.categoryCount = categoryCount;
 		this.categoryOrderedList = categoryOrderedList;
+		this.relativeStandardError = relativeStandardError;
 	}
 	
 	/**
 	 * Getter method to retrieve the LinkedHashMap
-	 * @return			LinkedHashMap object "categoryCount" consisting of the category and its count
+	 * @return			LinkedHashMap object "categoryCount" consisting of the category and its count, sorted by count in descending
+	 * 					order with ties in the order of the constructor argument. The sort runs on the first call only.
 	 * */
-	public LinkedHashMap<String, Integer> getCategoryCount() {
+	public synchronized LinkedHashMap<String, Integer> getCategoryCount() {
+		if (sortedCategoryCount == null) {
+			sortedCategoryCount = CategorySetParser.sortByValues(categoryCount);
+		}
+		return sortedCategoryCount;
+	}
+	
+	/**
+	 * Getter method to retrieve the counts in the order they were given to the constructor, before the sort.
+	 */
+	LinkedHashMap<String, Integer> getUnsortedCategoryCount() {
 		return categoryCount;
 	}
 	
 	/**
-	 * Getter method to retrieve the LinkedHashSet
-	 * @return			LinkedHashSet object "categoryOrderedList" consisting of the category and its sub-category
+	 * Instance method to return the K categories with the highest counts without sorting all categories. A heap of K entries is
+	 * kept while the counts are scanned once.
+	 * PRECONDITION/REQUIRED:
+	 * @param k				Number of categories to return
+	 * @return 				LinkedHashMap of the K highest counts, in the same order as the first K entries of getCategoryCount()
+	 *  
+	 */
+	public LinkedHashMap<String, Integer> getTopCategories(int k){
+		if (k <= 0) {
+			return new LinkedHashMap<>();
+		}
+		PriorityQueue<RankedCategory> heap = new PriorityQueue<>(Math.min(k, categoryCount.size()) + 1, RankedCategory.LOWEST_FIRST);
+		int order = 0;
+		for (Map.Entry<String, Integer> entry : categoryCount.entrySet()) {
+			//A later category with the same count ranks lower, so it only replaces the heap head with a strictly higher count.
+			if (heap.size() < k) {
+				heap.add(new RankedCategory(entry.getKey(), entry.getValue(), order));
+			} else if (entry.getValue() > heap.peek().count) {
+				heap.poll();
+				heap.add(new RankedCategory(entry.getKey(), entry.getValue(), order));
+			}
+			order++;
+		}
+		RankedCategory[] ranked = new RankedCategory[heap.size()];
+		for (int i = ranked.length - 1; i >= 0; i--) {
+			ranked[i] = heap.poll();
+		}
+		LinkedHashMap<String, Integer> top = new LinkedHashMap<>();
+		for (RankedCategory category : ranked) {
+			top.put(category.category, category.count);
+		}
+		return top;
+	}
+	
+	/**
+	 * Instance method to return the categories with a count of at least the threshold. Only the matching categories are sorted.
+	 * PRECONDITION/REQUIRED:
+	 * @param threshold		Lowest count to return
+	 * @return 				LinkedHashMap of the matching categories, in the same order as in getCategoryCount()
+	 *  
+	 */
+	public LinkedHashMap<String, Integer> getCategoriesWithCountAtLeast(int threshold){
+		LinkedHashMap<String, Integer> matching = new LinkedHashMap<>();
+		for (Map.Entry<String, Integer> entry : categoryCount.entrySet()) {
+			if (entry.getValue() >= threshold) {
+				matching.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return CategorySetParser.sortByValues(matching);
+	}
+	
+	/**
+	 * Getter method to retrieve the ordered Set
+	 * @return			Set object "categoryOrderedList" consisting of the category and its sub-category, iterates in order of
+	 * 					first occurrence
 	 * */
-	public LinkedHashSet<String> getCategoryOrderedList() {
+	public Set<String> getCategoryOrderedList() {
 		return categoryOrderedList;
 	}
 	
+	/**
+	 * Instance method to release what the values keep outside the heap: the spill file of a CategorySetParser.parseExternal()
+	 * result that did not fit in its memory budget is deleted, getCategoryOrderedList() cannot be read afterwards. Long running
+	 * processes should close such values once they are done with them; for all other values this does nothing.
+	 */
+	@Override
+	public void close() {
+		if (categoryOrderedList instanceof Closeable) {
+			try {
+				((Closeable) categoryOrderedList).close();
+			} catch (IOException e) {
+				//The spill file is also deleted when the JVM exits.
+				System.err.println("WARNING: " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Getter method to retrieve the sub-categories grouped by category, for listing the sub-categories of one category and for
+	 * prefix and range lookups. The index is built from the category pairs on the first call only.
+	 * @return			SubCategoryIndex with every category of the counts, empty for values without category pairs
+	 * */
+	public synchronized SubCategoryIndex getSubCategoryIndex() {
+		if (subCategoryIndex == null) {
+			subCategoryIndex = SubCategoryIndex.build(categoryCount.keySet(), categoryOrderedList);
+		}
+		return subCategoryIndex;
+	}
+	
+	/**
+	 * Instance method to return the most repeated category and sub-category lines, duplicates included. The lines are only
+	 * counted after CategorySetParser.setHeavyHitterCapacity(). A listed line occurred between HeavyHitter.getMinimumCount() and
+	 * HeavyHitter.getCount() times.
+	 * PRECONDITION/REQUIRED:
+	 * @param n				Number of lines to return
+	 * @return 				Read only list of at most n lines, highest count first, empty if the lines were not counted
+	 *  
+	 */
+	public List<HeavyHitter> getHeavyHitters(int n){
+		return heavyHitters.subList(0, Math.max(0, Math.min(n, heavyHitters.size())));
+	}
+	
+	/**
+	 * Getter method to retrieve the number of lines the heavy hitters were counted over
+	 * @return			Number of lines with a legal category, duplicates included, 0 if the lines were not counted
+	 */
+	public long getHeavyHitterLines() {
+		return heavyHitterLines;
+	}
+	
+	/**
+	 * Setter method to attach the most repeated lines of the parse that created these values
+	 * @param heavyHitters 			Counted lines, highest count first
+	 * @param lines					Number of lines they were counted over
+	 */
+	void setHeavyHitters(List<HeavyHitter> heavyHitters, long lines) {
+		this.heavyHitters = Collections.unmodifiableList(heavyHitters);
+		this.heavyHitterLines = lines;
+	}
+	
 	/**
 	 * Instance method to return the count of a certain category, mainly used for testing purpose
 	 * PRECONDITION/REQUIRED:
@@ -52,4 +204,88 @@ public class ParserValues {
 		return categoryCount.get(category);
 	}
 		
+	/**
+	 * Getter method to retrieve the line classes of the parse and a sample of the offending lines
+	 * @return			ValidationReport of the parse, ValidationReport.NONE if the lines were not validated
+	 */
+	public ValidationReport getValidationReport() {
+		return validationReport;
+	}
+	
+	/**
+	 * Setter method to attach the validation report of the parse that created these values
+	 */
+	void setValidationReport(ValidationReport validationReport) {
+		this.validationReport = validationReport;
+	}
+	
+	/**
+	 * Getter method to retrieve the version of the CategoryDictionary the values were parsed with
+	 * @return			CategoryDictionary.getVersion(), 0 for a legal category list that was not loaded from a file
+	 */
+	public long getDictionaryVersion() {
+		return dictionaryVersion;
+	}
+	
+	/**
+	 * Setter method to record the dictionary version of the parse that created these values
+	 */
+	void setDictionaryVersion(long dictionaryVersion) {
+		this.dictionaryVersion = dictionaryVersion;
+	}
+		
+	/**
+	 * Instance method to check if the counts are estimates
+	 * @return 				true if the values come from an approximate parse
+	 */
+	public boolean isApproximate(){
+		return relativeStandardError > 0;
+	}
+	
+	/**
+	 * Getter method to retrieve the relative standard error of the counts
+	 * @return 				Relative standard error, 0 for exact counts
+	 */
+	public double getRelativeStandardError() {
+		return relativeStandardError;
+	}
+	
+	/**
+	 * Instance method to return the error bound of the count of a certain category. The true count lies within
+	 * count +/- bound with about 95% confidence (two standard errors).
+	 * PRECONDITION/REQUIRED:
+	 * @param category
+	 * return 				error bound for that category, 0 for exact counts
+	 *  
+	 */
+	public int getErrorBoundforCategory(String category){
+		return (int) Math.ceil(2 * relativeStandardError * categoryCount.get(category));
+	}
+		
+	/**
+	 * Category with its position in the constructor argument, to rank ties like the stable sort.
+	 */
+	private static final class RankedCategory {
+		static final Comparator<RankedCategory> LOWEST_FIRST = new Comparator<RankedCategory>() {
+			@Override
+			public int compare(RankedCategory o1, RankedCategory o2) {
+				if (o1.count != o2.count) {
+					return o1.count < o2.count ? -1 : 1;
+				}
+				//Of equal counts the later category ranks lower.
+				return o1.order > o2.order ? -1 : (o1.order == o2.order ? 0 : 1);
+			}
+		};
+		
+		final String category;
+		final int count;
+		final int order;
+		
+		RankedCategory(String category, int count, int order) {
+			this.category = category;
+			this.count = count;
+			this.order = order;
+		}
+	}
+	
 }
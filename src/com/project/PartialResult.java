@@ -0,0 +1,579 @@
+package com.project;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * @author Fabian
+ * PartialResult class is the result of one part of a corpus that can be merged with the results of the other parts, for example
+ * the shards parsed on several machines. Unlike the counts of ParserValues it keeps what is needed to count a line seen in two parts
+ * only once:
+ *
+ * 	exact			the sorted 64 bit ByteHash of the UTF-8 bytes of every distinct line, per category. The merged count is the
+ * 					number of distinct hashes, exact unless two distinct lines collide in 64 bits.
+ * 	sketch			one HyperLogLog sketch per category, a fixed 2^precision bytes however many lines the part has. The merged
+ * 					count is an estimate, see ParserValues.getRelativeStandardError().
+ *
+ * merge() is associative and commutative: the result only depends on the union of the lines of the parts, never on the order in
+ * which the parts are merged. mergeAll() combines any number of parts in one pass over their summaries, the input is not read again.
+ *
+ * Wire encoding, all numbers big endian, see writeTo():
+ * 1. int magic "CCPR", int version, byte precision (0 for exact)
+ * 2. int category count, then per category in name order: int length, UTF-8 name, then
+ * 		exact: varint hash count, the first hash as a long, then byte k, varint byte length and the differences to the previous
+ * 		       hash Rice coded with parameter k: the difference >>> k in unary, then its low k bits. n random hashes take about
+ * 		       66 - log2(n) bits each instead of 64.
+ * 		sketch: the 2^precision registers
+ * 3. int CRC32 of all bytes before it
+ *
+ */
+public final class PartialResult {
+
+	/** "CCPR" */
+	private static final int MAGIC = 0x43435052;
+	/** Version of the encoding, has to change with the encoding and with the line hash. */
+	private static final int VERSION = 1;
+	private static final long[] NO_HASHES = new long[0];
+
+	//Exactly one of them is set, both are sorted by category name so equal partials encode to equal bytes.
+	private final TreeMap<String, long[]> hashes;
+	private final TreeMap<String, HyperLogLog> sketches;
+	private final int precision;
+
+	private PartialResult(TreeMap<String, long[]> hashes, TreeMap<String, HyperLogLog> sketches, int precision) {
+		this.hashes = hashes;
+		this.sketches = sketches;
+		this.precision = precision;
+	}
+
+	/**
+	 * Class method to create the exact partial result of parsed values.
+	 * PRECONDITION/REQUIRED:
+	 * 	The values should keep their lines, the values of parseApproximate() do not.
+	 *
+	 * @param values					Result of a parse of the part
+	 * @return							Partial result with the hashes of the distinct lines
+	 */
+	public static PartialResult exact(ParserValues values){
+		return new PartialResult(new TreeMap<>(collectHashes(values)), null, 0);
+	}
+
+	/**
+	 * Class method to create the sketch partial result of parsed values.
+	 * PRECONDITION/REQUIRED:
+	 * 	The values should keep their lines, the values of parseApproximate() do not.
+	 *
+	 * @param values					Result of a parse of the part
+	 * @param precision					HyperLogLog precision, between HyperLogLog.MIN_PRECISION and MAX_PRECISION
+	 * @return							Partial result with one sketch per category
+	 */
+	public static PartialResult sketch(ParserValues values, int precision){
+		TreeMap<String, HyperLogLog> sketches = new TreeMap<>();
+		for (Map.Entry<String, long[]> entry : collectHashes(values).entrySet()) {
+			HyperLogLog sketch = new HyperLogLog(precision);
+			for (long hash : entry.getValue()) {
+				sketch.offer(hash);
+			}
+			sketches.put(entry.getKey(), sketch);
+		}
+		return new PartialResult(null, sketches, precision);
+	}
+
+	/**
+	 * Instance method to merge this partial result with another one, neither of them is changed.
+	 * PRECONDITION/REQUIRED:
+	 * 	Both should be exact, or sketches with the same precision.
+	 *
+	 * @param other						Partial result of another part
+	 * @return							Partial result of both parts
+	 */
+	public PartialResult merge(PartialResult other){
+		return mergeAll(Arrays.asList(this, other));
+	}
+
+	/**
+	 * Class method to merge any number of partial results in one pass: the hashes of a category are gathered from every part and
+	 * sorted once, the sketches of a category are merged register by register.
+	 * PRECONDITION/REQUIRED:
+	 * 	All should be exact, or sketches with the same precision, and there should be at least one.
+	 *
+	 * @param parts						Partial results of the parts
+	 * @return							Partial result of all parts
+	 */
+	public static PartialResult mergeAll(Collection<PartialResult> parts){
+		if (parts.isEmpty()) {
+			throw new IllegalArgumentException("No partial results to merge");
+		}
+		int precision = parts.iterator().next().precision;
+		for (PartialResult part : parts) {
+			if (part.precision != precision) {
+				throw new IllegalArgumentException("Cannot merge partial results with precision " + precision + " and " + part.precision
+						+ " (0 is exact)");
+			}
+		}
+
+		if (precision == 0) {
+			TreeMap<String, List<long[]>> gathered = new TreeMap<>();
+			for (PartialResult part : parts) {
+				for (Map.Entry<String, long[]> entry : part.hashes.entrySet()) {
+					List<long[]> arrays = gathered.get(entry.getKey());
+					if (arrays == null) {
+						arrays = new ArrayList<>();
+						gathered.put(entry.getKey(), arrays);
+					}
+					arrays.add(entry.getValue());
+				}
+			}
+			TreeMap<String, long[]> hashes = new TreeMap<>();
+			for (Map.Entry<String, List<long[]>> entry : gathered.entrySet()) {
+				hashes.put(entry.getKey(), union(entry.getValue()));
+			}
+			return new PartialResult(hashes, null, 0);
+		}
+
+		TreeMap<String, HyperLogLog> sketches = new TreeMap<>();
+		for (PartialResult part : parts) {
+			for (Map.Entry<String, HyperLogLog> entry : part.sketches.entrySet()) {
+				HyperLogLog sketch = sketches.get(entry.getKey());
+				if (sketch == null) {
+					sketch = new HyperLogLog(precision);
+					sketches.put(entry.getKey(), sketch);
+				}
+				sketch.merge(entry.getValue());
+			}
+		}
+		return new PartialResult(null, sketches, precision);
+	}
+
+	/**
+	 * Instance method to return the count of a category.
+	 * @param category					Category
+	 * @return							Number of distinct lines of the category, an estimate for a sketch, 0 for an unknown category
+	 */
+	public int getCount(String category){
+		if (precision == 0) {
+			long[] categoryHashes = hashes.get(category);
+			return categoryHashes == null ? 0 : categoryHashes.length;
+		}
+		HyperLogLog sketch = sketches.get(category);
+		return sketch == null ? 0 : (int) Math.min(Integer.MAX_VALUE, sketch.estimate());
+	}
+
+	/**
+	 * Getter method to retrieve the categories of all merged parts, in name order
+	 */
+	public Set<String> getCategories() {
+		return Collections.unmodifiableSet(precision == 0 ? hashes.keySet() : sketches.keySet());
+	}
+
+	/**
+	 * Instance method to check if the counts are exact
+	 * @return 				true if the partial result keeps hashes, false if it keeps sketches
+	 */
+	public boolean isExact(){
+		return precision == 0;
+	}
+
+	/**
+	 * Getter method to retrieve the HyperLogLog precision
+	 * @return			Precision of the sketches, 0 for an exact partial result
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Instance method to return the counts as ParserValues, like parseApproximate() without the category pairs.
+	 * @return			ParserValues with the count of every category, ties in name order, and an empty category pair list
+	 */
+	public ParserValues toParserValues(){
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		for (String category : getCategories()) {
+			categoryCount.put(category, getCount(category));
+		}
+		double relativeStandardError = precision == 0 ? 0 : HyperLogLog.relativeStandardError(precision);
+		return new ParserValues(categoryCount, Collections.<String>emptySet(), relativeStandardError);
+	}
+
+	/**
+	 * Instance method to write the wire encoding, the stream is not closed.
+	 * @param out						Stream to write to
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException{
+		CRC32 crc = new CRC32();
+		DataOutputStream data = new DataOutputStream(new CheckedOutputStream(out, crc));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeByte(precision);
+		Set<String> categories = getCategories();
+		data.writeInt(categories.size());
+		for (String category : categories) {
+			byte[] name = category.getBytes(StandardCharsets.UTF_8);
+			data.writeInt(name.length);
+			data.write(name);
+			if (precision == 0) {
+				long[] categoryHashes = hashes.get(category);
+				writeVarint(data, categoryHashes.length);
+				if (categoryHashes.length > 0) {
+					data.writeLong(categoryHashes[0]);
+				}
+				if (categoryHashes.length > 1) {
+					int k = riceParameter(categoryHashes);
+					byte[] deltas = encodeDeltas(categoryHashes, k);
+					data.writeByte(k);
+					writeVarint(data, deltas.length);
+					data.write(deltas);
+				}
+			} else {
+				data.write(sketches.get(category).getRegisters());
+			}
+		}
+		data.flush();
+		new DataOutputStream(out).writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * Instance method to return the wire encoding.
+	 */
+	public byte[] toBytes(){
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			writeTo(bytes);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Class method to read a partial result written by writeTo(), the stream is not closed.
+	 * PRECONDITION/REQUIRED:
+	 * 	The stream should be positioned at the start of the encoding.
+	 *
+	 * @param in						Stream to read from
+	 * @return							The partial result
+	 * @throws IOException				InvalidPartialResultException if the bytes are not a partial result of this version
+	 */
+	public static PartialResult readFrom(InputStream in) throws IOException{
+		CRC32 crc = new CRC32();
+		DataInputStream data = new DataInputStream(new CheckedInputStream(in, crc));
+		try {
+			if (data.readInt() != MAGIC) {
+				throw new InvalidPartialResultException("Not a partial result");
+			}
+			int version = data.readInt();
+			if (version != VERSION) {
+				throw new InvalidPartialResultException("Partial result version " + version + " is not supported");
+			}
+			int precision = data.readUnsignedByte();
+			if (precision != 0 && (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION)) {
+				throw new InvalidPartialResultException("Invalid precision " + precision);
+			}
+			int categoryCount = data.readInt();
+			if (categoryCount < 0) {
+				throw new InvalidPartialResultException("Invalid category count " + categoryCount);
+			}
+			TreeMap<String, long[]> hashes = precision == 0 ? new TreeMap<String, long[]>() : null;
+			TreeMap<String, HyperLogLog> sketches = precision == 0 ? null : new TreeMap<String, HyperLogLog>();
+			for (int c = 0; c < categoryCount; c++) {
+				int length = data.readInt();
+				if (length < 0 || length > 0xffff) {
+					throw new InvalidPartialResultException("Invalid category length " + length);
+				}
+				byte[] name = new byte[length];
+				data.readFully(name);
+				String category = new String(name, StandardCharsets.UTF_8);
+				if (precision == 0) {
+					long count = readVarint(data);
+					if (count < 0 || count > Integer.MAX_VALUE) {
+						throw new InvalidPartialResultException("Invalid hash count " + count);
+					}
+					long[] categoryHashes = NO_HASHES;
+					if (count == 1) {
+						categoryHashes = new long[] { data.readLong()};
+					} else if (count > 1) {
+						long first = data.readLong();
+						int k = data.readUnsignedByte();
+						long blockLength = readVarint(data);
+						//Every difference takes at least k + 1 bits, a damaged count must not allocate a huge array.
+						if (k > 63 || blockLength < 0 || blockLength > Integer.MAX_VALUE || (count - 1) * (k + 1) > blockLength * 8) {
+							throw new InvalidPartialResultException("Invalid hash block of " + category);
+						}
+						byte[] deltas = new byte[(int) blockLength];
+						data.readFully(deltas);
+						categoryHashes = new long[(int) count];
+						categoryHashes[0] = first;
+						decodeDeltas(deltas, k, categoryHashes);
+					}
+					hashes.put(category, categoryHashes);
+				} else {
+					byte[] registers = new byte[1 << precision];
+					data.readFully(registers);
+					sketches.put(category, new HyperLogLog(precision, registers));
+				}
+			}
+			int expected = (int) crc.getValue();
+			if (new DataInputStream(in).readInt() != expected) {
+				throw new InvalidPartialResultException("Partial result checksum does not match");
+			}
+			return new PartialResult(hashes, sketches, precision);
+		} catch (EOFException e) {
+			throw new InvalidPartialResultException("Partial result is truncated");
+		}
+	}
+
+	/**
+	 * Class method to read the wire encoding returned by toBytes().
+	 */
+	public static PartialResult fromBytes(byte[] bytes) throws IOException{
+		return readFrom(new ByteArrayInputStream(bytes));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof PartialResult)) {
+			return false;
+		}
+		return Arrays.equals(toBytes(), ((PartialResult) o).toBytes());
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toBytes());
+	}
+
+	@Override
+	public String toString() {
+		return "PartialResult[" + (precision == 0 ? "exact" : "sketch " + precision) + ", categories=" + getCategories().size() + "]";
+	}
+
+	/**
+	 * Class method to hash the distinct lines of the values per category, sorted and without duplicates. Categories without lines
+	 * are kept with no hashes, so the merged result still lists every legal category.
+	 */
+	private static Map<String, long[]> collectHashes(ParserValues values){
+		LinkedHashMap<String, Integer> slots = new LinkedHashMap<>();
+		List<long[]> arrays = new ArrayList<>();
+		for (Map.Entry<String, Integer> entry : values.getUnsortedCategoryCount().entrySet()) {
+			slots.put(entry.getKey(), arrays.size());
+			arrays.add(new long[Math.max(1, entry.getValue())]);
+		}
+		int[] filled = new int[arrays.size()];
+		for (String line : values.getCategoryOrderedList()) {
+			Integer slot = slots.get(line.substring(0, line.indexOf(' ')));
+			if (slot == null) {
+				throw new IllegalArgumentException("Line " + line + " has no count in the values");
+			}
+			long[] array = arrays.get(slot);
+			if (filled[slot] == array.length) {
+				array = Arrays.copyOf(array, array.length * 2);
+				arrays.set(slot, array);
+			}
+			array[filled[slot]++] = ByteHash.hash64(line.getBytes(StandardCharsets.UTF_8));
+		}
+		LinkedHashMap<String, long[]> collected = new LinkedHashMap<>();
+		for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+			int slot = entry.getValue();
+			collected.put(entry.getKey(), sortedDistinct(arrays.get(slot), filled[slot]));
+		}
+		return collected;
+	}
+
+	/**
+	 * Class method to sort the first length hashes and drop the duplicates.
+	 */
+	private static long[] sortedDistinct(long[] values, int length){
+		if (length == 0) {
+			return NO_HASHES;
+		}
+		Arrays.sort(values, 0, length);
+		int distinct = 1;
+		for (int i = 1; i < length; i++) {
+			if (values[i] != values[distinct - 1]) {
+				values[distinct++] = values[i];
+			}
+		}
+		return distinct == values.length ? values : Arrays.copyOf(values, distinct);
+	}
+
+	private static long[] union(List<long[]> arrays){
+		if (arrays.size() == 1) {
+			return arrays.get(0);
+		}
+		int length = 0;
+		for (long[] array : arrays) {
+			length += array.length;
+		}
+		long[] all = new long[length];
+		int position = 0;
+		for (long[] array : arrays) {
+			System.arraycopy(array, 0, all, position, array.length);
+			position += array.length;
+		}
+		return sortedDistinct(all, length);
+	}
+
+	/**
+	 * Class method to choose the Rice parameter of sorted hashes, about log2 of the mean difference.
+	 */
+	private static int riceParameter(long[] sorted){
+		//The span of signed sorted hashes can exceed Long.MAX_VALUE, halve it to divide unsigned.
+		long span = sorted[sorted.length - 1] - sorted[0];
+		long mean = ((span >>> 1) / (sorted.length - 1)) << 1;
+		return mean == 0 ? 0 : 63 - Long.numberOfLeadingZeros(mean);
+	}
+
+	/**
+	 * Class method to Rice code the differences between the sorted hashes. The hashes are sorted, so every difference is positive
+	 * when read unsigned.
+	 */
+	private static byte[] encodeDeltas(long[] sorted, int k){
+		BitOutput out = new BitOutput(sorted.length * (k + 2) / 8 + 8);
+		for (int i = 1; i < sorted.length; i++) {
+			long delta = sorted[i] - sorted[i - 1];
+			for (long quotient = delta >>> k; quotient > 0; quotient--) {
+				out.write(1, 1);
+			}
+			out.write(0, 1);
+			out.write(delta, k);
+		}
+		return out.toByteArray();
+	}
+
+	private static void decodeDeltas(byte[] deltas, int k, long[] sorted) throws InvalidPartialResultException{
+		BitInput in = new BitInput(deltas);
+		for (int i = 1; i < sorted.length; i++) {
+			long quotient = 0;
+			while (in.read(1) == 1) {
+				quotient++;
+			}
+			sorted[i] = sorted[i - 1] + ((quotient << k) | in.read(k));
+		}
+	}
+
+	private static void writeVarint(DataOutputStream out, long value) throws IOException{
+		while ((value & ~0x7fL) != 0) {
+			out.writeByte((int) (value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarint(DataInputStream in) throws IOException{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new InvalidPartialResultException("Invalid varint");
+	}
+
+	/**
+	 * Writes bits into bytes, the highest bit first.
+	 */
+	private static final class BitOutput {
+		private byte[] bytes;
+		private int length;
+		private int current;
+		private int bits;
+
+		BitOutput(int capacity) {
+			this.bytes = new byte[Math.max(16, capacity)];
+		}
+
+		/**
+		 * Instance method to write the low count bits of the value, count between 0 and 64.
+		 */
+		void write(long value, int count){
+			while (count > 0) {
+				int take = Math.min(count, 8 - bits);
+				current = (current << take) | (int) ((value >>> (count - take)) & ((1 << take) - 1));
+				bits += take;
+				count -= take;
+				if (bits == 8) {
+					if (length == bytes.length) {
+						bytes = Arrays.copyOf(bytes, length * 2);
+					}
+					bytes[length++] = (byte) current;
+					current = 0;
+					bits = 0;
+				}
+			}
+		}
+
+		byte[] toByteArray(){
+			if (bits > 0) {
+				write(0, 8 - bits);
+			}
+			return Arrays.copyOf(bytes, length);
+		}
+	}
+
+	/**
+	 * Reads the bits written by BitOutput.
+	 */
+	private static final class BitInput {
+		private final byte[] bytes;
+		private int position;
+		private int current;
+		private int bits;
+
+		BitInput(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		long read(int count) throws InvalidPartialResultException{
+			long value = 0;
+			while (count > 0) {
+				if (bits == 0) {
+					if (position == bytes.length) {
+						throw new InvalidPartialResultException("Hash block is truncated");
+					}
+					current = bytes[position++] & 0xff;
+					bits = 8;
+				}
+				int take = Math.min(count, bits);
+				value = (value << take) | ((current >>> (bits - take)) & ((1 << take) - 1));
+				bits -= take;
+				count -= take;
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * Thrown for bytes that are not a valid partial result of this version.
+	 */
+	public static class InvalidPartialResultException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public InvalidPartialResultException(String message) {
+			super(message);
+		}
+	}
+
+}
@@ -0,0 +1,273 @@
+package com.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @author Fabian
+ * PartitionedLineMerger class merges the LineSegments of the parts of an input, in input order, into one result with the same
+ * counts and first occurrence order as a sequential parse. The duplicate detection of the merge runs in parallel.
+ *
+ * 1. The distinct lines are split into partitions by the upper bits of their hash, every partition has its own ByteArenaDedupIndex.
+ * 2. append() hands every partition of a segment to its own task on the pool. A task adds the lines of its partition to the index of
+ *    the partition; lines of a segment are distinct, so only lines of earlier segments can make a line a duplicate and the first
+ *    occurrence is always kept.
+ * 3. The calling thread then walks the segment once in order: it appends the reference (partition, entry) of every kept line to the
+ *    merged order and counts its category. This is the only serial step per line and it reads two arrays, no line bytes.
+ *
+ * Segments of small parts are merged on the calling thread, the tasks would cost more than they save.
+ *
+ */
+final class PartitionedLineMerger {
+
+	/** Segments with fewer lines are merged on the calling thread. */
+	private static final int PARALLEL_THRESHOLD = 1024;
+	/** Largest number of partition bits, 256 partitions. */
+	private static final int MAX_PARTITION_BITS = 8;
+
+	private final ExecutorService pool;
+	private final int partitionBits;
+	private final ByteArenaDedupIndex[] partitions;
+	private final CategoryCounts categoryCounts;
+	private final LineValidator validator = new LineValidator(ValidationReport.SAMPLE_SIZE);
+	private HeavyHitterSketch heavyHitters;
+	//Partition in the upper and entry in the lower 32 bits of every distinct line, in order of first occurrence.
+	private long[] order = new long[1024];
+	private int size;
+
+	/**
+	 * Constructor to create PartitionedLineMerger object
+	 * PRECONDITION/REQUIRED:
+	 *  @param matcher 					Matcher the segments were parsed with
+	 *  @param pool 					Pool that runs the partition tasks, it may also run the tasks that build the segments
+	 *  @param parallelism 				Number of threads of the pool, there are about four partitions per thread
+	 *  @param offHeap 					true to keep the distinct lines in direct (off-heap) pages
+	 */
+	PartitionedLineMerger(CategoryMatcher matcher, ExecutorService pool, int parallelism, boolean offHeap) {
+		this.pool = pool;
+		this.categoryCounts = new CategoryCounts(matcher);
+		int bits = 1;
+		while (bits < MAX_PARTITION_BITS && (1 << bits) < parallelism * 4) {
+			bits++;
+		}
+		this.partitionBits = bits;
+		partitions = new ByteArenaDedupIndex[1 << bits];
+		for (int partition = 0; partition < partitions.length; partition++) {
+			partitions[partition] = new ByteArenaDedupIndex(offHeap);
+		}
+	}
+
+	/**
+	 * Getter method to retrieve the number of partition bits the segments have to be built with, see LineSegment.
+	 */
+	int getPartitionBits(){
+		return partitionBits;
+	}
+
+	/**
+	 * Instance method to append the segment of the part of the input that follows the parts appended so far. Lines of the segment
+	 * that were already seen are dropped and counted as duplicates in ParserMetrics, the validators are merged, and the heavy hitter
+	 * sketches with HeavyHitterSketch.merge().
+	 * PRECONDITION/REQUIRED:
+	 * 	The segment should have been built with getPartitionBits() and the matcher of this merger.
+	 *
+	 * @param segment				Segment of the following part, not used afterwards
+	 * @throws IOException			If the calling thread is interrupted while the partition tasks run
+	 */
+	void append(final LineSegment segment) throws IOException{
+		final long[] references = new long[segment.size()];
+		List<Callable<Void>> tasks = new ArrayList<>(partitions.length);
+		for (int partition = 0; partition < partitions.length; partition++) {
+			if (segment.linesOf(partition).length > 0) {
+				tasks.add(partitionTask(segment, partition, references));
+			}
+		}
+		if (segment.size() < PARALLEL_THRESHOLD) {
+			for (Callable<Void> task : tasks) {
+				call(task);
+			}
+		} else {
+			try {
+				for (Future<Void> done : pool.invokeAll(tasks)) {
+					await(done);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while merging", e);
+			}
+		}
+		if (size + references.length > order.length) {
+			order = Arrays.copyOf(order, Math.max(order.length * 2, size + references.length));
+		}
+		long duplicates = 0;
+		for (int line = 0; line < references.length; line++) {
+			if (references[line] < 0) {
+				duplicates++;
+			} else {
+				order[size++] = references[line];
+				categoryCounts.increment(segment.category(line));
+			}
+		}
+		ParserMetrics.addLineCounts(0, 0, 0, duplicates);
+		validator.absorb(segment.getValidator());
+		if (heavyHitters == null) {
+			heavyHitters = segment.getHeavyHitters();
+		} else if (segment.getHeavyHitters() != null) {
+			heavyHitters.merge(segment.getHeavyHitters());
+		}
+	}
+
+	/**
+	 * Instance method to create the task that adds the lines of one partition of a segment to the index of the partition.
+	 * @param references			Filled with the (partition, entry) reference of every new line and -1 for every duplicate
+	 */
+	private Callable<Void> partitionTask(final LineSegment segment, final int partition, final long[] references){
+		return new Callable<Void>() {
+			@Override
+			public Void call() {
+				ByteArenaDedupIndex index = partitions[partition];
+				for (int line : segment.linesOf(partition)) {
+					references[line] = segment.addTo(index, line) ? ((long) partition << 32) | (index.size() - 1) : -1;
+				}
+				return null;
+			}
+		};
+	}
+
+	private static void call(Callable<Void> task){
+		try {
+			task.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Class method to wait for a task of the pool, an IOException or unchecked failure of the task is thrown again as it is.
+	 * @return						Result of the task
+	 * @throws IOException			If the task failed with one, or the calling thread is interrupted
+	 */
+	static <T> T await(Future<T> task) throws IOException{
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Getter method to retrieve the counts merged so far, keyed by category in order of first occurrence.
+	 * @return			New LinkedHashMap, not sorted and without categories that did not occur
+	 */
+	LinkedHashMap<String, Integer> getCategoryCount(){
+		return categoryCounts.toMap();
+	}
+
+	/**
+	 * Getter method to retrieve the line classes and the sampled offending lines of all segments.
+	 */
+	ValidationReport getValidationReport(){
+		return validator.toReport();
+	}
+
+	/**
+	 * Getter method to retrieve the merged sketch of the most repeated lines.
+	 * @return			Sketch of the first segment with all later ones merged in, null if the lines are not counted
+	 */
+	HeavyHitterSketch getHeavyHitters(){
+		return heavyHitters;
+	}
+
+	/**
+	 * Getter method to retrieve the distinct lines merged so far.
+	 * @return			Read only view of the distinct lines in order of first occurrence
+	 */
+	Set<String> getCategoryOrderedList(){
+		return new MergedLineSet();
+	}
+
+	/**
+	 * Read only set over the partitions in merged order. Strings are only created while iterating, contains() looks in the partition
+	 * of the line only.
+	 */
+	private final class MergedLineSet extends AbstractSet<String> implements ByteLineSource {
+
+		@Override
+		public void forEachLine(LineVisitor visitor) {
+			for (int i = 0; i < size; i++) {
+				partitions[(int) (order[i] >>> 32)].visitEntry((int) order[i], visitor);
+			}
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				@Override
+				public String next() {
+					if (next >= size) {
+						throw new NoSuchElementException();
+					}
+					long reference = order[next++];
+					return partitions[(int) (reference >>> 32)].decodeEntry((int) reference);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof String)) {
+				return false;
+			}
+			byte[] bytes = ((String) o).getBytes(StandardCharsets.UTF_8);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			long hash = ByteHash.hash64(buffer, 0, bytes.length);
+			return partitions[(int) (hash >>> (64 - partitionBits))].contains(buffer, 0, bytes.length, (int) hash);
+		}
+	}
+
+}
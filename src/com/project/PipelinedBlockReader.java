@@ -0,0 +1,252 @@
+package com.project;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author Fabian
+ * PipelinedBlockReader class reads an InputStream or a FileChannel on a separate thread while the calling thread parses the lines.
+ * This lets expensive streams (decompression) and slow volumes (network attached storage) overlap with category counting.
+ *
+ * A fixed set of blocks circulates between the two threads: the reader thread takes a free block, fills it and queues it, the parse
+ * thread takes a filled block, hands it to a LineAssembler and returns it to the free blocks. Memory is bounded by blocks x blockSize.
+ *
+ * Blocks of a FileChannel are direct buffers, so the channel reads into them without the copy through a temporary direct buffer
+ * that a heap buffer costs. They are kept in a small pool between scans, a parse does not allocate direct memory every time.
+ * Only a scan that read to the end returns its buffers to the pool, its reader thread has ended by then.
+ * A file that fits into one block is read on the calling thread, a reader thread would cost more than it saves.
+ *
+ */
+public final class PipelinedBlockReader {
+
+	/** Default size of a block. */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+	/** Default number of blocks in flight. */
+	public static final int DEFAULT_BLOCKS = 4;
+
+	/** Direct buffers kept for the next scan of a FileChannel. */
+	private static final int MAX_POOLED_BUFFERS = 8;
+
+	private static final Block END_OF_STREAM = new Block(ByteBuffer.allocate(0));
+	private static final ConcurrentLinkedQueue<ByteBuffer> DIRECT_BUFFERS = new ConcurrentLinkedQueue<>();
+
+	private PipelinedBlockReader() {
+	}
+
+	/**
+	 * Class method to read the whole stream on a reader thread and hand its lines to the visitor on the calling thread.
+	 * PRECONDITION/REQUIRED:
+	 * 	The stream is read to its end but not closed.
+	 *
+	 * @param input						Stream to read
+	 * @param visitor					Consumer of the lines, called on the calling thread only
+	 * @param blockSize					Size of one block in bytes
+	 * @param blocks					Number of blocks in flight, at least 2 for any overlap
+	 * @throws IOException				If reading the stream fails
+	 * 									Unchecked exceptions of the stream are thrown on the calling thread as well
+	 */
+	public static void scan(final InputStream input, LineVisitor visitor, int blockSize, int blocks) throws IOException{
+		List<Block> pipelineBlocks = new ArrayList<>(blocks);
+		for (int i = 0; i < blocks; i++) {
+			pipelineBlocks.add(new Block(ByteBuffer.allocate(blockSize)));
+		}
+		pipeline(new Filler() {
+			@Override
+			public boolean fill(Block block) throws IOException {
+				return block.fill(input);
+			}
+		}, pipelineBlocks, visitor);
+	}
+
+	/**
+	 * Class method to read the channel from its current position to its end on a reader thread into direct buffers, and hand its
+	 * lines to the visitor on the calling thread.
+	 * PRECONDITION/REQUIRED:
+	 * 	The channel is read to its end but not closed.
+	 *
+	 * @param channel					Channel to read
+	 * @param visitor					Consumer of the lines, called on the calling thread only
+	 * @param blockSize					Size of one block in bytes
+	 * @param blocks					Number of blocks in flight, 2 for double buffering
+	 * @throws IOException				If reading the channel fails
+	 */
+	public static void scan(final FileChannel channel, LineVisitor visitor, int blockSize, int blocks) throws IOException{
+		boolean inline = blocks < 2 || channel.size() - channel.position() <= blockSize;
+		List<Block> pipelineBlocks = new ArrayList<>(blocks);
+		for (int i = 0; i < (inline ? 1 : blocks); i++) {
+			pipelineBlocks.add(new Block(acquireDirect(blockSize)));
+		}
+		boolean completed = false;
+		try {
+			if (inline) {
+				Block block = pipelineBlocks.get(0);
+				LineAssembler assembler = new LineAssembler(visitor);
+				long bytes = 0;
+				long started = ParserMetrics.startTimer();
+				while (block.fill(channel)) {
+					started = ParserMetrics.recordPhase(ParserMetrics.Phase.READ, started);
+					assembler.accept(block.buffer, 0, block.length);
+					bytes += block.length;
+					started = ParserMetrics.startTimer();
+				}
+				assembler.finish();
+				ParserMetrics.add(ParserMetrics.Counter.BYTES_READ, bytes);
+			} else {
+				pipeline(new Filler() {
+					@Override
+					public boolean fill(Block block) throws IOException {
+						return block.fill(channel);
+					}
+				}, pipelineBlocks, visitor);
+			}
+			completed = true;
+		} finally {
+			//After a failure or an interrupt the reader thread may still be reading into the blocks, they are not pooled then.
+			if (completed) {
+				for (Block block : pipelineBlocks) {
+					releaseDirect(block.buffer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Class method to run the pipeline: a reader thread fills the blocks, the calling thread assembles their lines.
+	 */
+	private static void pipeline(final Filler filler, List<Block> blocks, LineVisitor visitor) throws IOException{
+		final BlockingQueue<Block> free = new ArrayBlockingQueue<>(blocks.size());
+		final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(blocks.size() + 1);
+		free.addAll(blocks);
+		//Written by the reader before it queues the end marker, so it is visible once the parse thread took the marker.
+		final Throwable[] failure = new Throwable[1];
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long bytes = 0;
+				try {
+					while (true) {
+						Block block = free.take();
+						long started = ParserMetrics.startTimer();
+						if (!filler.fill(block)) {
+							break;
+						}
+						ParserMetrics.recordPhase(ParserMetrics.Phase.READ, started);
+						bytes += block.length;
+						filled.put(block);
+					}
+				} catch (InterruptedException e) {
+					//The parse thread gave up and takes no more blocks.
+				} catch (Throwable e) {
+					//Also unchecked exceptions of the source, the parse thread would wait for the end marker forever otherwise.
+					failure[0] = e;
+				} finally {
+					ParserMetrics.add(ParserMetrics.Counter.BYTES_READ, bytes);
+					//The end marker always fits, filled has one slot more than there are blocks.
+					filled.add(END_OF_STREAM);
+				}
+			}
+		}, "category-block-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		LineAssembler assembler = new LineAssembler(visitor);
+		try {
+			Block block;
+			while ((block = filled.take()) != END_OF_STREAM) {
+				assembler.accept(block.buffer, 0, block.length);
+				free.put(block);
+			}
+			reader.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading blocks");
+		} finally {
+			reader.interrupt();
+		}
+		if (failure[0] instanceof IOException) {
+			throw (IOException) failure[0];
+		} else if (failure[0] instanceof RuntimeException) {
+			throw (RuntimeException) failure[0];
+		} else if (failure[0] != null) {
+			throw (Error) failure[0];
+		}
+		assembler.finish();
+	}
+
+	private static ByteBuffer acquireDirect(int blockSize){
+		ByteBuffer buffer;
+		while ((buffer = DIRECT_BUFFERS.poll()) != null) {
+			//Buffers of another block size are left to the garbage collector.
+			if (buffer.capacity() == blockSize) {
+				return buffer;
+			}
+		}
+		return ByteBuffer.allocateDirect(blockSize);
+	}
+
+	private static void releaseDirect(ByteBuffer buffer){
+		if (DIRECT_BUFFERS.size() < MAX_POOLED_BUFFERS) {
+			buffer.clear();
+			DIRECT_BUFFERS.offer(buffer);
+		}
+	}
+
+	/**
+	 * Source of the blocks of a pipeline.
+	 */
+	private interface Filler {
+		/**
+		 * Instance method to fill the block.
+		 * @return				false if the source had no more bytes
+		 */
+		boolean fill(Block block) throws IOException;
+	}
+
+	/**
+	 * One reusable block of the pipeline.
+	 */
+	private static final class Block {
+		private final ByteBuffer buffer;
+		private int length;
+
+		Block(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Instance method to fill the heap block from the stream.
+		 * @return				false if the stream had no more bytes
+		 */
+		boolean fill(InputStream input) throws IOException{
+			byte[] bytes = buffer.array();
+			length = 0;
+			int read;
+			while (length < bytes.length && (read = input.read(bytes, length, bytes.length - length)) > 0) {
+				length += read;
+			}
+			return length > 0;
+		}
+
+		/**
+		 * Instance method to fill the block from the channel.
+		 * @return				false if the channel had no more bytes
+		 */
+		boolean fill(FileChannel channel) throws IOException{
+			buffer.clear();
+			while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+				//A read can return fewer bytes than asked for, keep reading until the block is full or the file ends.
+			}
+			length = buffer.position();
+			return length > 0;
+		}
+	}
+
+}
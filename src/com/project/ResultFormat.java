@@ -0,0 +1,53 @@
+package com.project;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author Fabian
+ * ResultFormat enum lists the output formats of a ParserValues result, see ResultWriter.
+ *
+ */
+public enum ResultFormat {
+
+	/** The text format of CategoryCountApplication.displayResults. */
+	TEXT {
+		@Override
+		public ResultWriter create(WritableByteChannel channel, int bufferSize) {
+			return new TextResultWriter(channel, bufferSize);
+		}
+	},
+
+	/** Newline delimited JSON, one object per count and per category pair. */
+	NDJSON {
+		@Override
+		public ResultWriter create(WritableByteChannel channel, int bufferSize) {
+			return new JsonLinesResultWriter(channel, bufferSize);
+		}
+	},
+
+	/** Comma separated values, one record per count and per category pair. */
+	CSV {
+		@Override
+		public ResultWriter create(WritableByteChannel channel, int bufferSize) {
+			return new CsvResultWriter(channel, bufferSize);
+		}
+	};
+
+	/**
+	 * Instance method to create a writer of this format with the default buffer size.
+	 * @param channel				Channel the output is written to
+	 * @return						New ResultWriter
+	 */
+	public ResultWriter create(WritableByteChannel channel) {
+		return create(channel, ResultWriter.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Instance method to create a writer of this format.
+	 * @param channel				Channel the output is written to
+	 * @param bufferSize			Size of the output buffer
+	 * @return						New ResultWriter
+	 */
+	public abstract ResultWriter create(WritableByteChannel channel, int bufferSize);
+
+}
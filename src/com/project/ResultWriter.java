@@ -0,0 +1,276 @@
+package com.project;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+/**
+ * @author Fabian
+ * ResultWriter class writes a ParserValues result to a channel in one of the ResultFormats. The output is encoded straight into a
+ * buffer that is written to the channel whenever it fills up. The buffer is direct for a FileChannel, which writes it without a copy,
+ * and on the heap for stream channels, which copy it to a byte array anyway.
+ *
+ * 1. Strings are encoded to UTF-8 character by character, counts are written digit by digit, no formatter or intermediate String
+ *    is used.
+ * 2. A category pair set that keeps its lines as bytes (see ByteLineSource) is copied to the buffer without decoding it.
+ *
+ * A writer is used by one thread at a time. close() also closes the channel, call flush() instead to keep it open.
+ *
+ */
+public abstract class ResultWriter implements Closeable {
+
+	/** Size of the output buffer. */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/** Largest number of bytes written for one character. */
+	private static final int MAX_CHAR_BYTES = 4;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final byte[] digits = new byte[11];
+	private boolean header = true;
+
+	/**
+	 * Constructor to create ResultWriter object
+	 * PRECONDITION/REQUIRED:
+	 *  @param channel 					Channel the output is written to, a FileChannel, Channels.newChannel(OutputStream), ...
+	 *  @param bufferSize 				Size of the output buffer, at least 16 bytes
+	 */
+	ResultWriter(WritableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		int capacity = Math.max(16, bufferSize);
+		this.buffer = channel instanceof FileChannel ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	/**
+	 * Setter method to leave out the heading line of the TEXT and CSV formats.
+	 * @param header					true to write the heading (default), false to start with the counts
+	 */
+	public void setHeader(boolean header) {
+		this.header = header;
+	}
+
+	/**
+	 * Instance method to write the sorted counts and the category pairs of a result.
+	 * @param values						Result to write
+	 * @throws IOException
+	 */
+	public void write(ParserValues values) throws IOException{
+		if (header) {
+			writeHeader();
+		}
+		for (Map.Entry<String, Integer> entry : values.getCategoryCount().entrySet()) {
+			writeCount(entry.getKey(), entry.getValue());
+		}
+		writePairsHeader();
+		if (values.getCategoryOrderedList() instanceof ByteLineSource) {
+			try {
+				((ByteLineSource) values.getCategoryOrderedList()).forEachLine(new LineVisitor() {
+					@Override
+					public void visitLine(ByteBuffer line, int start, int end) {
+						try {
+							writePair(line, start, end);
+						} catch (IOException e) {
+							throw new WriteIOException(e);
+						}
+					}
+				});
+			} catch (WriteIOException e) {
+				throw e.getCause();
+			}
+		} else {
+			for (String line : values.getCategoryOrderedList()) {
+				writePair(line);
+			}
+		}
+	}
+
+	/**
+	 * Instance method to write the buffered output to the channel.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException{
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Instance method to write the buffered output and close the channel.
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException{
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Instance method to write what comes before the counts.
+	 */
+	abstract void writeHeader() throws IOException;
+
+	/**
+	 * Instance method to write the count of one category.
+	 */
+	abstract void writeCount(String category, int count) throws IOException;
+
+	/**
+	 * Instance method to write what comes between the counts and the category pairs.
+	 */
+	abstract void writePairsHeader() throws IOException;
+
+	/**
+	 * Instance method to write one category pair line.
+	 */
+	abstract void writePair(String line) throws IOException;
+
+	/**
+	 * Instance method to write one category pair line given as UTF-8 bytes.
+	 * @param line					Buffer holding the line, positions are absolute indexes
+	 * @param start					Index of the first byte of the line
+	 * @param end					Index one past the last byte of the line
+	 */
+	abstract void writePair(ByteBuffer line, int start, int end) throws IOException;
+
+	/**
+	 * Instance method to write one byte, the byte should be ASCII if it is part of a character.
+	 */
+	final void writeByte(int b) throws IOException{
+		if (!buffer.hasRemaining()) {
+			flush();
+		}
+		buffer.put((byte) b);
+	}
+
+	/**
+	 * Instance method to write a String of ASCII characters, such as a constant of the format.
+	 */
+	final void writeAscii(String ascii) throws IOException{
+		for (int i = 0; i < ascii.length(); i++) {
+			writeByte(ascii.charAt(i));
+		}
+	}
+
+	/**
+	 * Instance method to write characters of a String as UTF-8. An unpaired surrogate is written as '?', as String.getBytes() does.
+	 * @param s						The String
+	 * @param from					Index of the first character
+	 * @param to					Index one past the last character
+	 */
+	final void writeUtf8(String s, int from, int to) throws IOException{
+		for (int i = from; i < to; i++) {
+			if (buffer.remaining() < MAX_CHAR_BYTES) {
+				flush();
+			}
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xc0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3f)));
+			} else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, s.charAt(++i));
+				buffer.put((byte) (0xf0 | (codePoint >> 18)));
+				buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+				buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+				buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+			} else if (Character.isSurrogate(c)) {
+				buffer.put((byte) '?');
+			} else {
+				buffer.put((byte) (0xe0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+				buffer.put((byte) (0x80 | (c & 0x3f)));
+			}
+		}
+	}
+
+	/**
+	 * Instance method to copy bytes to the output.
+	 * @param source				Buffer holding the bytes, positions are absolute indexes
+	 * @param start					Index of the first byte
+	 * @param end					Index one past the last byte
+	 */
+	final void writeBytes(ByteBuffer source, int start, int end) throws IOException{
+		while (start < end) {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(end - start, buffer.remaining());
+			ByteBuffer slice = source.duplicate();
+			slice.limit(start + length).position(start);
+			buffer.put(slice);
+			start += length;
+		}
+	}
+
+	/**
+	 * Instance method to write a number in decimal digits.
+	 */
+	final void writeInt(int value) throws IOException{
+		if (value == Integer.MIN_VALUE) {
+			writeAscii(Integer.toString(value));
+			return;
+		}
+		if (value < 0) {
+			writeByte('-');
+			value = -value;
+		}
+		int length = 0;
+		do {
+			digits[length++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		while (length > 0) {
+			writeByte(digits[--length]);
+		}
+	}
+
+	/**
+	 * Class method to find the space after the category of a line.
+	 * @return						Index of the first space, end if there is none
+	 */
+	static int separatorIndex(ByteBuffer line, int start, int end){
+		for (int i = start; i < end; i++) {
+			if (line.get(i) == ' ') {
+				return i;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Class method to find the space after the category of a line.
+	 * @return						Index of the first space, the length if there is none
+	 */
+	static int separatorIndex(String line){
+		int separator = line.indexOf(' ');
+		return separator < 0 ? line.length() : separator;
+	}
+
+	/**
+	 * Unchecked wrapper to carry an IOException out of LineVisitor.visitLine(), unwrapped again by write().
+	 */
+	private static final class WriteIOException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		WriteIOException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.project;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * @author Fabian
+ * SpillRecord class is one distinct line of the external dedup, with the position of its first occurrence, its category id and its
+ * 64 bit hash. Records are written to run files as: long position, int category, long hash, int length, line bytes.
+ *
+ */
+final class SpillRecord {
+
+	/** Order of the dedup runs: by unsigned hash, then by line bytes. Equal records are the same line. */
+	static final Comparator<SpillRecord> BY_LINE = new Comparator<SpillRecord>() {
+		@Override
+		public int compare(SpillRecord o1, SpillRecord o2) {
+			//Unsigned compare, so the partition in the top bits of the hash is the most significant part of the order.
+			long h1 = o1.hash ^ Long.MIN_VALUE;
+			long h2 = o2.hash ^ Long.MIN_VALUE;
+			if (h1 != h2) {
+				return h1 < h2 ? -1 : 1;
+			}
+			int length = Math.min(o1.line.length, o2.line.length);
+			for (int i = 0; i < length; i++) {
+				if (o1.line[i] != o2.line[i]) {
+					return (o1.line[i] & 0xff) < (o2.line[i] & 0xff) ? -1 : 1;
+				}
+			}
+			return o1.line.length - o2.line.length;
+		}
+	};
+
+	/** Order of the result: by position of the first occurrence. */
+	static final Comparator<SpillRecord> BY_POSITION = new Comparator<SpillRecord>() {
+		@Override
+		public int compare(SpillRecord o1, SpillRecord o2) {
+			return o1.position < o2.position ? -1 : (o1.position == o2.position ? 0 : 1);
+		}
+	};
+
+	/** Bytes written by writeTo() besides the line: position, category, hash and line length. */
+	static final int HEADER_BYTES = 8 + 4 + 8 + 4;
+
+	long position;
+	final int category;
+	final long hash;
+	final byte[] line;
+
+	/**
+	 * Constructor to create SpillRecord object
+	 * PRECONDITION/REQUIRED:
+	 *  @param position 				Number of the line in the input, counted over all lines
+	 *  @param category 				Category id of the matcher
+	 *  @param hash 					ByteHash.hash64 of the line bytes
+	 *  @param line 					Line bytes without terminator
+	 */
+	SpillRecord(long position, int category, long hash, byte[] line) {
+		this.position = position;
+		this.category = category;
+		this.hash = hash;
+		this.line = line;
+	}
+
+	/**
+	 * Instance method to return the line as a String.
+	 */
+	String lineString(){
+		return new String(line, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Instance method to write the record to a run file.
+	 * @throws IOException			If the stream cannot be written
+	 */
+	void writeTo(DataOutputStream out) throws IOException{
+		out.writeLong(position);
+		out.writeInt(category);
+		out.writeLong(hash);
+		out.writeInt(line.length);
+		out.write(line);
+	}
+
+	/**
+	 * Class method to read the next record of a run file, as written by writeTo().
+	 * @return						New record, the line bytes are copied out of the stream
+	 * @throws IOException			If the stream cannot be read, an EOFException if it ends before the record
+	 */
+	static SpillRecord readFrom(DataInputStream in) throws IOException{
+		long position = in.readLong();
+		int category = in.readInt();
+		long hash = in.readLong();
+		byte[] line = new byte[in.readInt()];
+		in.readFully(line);
+		return new SpillRecord(position, category, hash, line);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof SpillRecord && hash == ((SpillRecord) other).hash && Arrays.equals(line, ((SpillRecord) other).line);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.project;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Fabian
+ * SpilledLineSet class is the read only set of distinct lines of an external parse, backed by the spill file the lines were merged
+ * into in order of first occurrence. Iterating reads the file from the start, so the lines never have to fit in the heap.
+ * contains() scans the file as well, use it sparingly.
+ *
+ * No file is held open between calls: forEachLine() and contains() close the file before they return, an iterator reads the
+ * lines in batches and opens the file once per batch, so an iteration that stops early leaks nothing.
+ * The file is deleted by close(), see ParserValues.close(), or else when the JVM exits.
+ *
+ */
+final class SpilledLineSet extends AbstractSet<String> implements ByteLineSource, Closeable {
+
+	private static final int READ_BUFFER = 1 << 16;
+
+	private final File file;
+	private final int size;
+	private volatile boolean closed;
+
+	/**
+	 * Constructor to create SpilledLineSet object
+	 * PRECONDITION/REQUIRED:
+	 *  @param file 					File of SpillRecords in order of position, without duplicate lines
+	 *  @param size 					Number of records in the file
+	 */
+	SpilledLineSet(File file, int size) {
+		this.file = file;
+		this.size = size;
+		file.deleteOnExit();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void forEachLine(LineVisitor visitor) {
+		try (DataInputStream in = open(0)) {
+			for (int i = 0; i < size; i++) {
+				byte[] line = SpillRecord.readFrom(in).line;
+				visitor.visitLine(ByteBuffer.wrap(line), 0, line.length);
+			}
+		} catch (IOException e) {
+			throw unreadable(e);
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof String) || size == 0) {
+			return false;
+		}
+		byte[] wanted = ((String) o).getBytes(StandardCharsets.UTF_8);
+		try (DataInputStream in = open(0)) {
+			for (int i = 0; i < size; i++) {
+				if (Arrays.equals(SpillRecord.readFrom(in).line, wanted)) {
+					return true;
+				}
+			}
+		} catch (IOException e) {
+			throw unreadable(e);
+		}
+		return false;
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		if (size == 0) {
+			return Collections.emptyIterator();
+		}
+		return new Iterator<String>() {
+			private final ArrayDeque<String> batch = new ArrayDeque<>();
+			private int next;
+			private long offset;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public String next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				if (batch.isEmpty()) {
+					readBatch();
+				}
+				next++;
+				return batch.poll();
+			}
+
+			/**
+			 * Instance method to read the lines that follow the last batch, about READ_BUFFER bytes of them.
+			 */
+			private void readBatch() {
+				try (DataInputStream in = open(offset)) {
+					long end = offset + READ_BUFFER;
+					while (next + batch.size() < size && offset < end) {
+						SpillRecord record = SpillRecord.readFrom(in);
+						batch.add(record.lineString());
+						offset += SpillRecord.HEADER_BYTES + record.line.length;
+					}
+				} catch (IOException e) {
+					throw unreadable(e);
+				}
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Instance method to delete the spill file, the set cannot be read afterwards. Closing it again does nothing.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		file.delete();
+	}
+
+	/**
+	 * Instance method to open the spill file at a byte offset.
+	 */
+	private DataInputStream open(long offset) throws IOException{
+		if (closed) {
+			throw new IllegalStateException("Spill file " + file + " was deleted by close()");
+		}
+		FileInputStream in = new FileInputStream(file);
+		try {
+			in.getChannel().position(offset);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+		return new DataInputStream(new BufferedInputStream(in, READ_BUFFER));
+	}
+
+	private IllegalStateException unreadable(IOException e){
+		return new IllegalStateException("Spill file " + file + " cannot be read", e);
+	}
+
+}
@@ -0,0 +1,520 @@
+package com.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * SpillingLineProcessor class applies the parse rules of CategoryLineProcessor in a bounded amount of heap, for inputs with more
+ * distinct lines than fit in memory.
+ *
+ * 1. Legal lines are collected in a hash set with the position of their first occurrence. When the set reaches the memory budget
+ *    it is sorted by hash and line and spilled to a run file. The top PARTITION_BITS bits of the hash select the partition, every run
+ *    holds one sorted segment per partition.
+ * 2. complete() merges the segments of one partition at a time over all runs. Equal lines meet in the merge and keep their smallest
+ *    position, so every distinct line comes out once and is counted for its category.
+ * 3. The distinct lines are sorted by position in budget sized runs and merged into one file, which backs the ordered list of the
+ *    result (see SpilledLineSet).
+ *
+ * Merges read at most MAX_FAN_IN runs at once, more runs are merged in several passes. Input that fits in the budget never touches
+ * the disk. All temporary files are created in the spill directory.
+ *
+ */
+final class SpillingLineProcessor implements OffsetAwareLineVisitor {
+
+	/** Number of bits of the hash that select the partition. */
+	static final int PARTITION_BITS = 4;
+	/** Largest number of runs read by one merge. */
+	static final int MAX_FAN_IN = 64;
+	/** Estimated heap bytes of a collected line besides its bytes: record, array header, hash set entry and table slot. */
+	static final int RECORD_OVERHEAD = 112;
+
+	private static final int PARTITIONS = 1 << PARTITION_BITS;
+	private static final int IO_BUFFER = 1 << 16;
+	private static final byte SEPARATOR = ' ';
+
+	private final CategoryMatcher matcher;
+	private final long memoryBudget;
+	private final File spillDirectory;
+	private final HeavyHitterSketch heavyHitters;
+	private final LineValidator validator = new LineValidator(ValidationReport.SAMPLE_SIZE);
+	private final List<File> spillFiles = new ArrayList<>();
+	private HashSet<SpillRecord> collected = new HashSet<>();
+	private long collectedBytes;
+	private long position;
+	private long baseOffset = -1;
+	private List<Run> runs = new ArrayList<>();
+
+	private LinkedHashMap<String, Integer> categoryCount;
+	private Set<String> categoryOrderedList;
+
+	/**
+	 * Constructor to create SpillingLineProcessor object
+	 * PRECONDITION/REQUIRED:
+	 *  @param matcher 					Matcher of the legal categories
+	 *  @param memoryBudget 			Heap bytes the collected lines may take before they are spilled
+	 *  @param spillDirectory 			Directory of the temporary run files, null for the default temporary directory
+	 *  @param heavyHitters 			Empty sketch every legal line is added to, duplicates included, null to not count them
+	 */
+	SpillingLineProcessor(CategoryMatcher matcher, long memoryBudget, File spillDirectory, HeavyHitterSketch heavyHitters) {
+		this.matcher = matcher;
+		this.memoryBudget = memoryBudget;
+		this.spillDirectory = spillDirectory;
+		this.heavyHitters = heavyHitters;
+	}
+
+	@Override
+	public void visitLine(ByteBuffer buffer, int start, int end) {
+		validator.countLine();
+		int separator = CategoryLineProcessor.findSeparator(buffer, start, end);
+		int category = separator < 0 ? -1 : matcher.match(buffer, start, separator);
+		long offset = baseOffset < 0 ? -1 : baseOffset + start;
+		if (category < 0) {
+			validator.reject(buffer, start, end, separator, offset);
+			return;
+		}
+		if (buffer.get(separator + 1) == SEPARATOR) {
+			validator.flagMultipleSeparators(buffer, start, end, offset);
+		}
+		if (heavyHitters != null) {
+			heavyHitters.add(buffer, start, end);
+		}
+		byte[] line = new byte[end - start];
+		for (int i = 0; i < line.length; i++) {
+			line[i] = buffer.get(start + i);
+		}
+		//The first time a line is collected it has its smallest position within this run.
+		if (collected.add(new SpillRecord(position++, category, ByteHash.hash64(buffer, start, end), line))) {
+			collectedBytes += line.length + RECORD_OVERHEAD;
+			if (collectedBytes >= memoryBudget) {
+				try {
+					spill();
+				} catch (IOException e) {
+					throw new SpillIOException(e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void setBaseOffset(long base) {
+		baseOffset = base;
+	}
+
+	/**
+	 * Instance method to merge the spilled runs once all lines were visited, see the class description.
+	 * @throws IOException				If a run file cannot be written or read, the temporary files are deleted
+	 */
+	void complete() throws IOException{
+		boolean completed = false;
+		try {
+			if (runs.isEmpty()) {
+				List<SpillRecord> distinct = new ArrayList<>(collected);
+				collected = null;
+				Collections.sort(distinct, SpillRecord.BY_POSITION);
+				buildResult(distinct);
+			} else {
+				spill();
+				collected = null;
+				mergeSpilledRuns();
+			}
+			completed = true;
+		} finally {
+			if (!completed) {
+				deleteSpillFiles();
+			}
+		}
+	}
+
+	/**
+	 * Getter method to retrieve the counts after complete(), keyed by category in order of first occurrence.
+	 */
+	LinkedHashMap<String, Integer> getCategoryCount() {
+		return categoryCount;
+	}
+
+	/**
+	 * Getter method to retrieve the distinct lines after complete(), in order of first occurrence.
+	 * @return			A LinkedHashSet if the distinct lines fit in the budget, else a SpilledLineSet
+	 */
+	Set<String> getCategoryOrderedList() {
+		return categoryOrderedList;
+	}
+
+	/**
+	 * Getter method to retrieve the most repeated lines.
+	 * @return			The sketch given to the constructor, null if the lines are not counted
+	 */
+	HeavyHitterSketch getHeavyHitters() {
+		return heavyHitters;
+	}
+
+	/**
+	 * Getter method to retrieve the line classes and the sampled offending lines.
+	 */
+	ValidationReport getValidationReport() {
+		return validator.toReport();
+	}
+
+	/**
+	 * Getter method to retrieve the number of runs spilled while the lines were visited, 0 if the input fit in the budget.
+	 */
+	int getSpilledRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Instance method to delete all temporary files, after a failed parse.
+	 */
+	void deleteSpillFiles(){
+		for (File file : spillFiles) {
+			file.delete();
+		}
+		spillFiles.clear();
+	}
+
+	private void spill() throws IOException{
+		if (collected.isEmpty()) {
+			return;
+		}
+		List<SpillRecord> sorted = new ArrayList<>(collected);
+		collected.clear();
+		collectedBytes = 0;
+		Collections.sort(sorted, SpillRecord.BY_LINE);
+		try (RunWriter writer = new RunWriter(PARTITIONS)) {
+			for (SpillRecord record : sorted) {
+				writer.accept(record);
+			}
+			runs.add(writer.toRun());
+		}
+	}
+
+	private void mergeSpilledRuns() throws IOException{
+		//Passes over groups of runs until one merge can read all of them. Duplicates are combined in every pass.
+		while (runs.size() > MAX_FAN_IN) {
+			List<Run> merged = new ArrayList<>();
+			for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+				List<Run> group = runs.subList(from, Math.min(from + MAX_FAN_IN, runs.size()));
+				try (RunWriter writer = new RunWriter(PARTITIONS)) {
+					for (int partition = 0; partition < PARTITIONS; partition++) {
+						merge(readers(group, partition), SpillRecord.BY_LINE, true, writer);
+					}
+					merged.add(writer.toRun());
+				}
+				delete(group);
+			}
+			runs = merged;
+		}
+
+		final int[] counts = new int[matcher.size()];
+		final long[] firstPositions = new long[matcher.size()];
+		final PositionSorter sorter = new PositionSorter();
+		RecordSink distinct = new RecordSink() {
+			@Override
+			public void accept(SpillRecord record) throws IOException {
+				if (counts[record.category]++ == 0 || record.position < firstPositions[record.category]) {
+					firstPositions[record.category] = record.position;
+				}
+				sorter.accept(record);
+			}
+		};
+		for (int partition = 0; partition < PARTITIONS; partition++) {
+			merge(readers(runs, partition), SpillRecord.BY_LINE, true, distinct);
+		}
+		delete(runs);
+		sorter.complete();
+		categoryCount = countsInOrder(counts, firstPositions);
+		categoryOrderedList = sorter.result;
+	}
+
+	private void buildResult(List<SpillRecord> distinctInPositionOrder){
+		int[] counts = new int[matcher.size()];
+		long[] firstPositions = new long[matcher.size()];
+		LinkedHashSet<String> lines = new LinkedHashSet<>();
+		for (SpillRecord record : distinctInPositionOrder) {
+			if (counts[record.category]++ == 0) {
+				firstPositions[record.category] = record.position;
+			}
+			lines.add(record.lineString());
+		}
+		categoryCount = countsInOrder(counts, firstPositions);
+		categoryOrderedList = lines;
+	}
+
+	private LinkedHashMap<String, Integer> countsInOrder(int[] counts, final long[] firstPositions){
+		List<Integer> occurred = new ArrayList<>();
+		for (int id = 0; id < counts.length; id++) {
+			if (counts[id] > 0) {
+				occurred.add(id);
+			}
+		}
+		Collections.sort(occurred, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(firstPositions[o1], firstPositions[o2]);
+			}
+		});
+		LinkedHashMap<String, Integer> ordered = new LinkedHashMap<>();
+		for (int id : occurred) {
+			ordered.put(matcher.category(id), counts[id]);
+		}
+		return ordered;
+	}
+
+	/**
+	 * Class method to merge sorted readers into a sink.
+	 * @param combine				true to hand equal records to the sink once, with the smallest position
+	 */
+	private static void merge(List<RunReader> readers, final Comparator<SpillRecord> order, boolean combine, RecordSink sink)
+			throws IOException{
+		PriorityQueue<RunReader> heads = new PriorityQueue<>(Math.max(1, readers.size()), new Comparator<RunReader>() {
+			@Override
+			public int compare(RunReader o1, RunReader o2) {
+				return order.compare(o1.current, o2.current);
+			}
+		});
+		try {
+			for (RunReader reader : readers) {
+				if (reader.advance()) {
+					heads.add(reader);
+				}
+			}
+			while (!heads.isEmpty()) {
+				RunReader head = heads.poll();
+				SpillRecord record = head.current;
+				if (head.advance()) {
+					heads.add(head);
+				}
+				while (combine && !heads.isEmpty() && order.compare(heads.peek().current, record) == 0) {
+					RunReader equal = heads.poll();
+					record.position = Math.min(record.position, equal.current.position);
+					if (equal.advance()) {
+						heads.add(equal);
+					}
+				}
+				sink.accept(record);
+			}
+		} finally {
+			for (RunReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	private static List<RunReader> readers(List<Run> runs, int segment) throws IOException{
+		List<RunReader> readers = new ArrayList<>();
+		for (Run run : runs) {
+			if (run.counts[segment] > 0) {
+				readers.add(new RunReader(run, segment));
+			}
+		}
+		return readers;
+	}
+
+	private void delete(List<Run> deleted){
+		for (Run run : deleted) {
+			run.file.delete();
+			spillFiles.remove(run.file);
+		}
+	}
+
+	private File newSpillFile() throws IOException{
+		File file = File.createTempFile("category-spill", ".run", spillDirectory);
+		spillFiles.add(file);
+		return file;
+	}
+
+	/**
+	 * Consumer of merged records.
+	 */
+	private interface RecordSink {
+		void accept(SpillRecord record) throws IOException;
+	}
+
+	/**
+	 * A run file with the offset and record count of each of its segments.
+	 */
+	private static final class Run {
+		final File file;
+		final long[] offsets;
+		final long[] counts;
+
+		Run(File file, long[] offsets, long[] counts) {
+			this.file = file;
+			this.offsets = offsets;
+			this.counts = counts;
+		}
+	}
+
+	/**
+	 * Writer of one run. With more than one segment records have to arrive in SpillRecord.BY_LINE order, the partition of a record
+	 * is its segment.
+	 */
+	private final class RunWriter implements RecordSink, AutoCloseable {
+		private final File file;
+		private final DataOutputStream out;
+		private final long[] offsets;
+		private final long[] counts;
+		private long written;
+
+		RunWriter(int segments) throws IOException {
+			this.file = newSpillFile();
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER));
+			this.offsets = new long[segments];
+			this.counts = new long[segments];
+		}
+
+		@Override
+		public void accept(SpillRecord record) throws IOException {
+			int segment = offsets.length == 1 ? 0 : (int) (record.hash >>> (64 - PARTITION_BITS));
+			if (counts[segment] == 0) {
+				offsets[segment] = written;
+			}
+			counts[segment]++;
+			record.writeTo(out);
+			written += SpillRecord.HEADER_BYTES + record.line.length;
+		}
+
+		Run toRun() throws IOException {
+			out.flush();
+			return new Run(file, offsets, counts);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * Sequential reader of one segment of a run.
+	 */
+	private static final class RunReader {
+		private final DataInputStream in;
+		private long remaining;
+		SpillRecord current;
+
+		RunReader(Run run, int segment) throws IOException {
+			FileInputStream file = new FileInputStream(run.file);
+			file.getChannel().position(run.offsets[segment]);
+			this.in = new DataInputStream(new BufferedInputStream(file, IO_BUFFER));
+			this.remaining = run.counts[segment];
+		}
+
+		/**
+		 * Instance method to read the next record into current.
+		 * @return				false if the segment has no more records
+		 */
+		boolean advance() throws IOException {
+			if (remaining == 0) {
+				current = null;
+				return false;
+			}
+			remaining--;
+			current = SpillRecord.readFrom(in);
+			return true;
+		}
+
+		void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * External sort of the distinct lines by position, in runs of at most the memory budget.
+	 */
+	private final class PositionSorter implements RecordSink {
+		private final List<SpillRecord> pending = new ArrayList<>();
+		private final List<Run> sortedRuns = new ArrayList<>();
+		private long pendingBytes;
+		private long total;
+		Set<String> result;
+
+		@Override
+		public void accept(SpillRecord record) throws IOException {
+			pending.add(record);
+			total++;
+			pendingBytes += record.line.length + RECORD_OVERHEAD;
+			if (pendingBytes >= memoryBudget) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			Collections.sort(pending, SpillRecord.BY_POSITION);
+			try (RunWriter writer = new RunWriter(1)) {
+				for (SpillRecord record : pending) {
+					writer.accept(record);
+				}
+				sortedRuns.add(writer.toRun());
+			}
+			pending.clear();
+			pendingBytes = 0;
+		}
+
+		void complete() throws IOException {
+			if (sortedRuns.isEmpty()) {
+				Collections.sort(pending, SpillRecord.BY_POSITION);
+				LinkedHashSet<String> lines = new LinkedHashSet<>();
+				for (SpillRecord record : pending) {
+					lines.add(record.lineString());
+				}
+				result = lines;
+				return;
+			}
+			if (!pending.isEmpty()) {
+				flush();
+			}
+			List<Run> level = sortedRuns;
+			while (level.size() > 1) {
+				List<Run> merged = new ArrayList<>();
+				for (int from = 0; from < level.size(); from += MAX_FAN_IN) {
+					List<Run> group = level.subList(from, Math.min(from + MAX_FAN_IN, level.size()));
+					try (RunWriter writer = new RunWriter(1)) {
+						merge(readers(group, 0), SpillRecord.BY_POSITION, false, writer);
+						merged.add(writer.toRun());
+					}
+					delete(group);
+				}
+				level = merged;
+			}
+			File file = level.get(0).file;
+			spillFiles.remove(file);
+			result = new SpilledLineSet(file, (int) total);
+		}
+	}
+
+	/**
+	 * Unchecked wrapper to carry an IOException of a spill out of visitLine(), unwrapped again by the parser.
+	 */
+	static final class SpillIOException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		SpillIOException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.project;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * StringDedupIndex class keeps the distinct lines as Strings in a LinkedHashSet, like parse() does.
+ *
+ */
+final class StringDedupIndex implements DedupIndex {
+
+	private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+	private final LinkedHashSet<String> lines = new LinkedHashSet<>();
+	private byte[] lineBytes = new byte[128];
+
+	@Override
+	public boolean add(ByteBuffer buffer, int start, int end) {
+		//Set.add already reports if the line was seen before, no separate contains lookup is needed.
+		return lines.add(decode(buffer, start, end));
+	}
+
+	@Override
+	public int size() {
+		return lines.size();
+	}
+
+	@Override
+	public void forEach(LineVisitor visitor) {
+		for (String line : lines) {
+			byte[] bytes = line.getBytes(CHARSET);
+			visitor.visitLine(ByteBuffer.wrap(bytes), 0, bytes.length);
+		}
+	}
+
+	@Override
+	public Set<String> orderedView() {
+		return Collections.unmodifiableSet(lines);
+	}
+
+	/**
+	 * Instance method to turn the line bytes into a String, reusing one copy buffer for all lines.
+	 */
+	private String decode(ByteBuffer buffer, int start, int end){
+		int length = end - start;
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, length, CHARSET);
+		}
+		if (lineBytes.length < length) {
+			lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			lineBytes[i] = buffer.get(start + i);
+		}
+		return new String(lineBytes, 0, length, CHARSET);
+	}
+
+}
@@ -0,0 +1,297 @@
+package com.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Fabian
+ * SubCategoryIndex class groups the distinct lines of a result by category, so the sub-categories of one category can be listed and
+ * searched without scanning and splitting every line.
+ *
+ * 1. Every category keeps its lines twice, as references to the same Strings: in order of first occurrence, and sorted. No
+ *    sub-category String is created until a query result is read.
+ * 2. All lines of a category start with the same "CATEGORY " prefix, so the sorted order of the lines is the order of their
+ *    sub-categories. Prefix and range queries are binary searches over the sorted lines, O(log n) for a category with n
+ *    sub-categories; the result is a view over the matching part of the sorted lines.
+ * 3. For every sorted line the index keeps its position in order of first occurrence, so a query result can also be returned in
+ *    the order of the input.
+ *
+ * Sub-categories are compared with String.compareTo(). The index is built once, by ParserValues.getSubCategoryIndex(), and does
+ * not change afterwards.
+ *
+ */
+public final class SubCategoryIndex {
+
+	private final LinkedHashMap<String, Group> groups;
+
+	private SubCategoryIndex(LinkedHashMap<String, Group> groups) {
+		this.groups = groups;
+	}
+
+	/**
+	 * Class method to build the index in one pass over the lines.
+	 * PRECONDITION/REQUIRED:
+	 * 	Every line should be a distinct "CATEGORY SUB-CATEGORY" line, as in ParserValues.getCategoryOrderedList().
+	 *
+	 * @param categories					Categories in the order the index lists them, also those without lines
+	 * @param lines							Distinct lines in order of first occurrence
+	 * @return								The index
+	 */
+	public static SubCategoryIndex build(Set<String> categories, Iterable<String> lines){
+		HashMap<String, Integer> ids = new HashMap<>();
+		for (String category : categories) {
+			ids.put(category, ids.size());
+		}
+		String[][] byId = new String[ids.size()][];
+		int[] sizes = new int[ids.size()];
+		for (String line : lines) {
+			String category = line.substring(0, line.indexOf(' '));
+			Integer id = ids.get(category);
+			if (id == null) {
+				id = ids.size();
+				ids.put(category, id);
+				byId = Arrays.copyOf(byId, id + 1);
+				sizes = Arrays.copyOf(sizes, id + 1);
+			}
+			String[] group = byId[id];
+			if (group == null) {
+				group = byId[id] = new String[16];
+			} else if (sizes[id] == group.length) {
+				group = byId[id] = Arrays.copyOf(group, group.length * 2);
+			}
+			group[sizes[id]++] = line;
+		}
+
+		String[] names = new String[ids.size()];
+		for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+			names[entry.getValue()] = entry.getKey();
+		}
+		LinkedHashMap<String, Group> groups = new LinkedHashMap<>();
+		for (int id = 0; id < names.length; id++) {
+			String[] group = byId[id] == null ? new String[0] : Arrays.copyOf(byId[id], sizes[id]);
+			groups.put(names[id], new Group(names[id].length() + 1, group));
+		}
+		return new SubCategoryIndex(groups);
+	}
+
+	/**
+	 * Getter method to retrieve the categories of the index
+	 */
+	public Set<String> getCategories() {
+		return Collections.unmodifiableSet(groups.keySet());
+	}
+
+	/**
+	 * Instance method to return the number of distinct sub-categories of a category.
+	 * @return							Number of sub-categories, 0 for an unknown category
+	 */
+	public int size(String category){
+		Group group = groups.get(category);
+		return group == null ? 0 : group.byOccurrence.length;
+	}
+
+	/**
+	 * Instance method to list the sub-categories of a category in order of first occurrence.
+	 * @param category					Category
+	 * @return							Read only list of the sub-categories, empty for an unknown category
+	 */
+	public List<String> getSubCategories(String category){
+		Group group = groups.get(category);
+		return group == null ? Collections.<String>emptyList() : new SubCategoryList(group.offset, group.byOccurrence, 0,
+				group.byOccurrence.length);
+	}
+
+	/**
+	 * Instance method to list the sub-categories of a category in sorted order.
+	 * @param category					Category
+	 * @return							Read only list of the sub-categories, empty for an unknown category
+	 */
+	public List<String> getSortedSubCategories(String category){
+		Group group = groups.get(category);
+		return group == null ? Collections.<String>emptyList() : new SubCategoryList(group.offset, group.sorted, 0, group.sorted.length);
+	}
+
+	/**
+	 * Instance method to find the sub-categories of a category that start with a prefix, in O(log n).
+	 * @param category					Category
+	 * @param prefix					Prefix of the sub-categories, "" for all
+	 * @return							Read only list of the matching sub-categories in sorted order
+	 */
+	public List<String> withPrefix(String category, String prefix){
+		Group group = groups.get(category);
+		if (group == null) {
+			return Collections.emptyList();
+		}
+		int[] bounds = group.prefixBounds(category + ' ' + prefix);
+		return new SubCategoryList(group.offset, group.sorted, bounds[0], bounds[1]);
+	}
+
+	/**
+	 * Instance method to count the sub-categories of a category that start with a prefix, in O(log n).
+	 * @param category					Category
+	 * @param prefix					Prefix of the sub-categories
+	 * @return							Number of matching sub-categories
+	 */
+	public int countWithPrefix(String category, String prefix){
+		return withPrefix(category, prefix).size();
+	}
+
+	/**
+	 * Instance method to find the sub-categories of a category that start with a prefix, in order of first occurrence. The matches
+	 * are found in O(log n) and then put in input order, O(m log m) for m matches.
+	 * @param category					Category
+	 * @param prefix					Prefix of the sub-categories
+	 * @return							Read only list of the matching sub-categories in order of first occurrence
+	 */
+	public List<String> withPrefixInFirstOccurrenceOrder(String category, String prefix){
+		Group group = groups.get(category);
+		if (group == null) {
+			return Collections.emptyList();
+		}
+		int[] bounds = group.prefixBounds(category + ' ' + prefix);
+		int[] positions = Arrays.copyOfRange(group.rank, bounds[0], bounds[1]);
+		Arrays.sort(positions);
+		String[] lines = new String[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			lines[i] = group.byOccurrence[positions[i]];
+		}
+		return new SubCategoryList(group.offset, lines, 0, lines.length);
+	}
+
+	/**
+	 * Instance method to find the sub-categories of a category in a range, in O(log n).
+	 * @param category					Category
+	 * @param from						Smallest sub-category, inclusive, null for no lower bound
+	 * @param to						Largest sub-category, exclusive, null for no upper bound
+	 * @return							Read only list of the sub-categories in [from, to) in sorted order
+	 */
+	public List<String> range(String category, String from, String to){
+		Group group = groups.get(category);
+		if (group == null) {
+			return Collections.emptyList();
+		}
+		int start = from == null ? 0 : group.lowerBound(category + ' ' + from);
+		int end = to == null ? group.sorted.length : group.lowerBound(category + ' ' + to);
+		return new SubCategoryList(group.offset, group.sorted, start, Math.max(start, end));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder("SubCategoryIndex[");
+		for (Map.Entry<String, Group> entry : groups.entrySet()) {
+			if (text.length() > "SubCategoryIndex[".length()) {
+				text.append(", ");
+			}
+			text.append(entry.getKey()).append('=').append(entry.getValue().byOccurrence.length);
+		}
+		return text.append(']').toString();
+	}
+
+	/**
+	 * The lines of one category in order of first occurrence and sorted.
+	 */
+	private static final class Group {
+		/** Length of "CATEGORY ", where the sub-category starts. */
+		final int offset;
+		final String[] byOccurrence;
+		final String[] sorted;
+		/** Position in byOccurrence of every sorted line. */
+		final int[] rank;
+
+		Group(int offset, final String[] byOccurrence) {
+			this.offset = offset;
+			this.byOccurrence = byOccurrence;
+			Integer[] order = new Integer[byOccurrence.length];
+			for (int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return byOccurrence[o1].compareTo(byOccurrence[o2]);
+				}
+			});
+			this.sorted = new String[order.length];
+			this.rank = new int[order.length];
+			for (int i = 0; i < order.length; i++) {
+				rank[i] = order[i];
+				sorted[i] = byOccurrence[order[i]];
+			}
+		}
+
+		/**
+		 * Instance method to find the first sorted line that is not smaller than the key.
+		 */
+		int lowerBound(String key){
+			int low = 0;
+			int high = sorted.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (sorted[middle].compareTo(key) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * Instance method to find the sorted lines that start with the prefix: they follow the lines smaller than the prefix, and
+		 * all larger lines that do not start with it follow them.
+		 * @return					Start and end index of the matches
+		 */
+		int[] prefixBounds(String prefix){
+			int start = lowerBound(prefix);
+			int low = start;
+			int high = sorted.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (sorted[middle].startsWith(prefix)) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return new int[] { start, low};
+		}
+	}
+
+	/**
+	 * Read only list of the sub-categories of a part of the lines of a category.
+	 */
+	private static final class SubCategoryList extends AbstractList<String> {
+		private final int offset;
+		private final String[] lines;
+		private final int start;
+		private final int end;
+
+		SubCategoryList(int offset, String[] lines, int start, int end) {
+			this.offset = offset;
+			this.lines = lines;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("Index " + index + ", size " + (end - start));
+			}
+			return lines[start + index].substring(offset);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+
+}
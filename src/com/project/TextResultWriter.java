@@ -0,0 +1,62 @@
+package com.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * @author Fabian
+ * TextResultWriter class writes the format of CategoryCountApplication: a "CATEGORY COUNT" heading, one line per count with the
+ * category padded to 10 characters, an empty line and the category pairs, one per line.
+ *
+ */
+final class TextResultWriter extends ResultWriter {
+
+	private static final int CATEGORY_WIDTH = 10;
+
+	TextResultWriter(WritableByteChannel channel, int bufferSize) {
+		super(channel, bufferSize);
+	}
+
+	@Override
+	void writeHeader() throws IOException {
+		writeCategory("CATEGORY");
+		writeAscii("COUNT\n");
+	}
+
+	@Override
+	void writeCount(String category, int count) throws IOException {
+		writeCategory(category);
+		writeInt(count);
+		writeByte('\n');
+	}
+
+	@Override
+	void writePairsHeader() throws IOException {
+		writeByte('\n');
+	}
+
+	@Override
+	void writePair(String line) throws IOException {
+		writeUtf8(line, 0, line.length());
+		writeByte('\n');
+	}
+
+	@Override
+	void writePair(ByteBuffer line, int start, int end) throws IOException {
+		writeBytes(line, start, end);
+		writeByte('\n');
+	}
+
+	/**
+	 * Instance method to write a category left aligned in its column, as "%-10s " does.
+	 */
+	private void writeCategory(String category) throws IOException{
+		writeUtf8(category, 0, category.length());
+		for (int i = category.length(); i < CATEGORY_WIDTH; i++) {
+			writeByte(' ');
+		}
+		writeByte(' ');
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.project;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Fabian
+ * ValidationReport class tells how many lines of a parse fell into each LineClass and keeps a small random sample of the
+ * offending lines (every class but VALID) with their byte offsets, to find out what is wrong with a bad input feed.
+ * The sample is a reservoir sample: every offending line had the same chance to be kept, however many there were.
+ *
+ */
+public final class ValidationReport {
+
+	/** Largest number of sampled lines. */
+	public static final int SAMPLE_SIZE = 32;
+
+	/** Sampled lines are cut after this many bytes (characters for parse()). */
+	public static final int MAX_SAMPLE_LINE_LENGTH = 256;
+
+	/** Report of a parse that did not validate its lines, every count is 0. */
+	public static final ValidationReport NONE = new ValidationReport(new long[LineClass.values().length],
+			Collections.<Sample>emptyList());
+
+	private final long[] counts;
+	private final List<Sample> samples;
+
+	/**
+	 * Constructor to create ValidationReport object
+	 * PRECONDITION/REQUIRED:
+	 *  @param counts 					Number of lines per LineClass, indexed by ordinal
+	 *  @param samples 					Sampled offending lines
+	 */
+	ValidationReport(long[] counts, List<Sample> samples) {
+		this.counts = counts;
+		this.samples = Collections.unmodifiableList(samples);
+	}
+
+	/**
+	 * Instance method to return the number of lines of a class
+	 */
+	public long getCount(LineClass lineClass){
+		return counts[lineClass.ordinal()];
+	}
+
+	/**
+	 * Instance method to return the number of lines that were not counted
+	 */
+	public long getSkippedLines(){
+		long skipped = 0;
+		for (LineClass lineClass : LineClass.values()) {
+			if (!lineClass.isCounted()) {
+				skipped += counts[lineClass.ordinal()];
+			}
+		}
+		return skipped;
+	}
+
+	/**
+	 * Getter method to retrieve the sampled offending lines
+	 * @return			Read only list of at most SAMPLE_SIZE samples, in no particular order
+	 */
+	public List<Sample> getSamples() {
+		return samples;
+	}
+
+	/**
+	 * One sampled offending line.
+	 */
+	public static final class Sample {
+		private final LineClass lineClass;
+		private final long offset;
+		private final String line;
+
+		Sample(LineClass lineClass, long offset, String line) {
+			this.lineClass = lineClass;
+			this.offset = offset;
+			this.line = line;
+		}
+
+		/**
+		 * Getter method to retrieve the class of the line
+		 */
+		public LineClass getLineClass() {
+			return lineClass;
+		}
+
+		/**
+		 * Getter method to retrieve the byte offset of the line in its input
+		 * @return			Offset of the first byte, -1 for parse(), which reads characters and does not know byte offsets
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Getter method to retrieve the line
+		 * @return			The line, cut after MAX_SAMPLE_LINE_LENGTH bytes
+		 */
+		public String getLine() {
+			return line;
+		}
+
+		@Override
+		public String toString() {
+			return offset + " " + lineClass + " " + line;
+		}
+	}
+
+}
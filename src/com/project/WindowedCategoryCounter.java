@@ -0,0 +1,270 @@
+package com.project;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * @author Fabian
+ * WindowedCategoryCounter class counts the distinct lines of a continuous feed per category over a time window that moves forward,
+ * for example the last 5 minutes or the last hour. The parse rules are the same as for parse().
+ *
+ * 1. The window is split into buckets of one slide each, kept in a ring. A window of 300 seconds that slides every 60 seconds has 5
+ *    buckets; a tumbling window has a single bucket, its slide is the window length.
+ * 2. Every distinct line is kept once, with the bucket it was last seen in. A line seen again moves to the newer bucket, so it stays
+ *    in the window as long as it keeps occurring.
+ * 3. Every bucket keeps the count per category of the lines last seen in it, and the window keeps the sum over its buckets. When the
+ *    window slides the oldest bucket expires: its counts are subtracted and only its own lines are visited to drop them, nothing
+ *    else in the window is rescanned.
+ * 4. When a line arrives in a later slide, or advanceTo() is called, every window that ended before it is emitted to the listener
+ *    as ParserValues with the sorted categoryCount of the window. Windows without lines are not emitted.
+ *
+ * Memory is bounded by the distinct lines of one window, the history before the window is not kept. Lines older than the window are
+ * dropped, lines of an earlier slide that is still in the window are counted in their own bucket.
+ *
+ */
+public class WindowedCategoryCounter {
+
+	/**
+	 * Receives every window when it ends.
+	 */
+	public interface Listener {
+
+		/**
+		 * Instance method called for a window that ended, from the thread that moved the window forward.
+		 * @param windowStart			Start of the window, inclusive, in milliseconds
+		 * @param windowEnd				End of the window, exclusive, in milliseconds
+		 * @param values				Counts and distinct lines of the window
+		 */
+		void windowClosed(long windowStart, long windowEnd, ParserValues values);
+	}
+
+	/** Lines a bucket keeps room for after it expired, a larger list is dropped. */
+	private static final int RETAINED_BUCKET_CAPACITY = 1024;
+
+	private final CategorySetParser parser;
+	private final CategoryMatcher matcher;
+	private final long windowMillis;
+	private final long slideMillis;
+	private final int bucketCount;
+	private final Listener listener;
+
+	//Per bucket: counts per category id of the lines last seen in the bucket, and those lines. A line that moved on to a newer
+	//bucket stays in the list of the older one and is skipped when the older one expires.
+	private final int[][] bucketCounts;
+	private final ArrayList<ArrayList<String>> bucketLines;
+	private final int[] windowCounts;
+	//Distinct lines of the window in order of first occurrence.
+	private final LinkedHashMap<String, Occurrence> occurrences = new LinkedHashMap<>();
+	//Slide number of the newest bucket, the window covers the slides newestSlide - bucketCount + 1 to newestSlide.
+	private long newestSlide = Long.MIN_VALUE;
+
+	/**
+	 * Constructor to create WindowedCategoryCounter object
+	 * PRECONDITION/REQUIRED:
+	 *  @param legalCategoryList 			String Array of Legal Category List, Example: {"PERSON", "PLACE", "OTHER"}
+	 *  @param windowMillis 				Length of the window
+	 *  @param slideMillis 				Step of the window, a divisor of the window length, the window length for tumbling windows
+	 *  @param listener 					Receives the windows when they end, null to only use snapshot()
+	 */
+	public WindowedCategoryCounter(String[] legalCategoryList, long windowMillis, long slideMillis, Listener listener) {
+		this(new CategoryDictionary(legalCategoryList, 0), windowMillis, slideMillis, listener);
+	}
+
+	/**
+	 * Constructor to create WindowedCategoryCounter object for one version of a dictionary, see
+	 * CategorySetParser(CategoryDictionary, File)
+	 * PRECONDITION/REQUIRED:
+	 *  @param dictionary 					Legal categories
+	 *  @param windowMillis 				Length of the window
+	 *  @param slideMillis 				Step of the window, a divisor of the window length, the window length for tumbling windows
+	 *  @param listener 					Receives the windows when they end, null to only use snapshot()
+	 */
+	public WindowedCategoryCounter(CategoryDictionary dictionary, long windowMillis, long slideMillis, Listener listener) {
+		if (slideMillis <= 0 || windowMillis < slideMillis || windowMillis % slideMillis != 0) {
+			throw new IllegalArgumentException("Window " + windowMillis + " ms is not a multiple of the slide " + slideMillis + " ms");
+		}
+		if (windowMillis / slideMillis > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Window " + windowMillis + " ms has too many slides of " + slideMillis + " ms");
+		}
+		this.parser = new CategorySetParser(dictionary, null);
+		this.matcher = parser.getMatcher();
+		this.windowMillis = windowMillis;
+		this.slideMillis = slideMillis;
+		this.bucketCount = (int) (windowMillis / slideMillis);
+		this.listener = listener;
+		this.bucketCounts = new int[bucketCount][matcher.size()];
+		this.bucketLines = new ArrayList<>(bucketCount);
+		for (int i = 0; i < bucketCount; i++) {
+			bucketLines.add(new ArrayList<String>());
+		}
+		this.windowCounts = new int[matcher.size()];
+	}
+
+	/**
+	 * Instance method to add one line of the feed.
+	 * PRECONDITION/REQUIRED:
+	 *
+	 * @param line						Single input line, category and sub-category separated with a single space
+	 * @param timeMillis				Time of the line, lines mostly arrive in time order
+	 * @return							true if the line was legal, in the window and not already in its bucket
+	 */
+	public synchronized boolean add(String line, long timeMillis){
+		int separator = parser.readCategory(line);
+		if (separator < 0) {
+			return false;
+		}
+		int category = matcher.match(line, 0, separator);
+		if (category < 0) {
+			return false;
+		}
+		long slide = slideOf(timeMillis);
+		if (slide > newestSlide) {
+			advanceToSlide(slide);
+		} else if (slide <= newestSlide - bucketCount) {
+			return false;
+		}
+
+		int bucket = bucketOf(slide);
+		Occurrence occurrence = occurrences.get(line);
+		if (occurrence == null) {
+			occurrences.put(line, new Occurrence(category, slide));
+			windowCounts[category]++;
+		} else if (occurrence.slide < slide) {
+			bucketCounts[bucketOf(occurrence.slide)][category]--;
+			occurrence.slide = slide;
+		} else {
+			return false;
+		}
+		bucketCounts[bucket][category]++;
+		bucketLines.get(bucket).add(line);
+		return true;
+	}
+
+	/**
+	 * Instance method to move the window forward to a time without a line, so windows of a quiet feed still end.
+	 * @param timeMillis				Current time
+	 */
+	public synchronized void advanceTo(long timeMillis){
+		long slide = slideOf(timeMillis);
+		if (slide > newestSlide) {
+			advanceToSlide(slide);
+		}
+	}
+
+	/**
+	 * Instance method to return the window that ends with the current slide, before it ended.
+	 * @return		object values for ParserValues class, the category pair list is a copy
+	 */
+	public synchronized ParserValues snapshot(){
+		return buildResult();
+	}
+
+	/**
+	 * Getter method to retrieve the length of the window in milliseconds
+	 */
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	/**
+	 * Getter method to retrieve the step of the window in milliseconds
+	 */
+	public long getSlideMillis() {
+		return slideMillis;
+	}
+
+	/**
+	 * Getter method to retrieve the number of distinct lines in the window
+	 */
+	public synchronized int size(){
+		return occurrences.size();
+	}
+
+	/**
+	 * Instance method to emit every window that ends before the slide and expire the buckets that drop out of the window.
+	 */
+	private void advanceToSlide(long slide){
+		if (newestSlide == Long.MIN_VALUE) {
+			newestSlide = slide;
+			return;
+		}
+		while (newestSlide < slide) {
+			if (occurrences.isEmpty()) {
+				//Every bucket is empty, the windows up to the slide have no lines.
+				newestSlide = slide;
+				return;
+			}
+			if (listener != null) {
+				long windowEnd = (newestSlide + 1) * slideMillis;
+				listener.windowClosed(windowEnd - windowMillis, windowEnd, buildResult());
+			}
+			newestSlide++;
+			expire(newestSlide - bucketCount);
+		}
+	}
+
+	/**
+	 * Instance method to empty the bucket of a slide that dropped out of the window, so it can be used for the newest slide.
+	 */
+	private void expire(long slide){
+		int bucket = bucketOf(slide);
+		int[] counts = bucketCounts[bucket];
+		for (int id = 0; id < counts.length; id++) {
+			windowCounts[id] -= counts[id];
+			counts[id] = 0;
+		}
+		ArrayList<String> lines = bucketLines.get(bucket);
+		for (String line : lines) {
+			Occurrence occurrence = occurrences.get(line);
+			if (occurrence != null && occurrence.slide == slide) {
+				occurrences.remove(line);
+			}
+		}
+		//A burst must not keep the capacity of its bucket for good.
+		if (lines.size() > RETAINED_BUCKET_CAPACITY) {
+			bucketLines.set(bucket, new ArrayList<String>());
+		} else {
+			lines.clear();
+		}
+	}
+
+	private ParserValues buildResult(){
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		LinkedHashSet<String> categoryOrderedList = new LinkedHashSet<>();
+		//The counts follow the order in which the categories first occur in the window, like parse().
+		for (Map.Entry<String, Occurrence> entry : occurrences.entrySet()) {
+			categoryOrderedList.add(entry.getKey());
+			int category = entry.getValue().category;
+			if (!categoryCount.containsKey(matcher.category(category))) {
+				categoryCount.put(matcher.category(category), windowCounts[category]);
+			}
+		}
+		return parser.buildResult(categoryCount, categoryOrderedList, ValidationReport.NONE);
+	}
+
+	private long slideOf(long timeMillis){
+		long slide = timeMillis / slideMillis;
+		return timeMillis < 0 && timeMillis % slideMillis != 0 ? slide - 1 : slide;
+	}
+
+	private int bucketOf(long slide){
+		int bucket = (int) (slide % bucketCount);
+		return bucket < 0 ? bucket + bucketCount : bucket;
+	}
+
+	/**
+	 * A distinct line of the window with its category id and the slide it was last seen in.
+	 */
+	private static final class Occurrence {
+		final int category;
+		long slide;
+
+		Occurrence(int category, long slide) {
+			this.category = category;
+			this.slide = slide;
+		}
+	}
+
+}
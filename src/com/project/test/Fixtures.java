@@ -0,0 +1,67 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import com.project.ParserValues;
+
+/**
+ * @author Fabian
+ * Fixtures class holds what the test classes share: the legal categories, writing UTF-8 test files and the comparison of two
+ * ParserValues.
+ *
+ */
+final class Fixtures {
+
+	static final String[] LEGAL_VALUES = new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"};
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Class method to replace the content of a file with text in UTF-8.
+	 * @return						The file
+	 */
+	static File write(File file, String text) throws IOException{
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+
+	/**
+	 * Class method to append text in UTF-8 to a file, the file is created if it does not exist.
+	 */
+	static void append(File file, String text) throws IOException{
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Class method to delete a directory with the files in it.
+	 */
+	static void deleteDirectory(File directory){
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Class method to check two results have the same counts and category pairs, both in the same order.
+	 */
+	static void assertSameValues(ParserValues expected, ParserValues actual){
+		assertEquals(new ArrayList<>(expected.getCategoryCount().entrySet()), new ArrayList<>(actual.getCategoryCount().entrySet()));
+		assertEquals(new ArrayList<>(expected.getCategoryOrderedList()), new ArrayList<>(actual.getCategoryOrderedList()));
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.BatchCategoryParser;
+import com.project.CategorySetParser;
+import com.project.ParserValues;
+
+
+
+public class TestBatchCategoryParser {
+
+	static final String[] SHARDS = new String[] {
+		"PERSON Bob Jones\nPLACE Washington\nPERSON Mary\n",
+		"COMPUTER Mac\nPERSON Bob Jones\nOTHER Tree\nANIMAL Dog\n",
+		"PLACE Texas\nFOOD Steak\nANIMAL Cat\nPERSON Mary"
+	};
+	File shardDirectory;
+	List<File> shardFiles;
+
+	/**
+	 * Create a directory with three shard files before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		shardDirectory = new File("batchTestShards");
+		shardDirectory.mkdir();
+		shardFiles = new ArrayList<>();
+		for (int i = 0; i < SHARDS.length; i++) {
+			File shard = new File(shardDirectory, "shard" + i + ".txt");
+			write(shard, SHARDS[i]);
+			shardFiles.add(shard);
+		}
+	}
+
+	/**
+	 * Delete the shard directory after each test
+	 */
+	@After
+	public void afterTest(){
+		deleteDirectory(shardDirectory);
+	}
+
+	/**
+	 * Test to check the merged batch result is the same as the result of the concatenated shards
+	 */
+	@Test
+	public void testParse_sameAsConcatenatedFile() throws IOException {
+		File concatenated = new File("batchTestConcatenated.txt");
+		write(concatenated, SHARDS[0] + SHARDS[1] + SHARDS[2]);
+		try {
+			ParserValues expected = new CategorySetParser(LEGAL_VALUES, concatenated).parse();
+			BatchCategoryParser batch = new BatchCategoryParser(LEGAL_VALUES, shardFiles);
+			batch.setThreads(2);
+			ParserValues pr = batch.parse();
+			assertSameValues(expected, pr);
+		} finally {
+			concatenated.delete();
+		}
+	}
+
+	/**
+	 * Test to check the per file results hold the values of every single shard and are handed over in file list order
+	 */
+	@Test
+	public void testParse_perFileResults() throws IOException {
+		final LinkedHashMap<File, ParserValues> fileResults = new LinkedHashMap<>();
+		BatchCategoryParser batch = new BatchCategoryParser(LEGAL_VALUES, shardFiles);
+		batch.setFileResultListener(new BatchCategoryParser.FileResultListener() {
+			@Override
+			public void fileParsed(File shard, ParserValues values) {
+				fileResults.put(shard, values);
+			}
+		});
+		batch.parse();
+		assertEquals(shardFiles, new ArrayList<>(fileResults.keySet()));
+		assertEquals(2, fileResults.get(shardFiles.get(0)).getCountforCategory("PERSON"));
+		assertEquals(1, fileResults.get(shardFiles.get(1)).getCountforCategory("PERSON"));
+		assertEquals(0, fileResults.get(shardFiles.get(2)).getCountforCategory("COMPUTER"));
+	}
+
+	/**
+	 * Test to check shards large enough to be merged by the partition tasks give the same result as the concatenated shards
+	 */
+	@Test
+	public void testParse_partitionedMerge() throws IOException {
+		StringBuilder all = new StringBuilder();
+		for (int i = 0; i < shardFiles.size(); i++) {
+			StringBuilder shard = new StringBuilder();
+			for (int line = 0; line < 5000; line++) {
+				//Every shard repeats half of the lines of the shard before it.
+				shard.append(LEGAL_VALUES[line % LEGAL_VALUES.length]).append(" item ").append(i * 2500 + line).append('\n');
+			}
+			write(shardFiles.get(i), shard.toString());
+			all.append(shard);
+		}
+		File concatenated = new File("batchTestConcatenated.txt");
+		write(concatenated, all.toString());
+		try {
+			ParserValues expected = new CategorySetParser(LEGAL_VALUES, concatenated).parse();
+			BatchCategoryParser batch = new BatchCategoryParser(LEGAL_VALUES, shardFiles);
+			batch.setThreads(3);
+			ParserValues pr = batch.parse();
+			assertSameValues(expected, pr);
+			assertEquals(10000, pr.getCategoryOrderedList().size());
+		} finally {
+			concatenated.delete();
+		}
+	}
+
+	/**
+	 * Test to check directories, glob patterns and file lists are expanded in order
+	 */
+	@Test
+	public void testResolveInputs() throws IOException {
+		assertEquals(shardFiles, BatchCategoryParser.resolveInputs(shardDirectory.getPath()));
+		assertEquals(shardFiles.subList(1, 3), BatchCategoryParser.resolveInputs(shardDirectory.getPath() + "/shard[12].txt"));
+		File list = new File(shardDirectory, "list.lst");
+		write(list, shardFiles.get(2).getPath() + "\n\n" + shardFiles.get(0).getPath() + "\n");
+		assertEquals(Arrays.asList(shardFiles.get(2), shardFiles.get(0)), BatchCategoryParser.resolveInputs("@" + list.getPath()));
+	}
+
+	/**
+	 * Test to check a missing input is reported
+	 */
+	@Test(expected = IOException.class)
+	public void testResolveInputs_missingFile() throws IOException {
+		BatchCategoryParser.resolveInputs("noSuchShard.txt");
+	}
+
+}
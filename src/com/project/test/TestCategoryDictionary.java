@@ -0,0 +1,151 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.BatchCategoryParser;
+import com.project.CategoryCountApplication;
+import com.project.CategoryDictionary;
+import com.project.CategoryDictionaryReloader;
+import com.project.CategorySetParser;
+import com.project.IncrementalCategorySetParser;
+import com.project.ParseResultCache;
+import com.project.ParserValues;
+
+
+
+public class TestCategoryDictionary {
+
+	static final String INPUT = "PERSON Bob\nPLACE Texas\nFRUIT Apple\nCOLOR Red\nPERSON Bob\nCOLOR Blue\n";
+	File directory;
+
+	/**
+	 * Create an empty directory for the dictionary and the input before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		directory = Files.createTempDirectory("dictionary").toFile();
+	}
+
+	/**
+	 * Delete the dictionary and the input after each test
+	 */
+	@After
+	public void afterTest(){
+		deleteDirectory(directory);
+	}
+
+	private File write(String name, String content, long modified) throws IOException{
+		File file = Fixtures.write(new File(directory, name), content);
+		file.setLastModified(modified);
+		return file;
+	}
+
+	/**
+	 * Test to check every parser that is given a loaded dictionary records its version, and the cache keeps versions apart
+	 */
+	@Test
+	public void testLoaded_versionInResults() throws IOException {
+		File dictionaryFile = write("categories.txt", "PERSON\nPLACE\nCOLOR\n", 1000000000000L);
+		File input = write("input.txt", INPUT, 1000000000000L);
+		CategoryDictionary first = CategoryDictionary.load(dictionaryFile, 3);
+		CategoryDictionary second = CategoryDictionary.load(dictionaryFile, 4);
+
+		assertEquals(3, CategoryCountApplication.parseCategories(first, input).getDictionaryVersion());
+		assertEquals(3, new BatchCategoryParser(first, Arrays.asList(input, input)).parse().getDictionaryVersion());
+		assertEquals(3, new IncrementalCategorySetParser(first, input).parse().getDictionaryVersion());
+		ParseResultCache cache = new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES, directory);
+		ParserValues cached = cache.parse(first, input);
+		assertEquals(3, cached.getDictionaryVersion());
+		assertSame(cached, cache.parse(first, input));
+		assertEquals(4, cache.parse(second, input).getDictionaryVersion());
+		assertEquals(4, new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES, directory).parse(second, input).getDictionaryVersion());
+		assertEquals(2, cached.getCountforCategory("COLOR"));
+	}
+
+	/**
+	 * Test to check a dictionary file with comments and blank lines gives the same result as the array of its categories
+	 */
+	@Test
+	public void testLoad_sameAsArray() throws IOException {
+		File dictionaryFile = write("categories.txt", "# legal categories\nPERSON\n\n  PLACE \nANIMAL\nCOMPUTER\nOTHER\nPERSON\n", 1000000000000L);
+		File input = write("input.txt", INPUT, 1000000000000L);
+		CategoryDictionary dictionary = CategoryDictionary.load(dictionaryFile, 1);
+		assertEquals(5, dictionary.getCategories().size());
+
+		ParserValues expected = new CategorySetParser(LEGAL_VALUES, input).parse();
+		ParserValues values = new CategorySetParser(dictionary, input).parse();
+		assertEquals(expected.getCategoryCount(), values.getCategoryCount());
+		assertEquals(new ArrayList<>(expected.getCategoryOrderedList()), new ArrayList<>(values.getCategoryOrderedList()));
+		assertEquals(0, expected.getDictionaryVersion());
+		assertEquals(1, values.getDictionaryVersion());
+	}
+
+	/**
+	 * Test to check a category with a space is rejected
+	 */
+	@Test(expected = IOException.class)
+	public void testLoad_categoryWithSpace() throws IOException {
+		CategoryDictionary.load(write("categories.txt", "PERSON\nPLACE NAME\n", 1000000000000L), 1);
+	}
+
+	/**
+	 * Test to check a changed file publishes a new version, a parser keeps the version it was created with, and a broken file
+	 * keeps the current version
+	 */
+	@Test
+	public void testReload_swapsVersion() throws IOException {
+		File dictionaryFile = write("categories.txt", "PERSON\nPLACE\n", 1000000000000L);
+		File input = write("input.txt", INPUT, 1000000000000L);
+		try (CategoryDictionaryReloader reloader = new CategoryDictionaryReloader(dictionaryFile)) {
+			assertFalse(reloader.checkForChanges());
+			CategorySetParser before = new CategorySetParser(reloader.current(), input);
+
+			write("categories.txt", "PERSON\nPLACE\nFRUIT\nCOLOR\n", 1000000001000L);
+			assertTrue(reloader.checkForChanges());
+			assertEquals(2, reloader.current().getVersion());
+			ParserValues after = new CategorySetParser(reloader.current(), input).parse();
+			assertEquals(2, after.getCountforCategory("COLOR"));
+			assertEquals(2, after.getDictionaryVersion());
+
+			ParserValues old = before.parse();
+			assertEquals(2, old.getCategoryCount().size());
+			assertEquals(1, old.getDictionaryVersion());
+
+			write("categories.txt", "PERSON\nFRUIT SALAD\n", 1000000002000L);
+			assertFalse(reloader.checkForChanges());
+			assertEquals(2, reloader.current().getVersion());
+			assertEquals(4, reloader.current().getCategories().size());
+		}
+	}
+
+	/**
+	 * Test to check a large dictionary still counts the categories it contains
+	 */
+	@Test
+	public void testLoad_largeDictionary() throws IOException {
+		StringBuilder categories = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			categories.append("CATEGORY").append(i).append('\n');
+		}
+		File dictionaryFile = write("categories.txt", categories.toString(), 1000000000000L);
+		File input = write("input.txt", "CATEGORY17 a\nCATEGORY19999 b\nCATEGORY20000 c\nCATEGORY17 d\n", 1000000000000L);
+		ParserValues values = new CategorySetParser(CategoryDictionary.load(dictionaryFile, 1), input).parse();
+		assertEquals(20000, values.getCategoryCount().size());
+		assertEquals(2, values.getCountforCategory("CATEGORY17"));
+		assertEquals(1, values.getCountforCategory("CATEGORY19999"));
+		assertFalse(values.getCategoryCount().containsKey("CATEGORY20000"));
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.project.CategoryMatcher;
+
+
+
+public class TestCategoryMatcher {
+
+	private static int matchBytes(CategoryMatcher matcher, String line, int end){
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		return matcher.match(ByteBuffer.wrap(bytes), 0, line.substring(0, end).getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	/**
+	 * Test to check every legal category maps to its index, as bytes and as chars
+	 */
+	@Test
+	public void testMatch_legalCategories() {
+		String[] categories = new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"};
+		CategoryMatcher matcher = new CategoryMatcher(categories);
+		for (int i = 0; i < categories.length; i++) {
+			String line = categories[i] + " test";
+			assertEquals(i, matcher.match(line, 0, categories[i].length()));
+			assertEquals(i, matchBytes(matcher, line, categories[i].length()));
+		}
+	}
+
+	/**
+	 * Test to check illegal categories, prefixes and empty categories do not match
+	 */
+	@Test
+	public void testMatch_illegalCategories() {
+		CategoryMatcher matcher = new CategoryMatcher(new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"});
+		for (String category : new String[] {"FOOD", "PERSONS", "PERSO", "person", "", "PLACE2"}) {
+			String line = category + " test";
+			assertEquals(-1, matcher.match(line, 0, category.length()));
+			assertEquals(-1, matchBytes(matcher, line, category.length()));
+		}
+		assertEquals(-1, new CategoryMatcher(new String[0]).match("PERSON test", 0, 6));
+	}
+
+	/**
+	 * Test to check non ASCII categories match the same way as bytes and chars
+	 */
+	@Test
+	public void testMatch_nonAsciiCategories() {
+		String[] categories = new String[] { "STADT", "STRAßE", "ÜBER", "日本", "EMOJI😀"};
+		CategoryMatcher matcher = new CategoryMatcher(categories);
+		for (int i = 0; i < categories.length; i++) {
+			String line = categories[i] + " test";
+			assertEquals(i, matcher.match(line, 0, categories[i].length()));
+			assertEquals(i, matchBytes(matcher, line, categories[i].length()));
+		}
+		assertEquals(-1, matcher.match("STRASSE test", 0, 7));
+	}
+
+	/**
+	 * Test to check a large category list is matched completely
+	 */
+	@Test
+	public void testMatch_largeCategoryList() {
+		String[] categories = new String[50000];
+		for (int i = 0; i < categories.length; i++) {
+			categories[i] = "CATEGORY" + i;
+		}
+		CategoryMatcher matcher = new CategoryMatcher(categories);
+		for (int i = 0; i < categories.length; i++) {
+			assertEquals(i, matcher.match(categories[i], 0, categories[i].length()));
+		}
+		assertEquals(-1, matcher.match("CATEGORY50000", 0, 13));
+	}
+
+	/**
+	 * Test to check duplicate categories are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatcher_duplicateCategories() {
+		new CategoryMatcher(new String[] { "PERSON", "PLACE", "PERSON"});
+	}
+
+}
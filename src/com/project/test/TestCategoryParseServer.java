@@ -0,0 +1,158 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategoryParseServer;
+
+
+
+public class TestCategoryParseServer {
+
+	static final String INPUT = "PERSON Bob Jones\nPLACE Washington\nPERSON Mary\nFOOD Steak\nPERSON Bob Jones\n";
+	CategoryParseServer server;
+	File rootDirectory;
+
+	/**
+	 * Create a root directory with one input file before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		rootDirectory = new File("parseServerRoot");
+		rootDirectory.mkdir();
+		write(new File(rootDirectory, "input.txt"), INPUT);
+		server = new CategoryParseServer(LEGAL_VALUES);
+		server.setRootDirectory(rootDirectory);
+	}
+
+	/**
+	 * Stop the server and delete the root directory after each test
+	 */
+	@After
+	public void afterTest(){
+		server.close();
+		new File(rootDirectory, "input.txt").delete();
+		rootDirectory.delete();
+	}
+
+	private int post(String query, String body, StringBuilder response) throws IOException{
+		URL url = new URL("http://127.0.0.1:" + server.getPort() + "/parse" + (query == null ? "" : "?" + query));
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		int status = connection.getResponseCode();
+		try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			int read;
+			while (in != null && (read = in.read()) >= 0) {
+				bytes.write(read);
+			}
+			response.append(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+		}
+		return status;
+	}
+
+	/**
+	 * Test to check an uploaded body and a file below the root directory are parsed with the same result
+	 */
+	@Test
+	public void testParse_bodyAndPath() throws IOException {
+		server.start(0);
+		StringBuilder fromBody = new StringBuilder();
+		assertEquals(200, post(null, INPUT, fromBody));
+		assertTrue(fromBody.toString().startsWith("PERSON     2\nPLACE      1\n"));
+		assertTrue(fromBody.toString().endsWith("\nPERSON Bob Jones\nPLACE Washington\nPERSON Mary\n"));
+		StringBuilder fromPath = new StringBuilder();
+		assertEquals(200, post("path=input.txt", "", fromPath));
+		assertEquals(fromBody.toString(), fromPath.toString());
+	}
+
+	/**
+	 * Test to check files outside of the root directory are refused and missing files are reported
+	 */
+	@Test
+	public void testParse_pathOutsideRoot() throws IOException {
+		server.start(0);
+		assertEquals(403, post("path=" + URLEncoder.encode("../build.xml", "UTF-8"), "", new StringBuilder()));
+		assertEquals(404, post("path=missing.txt", "", new StringBuilder()));
+	}
+
+	/**
+	 * Test to check requests beyond the in flight limit are rejected right away
+	 */
+	@Test
+	public void testParse_backpressure() throws IOException {
+		server.setMaxInFlight(0);
+		server.start(0);
+		assertEquals(503, post(null, INPUT, new StringBuilder()));
+	}
+
+	/**
+	 * Test to check the limit also covers requests that wait for a platform handler thread, and that a permit is given back once the
+	 * parse of its request ended
+	 */
+	@Test(timeout = 20000)
+	public void testParse_backpressurePlatform() throws IOException, InterruptedException {
+		server.setMaxInFlight(1);
+		server.setPlatformThreads(1);
+		server.setThreadMode(CategoryParseServer.ThreadMode.PLATFORM);
+		server.start(0);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+			OutputStream out = socket.getOutputStream();
+			out.write(("POST /parse HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000\r\n\r\nPERSON Bob").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			int status;
+			//The slow request holds the only permit once it was admitted.
+			while ((status = post(null, INPUT, new StringBuilder())) == 200) {
+				Thread.sleep(10);
+			}
+			assertEquals(503, status);
+		}
+		int status = 503;
+		for (int i = 0; i < 100 && status == 503; i++) {
+			Thread.sleep(20);
+			status = post(null, INPUT, new StringBuilder());
+		}
+		assertEquals(200, status);
+	}
+
+	/**
+	 * Test to check a request whose body does not arrive in time is answered with a timeout
+	 */
+	@Test
+	public void testParse_timeout() throws IOException {
+		server.setTimeoutMillis(100);
+		server.setThreadMode(CategoryParseServer.ThreadMode.PLATFORM);
+		server.start(0);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+			OutputStream out = socket.getOutputStream();
+			out.write(("POST /parse HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000\r\n\r\nPERSON Bob").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			assertTrue(reader.readLine().startsWith("HTTP/1.1 504"));
+		}
+	}
+
+}
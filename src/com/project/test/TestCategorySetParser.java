@@ -8,6 +8,9 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Map.Entry;
 
 import org.junit.After;
@@ -16,6 +19,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 
 import com.project.CategorySetParser;
+import com.project.DedupIndexType;
 import com.project.ParserValues;
 
 
@@ -294,4 +298,176 @@ public class TestCategorySetParser {
 	}
 	
 
+	/**
+	 * Test to check the memory mapped parse returns the same counts, count order and pair order as parse()
+	 */
+	@Test
+	public void testParseMapped_sameAsParse() throws IOException {
+		writeLineToTestFile("PERSON Bob Jones");
+		writeLineToTestFile("PLACE Washington");
+		writeLineToTestFile("");
+		writeLineToTestFile(" PERSON test");
+		writeLineToTestFile("PERSON Mary");
+		writeLineToTestFile("PERSON ");
+		writeLineToTestFile("COMPUTER  Mac");
+		writeLineToTestFile("PERSON Bob Jones");
+		writeLineToTestFile("FOOD Steak");
+		writeLineToTestFile("ANIMAL");
+		writeLineToTestFile("ANIMAL Cat");
+		pr = cp.parse();
+		ParserValues mapped = cp.parseMapped();
+		assertEquals(new ArrayList<>(pr.getCategoryCount().entrySet()), new ArrayList<>(mapped.getCategoryCount().entrySet()));
+		assertEquals(new ArrayList<>(pr.getCategoryOrderedList()), new ArrayList<>(mapped.getCategoryOrderedList()));
+	}
+	
+	
+	/**
+	 * Test to check the channel parse returns the same result as the mapped parse for blocks smaller than a line, blocks read
+	 * ahead on the reader thread and a single block read on the calling thread
+	 */
+	@Test
+	public void testParseChannel_blockSizes() throws IOException {
+		String[] categories = new String[] {"PERSON", "PLACE", "FOOD", "ANIMAL", "COMPUTER", "OTHER"};
+		for (int i = 0; i < 20000; i++) {
+			writeLineToTestFile(categories[i % categories.length] + " sub category " + (i % 7919));
+		}
+		ParserValues mapped = cp.parseMapped();
+		for (int blockSize : new int[] {5, 4096, 1 << 20}) {
+			cp.setBlockSize(blockSize);
+			for (ParserValues values : new ParserValues[] {cp.parseChannel(), cp.parse()}) {
+				assertEquals(new ArrayList<>(mapped.getCategoryCount().entrySet()), new ArrayList<>(values.getCategoryCount().entrySet()));
+				assertEquals(new ArrayList<>(mapped.getCategoryOrderedList()), new ArrayList<>(values.getCategoryOrderedList()));
+			}
+		}
+	}
+	
+	/**
+	 * Test to check parse() decodes the charset it is given, with the same result for UTF-8 and UTF-16 input
+	 */
+	@Test
+	public void testParse_charset() throws IOException {
+		String input = "PERSON Zo\u00eb\nPLACE M\u00fcnchen\nPERSON Zo\u00eb\nANIMAL \u732b\n";
+		File utf16File = new File("testFile16.txt");
+		Files.write(testFile.toPath(), input.getBytes(StandardCharsets.UTF_8));
+		Files.write(utf16File.toPath(), input.getBytes(StandardCharsets.UTF_16));
+		try {
+			cp.setCharset(StandardCharsets.UTF_8);
+			pr = cp.parse();
+			CategorySetParser utf16 = new CategorySetParser(new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER"}, utf16File);
+			utf16.setCharset(StandardCharsets.UTF_16);
+			ParserValues decoded = utf16.parse();
+			assertEquals(new ArrayList<>(pr.getCategoryCount().entrySet()), new ArrayList<>(decoded.getCategoryCount().entrySet()));
+			assertEquals(new ArrayList<>(pr.getCategoryOrderedList()), new ArrayList<>(decoded.getCategoryOrderedList()));
+			assertTrue(decoded.getCategoryOrderedList().contains("PLACE M\u00fcnchen"));
+			assertEquals(1, pr.getCountforCategory("PERSON"));
+		} finally {
+			utf16File.delete();
+		}
+	}
+	
+	/**
+	 * Test to check the memory mapped parse accepts "\r\n" and "\r" line endings and a last line without line ending
+	 */
+	@Test
+	public void testParseMapped_lineEndings() throws IOException {
+		bw.write("PERSON test\r\nPLACE test\rANIMAL test\r\n\r\nPERSON test\nOTHER laptop");
+		bw.flush();
+		pr = cp.parseMapped();
+		String[] correctOrder = new String[] {"PERSON test","PLACE test", "ANIMAL test", "OTHER laptop"}; 
+		int i= 0;
+		for(String entry:pr.getCategoryOrderedList()){
+			assertTrue(correctOrder[i++].equals(entry));
+		}
+		assertEquals(4, i);
+		assertEquals(1, pr.getCountforCategory("PERSON"));
+		assertEquals(0, pr.getCountforCategory("COMPUTER"));
+	}
+	
+
+	/**
+	 * Test to check the parallel parse merges many small chunks into the same result as parse(), including
+	 * duplicates and categories that first occur in a later chunk
+	 */
+	@Test
+	public void testParseParallel_sameAsParse() throws IOException {
+		String[] lines = new String[] {"PERSON Bob Jones", "PLACE Washington", "FOOD Steak", "ANIMAL Dog", "PERSON Mary",
+				"", "PLACE Texas", "ANIMAL Cat", "COMPUTER Mac", "OTHER Tree"};
+		for (int i = 0; i < 500; i++) {
+			writeLineToTestFile(lines[(i * 7) % lines.length] + (i % 13));
+		}
+		pr = cp.parse();
+		ParserValues parallel = cp.parseParallel(4, 64);
+		assertEquals(new ArrayList<>(pr.getCategoryCount().entrySet()), new ArrayList<>(parallel.getCategoryCount().entrySet()));
+		assertEquals(new ArrayList<>(pr.getCategoryOrderedList()), new ArrayList<>(parallel.getCategoryOrderedList()));
+	}
+
+
+	/**
+	 * Test to check large ranges, which are merged by the partition tasks, give the same result as parse() with duplicates that
+	 * first occur in a later range
+	 */
+	@Test
+	public void testParseParallel_partitionedMerge() throws IOException {
+		String[] categories = new String[] {"PERSON", "PLACE", "FOOD", "ANIMAL", "COMPUTER", "OTHER"};
+		for (int i = 0; i < 60000; i++) {
+			int sub = i < 30000 ? i : (i * 7) % 45000;
+			writeLineToTestFile(categories[(i / 1000) % categories.length] + " sub category " + sub);
+		}
+		pr = cp.parse();
+		for (int parallelism : new int[] {1, 3, 8}) {
+			ParserValues parallel = cp.parseParallel(parallelism, 128 * 1024);
+			assertEquals(new ArrayList<>(pr.getCategoryCount().entrySet()), new ArrayList<>(parallel.getCategoryCount().entrySet()));
+			assertEquals(new ArrayList<>(pr.getCategoryOrderedList()), new ArrayList<>(parallel.getCategoryOrderedList()));
+			assertEquals(pr.getCategoryOrderedList().size(), parallel.getCategoryOrderedList().size());
+			//The last line, its sub category occurred in the first half with the illegal category FOOD.
+			assertTrue(parallel.getCategoryOrderedList().contains("OTHER sub category 14993"));
+			assertFalse(parallel.getCategoryOrderedList().contains("FOOD sub category 0"));
+		}
+	}
+
+
+	/**
+	 * Test to check the byte arena dedup indexes give the same result as parse(), for the mapped and the parallel parse
+	 */
+	@Test
+	public void testParse_arenaDedupIndex() throws IOException {
+		String[] categories = new String[] {"PERSON", "PLACE", "FOOD", "ANIMAL", "COMPUTER", "OTHER"};
+		for (int i = 0; i < 20000; i++) {
+			writeLineToTestFile(categories[i % categories.length] + " sub category " + (i % 7919));
+		}
+		pr = cp.parse();
+		for (DedupIndexType type : new DedupIndexType[] {DedupIndexType.ARENA, DedupIndexType.OFF_HEAP_ARENA}) {
+			cp.setDedupIndexType(type);
+			for (ParserValues arena : new ParserValues[] {cp.parseMapped(), cp.parseParallel(4, 4096)}) {
+				assertEquals(new ArrayList<>(pr.getCategoryCount().entrySet()), new ArrayList<>(arena.getCategoryCount().entrySet()));
+				assertEquals(new ArrayList<>(pr.getCategoryOrderedList()), new ArrayList<>(arena.getCategoryOrderedList()));
+				assertEquals(pr.getCategoryOrderedList().size(), arena.getCategoryOrderedList().size());
+				assertTrue(arena.getCategoryOrderedList().contains("PLACE sub category 7"));
+				assertFalse(arena.getCategoryOrderedList().contains("FOOD sub category 2"));
+			}
+		}
+	}
+	
+
+	/**
+	 * Test to check the approximate parse estimates distinct counts within its error bound and keeps the count order rules
+	 */
+	@Test
+	public void testParseApproximate_withinErrorBound() throws IOException {
+		for (int i = 0; i < 30000; i++) {
+			writeLineToTestFile("PERSON person " + (i % 20000));
+			writeLineToTestFile("PLACE place " + (i % 50));
+		}
+		writeLineToTestFile("FOOD Steak");
+		pr = cp.parseApproximate();
+		assertTrue(pr.isApproximate());
+		assertTrue(pr.getCategoryOrderedList().isEmpty());
+		assertTrue(Math.abs(pr.getCountforCategory("PERSON") - 20000) <= pr.getErrorBoundforCategory("PERSON"));
+		assertEquals(50, pr.getCountforCategory("PLACE"));
+		assertEquals(0, pr.getCountforCategory("OTHER"));
+		assertEquals("PERSON", pr.getCategoryCount().keySet().iterator().next());
+		assertFalse(cp.parse().isApproximate());
+	}
+	
+
 }
@@ -0,0 +1,205 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.InputCompression;
+import com.project.LineVisitor;
+import com.project.ParserValues;
+import com.project.PipelinedBlockReader;
+
+
+
+public class TestCompressedInput {
+
+	static final String TEXT = "PERSON Bob Jones\r\nPLACE Washington\nFOOD Steak\rPERSON Bob Jones\n\nANIMAL Dog\nCOMPUTER Mac\nOTHER Tree";
+	File plainFile;
+	File compressedFile;
+
+	/**
+	 * Create a plain text file before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		plainFile = new File("compressedTestPlain.txt");
+		compressedFile = new File("compressedTestInput.gz");
+		write(plainFile, TEXT);
+	}
+
+	/**
+	 * Delete the plain and the compressed file after each test
+	 */
+	@After
+	public void afterTest(){
+		plainFile.delete();
+		compressedFile.delete();
+	}
+
+	/**
+	 * Test to check parse() reads a gzip file directly with the same result as the plain file
+	 */
+	@Test
+	public void testParse_gzipSameAsPlain() throws IOException {
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(compressedFile))) {
+			out.write(TEXT.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(InputCompression.GZIP, InputCompression.detect(compressedFile));
+		assertEquals(InputCompression.NONE, InputCompression.detect(plainFile));
+		ParserValues plain = new CategorySetParser(LEGAL_VALUES, plainFile).parse();
+		ParserValues compressed = new CategorySetParser(LEGAL_VALUES, compressedFile).parse();
+		assertSameValues(plain, compressed);
+		assertEquals(1, compressed.getCountforCategory("PERSON"));
+		assertEquals(5, compressed.getCategoryOrderedList().size());
+	}
+
+	/**
+	 * Test to check a gzip file of another charset than UTF-8 is decoded with the charset of setCharset() like the plain file
+	 */
+	@Test
+	public void testParse_gzipWithCharset() throws IOException {
+		byte[] latin1 = "PERSON M\u00fcller\nPLACE Malm\u00f6\nPERSON M\u00fcller\nFOOD Stra\u00dfe\n".getBytes(StandardCharsets.ISO_8859_1);
+		try (OutputStream out = new FileOutputStream(plainFile)) {
+			out.write(latin1);
+		}
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(compressedFile))) {
+			out.write(latin1);
+		}
+		CategorySetParser plainParser = new CategorySetParser(LEGAL_VALUES, plainFile);
+		plainParser.setCharset(StandardCharsets.ISO_8859_1);
+		CategorySetParser compressedParser = new CategorySetParser(LEGAL_VALUES, compressedFile);
+		compressedParser.setCharset(StandardCharsets.ISO_8859_1);
+		ParserValues plain = plainParser.parse();
+		ParserValues compressed = compressedParser.parse();
+		assertSameValues(plain, compressed);
+		assertTrue(compressed.getCategoryOrderedList().contains("PERSON M\u00fcller"));
+		assertTrue(compressed.getCategoryOrderedList().contains("PLACE Malm\u00f6"));
+		assertEquals(1, compressed.getCountforCategory("PERSON"));
+	}
+
+	/**
+	 * Test to check every entry of a zip file is parsed and an entry without last line terminator does not join the next entry
+	 */
+	@Test
+	public void testParse_zipEntries() throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(compressedFile))) {
+			out.putNextEntry(new ZipEntry("first.txt"));
+			out.write("PERSON Bob Jones\nPLACE Washington".getBytes(StandardCharsets.UTF_8));
+			out.putNextEntry(new ZipEntry("second.txt"));
+			out.write("PLACE Texas\nPERSON Bob Jones\n".getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(InputCompression.ZIP, InputCompression.detect(compressedFile));
+		ParserValues values = new CategorySetParser(LEGAL_VALUES, compressedFile).parse();
+		assertEquals(1, values.getCountforCategory("PERSON"));
+		assertEquals(2, values.getCountforCategory("PLACE"));
+		assertTrue(values.getCategoryOrderedList().contains("PLACE Washington"));
+	}
+
+	/**
+	 * Test to check lines and line terminators that are cut by block boundaries are assembled for every block size
+	 */
+	@Test
+	public void testScan_linesAcrossBlocks() throws IOException {
+		byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+		final List<String> expected = collectLines(bytes, bytes.length, 2);
+		assertEquals(8, expected.size());
+		for (int blockSize = 1; blockSize <= 8; blockSize++) {
+			assertEquals("block size " + blockSize, expected, collectLines(bytes, blockSize, 2));
+		}
+	}
+
+	private static List<String> collectLines(byte[] bytes, int blockSize, int blocks) throws IOException{
+		final List<String> lines = new ArrayList<>();
+		PipelinedBlockReader.scan(new ByteArrayInputStream(bytes), new LineVisitor() {
+			@Override
+			public void visitLine(ByteBuffer buffer, int start, int end) {
+				byte[] line = new byte[end - start];
+				for (int i = 0; i < line.length; i++) {
+					line[i] = buffer.get(start + i);
+				}
+				lines.add(new String(line, StandardCharsets.UTF_8));
+			}
+		}, blockSize, blocks);
+		return lines;
+	}
+
+	/**
+	 * Test to check a zip file with an entry name that is not UTF-8 fails with an IOException instead of stopping the reader thread
+	 * and leaving the parse waiting for its blocks
+	 */
+	@Test(timeout = 10000)
+	public void testParse_malformedZipEntryName() throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(compressedFile), StandardCharsets.ISO_8859_1)) {
+			out.putNextEntry(new ZipEntry("caf\u00e9.txt"));
+			out.write("PERSON Bob Jones\n".getBytes(StandardCharsets.UTF_8));
+		}
+		try {
+			new CategorySetParser(LEGAL_VALUES, compressedFile).parse();
+			fail("Malformed zip was parsed");
+		} catch (IOException e) {
+			//Expected.
+		}
+	}
+
+	/**
+	 * Test to check an unchecked exception of the stream is thrown on the calling thread
+	 */
+	@Test(timeout = 10000, expected = IllegalStateException.class)
+	public void testScan_uncheckedStreamFailure() throws IOException {
+		InputStream failing = new InputStream() {
+			@Override
+			public int read() {
+				throw new IllegalStateException("Stream failed");
+			}
+		};
+		PipelinedBlockReader.scan(failing, new LineVisitor() {
+			@Override
+			public void visitLine(ByteBuffer buffer, int start, int end) {
+			}
+		}, 16, 2);
+	}
+
+	/**
+	 * Test to check a truncated gzip file fails with an IOException from the reader thread
+	 */
+	@Test(expected = IOException.class)
+	public void testParse_truncatedGzip() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			text.append("PERSON ").append(i).append('\n');
+		}
+		File full = new File("compressedTestFull.gz");
+		try {
+			try (OutputStream out = new GZIPOutputStream(new FileOutputStream(full))) {
+				out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+			}
+			byte[] bytes = java.nio.file.Files.readAllBytes(full.toPath());
+			try (FileOutputStream out = new FileOutputStream(compressedFile)) {
+				out.write(bytes, 0, bytes.length / 2);
+			}
+		} finally {
+			full.delete();
+		}
+		new CategorySetParser(LEGAL_VALUES, compressedFile).parse();
+	}
+
+}
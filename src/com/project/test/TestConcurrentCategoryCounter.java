@@ -0,0 +1,138 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.project.CategoryIngestServer;
+import com.project.ConcurrentCategoryCounter;
+import com.project.ParserValues;
+
+
+
+public class TestConcurrentCategoryCounter {
+
+	static final String[] CATEGORIES = new String[] { "PERSON", "PLACE", "ANIMAL", "COMPUTER", "OTHER", "FOOD"};
+
+	private static int sum(ParserValues values){
+		int sum = 0;
+		for (int count : values.getCategoryCount().values()) {
+			sum += count;
+		}
+		return sum;
+	}
+
+	/**
+	 * Test to check lines added by many threads at the same time are counted once, and every snapshot taken meanwhile has counts
+	 * that agree with its category pairs
+	 */
+	@Test
+	public void testAdd_concurrentWritersAndReaders() throws Exception {
+		final ConcurrentCategoryCounter counter = new ConcurrentCategoryCounter(LEGAL_VALUES);
+		final int threads = 8;
+		final int lines = 20000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger counted = new AtomicInteger();
+		List<Thread> writers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final int offset = t;
+			Thread writer = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < lines; i++) {
+						//Every thread adds the same lines in a different order.
+						int line = (i * 7 + offset * 1009) % lines;
+						if (counter.add(CATEGORIES[line % CATEGORIES.length] + " sub " + line)) {
+							counted.incrementAndGet();
+						}
+					}
+					counter.add("PERSON");
+					counter.add("PERSON  ");
+				}
+			};
+			writer.start();
+			writers.add(writer);
+		}
+		start.countDown();
+		boolean running = true;
+		while (running) {
+			running = false;
+			for (Thread writer : writers) {
+				running |= writer.isAlive();
+			}
+			ParserValues snapshot = counter.snapshot();
+			assertEquals(snapshot.getCategoryOrderedList().size(), sum(snapshot));
+		}
+		int legalLines = lines - lines / CATEGORIES.length;
+		assertEquals(legalLines, counted.get());
+		assertEquals(legalLines, counter.size());
+		ParserValues values = counter.snapshot();
+		assertEquals(legalLines, values.getCategoryOrderedList().size());
+		assertEquals(legalLines, new HashSet<>(values.getCategoryOrderedList()).size());
+		for (String category : LEGAL_VALUES) {
+			assertEquals(counter.getCount(category), values.getCountforCategory(category));
+		}
+		assertEquals(0, counter.getCount("FOOD"));
+		assertTrue(values.getCategoryOrderedList().contains("PLACE sub 1"));
+		assertFalse(values.getCategoryOrderedList().contains("FOOD sub 5"));
+	}
+
+	/**
+	 * Test to check a snapshot does not change when more lines are added
+	 */
+	@Test
+	public void testSnapshot_fixedView() {
+		ConcurrentCategoryCounter counter = new ConcurrentCategoryCounter(LEGAL_VALUES);
+		counter.add("PERSON Bob Jones");
+		ParserValues first = counter.snapshot();
+		counter.add("PLACE Texas");
+		assertEquals(1, first.getCategoryOrderedList().size());
+		assertFalse(first.getCategoryOrderedList().contains("PLACE Texas"));
+		assertEquals(0, first.getCountforCategory("PLACE"));
+		assertEquals(1, counter.snapshot().getCountforCategory("PLACE"));
+	}
+
+	/**
+	 * Test to check lines ingested over the loopback socket are counted and the counts can be queried
+	 */
+	@Test
+	public void testIngestServer() throws IOException {
+		ConcurrentCategoryCounter counter = new ConcurrentCategoryCounter(LEGAL_VALUES);
+		try (CategoryIngestServer server = new CategoryIngestServer(counter, 0)) {
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+				OutputStream out = socket.getOutputStream();
+				out.write("INGEST\nPERSON Bob Jones\nPLACE Texas\nFOOD Steak\nPERSON Bob Jones\n".getBytes(StandardCharsets.UTF_8));
+				socket.shutdownOutput();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				assertEquals("OK 4 2", reader.readLine());
+			}
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+				socket.getOutputStream().write("COUNTS\n".getBytes(StandardCharsets.UTF_8));
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				assertEquals("PERSON 1", reader.readLine());
+				assertEquals("PLACE 1", reader.readLine());
+			}
+		}
+		assertEquals(2, counter.size());
+	}
+
+}
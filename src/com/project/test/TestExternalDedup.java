@@ -0,0 +1,152 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.LineClass;
+import com.project.ParserValues;
+
+
+
+public class TestExternalDedup {
+
+	static final String[] CATEGORIES = new String[] { "PLACE", "FOOD", "PERSON", "OTHER", "ANIMAL", "PERSON"};
+	File inputFile;
+	File spillDirectory;
+
+	/**
+	 * Create an empty spill directory before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		spillDirectory = Files.createTempDirectory("spill").toFile();
+	}
+
+	/**
+	 * Delete the input file and the spill directory after each test
+	 */
+	@After
+	public void afterTest(){
+		if (inputFile != null) {
+			inputFile.delete();
+		}
+		deleteDirectory(spillDirectory);
+	}
+
+	/**
+	 * Lines of several categories with repeats, illegal categories and malformed lines.
+	 */
+	private static String input(int lines){
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			input.append(CATEGORIES[i % CATEGORIES.length]).append(" name ").append((i * 7919) % (lines / 3));
+			input.append(i % 97 == 0 ? "\r\n\n" : (i % 89 == 0 ? "\nPERSON \r" : "\n"));
+		}
+		return input.toString();
+	}
+
+	private void write(String input, boolean gzip) throws IOException{
+		inputFile = File.createTempFile("external", gzip ? ".txt.gz" : ".txt");
+		try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(inputFile)) : new FileOutputStream(inputFile)) {
+			out.write(input.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private void assertSameResult(ParserValues expected, ParserValues actual){
+		assertSameValues(expected, actual);
+		for (LineClass lineClass : LineClass.values()) {
+			assertEquals(lineClass.toString(), expected.getValidationReport().getCount(lineClass), actual.getValidationReport().getCount(lineClass));
+		}
+	}
+
+	/**
+	 * Test to check a budget far below the distinct lines spills and merges to the result of parse(), and leaves no run files behind
+	 */
+	@Test
+	public void testParseExternal_spilled() throws IOException {
+		write(input(30000), false);
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		parser.setSpillDirectory(spillDirectory);
+		ParserValues expected = parser.parse();
+		//About 25 distinct lines per run, so the dedup runs need more than one merge pass.
+		ParserValues values = parser.parseExternal(4096);
+		assertSameResult(expected, values);
+		assertEquals(1, spillDirectory.listFiles().length);
+		//The spilled list can be iterated again.
+		assertEquals(new ArrayList<>(expected.getCategoryOrderedList()), new ArrayList<>(values.getCategoryOrderedList()));
+		assertTrue(values.getCategoryOrderedList().contains(expected.getCategoryOrderedList().iterator().next()));
+	}
+
+	/**
+	 * Test to check iterations that stop early and contains() leave no spill file open, and close() deletes the spill file
+	 */
+	@Test
+	public void testParseExternal_earlyExitAndClose() throws IOException {
+		write(input(30000), false);
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		parser.setSpillDirectory(spillDirectory);
+		ParserValues values = parser.parseExternal(4096);
+		String first = values.getCategoryOrderedList().iterator().next();
+		File descriptors = new File("/proc/self/fd");
+		int open = descriptors.isDirectory() ? descriptors.list().length : 0;
+		for (int i = 0; i < 500; i++) {
+			for (String line : values.getCategoryOrderedList()) {
+				if (line.equals(first)) {
+					break;
+				}
+			}
+			assertTrue(values.getCategoryOrderedList().contains(first));
+		}
+		if (descriptors.isDirectory()) {
+			assertTrue(descriptors.list().length < open + 50);
+		}
+		assertFalse(values.getCategoryOrderedList().contains("PERSON nobody"));
+
+		assertEquals(1, spillDirectory.listFiles().length);
+		values.close();
+		assertEquals(0, spillDirectory.listFiles().length);
+		try {
+			values.getCategoryOrderedList().iterator().next();
+			fail("Closed values were read");
+		} catch (IllegalStateException e) {
+			//Expected.
+		}
+		values.close();
+	}
+
+	/**
+	 * Test to check input within the budget is parsed in memory, and compressed input is recognized
+	 */
+	@Test
+	public void testParseExternal_inMemoryAndCompressed() throws IOException {
+		String input = input(5000);
+		write(input, false);
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		parser.setSpillDirectory(spillDirectory);
+		ParserValues expected = parser.parse();
+		assertSameResult(expected, parser.parseExternal());
+		assertEquals(0, spillDirectory.listFiles().length);
+		inputFile.delete();
+
+		write(input, true);
+		parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		parser.setSpillDirectory(spillDirectory);
+		assertSameResult(expected, parser.parseExternal(2048));
+	}
+
+}
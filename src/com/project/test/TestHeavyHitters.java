@@ -0,0 +1,96 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.project.CategorySetParser;
+import com.project.HeavyHitter;
+import com.project.ParserValues;
+
+
+
+public class TestHeavyHitters {
+
+	private static File write(String input) throws IOException{
+		File file = File.createTempFile("heavy", ".txt");
+		file.deleteOnExit();
+		return Fixtures.write(file, input);
+	}
+
+	/**
+	 * Test to check the counts are exact on every parse path while the distinct lines fit in the sketch, and that duplicates and
+	 * only legal lines are counted
+	 */
+	@Test
+	public void testParsePaths_exactBelowCapacity() throws IOException {
+		File input = write("PERSON Bob\nPLACE Texas\nPERSON Bob\nFRUIT Apple\nFRUIT Apple\nFRUIT Apple\nPERSON Bob\nPLACE Texas\n"
+				+ "ANIMAL Cat\nno separator\n");
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, input);
+		assertTrue(parser.parse().getHeavyHitters(10).isEmpty());
+		parser.setHeavyHitterCapacity(16);
+		CategorySetParser decoding = new CategorySetParser(LEGAL_VALUES, input);
+		decoding.setHeavyHitterCapacity(16);
+		decoding.setCharset(StandardCharsets.ISO_8859_1);
+
+		for (ParserValues values : new ParserValues[] { parser.parse(), parser.parseMapped(), parser.parseParallel(2, 16),
+				parser.parseExternal(), decoding.parse()}) {
+			List<HeavyHitter> top = values.getHeavyHitters(10);
+			assertEquals(3, top.size());
+			assertEquals("PERSON Bob=3", top.get(0).toString());
+			assertEquals("PERSON", top.get(0).getCategory());
+			assertEquals("Bob", top.get(0).getSubCategory());
+			assertEquals("PLACE Texas=2", top.get(1).toString());
+			assertEquals("ANIMAL Cat=1", top.get(2).toString());
+			assertEquals(6, values.getHeavyHitterLines());
+			assertEquals(2, values.getHeavyHitters(2).size());
+			//The distinct counts still count every line once.
+			assertEquals(1, values.getCountforCategory("PERSON"));
+		}
+	}
+
+	/**
+	 * Test to check a sketch much smaller than the number of distinct lines finds the most repeated lines of a skewed input and
+	 * that the true count of every listed line lies within its bounds, also after the sketches of parallel chunks were merged
+	 */
+	@Test
+	public void testSkewedInput_boundsHold() throws IOException {
+		Random random = new Random(11);
+		Map<String, Long> expected = new HashMap<>();
+		StringBuilder input = new StringBuilder();
+		int lines = 200000;
+		for (int i = 0; i < lines; i++) {
+			//Sub-category n occurs with a probability of about 1 / n, sub-category 0 about a tenth of the time.
+			int sub = (int) Math.floor(Math.pow(50000, random.nextDouble())) - 1;
+			String line = LEGAL_VALUES[sub % LEGAL_VALUES.length] + " item" + sub;
+			input.append(line).append('\n');
+			Long count = expected.get(line);
+			expected.put(line, count == null ? 1 : count + 1);
+		}
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, write(input.toString()));
+		parser.setHeavyHitterCapacity(200);
+
+		for (ParserValues values : new ParserValues[] { parser.parseMapped(), parser.parseParallel(4, 64 * 1024)}) {
+			assertEquals(lines, values.getHeavyHitterLines());
+			List<HeavyHitter> top = values.getHeavyHitters(200);
+			assertEquals(200, top.size());
+			for (HeavyHitter hitter : top) {
+				long count = expected.containsKey(hitter.getLine()) ? expected.get(hitter.getLine()) : 0;
+				assertTrue(hitter.toString(), hitter.getMinimumCount() <= count && count <= hitter.getCount());
+			}
+			for (int rank = 0; rank < 10; rank++) {
+				assertEquals(LEGAL_VALUES[rank % LEGAL_VALUES.length] + " item" + rank, values.getHeavyHitters(10).get(rank).getLine());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.IncrementalCategorySetParser;
+import com.project.LineClass;
+import com.project.ParserValues;
+
+
+
+public class TestIncrementalCategorySetParser {
+
+	File testFile;
+	IncrementalCategorySetParser icp;
+
+	private void assertSameAsFullParse(ParserValues pr) throws IOException{
+		assertSameValues(new CategorySetParser(LEGAL_VALUES, testFile).parse(), pr);
+	}
+
+	/**
+	 * Create an empty test file and the incremental parser before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		testFile = new File("incrementalTestFile.txt");
+		testFile.delete();
+		testFile.createNewFile();
+		icp = new IncrementalCategorySetParser(LEGAL_VALUES, testFile);
+	}
+
+	/**
+	 * Delete test file after each test
+	 */
+	@After
+	public void afterTest(){
+		testFile.delete();
+	}
+
+	/**
+	 * Test to check appended lines are added to the values of the previous call
+	 */
+	@Test
+	public void testParse_appendedLines() throws IOException {
+		append(testFile, "PERSON Bob Jones\nPLACE Washington\nPERSON Mary\n");
+		assertSameAsFullParse(icp.parse());
+		long offset = icp.getOffset();
+		append(testFile, "PERSON Bob Jones\nANIMAL Dog\nFOOD Steak\nPLACE Texas\n");
+		assertSameAsFullParse(icp.parse());
+		assertTrue(icp.getOffset() > offset);
+	}
+
+	/**
+	 * Test to check a line without line terminator is only counted once it is complete
+	 */
+	@Test
+	public void testParse_incompleteLastLine() throws IOException {
+		append(testFile, "PERSON Bob\nPERSON Ma");
+		assertEquals(1, icp.parse().getCountforCategory("PERSON"));
+		append(testFile, "ry\n");
+		ParserValues pr = icp.parse();
+		assertEquals(2, pr.getCountforCategory("PERSON"));
+		assertTrue(pr.getCategoryOrderedList().contains("PERSON Mary"));
+	}
+
+	/**
+	 * Test to check a "\r\n" split over two calls ends one line and does not add an empty line to the validation report
+	 */
+	@Test
+	public void testParse_splitCarriageReturnLineFeed() throws IOException {
+		append(testFile, "PERSON Bob Jones\r");
+		assertEquals(0, icp.parse().getCountforCategory("PERSON"));
+		append(testFile, "\nPLACE Texas\r");
+		assertEquals(1, icp.parse().getCountforCategory("PERSON"));
+		append(testFile, "\n");
+		ParserValues pr = icp.parse();
+		assertSameAsFullParse(pr);
+		assertEquals(0, pr.getValidationReport().getCount(LineClass.EMPTY));
+		assertEquals(2, pr.getValidationReport().getCount(LineClass.VALID));
+		assertEquals(testFile.length(), icp.getOffset());
+	}
+
+	/**
+	 * Test to check a truncated and rewritten file is parsed again from the start
+	 */
+	@Test
+	public void testParse_truncatedFile() throws IOException {
+		append(testFile, "PERSON Bob Jones\nPLACE Washington\nPERSON Mary\n");
+		icp.parse();
+		testFile.delete();
+		append(testFile, "ANIMAL Dog\n");
+		ParserValues pr = icp.parse();
+		assertEquals(0, pr.getCountforCategory("PERSON"));
+		assertEquals(1, pr.getCountforCategory("ANIMAL"));
+		assertSameAsFullParse(pr);
+	}
+
+	/**
+	 * Test to check a file replaced by a longer file with different content is parsed again from the start
+	 */
+	@Test
+	public void testParse_replacedFile() throws IOException {
+		append(testFile, "PERSON Bob\n");
+		icp.parse();
+		write(testFile, "PLACE Texas\nPLACE Washington\n");
+		ParserValues pr = icp.parse();
+		assertEquals(0, pr.getCountforCategory("PERSON"));
+		assertEquals(2, pr.getCountforCategory("PLACE"));
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+
+import com.project.CategorySetParser;
+import com.project.LineClass;
+import com.project.ParserValues;
+import com.project.ValidationReport;
+
+
+
+public class TestLineValidation {
+
+	static final String INPUT = "PERSON Bob Jones\r\n"
+			+ "\n"
+			+ "  PERSON Mary\n"
+			+ "\tPLACE Texas\r"
+			+ "PERSON\n"
+			+ "PLACE   \r\n"
+			+ "FOOD Steak\n"
+			+ "PERSON  Bob\n"
+			+ "PLACE Texas\n"
+			+ "PERSON Bob Jones";
+	File inputFile;
+
+	/**
+	 * Delete the input file after each test
+	 */
+	@After
+	public void afterTest(){
+		if (inputFile != null) {
+			inputFile.delete();
+		}
+	}
+
+	private void write(String input) throws IOException{
+		inputFile = Fixtures.write(File.createTempFile("validation", ".txt"), input);
+	}
+
+	/**
+	 * Stream that hands out at most three bytes per read, so lines cross the blocks of LineAssembler.
+	 */
+	private static ByteArrayInputStream trickle(byte[] bytes){
+		return new ByteArrayInputStream(bytes) {
+			@Override
+			public synchronized int read(byte[] buffer, int offset, int length) {
+				return super.read(buffer, offset, Math.min(length, 3));
+			}
+		};
+	}
+
+	private void assertClasses(ValidationReport report){
+		assertEquals(3, report.getCount(LineClass.VALID));
+		assertEquals(1, report.getCount(LineClass.EMPTY));
+		assertEquals(2, report.getCount(LineClass.LEADING_WHITESPACE));
+		assertEquals(1, report.getCount(LineClass.NO_SEPARATOR));
+		assertEquals(1, report.getCount(LineClass.BLANK_SUB_CATEGORY));
+		assertEquals(1, report.getCount(LineClass.ILLEGAL_CATEGORY));
+		assertEquals(1, report.getCount(LineClass.MULTIPLE_SEPARATORS));
+		assertEquals(6, report.getSkippedLines());
+		assertEquals(7, report.getSamples().size());
+	}
+
+	private void assertOffsets(ValidationReport report) throws IOException{
+		byte[] bytes = Files.readAllBytes(inputFile.toPath());
+		for (ValidationReport.Sample sample : report.getSamples()) {
+			byte[] line = sample.getLine().getBytes(StandardCharsets.UTF_8);
+			assertTrue(sample.toString(), sample.getOffset() >= 0);
+			assertArrayEquals(sample.toString(), line, Arrays.copyOfRange(bytes, (int) sample.getOffset(), (int) sample.getOffset() + line.length));
+		}
+	}
+
+	/**
+	 * Test to check every parse path classifies the lines the same way, keeps the counts of the parse rules and reports the byte
+	 * offsets of the offending lines
+	 */
+	@Test
+	public void testClasses_allParsePaths() throws IOException {
+		write(INPUT);
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		ParserValues values = parser.parse();
+		assertEquals(2, values.getCountforCategory("PERSON"));
+		assertEquals(1, values.getCountforCategory("PLACE"));
+		assertClasses(values.getValidationReport());
+		assertOffsets(values.getValidationReport());
+
+		//A charset that is decoded through a Reader knows no byte offsets.
+		CategorySetParser decodingParser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		decodingParser.setCharset(StandardCharsets.ISO_8859_1);
+		ParserValues decoded = decodingParser.parse();
+		assertEquals(values.getCategoryCount(), decoded.getCategoryCount());
+		assertClasses(decoded.getValidationReport());
+		for (ValidationReport.Sample sample : decoded.getValidationReport().getSamples()) {
+			assertEquals(-1, sample.getOffset());
+		}
+
+		byte[] bytes = INPUT.getBytes(StandardCharsets.UTF_8);
+		CategorySetParser smallBlocks = new CategorySetParser(LEGAL_VALUES, inputFile);
+		smallBlocks.setBlockSize(7);
+		for (ParserValues byteValues : new ParserValues[] {parser.parseMapped(), parser.parseParallel(3, 16),
+				parser.parseStream(trickle(bytes), false), parser.parseStream(trickle(bytes), true), smallBlocks.parseChannel()}) {
+			assertEquals(values.getCategoryCount(), byteValues.getCategoryCount());
+			assertClasses(byteValues.getValidationReport());
+			assertOffsets(byteValues.getValidationReport());
+		}
+	}
+
+	/**
+	 * Test to check the sample stays bounded and keeps distinct offending lines when most of the input is malformed
+	 */
+	@Test
+	public void testSample_bounded() throws IOException {
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			input.append(i % 10 == 0 ? "PERSON name " : "FOOD dish ").append(i).append('\n');
+		}
+		write(input.toString());
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		for (ParserValues values : new ParserValues[] {parser.parseMapped(), parser.parseParallel(4, 4096)}) {
+			ValidationReport report = values.getValidationReport();
+			assertEquals(18000, report.getCount(LineClass.ILLEGAL_CATEGORY));
+			assertEquals(2000, report.getCount(LineClass.VALID));
+			assertEquals(ValidationReport.SAMPLE_SIZE, report.getSamples().size());
+			Set<Long> offsets = new HashSet<>();
+			for (ValidationReport.Sample sample : report.getSamples()) {
+				assertEquals(LineClass.ILLEGAL_CATEGORY, sample.getLineClass());
+				assertTrue(sample.getLine().startsWith("FOOD dish "));
+				offsets.add(sample.getOffset());
+			}
+			assertEquals(ValidationReport.SAMPLE_SIZE, offsets.size());
+			assertOffsets(report);
+		}
+	}
+
+}
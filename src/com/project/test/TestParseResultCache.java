@@ -0,0 +1,123 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.ParseResultCache;
+import com.project.ParserValues;
+
+
+
+public class TestParseResultCache {
+
+	File directory;
+
+	/**
+	 * Create an empty directory for the inputs and the disk tier before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		directory = Files.createTempDirectory("cache").toFile();
+	}
+
+	/**
+	 * Delete the inputs and the disk tier after each test
+	 */
+	@After
+	public void afterTest(){
+		deleteDirectory(directory);
+	}
+
+	private File write(String name, String input, long modified) throws IOException{
+		File file = Fixtures.write(new File(directory, name), input);
+		file.setLastModified(modified);
+		return file;
+	}
+
+	/**
+	 * Test to check an unchanged file is a hit with the same result, and a changed file or other legal categories are parsed again
+	 */
+	@Test
+	public void testParse_hitsAndMisses() throws IOException {
+		File input = write("input.txt", "PERSON Bob\nPLACE Texas\nPERSON Bob\n", 1000000000000L);
+		ParseResultCache cache = new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES);
+		ParserValues first = cache.parse(LEGAL_VALUES, input);
+		assertSame(first, cache.parse(new String[] { "OTHER", "COMPUTER", "ANIMAL", "PLACE", "PERSON"}, input));
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+
+		ParserValues fewer = cache.parse(new String[] { "PERSON"}, input);
+		assertEquals(1, fewer.getCategoryCount().size());
+		assertEquals(2, cache.getMisses());
+
+		write("input.txt", "PERSON Bob\nPLACE Texas\nPERSON Joe\n", 1000000001000L);
+		ParserValues changed = cache.parse(LEGAL_VALUES, input);
+		assertEquals(2, changed.getCountforCategory("PERSON"));
+		assertEquals(3, cache.getMisses());
+		assertEquals(2, cache.size());
+	}
+
+	/**
+	 * Test to check the memory tier evicts the least recently used results to stay within its bound
+	 */
+	@Test
+	public void testParse_evictsLeastRecentlyUsed() throws IOException {
+		File[] inputs = new File[3];
+		for (int i = 0; i < inputs.length; i++) {
+			StringBuilder input = new StringBuilder();
+			for (int line = 0; line < 100; line++) {
+				input.append("PERSON name ").append(line).append('\n');
+			}
+			inputs[i] = write("input" + i + ".txt", input.toString(), 1000000000000L);
+		}
+		//Room for two results of about 100 lines each.
+		ParseResultCache cache = new ParseResultCache(30000);
+		cache.parse(LEGAL_VALUES, inputs[0]);
+		cache.parse(LEGAL_VALUES, inputs[1]);
+		cache.parse(LEGAL_VALUES, inputs[0]);
+		cache.parse(LEGAL_VALUES, inputs[2]);
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.size());
+		assertTrue(cache.getEstimatedBytes() <= 30000);
+		cache.parse(LEGAL_VALUES, inputs[0]);
+		assertEquals(2, cache.getHits());
+		cache.parse(LEGAL_VALUES, inputs[1]);
+		assertEquals(4, cache.getMisses());
+	}
+
+	/**
+	 * Test to check a new cache finds the result in the disk tier, unless the content changed with the same size and time
+	 */
+	@Test
+	public void testParse_diskTier() throws IOException {
+		File input = write("input.txt", "PERSON Bob\nPLACE Texas\nPERSON Bob Jones\n", 1000000000000L);
+		ParserValues expected = new CategorySetParser(LEGAL_VALUES, input).parse();
+		new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES, directory).parse(LEGAL_VALUES, input);
+
+		ParseResultCache restarted = new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES, directory);
+		ParserValues values = restarted.parse(LEGAL_VALUES, input);
+		assertEquals(1, restarted.getDiskHits());
+		assertEquals(0, restarted.getMisses());
+		assertEquals(expected.getCategoryCount(), values.getCategoryCount());
+		assertEquals(new ArrayList<>(expected.getCategoryOrderedList()), new ArrayList<>(values.getCategoryOrderedList()));
+
+		write("input.txt", "PERSON Bob\nPLACE Texas\nPERSON Joe Jones\n", 1000000000000L);
+		restarted = new ParseResultCache(ParseResultCache.DEFAULT_MAX_BYTES, directory);
+		values = restarted.parse(LEGAL_VALUES, input);
+		assertEquals(0, restarted.getDiskHits());
+		assertEquals(1, restarted.getMisses());
+		assertTrue(values.getCategoryOrderedList().contains("PERSON Joe Jones"));
+	}
+
+}
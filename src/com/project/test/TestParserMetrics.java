@@ -0,0 +1,132 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.ParserMetrics;
+import com.project.ParserMetrics.Counter;
+import com.project.ParserMetrics.Phase;
+import com.project.ParserValues;
+
+
+
+/**
+ * The tests only run with -Dcom.project.metrics=true, as in the second JUnit run of "ant test".
+ */
+public class TestParserMetrics {
+
+	static final int DISTINCT = 100;
+	static final int DUPLICATES = 20;
+	static final int MALFORMED = 10;
+	static final int ILLEGAL = 5;
+	File inputFile;
+
+	/**
+	 * Create an input file with known numbers of distinct, duplicate, malformed and illegal lines before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		assumeTrue(ParserMetrics.ENABLED);
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < DISTINCT; i++) {
+			input.append(i % 2 == 0 ? "PERSON name " : "PLACE city ").append(i).append('\n');
+		}
+		for (int i = 0; i < DUPLICATES; i++) {
+			input.append(i % 2 == 0 ? "PERSON name " : "PLACE city ").append(i).append('\n');
+		}
+		for (int i = 0; i < MALFORMED; i++) {
+			input.append(i % 2 == 0 ? "PERSON\n" : "PLACE   \n");
+		}
+		for (int i = 0; i < ILLEGAL; i++) {
+			input.append("FOOD dish ").append(i).append('\n');
+		}
+		inputFile = write(File.createTempFile("metrics", ".txt"), input.toString());
+	}
+
+	/**
+	 * Delete the input file after each test
+	 */
+	@After
+	public void afterTest(){
+		if (inputFile != null) {
+			inputFile.delete();
+		}
+	}
+
+	private static long[] counters(){
+		long[] counters = new long[Counter.values().length];
+		for (Counter counter : Counter.values()) {
+			counters[counter.ordinal()] = ParserMetrics.getCount(counter);
+		}
+		return counters;
+	}
+
+	private void assertLineCounts(long[] before){
+		long[] after = counters();
+		assertEquals(DISTINCT + DUPLICATES + MALFORMED + ILLEGAL, after[Counter.LINES_READ.ordinal()] - before[Counter.LINES_READ.ordinal()]);
+		assertEquals(MALFORMED, after[Counter.MALFORMED_LINES.ordinal()] - before[Counter.MALFORMED_LINES.ordinal()]);
+		assertEquals(ILLEGAL, after[Counter.ILLEGAL_CATEGORY_LINES.ordinal()] - before[Counter.ILLEGAL_CATEGORY_LINES.ordinal()]);
+		assertEquals(DUPLICATES, after[Counter.DUPLICATE_LINES.ordinal()] - before[Counter.DUPLICATE_LINES.ordinal()]);
+		assertEquals(inputFile.length(), after[Counter.BYTES_READ.ordinal()] - before[Counter.BYTES_READ.ordinal()]);
+		assertEquals(1, after[Counter.PARSES.ordinal()] - before[Counter.PARSES.ordinal()]);
+	}
+
+	/**
+	 * Test to check every exact parse path counts the same lines, bytes and parses
+	 */
+	@Test
+	public void testCounters_allParsePaths() throws IOException {
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		long[] before = counters();
+		parser.parse();
+		assertLineCounts(before);
+		before = counters();
+		parser.parseMapped();
+		assertLineCounts(before);
+		//Small ranges so that duplicates are found by the merge as well as inside a range.
+		before = counters();
+		parser.parseParallel(4, 256);
+		assertLineCounts(before);
+	}
+
+	/**
+	 * Test to check the phases are timed and the totals are visible in JMX and in the JSON summary
+	 */
+	@Test
+	public void testPhasesJmxAndJson() throws Exception {
+		long tokenize = ParserMetrics.getSamples(Phase.TOKENIZE);
+		long dedup = ParserMetrics.getSamples(Phase.DEDUP);
+		long read = ParserMetrics.getSamples(Phase.READ);
+		long sort = ParserMetrics.getSamples(Phase.SORT);
+		ParserValues values = new CategorySetParser(LEGAL_VALUES, inputFile).parseMapped();
+		values.getCategoryCount();
+		int lines = DISTINCT + DUPLICATES + MALFORMED + ILLEGAL;
+		assertEquals(lines / ParserMetrics.SAMPLE_INTERVAL, ParserMetrics.getSamples(Phase.TOKENIZE) - tokenize);
+		assertTrue(ParserMetrics.getSamples(Phase.DEDUP) - dedup >= 1);
+		assertEquals(1, ParserMetrics.getSamples(Phase.READ) - read);
+		assertEquals(1, ParserMetrics.getSamples(Phase.SORT) - sort);
+		assertTrue(ParserMetrics.getLatencyPercentile(Phase.READ, 0.5) > 0);
+		assertTrue(ParserMetrics.getLatencyPercentile(Phase.READ, 0.5) <= ParserMetrics.getLatencyPercentile(Phase.READ, 1));
+
+		Object linesRead = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(ParserMetrics.OBJECT_NAME), "LinesRead");
+		assertEquals(ParserMetrics.getCount(Counter.LINES_READ), ((Long) linesRead).longValue());
+		String json = ParserMetrics.toJson();
+		assertTrue(json.startsWith("{\"counters\":{\"linesRead\":"));
+		assertTrue(json.contains("\"phases\":{\"read\":{\"samples\":"));
+		assertTrue(json.endsWith("}}}"));
+	}
+
+}
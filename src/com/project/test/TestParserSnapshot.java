@@ -0,0 +1,240 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.DedupIndexType;
+import com.project.IncrementalCategorySetParser;
+import com.project.ParserSnapshot;
+import com.project.ParserValues;
+
+
+
+public class TestParserSnapshot {
+
+	File inputFile;
+	File snapshotFile;
+
+	/**
+	 * Create an empty input file before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		inputFile = new File("snapshotTestInput.txt");
+		snapshotFile = new File("snapshotTest.snapshot");
+		inputFile.delete();
+		inputFile.createNewFile();
+	}
+
+	/**
+	 * Delete the input and the snapshot file after each test
+	 */
+	@After
+	public void afterTest(){
+		inputFile.delete();
+		snapshotFile.delete();
+	}
+
+	/**
+	 * Test to check writers of the same snapshot at the same time each use their own temporary file, and that neither a complete
+	 * nor a failed write leaves a temporary file behind
+	 */
+	@Test
+	public void testSnapshot_concurrentAndFailedWrites() throws Exception {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			text.append(LEGAL_VALUES[i % 5]).append(" Name ").append(i).append('\n');
+		}
+		append(inputFile, text.toString());
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		parser.setDedupIndexType(DedupIndexType.ARENA);
+		final ParserValues values = parser.parseMapped();
+		List<Thread> writers = new ArrayList<>();
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		for (int t = 0; t < 4; t++) {
+			Thread writer = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 10; i++) {
+							ParserSnapshot.write(values, snapshotFile);
+						}
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				}
+			};
+			writer.start();
+			writers.add(writer);
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		assertEquals(Collections.emptyList(), failures);
+		assertSameValues(values, ParserSnapshot.load(snapshotFile).getValues());
+
+		Set<String> failing = new AbstractSet<String>() {
+			@Override
+			public Iterator<String> iterator() {
+				throw new IllegalStateException("Lines cannot be read");
+			}
+
+			@Override
+			public int size() {
+				return 1;
+			}
+		};
+		try {
+			ParserSnapshot.write(new ParserValues(values.getCategoryCount(), failing), snapshotFile);
+			fail("The write should fail");
+		} catch (IllegalStateException e) {
+			//Expected
+		}
+		assertSameValues(values, ParserSnapshot.load(snapshotFile).getValues());
+		for (String name : snapshotFile.getAbsoluteFile().getParentFile().list()) {
+			assertFalse(name, name.startsWith(snapshotFile.getName() + ".") && name.endsWith(".tmp"));
+		}
+	}
+
+	/**
+	 * Test to check a snapshot holds the same counts, count order and category pairs as the values it was written from
+	 */
+	@Test
+	public void testSnapshot_roundTrip() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			text.append(LEGAL_VALUES[i % 4]).append(" Name ").append(i % 997).append(" Straße\n");
+		}
+		text.append("FOOD Steak\nOTHER Tree\n");
+		append(inputFile, text.toString());
+		ParserValues values = new CategorySetParser(LEGAL_VALUES, inputFile).parse();
+		ParserSnapshot.write(values, snapshotFile);
+		ParserSnapshot snapshot = ParserSnapshot.load(snapshotFile);
+		assertSameValues(values, snapshot.getValues());
+		for (String line : values.getCategoryOrderedList()) {
+			assertTrue(snapshot.getValues().getCategoryOrderedList().contains(line));
+		}
+		assertFalse(snapshot.getValues().getCategoryOrderedList().contains("FOOD Steak"));
+		assertEquals(values.getTopCategories(2), snapshot.getValues().getTopCategories(2));
+		assertFalse(snapshot.getValues().isApproximate());
+	}
+
+	/**
+	 * Test to check an incremental parser continues from a snapshot with the same result as a parse of the whole file
+	 */
+	@Test
+	public void testSnapshot_resumeIncrementalParse() throws IOException {
+		append(inputFile, "PERSON Bob Jones\nPLACE Washington\nPERSON Mary\n");
+		IncrementalCategorySetParser first = new IncrementalCategorySetParser(LEGAL_VALUES, inputFile);
+		first.parse();
+		first.saveSnapshot(snapshotFile);
+
+		append(inputFile, "PERSON Bob Jones\nANIMAL Dog\nPLACE Texas\nOTHER Tree\n");
+		IncrementalCategorySetParser restarted = new IncrementalCategorySetParser(LEGAL_VALUES, inputFile);
+		restarted.loadSnapshot(snapshotFile);
+		assertEquals(first.getOffset(), restarted.getOffset());
+		ParserValues resumed = restarted.parse();
+		assertSameValues(new CategorySetParser(LEGAL_VALUES, inputFile).parse(), resumed);
+		assertEquals(2, resumed.getCountforCategory("PERSON"));
+	}
+
+	/**
+	 * Test to check a snapshot of a replaced input file is dropped on the next parse
+	 */
+	@Test
+	public void testSnapshot_replacedInput() throws IOException {
+		append(inputFile, "PERSON Bob Jones\nPLACE Washington\n");
+		IncrementalCategorySetParser first = new IncrementalCategorySetParser(LEGAL_VALUES, inputFile);
+		first.parse();
+		first.saveSnapshot(snapshotFile);
+
+		inputFile.delete();
+		append(inputFile, "ANIMAL Dog\nOTHER Tree\nANIMAL Cat\n");
+		IncrementalCategorySetParser restarted = new IncrementalCategorySetParser(LEGAL_VALUES, inputFile);
+		restarted.loadSnapshot(snapshotFile);
+		assertSameValues(new CategorySetParser(LEGAL_VALUES, inputFile).parse(), restarted.parse());
+	}
+
+	/**
+	 * Test to check a corrupted byte anywhere in the snapshot is detected by the checksum
+	 */
+	@Test
+	public void testSnapshot_corruptRejected() throws IOException {
+		append(inputFile, "PERSON Bob Jones\nPLACE Washington\nOTHER Tree\n");
+		ParserSnapshot.write(new CategorySetParser(LEGAL_VALUES, inputFile).parse(), snapshotFile);
+		long length = snapshotFile.length();
+		for (long position : new long[] {4, length / 2, length - 20, length - 1}) {
+			flipByte(position);
+			try {
+				ParserSnapshot.load(snapshotFile);
+				fail("Corrupt byte at " + position + " not detected");
+			} catch (ParserSnapshot.InvalidSnapshotException e) {
+				//expected
+			}
+			flipByte(position);
+		}
+		ParserSnapshot.load(snapshotFile);
+	}
+
+	/**
+	 * Test to check a truncated snapshot and a file that is not a snapshot are rejected
+	 */
+	@Test
+	public void testSnapshot_truncatedRejected() throws IOException {
+		append(inputFile, "PERSON Bob Jones\nPLACE Washington\n");
+		ParserSnapshot.write(new CategorySetParser(LEGAL_VALUES, inputFile).parse(), snapshotFile);
+		try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+			file.setLength(file.length() - 5);
+		}
+		try {
+			ParserSnapshot.load(snapshotFile);
+			fail("Truncated snapshot not detected");
+		} catch (ParserSnapshot.InvalidSnapshotException e) {
+			//expected
+		}
+		try {
+			ParserSnapshot.load(inputFile);
+			fail("Input file loaded as snapshot");
+		} catch (ParserSnapshot.InvalidSnapshotException e) {
+			//expected
+		}
+	}
+
+	/**
+	 * Test to check a snapshot is not restored by a parser with other legal categories
+	 */
+	@Test(expected = ParserSnapshot.InvalidSnapshotException.class)
+	public void testSnapshot_otherLegalCategories() throws IOException {
+		append(inputFile, "PERSON Bob Jones\n");
+		IncrementalCategorySetParser first = new IncrementalCategorySetParser(LEGAL_VALUES, inputFile);
+		first.parse();
+		first.saveSnapshot(snapshotFile);
+		new IncrementalCategorySetParser(new String[] {"PERSON", "PLACE"}, inputFile).loadSnapshot(snapshotFile);
+	}
+
+	private void flipByte(long position) throws IOException{
+		try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+			file.seek(position);
+			int value = file.read();
+			file.seek(position);
+			file.write(value ^ 0x40);
+		}
+	}
+
+}
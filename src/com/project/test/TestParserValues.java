@@ -0,0 +1,71 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.project.ParserValues;
+
+
+
+public class TestParserValues {
+
+	private static ParserValues randomValues(int categories, int maxCount, long seed){
+		Random random = new Random(seed);
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		for (int i = 0; i < categories; i++) {
+			categoryCount.put("CATEGORY" + i, random.nextInt(maxCount));
+		}
+		return new ParserValues(categoryCount, Collections.<String>emptySet());
+	}
+
+	/**
+	 * Test to check the top K categories are the first K entries of the full sort, including ties of the count
+	 */
+	@Test
+	public void testTopCategories_sameAsSortPrefix() {
+		ParserValues values = randomValues(2000, 50, 7);
+		List<Map.Entry<String, Integer>> sorted = new ArrayList<>(values.getCategoryCount().entrySet());
+		for (int k : new int[] {1, 2, 10, 99, 1999, 2000, 5000}) {
+			List<Map.Entry<String, Integer>> top = new ArrayList<>(values.getTopCategories(k).entrySet());
+			assertEquals(sorted.subList(0, Math.min(k, sorted.size())), top);
+		}
+		assertTrue(values.getTopCategories(0).isEmpty());
+	}
+
+	/**
+	 * Test to check the threshold query returns exactly the categories with a count of at least the threshold, in sort order
+	 */
+	@Test
+	public void testCategoriesWithCountAtLeast() {
+		ParserValues values = randomValues(500, 20, 11);
+		for (int threshold : new int[] {0, 5, 19, 20}) {
+			List<Map.Entry<String, Integer>> expected = new ArrayList<>();
+			for (Map.Entry<String, Integer> entry : values.getCategoryCount().entrySet()) {
+				if (entry.getValue() >= threshold) {
+					expected.add(entry);
+				}
+			}
+			assertEquals(expected, new ArrayList<>(values.getCategoriesWithCountAtLeast(threshold).entrySet()));
+		}
+	}
+
+	/**
+	 * Test to check the count of a category can be read before and after the sort
+	 */
+	@Test
+	public void testCountforCategory_beforeSort() {
+		ParserValues values = randomValues(100, 10, 3);
+		int count = values.getCountforCategory("CATEGORY42");
+		assertEquals(count, (int) values.getCategoryCount().get("CATEGORY42"));
+		assertSame(values.getCategoryCount(), values.getCategoryCount());
+	}
+
+}
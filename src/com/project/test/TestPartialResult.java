@@ -0,0 +1,214 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.project.CategorySetParser;
+import com.project.PartialResult;
+import com.project.ParserValues;
+
+
+
+public class TestPartialResult {
+
+	static final int PARTS = 3;
+	File directory;
+
+	/**
+	 * Create an empty directory for the parts before each test
+	 */
+	@Before
+	public void beforeTest() throws IOException{
+		directory = Files.createTempDirectory("partial").toFile();
+	}
+
+	/**
+	 * Delete the parts after each test
+	 */
+	@After
+	public void afterTest(){
+		deleteDirectory(directory);
+	}
+
+	private File write(String name, String input) throws IOException{
+		return Fixtures.write(new File(directory, name), input);
+	}
+
+	/**
+	 * Write PARTS overlapping parts of a corpus and the whole corpus, the last file is the whole corpus
+	 */
+	private File[] writeCorpus() throws IOException{
+		StringBuilder whole = new StringBuilder();
+		File[] files = new File[PARTS + 1];
+		for (int part = 0; part < PARTS; part++) {
+			StringBuilder input = new StringBuilder();
+			for (int line = 0; line < 2000; line++) {
+				//Every part repeats half of the lines of the part before it.
+				int name = part * 1000 + line;
+				input.append(LEGAL_VALUES[name % LEGAL_VALUES.length]).append(" name").append(name).append('\n');
+				if (line % 7 == 0) {
+					input.append("FRUIT apple").append(line).append('\n');
+				}
+			}
+			files[part] = write("part" + part + ".txt", input.toString());
+			whole.append(input);
+		}
+		files[PARTS] = write("whole.txt", whole.toString());
+		return files;
+	}
+
+	private static void assertSameCounts(ParserValues expected, ParserValues actual){
+		for (Map.Entry<String, Integer> entry : expected.getCategoryCount().entrySet()) {
+			assertEquals(entry.getKey(), entry.getValue().intValue(), actual.getCountforCategory(entry.getKey()));
+		}
+		assertEquals(new ArrayList<>(expected.getCategoryCount().values()), new ArrayList<>(actual.getCategoryCount().values()));
+	}
+
+	/**
+	 * Test to check the merge of the parts counts a line seen in two parts once, in any order of the parts
+	 */
+	@Test
+	public void testMerge_associativeAndCommutative() throws IOException {
+		File[] files = writeCorpus();
+		PartialResult[] parts = new PartialResult[PARTS];
+		for (int part = 0; part < PARTS; part++) {
+			parts[part] = PartialResult.exact(new CategorySetParser(LEGAL_VALUES, files[part]).parse());
+		}
+		PartialResult leftFirst = parts[0].merge(parts[1]).merge(parts[2]);
+		PartialResult rightFirst = parts[0].merge(parts[1].merge(parts[2]));
+		PartialResult reversed = parts[2].merge(parts[1]).merge(parts[0]);
+		PartialResult onePass = PartialResult.mergeAll(Arrays.asList(parts[1], parts[2], parts[0]));
+		assertEquals(leftFirst, rightFirst);
+		assertEquals(leftFirst, reversed);
+		assertEquals(leftFirst, onePass);
+		assertEquals(leftFirst, leftFirst.merge(parts[1]));
+
+		ParserValues whole = new CategorySetParser(LEGAL_VALUES, files[PARTS]).parse();
+		assertSameCounts(whole, onePass.toParserValues());
+		assertFalse(onePass.toParserValues().isApproximate());
+	}
+
+	/**
+	 * Test to check the wire encoding gives back an equal partial result and a damaged encoding is rejected
+	 */
+	@Test
+	public void testWire_roundTripAndDamage() throws IOException {
+		File[] files = writeCorpus();
+		ParserValues values = new CategorySetParser(LEGAL_VALUES, files[0]).parse();
+		PartialResult exact = PartialResult.exact(values);
+		byte[] bytes = exact.toBytes();
+		assertEquals(exact, PartialResult.fromBytes(bytes));
+		//2000 distinct lines in less than 8 bytes each.
+		assertTrue(bytes.length < 2000 * 8);
+
+		PartialResult sketch = PartialResult.sketch(values, 10);
+		assertEquals(sketch, PartialResult.fromBytes(sketch.toBytes()));
+
+		bytes[bytes.length / 2] ^= 1;
+		try {
+			PartialResult.fromBytes(bytes);
+			fail("Damaged encoding was accepted");
+		} catch (PartialResult.InvalidPartialResultException e) {
+			//Expected.
+		}
+		try {
+			PartialResult.fromBytes(Arrays.copyOf(bytes, 20));
+			fail("Truncated encoding was accepted");
+		} catch (PartialResult.InvalidPartialResultException e) {
+			//Expected.
+		}
+	}
+
+	/**
+	 * Test to check merged sketches estimate the counts of the whole corpus within their error bound
+	 */
+	@Test
+	public void testMerge_sketches() throws IOException {
+		File[] files = writeCorpus();
+		List<PartialResult> parts = new ArrayList<>();
+		for (int part = 0; part < PARTS; part++) {
+			parts.add(PartialResult.sketch(new CategorySetParser(LEGAL_VALUES, files[part]).parse(), 12));
+		}
+		ParserValues merged = PartialResult.mergeAll(parts).toParserValues();
+		ParserValues whole = new CategorySetParser(LEGAL_VALUES, files[PARTS]).parse();
+		assertTrue(merged.isApproximate());
+		for (String category : LEGAL_VALUES) {
+			int expected = whole.getCountforCategory(category);
+			assertTrue(category, Math.abs(merged.getCountforCategory(category) - expected) <= 3 * merged.getErrorBoundforCategory(category));
+		}
+		try {
+			parts.get(0).merge(PartialResult.exact(whole));
+			fail("Sketch was merged with an exact partial result");
+		} catch (IllegalArgumentException e) {
+			//Expected.
+		}
+	}
+
+	/**
+	 * Test to check the partial results of one process per part, merged by a coordinator process, give the counts of a parse of
+	 * the whole corpus
+	 */
+	@Test
+	public void testMerge_multiProcess() throws IOException, InterruptedException {
+		File[] files = writeCorpus();
+		List<Process> workers = new ArrayList<>();
+		String[] partials = new String[PARTS];
+		for (int part = 0; part < PARTS; part++) {
+			partials[part] = new File(directory, "part" + part + ".partial").getPath();
+			workers.add(start("--partial=" + partials[part], files[part].getPath()));
+		}
+		for (Process worker : workers) {
+			assertEquals(0, worker.waitFor());
+		}
+
+		List<String> command = new ArrayList<>();
+		command.add("--merge");
+		command.addAll(Arrays.asList(partials));
+		Process coordinator = start(command.toArray(new String[command.size()]));
+		String merged = read(coordinator.getInputStream());
+		assertEquals(0, coordinator.waitFor());
+
+		ParserValues whole = new CategorySetParser(LEGAL_VALUES, files[PARTS]).parse();
+		for (Map.Entry<String, Integer> entry : whole.getCategoryCount().entrySet()) {
+			assertTrue(entry.getKey(), merged.matches("(?s).*\\n" + entry.getKey() + " +" + entry.getValue() + "\\r?\\n.*"));
+		}
+	}
+
+	private static Process start(String... args) throws IOException{
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("com.project.CategoryCountApplication");
+		command.addAll(Arrays.asList(args));
+		return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	}
+
+	private static String read(InputStream in) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.junit.After;
+
+import com.project.CategoryCountApplication;
+import com.project.CategorySetParser;
+import com.project.DedupIndexType;
+import com.project.ParserValues;
+import com.project.ResultFormat;
+import com.project.ResultWriter;
+
+
+
+public class TestResultWriter {
+
+	File inputFile;
+	File outputFile;
+
+	/**
+	 * Delete the input and output files after each test
+	 */
+	@After
+	public void afterTest(){
+		if (inputFile != null) {
+			inputFile.delete();
+		}
+		if (outputFile != null) {
+			outputFile.delete();
+		}
+	}
+
+	/**
+	 * The output of CategoryCountApplication.displayResults before the writers, built with String.format.
+	 */
+	private static String formatted(ParserValues values){
+		StringBuilder expected = new StringBuilder(String.format("%-10s %s\n", "CATEGORY", "COUNT"));
+		for (Map.Entry<String, Integer> entry : values.getCategoryCount().entrySet()) {
+			expected.append(String.format("%-10s %d\n", entry.getKey(), entry.getValue()));
+		}
+		expected.append("\n");
+		for (String line : values.getCategoryOrderedList()) {
+			expected.append(line).append("\n");
+		}
+		return expected.toString();
+	}
+
+	private static String write(ParserValues values, ResultFormat format, int bufferSize) throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ResultWriter writer = format.create(Channels.newChannel(out), bufferSize)) {
+			writer.write(values);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static ParserValues values(String... lines){
+		LinkedHashMap<String, Integer> counts = new LinkedHashMap<>();
+		LinkedHashSet<String> pairs = new LinkedHashSet<>();
+		for (String line : lines) {
+			String category = line.substring(0, line.indexOf(' '));
+			counts.put(category, counts.containsKey(category) ? counts.get(category) + 1 : 1);
+			pairs.add(line);
+		}
+		return new ParserValues(counts, pairs);
+	}
+
+	/**
+	 * Test to check the text writer reproduces the printf format, from Strings and from the bytes of an arena, across buffer flushes.
+	 * The input files are ASCII because parse() reads them with the default charset
+	 */
+	@Test
+	public void testText_matchesFormat() throws IOException {
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			input.append(LEGAL_VALUES[i % LEGAL_VALUES.length]).append(" name ").append(i % 1700).append('\n');
+		}
+		inputFile = Fixtures.write(File.createTempFile("writer", ".txt"), input.toString());
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		ParserValues values = parser.parse();
+		String expected = formatted(values);
+		assertEquals(expected, write(values, ResultFormat.TEXT, 16));
+		assertEquals(expected, write(values, ResultFormat.TEXT, ResultWriter.DEFAULT_BUFFER_SIZE));
+
+		parser.setDedupIndexType(DedupIndexType.ARENA);
+		assertEquals(expected, write(parser.parseMapped(), ResultFormat.TEXT, 16));
+
+		outputFile = File.createTempFile("writer", ".out");
+		try (ResultWriter writer = ResultFormat.TEXT.create(FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE))) {
+			writer.write(values);
+		}
+		assertEquals(expected, new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8));
+
+		//Two, three and four byte characters, and an unpaired surrogate.
+		values = values("PERSON Zoë", "PLACE 東京 \uD83D\uDE00", "OTHER x\uD800y");
+		assertEquals(new String(formatted(values).getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), write(values, ResultFormat.TEXT, 16));
+	}
+
+	/**
+	 * Test to check displayResults writes through System.out, also after it was replaced, and keeps it open for the next result
+	 */
+	@Test
+	public void testDisplayResults_followsSystemOut() throws IOException {
+		PrintStream original = System.out;
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		ByteArrayOutputStream second = new ByteArrayOutputStream();
+		ParserValues values = values("PERSON Bob", "PLACE Texas", "PERSON Joe");
+		try {
+			System.setOut(new PrintStream(first, false, "UTF-8"));
+			System.out.print("before\n");
+			CategoryCountApplication.displayResults(values);
+			CategoryCountApplication.displayResults(values);
+			System.setOut(new PrintStream(second, false, "UTF-8"));
+			CategoryCountApplication.displayResults(values);
+		} finally {
+			System.setOut(original);
+		}
+		assertEquals("before\n" + formatted(values) + formatted(values), new String(first.toByteArray(), StandardCharsets.UTF_8));
+		assertEquals(formatted(values), new String(second.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Test to check the JSON lines escape quotes, backslashes and control characters, and the CSV fields are quoted when needed
+	 */
+	@Test
+	public void testStructured_escaping() throws IOException {
+		ParserValues values = values("PERSON Bob \"The Builder\"", "PERSON a\\b\tc", "PLACE Paris, Texas", "PLACE München\u0001");
+		assertEquals("{\"category\":\"PERSON\",\"count\":2}\n"
+				+ "{\"category\":\"PLACE\",\"count\":2}\n"
+				+ "{\"category\":\"PERSON\",\"subCategory\":\"Bob \\\"The Builder\\\"\"}\n"
+				+ "{\"category\":\"PERSON\",\"subCategory\":\"a\\\\b\\tc\"}\n"
+				+ "{\"category\":\"PLACE\",\"subCategory\":\"Paris, Texas\"}\n"
+				+ "{\"category\":\"PLACE\",\"subCategory\":\"München\\u0001\"}\n", write(values, ResultFormat.NDJSON, 16));
+		assertEquals("type,category,value\r\n"
+				+ "count,PERSON,2\r\n"
+				+ "count,PLACE,2\r\n"
+				+ "pair,PERSON,\"Bob \"\"The Builder\"\"\"\r\n"
+				+ "pair,PERSON,a\\b\tc\r\n"
+				+ "pair,PLACE,\"Paris, Texas\"\r\n"
+				+ "pair,PLACE,München\u0001\r\n", write(values, ResultFormat.CSV, 16));
+	}
+
+	/**
+	 * Test to check the byte path of the arena escapes like the String path
+	 */
+	@Test
+	public void testStructured_arenaBytes() throws IOException {
+		inputFile = Fixtures.write(File.createTempFile("writer", ".txt"), "PERSON Bob \"The Builder\"\nPLACE Paris, Texas\nPERSON a\\b\tc\nPLACE Munich\n");
+		CategorySetParser parser = new CategorySetParser(LEGAL_VALUES, inputFile);
+		ParserValues strings = parser.parse();
+		parser.setDedupIndexType(DedupIndexType.OFF_HEAP_ARENA);
+		ParserValues bytes = parser.parseMapped();
+		for (ResultFormat format : ResultFormat.values()) {
+			assertEquals(format.toString(), write(strings, format, 16), write(bytes, format, 16));
+		}
+	}
+
+}
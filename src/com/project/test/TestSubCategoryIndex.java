@@ -0,0 +1,101 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import com.project.CategorySetParser;
+import com.project.ParserValues;
+import com.project.SubCategoryIndex;
+
+
+
+public class TestSubCategoryIndex {
+
+	/**
+	 * Test to check the index of a parse lists the sub-categories per category in both orders and finds them by prefix
+	 */
+	@Test
+	public void testParse_listAndPrefix() throws IOException {
+		File input = File.createTempFile("index", ".txt");
+		input.deleteOnExit();
+		write(input, "PERSON Bob Jones\nPLACE Washington\nPERSON Mary\nPERSON Bob Jones\nANIMAL Cat\nPERSON Bobby\n"
+				+ "PLACE Texas\nFRUIT Bob\nPERSON Alice\n");
+		ParserValues values = new CategorySetParser(LEGAL_VALUES, input).parse();
+		SubCategoryIndex index = values.getSubCategoryIndex();
+		assertSame(index, values.getSubCategoryIndex());
+
+		assertEquals(Arrays.asList("Bob Jones", "Mary", "Bobby", "Alice"), index.getSubCategories("PERSON"));
+		assertEquals(Arrays.asList("Alice", "Bob Jones", "Bobby", "Mary"), index.getSortedSubCategories("PERSON"));
+		assertEquals(Arrays.asList("Washington", "Texas"), index.getSubCategories("PLACE"));
+		assertEquals(Arrays.asList("Bob Jones", "Bobby"), index.withPrefix("PERSON", "Bob"));
+		assertEquals(2, index.countWithPrefix("PERSON", "Bob"));
+		assertEquals(Arrays.asList("Bob Jones", "Bobby"), index.withPrefixInFirstOccurrenceOrder("PERSON", "Bob"));
+		assertEquals(index.getSubCategories("PERSON"), index.withPrefixInFirstOccurrenceOrder("PERSON", ""));
+		assertTrue(index.withPrefix("PERSON", "Carl").isEmpty());
+		assertEquals(Arrays.asList("Bob Jones", "Bobby"), index.range("PERSON", "B", "C"));
+		assertEquals(0, index.size("COMPUTER"));
+		assertTrue(index.getSubCategories("FRUIT").isEmpty());
+		assertEquals(new HashSet<>(Arrays.asList(LEGAL_VALUES)), new HashSet<>(index.getCategories()));
+	}
+
+	/**
+	 * Test to check prefix and range queries against a scan of all sub-categories
+	 */
+	@Test
+	public void testQueries_sameAsScan() {
+		Random random = new Random(5);
+		LinkedHashSet<String> lines = new LinkedHashSet<>();
+		for (int i = 0; i < 5000; i++) {
+			lines.add(LEGAL_VALUES[random.nextInt(2)] + " " + Integer.toString(random.nextInt(100000), 36));
+		}
+		LinkedHashMap<String, Integer> categoryCount = new LinkedHashMap<>();
+		for (String category : LEGAL_VALUES) {
+			categoryCount.put(category, 0);
+		}
+		SubCategoryIndex index = new ParserValues(categoryCount, lines).getSubCategoryIndex();
+
+		for (String category : new String[] { "PERSON", "PLACE"}) {
+			List<String> all = new ArrayList<>();
+			for (String line : lines) {
+				if (line.startsWith(category + " ")) {
+					all.add(line.substring(category.length() + 1));
+				}
+			}
+			assertEquals(all, index.getSubCategories(category));
+			for (String prefix : new String[] { "", "a", "1", "zz", "5k", "10"}) {
+				List<String> expected = new ArrayList<>();
+				for (String sub : all) {
+					if (sub.startsWith(prefix)) {
+						expected.add(sub);
+					}
+				}
+				assertEquals(expected, index.withPrefixInFirstOccurrenceOrder(category, prefix));
+				Collections.sort(expected);
+				assertEquals(expected, index.withPrefix(category, prefix));
+			}
+			List<String> expected = new ArrayList<>();
+			for (String sub : all) {
+				if (sub.compareTo("2") >= 0 && sub.compareTo("5b") < 0) {
+					expected.add(sub);
+				}
+			}
+			Collections.sort(expected);
+			assertEquals(expected, index.range(category, "2", "5b"));
+			assertEquals(index.getSortedSubCategories(category), index.range(category, null, null));
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.project.test;
+
+import static org.junit.Assert.*;
+import static com.project.test.Fixtures.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.project.ParserValues;
+import com.project.WindowedCategoryCounter;
+
+
+
+public class TestWindowedCategoryCounter {
+
+	static final long SECOND = 1000;
+
+	/**
+	 * Collects the emitted windows
+	 */
+	static final class Windows implements WindowedCategoryCounter.Listener {
+		final List<long[]> bounds = new ArrayList<>();
+		final List<ParserValues> values = new ArrayList<>();
+
+		@Override
+		public void windowClosed(long windowStart, long windowEnd, ParserValues values) {
+			bounds.add(new long[] { windowStart, windowEnd});
+			this.values.add(values);
+		}
+	}
+
+	/**
+	 * Test to check a sliding window counts distinct lines of its last slides and drops a bucket when it expires
+	 */
+	@Test
+	public void testSliding_expiresOldestBucket() {
+		Windows windows = new Windows();
+		WindowedCategoryCounter counter = new WindowedCategoryCounter(LEGAL_VALUES, 300 * SECOND, 60 * SECOND, windows);
+		assertTrue(counter.add("PERSON Bob", 10 * SECOND));
+		assertTrue(counter.add("PLACE Texas", 20 * SECOND));
+		assertFalse(counter.add("PERSON Bob", 30 * SECOND));
+		assertFalse(counter.add("FRUIT Apple", 30 * SECOND));
+		assertTrue(counter.add("PERSON Joe", 70 * SECOND));
+		assertEquals(1, windows.values.size());
+		assertArrayEquals(new long[] { -240 * SECOND, 60 * SECOND}, windows.bounds.get(0));
+		assertEquals(1, windows.values.get(0).getCountforCategory("PERSON"));
+
+		//Bob occurs again in a later slide and stays in the window when his first slide expires.
+		assertTrue(counter.add("PERSON Bob", 250 * SECOND));
+		counter.advanceTo(310 * SECOND);
+		assertEquals(5, windows.values.size());
+		ParserValues beforeExpiry = windows.values.get(4);
+		assertEquals(2, beforeExpiry.getCountforCategory("PERSON"));
+		assertEquals(1, beforeExpiry.getCountforCategory("PLACE"));
+
+		counter.advanceTo(370 * SECOND);
+		ParserValues afterExpiry = windows.values.get(5);
+		assertArrayEquals(new long[] { 60 * SECOND, 360 * SECOND}, windows.bounds.get(5));
+		assertEquals(2, afterExpiry.getCountforCategory("PERSON"));
+		assertEquals(0, afterExpiry.getCountforCategory("PLACE"));
+		assertFalse(afterExpiry.getCategoryOrderedList().contains("PLACE Texas"));
+		//The window now moved on to the slides of 120 to 420 seconds, Joe's slide expired too.
+		assertEquals(1, counter.size());
+
+		counter.advanceTo(430 * SECOND);
+		assertEquals(1, windows.values.get(6).getCountforCategory("PERSON"));
+		assertTrue(windows.values.get(6).getCategoryOrderedList().contains("PERSON Bob"));
+	}
+
+	/**
+	 * Test to check the emitted counts are sorted and a line older than the window is dropped
+	 */
+	@Test
+	public void testSliding_sortedAndLateLines() {
+		Windows windows = new Windows();
+		WindowedCategoryCounter counter = new WindowedCategoryCounter(LEGAL_VALUES, 120 * SECOND, 60 * SECOND, windows);
+		counter.add("PLACE Texas", 600 * SECOND);
+		counter.add("ANIMAL Cat", 610 * SECOND);
+		counter.add("ANIMAL Dog", 620 * SECOND);
+		//A late line of the previous slide is still in the window, one of two slides before is not.
+		assertTrue(counter.add("ANIMAL Cow", 590 * SECOND));
+		assertFalse(counter.add("ANIMAL Pig", 530 * SECOND));
+		counter.advanceTo(660 * SECOND);
+
+		ParserValues values = windows.values.get(0);
+		List<String> categories = new ArrayList<>(values.getCategoryCount().keySet());
+		assertEquals("ANIMAL", categories.get(0));
+		assertEquals(3, values.getCountforCategory("ANIMAL"));
+		assertEquals(LEGAL_VALUES.length, categories.size());
+		assertEquals(4, values.getCategoryOrderedList().size());
+	}
+
+	/**
+	 * Test to check a tumbling window starts empty after it ended and windows without lines are not emitted
+	 */
+	@Test
+	public void testTumbling_resetsEveryWindow() {
+		Windows windows = new Windows();
+		WindowedCategoryCounter counter = new WindowedCategoryCounter(LEGAL_VALUES, 60 * SECOND, 60 * SECOND, windows);
+		counter.add("PERSON Bob", 0);
+		counter.add("PERSON Joe", 59 * SECOND);
+		counter.add("PERSON Bob", 61 * SECOND);
+		assertEquals(1, windows.values.size());
+		assertEquals(2, windows.values.get(0).getCountforCategory("PERSON"));
+		assertEquals(1, counter.snapshot().getCountforCategory("PERSON"));
+
+		counter.add("OTHER Thing", 3600 * SECOND);
+		assertEquals(2, windows.values.size());
+		assertArrayEquals(new long[] { 60 * SECOND, 120 * SECOND}, windows.bounds.get(1));
+		assertEquals(1, counter.size());
+	}
+
+	/**
+	 * Test to check the state stays bounded by one window of a feed that never repeats a line
+	 */
+	@Test
+	public void testSliding_boundedByWindow() {
+		WindowedCategoryCounter counter = new WindowedCategoryCounter(LEGAL_VALUES, 10 * SECOND, SECOND, null);
+		for (int i = 0; i < 100000; i++) {
+			counter.add("PERSON name " + i, i * 10L);
+		}
+		//100 lines per second, 10 seconds in the window.
+		assertEquals(1000, counter.size());
+		assertEquals(1000, counter.snapshot().getCountforCategory("PERSON"));
+	}
+
+}